@@ -0,0 +1,98 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+
+import com.mnxfst.basar.tracking.http.converter.ParameterNames;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Provides the sample data shared by all benchmarks: a typical page impression request as sent by a browser and the 
+ * {@link TrackingEvent tracking event} it converts into
+ * @author mnxfst
+ * @since 27.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class BenchmarkFixtures {
+
+	public static final String CONTRACTOR = "contractor2";
+	public static final String PAGE_IMPRESSION_SOURCE = "start";
+	public static final String URI = "/?ev.tp=pi&ev.cr=contractor2&ev.do=webshop&ev.sr=mobile&pv.src=start";
+	
+	/** request headers as sent by a common browser */
+	private static final String[][] HEADERS = {
+		{"Host", "track.example.com"},
+		{"User-Agent", "Mozilla/5.0 (X11; Linux x86_64; rv:25.0) Gecko/20100101 Firefox/25.0"},
+		{"Accept", "image/png,image/*;q=0.8,*/*;q=0.5"},
+		{"Accept-Language", "de-de,de;q=0.8,en-us;q=0.5,en;q=0.3"},
+		{"Referer", "http://www.example.com/start"},
+		{"Cookie", "sid=4a6c2f9e0b1d"}
+	};
+	
+	/** request parameters contained in the uri */
+	private static final String[][] REQUEST_PARAMETERS = {
+		{"ev.tp", "pi"},
+		{"ev.cr", CONTRACTOR},
+		{"ev.do", "webshop"},
+		{"ev.sr", "mobile"},
+		{"pv.src", PAGE_IMPRESSION_SOURCE}
+	};
+
+	private BenchmarkFixtures() {
+	}
+	
+	/**
+	 * Returns the sample request
+	 * @return
+	 */
+	public static HttpRequest httpRequest() {
+		HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, URI);
+		for(String[] header : HEADERS)
+			request.headers().add(header[0], header[1]);
+		return request;
+	}
+	
+	/**
+	 * Returns the tracking event the sample request converts into
+	 * @return
+	 */
+	public static TrackingEvent trackingEvent() {
+		TrackingEvent trackingEvent = new TrackingEvent("pi", "http", CONTRACTOR, "webshop", "mobile", System.currentTimeMillis());
+		addParameters(trackingEvent);
+		return trackingEvent;
+	}
+	
+	/**
+	 * Adds the parameters of the sample request to the given event
+	 * @param trackingEvent
+	 */
+	public static void addParameters(final TrackingEvent trackingEvent) {
+		trackingEvent.addParameter("method", "GET");
+		trackingEvent.addParameter("protocol-version", "HTTP/1.1");
+		trackingEvent.addParameter("uri", URI);
+		for(String[] header : HEADERS)
+			trackingEvent.addParameter(ParameterNames.toLowerCase(header[0]), header[1]);
+		for(String[] requestParameter : REQUEST_PARAMETERS)
+			trackingEvent.addParameter(requestParameter[0], requestParameter[1]);
+	}
+	
+}
@@ -0,0 +1,40 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the provided jmh command-line options (eg. a regular expression matching the 
+ * benchmark names) with the {@link GCProfiler gc profiler} attached, thus each result reports the allocation rate
+ * normalized per operation (<i>gc.alloc.rate.norm</i>, bytes/op) along with the time per operation.
+ * @author mnxfst
+ * @since 27.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+		new Runner(new OptionsBuilder().parent(commandLineOptions).addProfiler(GCProfiler.class).build()).run();
+	}
+	
+}
@@ -0,0 +1,81 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mnxfst.basar.tracking.http.converter.HttpRequestConverter;
+import com.mnxfst.basar.tracking.http.converter.TrackingEventConverter;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Measures the conversion of an inbound {@link HttpRequest http request} into a {@link TrackingEvent tracking event} 
+ * as carried out by the {@link HttpRequestConverter converter actors} and the ingest consumers. The query string
+ * decoding is measured separately as it accounts for a major share of the conversion
+ * @author mnxfst
+ * @since 27.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpRequestConversionBenchmark {
+
+	private final TrackingEventConverter converter = new TrackingEventConverter();
+	private HttpRequestMessage requestMessage;
+	
+	@Setup
+	public void setup() {
+		requestMessage = new HttpRequestMessage(BenchmarkFixtures.httpRequest(), "http", System.currentTimeMillis());
+	}
+	
+	/**
+	 * Full conversion: query string, headers and request parameters
+	 */
+	@Benchmark
+	public TrackingEvent convert() {
+		return converter.convert(requestMessage);
+	}
+	
+	/**
+	 * Query string decoding only
+	 */
+	@Benchmark
+	public Object decodeQueryString() {
+		return new QueryStringDecoder(requestMessage.getRequest().getUri()).parameters();
+	}
+	
+}
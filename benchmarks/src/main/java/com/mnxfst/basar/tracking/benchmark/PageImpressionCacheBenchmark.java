@@ -0,0 +1,101 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+import com.mnxfst.basar.tracking.metric.pi.PageImpression;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionCacheWriter;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionCodec;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionWriteMessage;
+
+/**
+ * Measures the cache related work carried out by the {@link PageImpressionCacheWriter page impression cache writer} 
+ * per message: calculating the cache key and encoding/decoding {@link PageImpression page impressions}. Compact encoding
+ * is compared against default java serialization
+ * @author mnxfst
+ * @since 27.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class PageImpressionCacheBenchmark {
+
+	private final CompactValueTranscoder compactTranscoder = new CompactValueTranscoder(new PageImpressionCodec());
+	private final SerializingTranscoder serializingTranscoder = new SerializingTranscoder();
+	private PageImpression pageImpression;
+	/** read from non-final fields, thus the key calculation cannot be folded into constants */
+	private String contractor;
+	private String source;
+	private CachedData compactData;
+	private CachedData serializedData;
+	
+	@Setup
+	public void setup() {
+		contractor = BenchmarkFixtures.CONTRACTOR;
+		source = BenchmarkFixtures.PAGE_IMPRESSION_SOURCE;
+		pageImpression = new PageImpression(BenchmarkFixtures.CONTRACTOR, BenchmarkFixtures.PAGE_IMPRESSION_SOURCE, 4711);
+		compactData = compactTranscoder.encode(pageImpression);
+		serializedData = serializingTranscoder.encode(pageImpression);
+	}
+	
+	@Benchmark
+	public String calculateCacheKey() {
+		return PageImpressionWriteMessage.calculateCacheKey(contractor, source);
+	}
+	
+	@Benchmark
+	public CachedData encodeCompact() {
+		return compactTranscoder.encode(pageImpression);
+	}
+	
+	@Benchmark
+	public Object decodeCompact() {
+		return compactTranscoder.decode(compactData);
+	}
+	
+	@Benchmark
+	public CachedData encodeSerialized() {
+		return serializingTranscoder.encode(pageImpression);
+	}
+	
+	@Benchmark
+	public Object decodeSerialized() {
+		return serializingTranscoder.decode(serializedData);
+	}
+	
+}
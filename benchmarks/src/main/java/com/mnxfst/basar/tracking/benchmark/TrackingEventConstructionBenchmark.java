@@ -0,0 +1,66 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Measures the construction of a {@link TrackingEvent tracking event} including all parameters of a typical request
+ * @author mnxfst
+ * @since 27.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TrackingEventConstructionBenchmark {
+
+	/**
+	 * Empty event, fields only
+	 */
+	@Benchmark
+	public TrackingEvent construct() {
+		return new TrackingEvent("pi", "http", BenchmarkFixtures.CONTRACTOR, "webshop", "mobile", System.currentTimeMillis());
+	}
+	
+	/**
+	 * Event carrying all headers and request parameters
+	 */
+	@Benchmark
+	public TrackingEvent constructAndAddParameters() {
+		TrackingEvent trackingEvent = new TrackingEvent("pi", "http", BenchmarkFixtures.CONTRACTOR, "webshop", "mobile", System.currentTimeMillis());
+		BenchmarkFixtures.addParameters(trackingEvent);
+		return trackingEvent;
+	}
+	
+}
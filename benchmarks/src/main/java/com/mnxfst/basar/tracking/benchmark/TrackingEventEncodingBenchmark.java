@@ -0,0 +1,88 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.allanbank.mongodb.bson.Document;
+import com.allanbank.mongodb.bson.builder.BuilderFactory;
+import com.allanbank.mongodb.bson.builder.DocumentBuilder;
+import com.allanbank.mongodb.bson.json.Json;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mnxfst.basar.tracking.event.TrackingEventDocumentEncoder;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Compares the former json round-trip (jackson serialization followed by {@link Json#parse(String)}) against the
+ * direct {@link TrackingEventDocumentEncoder encoding} of a {@link TrackingEvent tracking event} into a BSON document
+ * @author mnxfst
+ * @since 18.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TrackingEventEncodingBenchmark {
+
+	private final ObjectMapper trackingEventMapper = new ObjectMapper();
+	private final TrackingEventDocumentEncoder trackingEventEncoder = new TrackingEventDocumentEncoder();
+	private TrackingEvent trackingEvent;
+
+	@Setup
+	public void setup() {
+		trackingEvent = BenchmarkFixtures.trackingEvent();
+	}
+
+	/**
+	 * Former path: event to json string to document
+	 */
+	@Benchmark
+	public Document jsonRoundTrip() throws IOException {
+		StringWriter stringWriter = new StringWriter();
+		trackingEventMapper.writeValue(stringWriter, trackingEvent);
+		DocumentBuilder documentBuilder = BuilderFactory.start(Json.parse(stringWriter.toString()));
+		documentBuilder.add(TrackingEventDocumentEncoder.DOC_FIELD_TIME, new Date(trackingEvent.getTimestamp()));
+		return documentBuilder.build();
+	}
+
+	/**
+	 * Current path: event directly to document
+	 */
+	@Benchmark
+	public Document directEncoding() {
+		return trackingEventEncoder.encode(trackingEvent);
+	}
+
+}
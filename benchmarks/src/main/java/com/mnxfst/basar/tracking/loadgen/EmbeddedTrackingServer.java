@@ -0,0 +1,137 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.loadgen;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import jmockmongo.MockMongo;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.mnxfst.basar.tracking.BasarTrackingServer;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerCacheConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerConfiguration;
+
+/**
+ * Runs a {@link BasarTrackingServer tracking server} inside the jvm of the {@link LoadGenerator load generator}, thus 
+ * the full pipeline can be put under load without any external infrastructure. The server is read from the provided 
+ * configuration but talks to local stand-ins:
+ * <ul>
+ *   <li>mongodb: {@link MockMongo} listening on localhost:27017</li>
+ *   <li>memcached: jmemcached daemon started by the cache root ({@link BasarTrackingServerCacheConfigElement#BACKEND_LOCAL_DAEMON LOCAL_DAEMON} backend)</li>
+ * </ul>
+ * Numbers measured this way cover the http layer and the actor pipeline, but not the latencies of real backends. 
+ * @author mnxfst
+ * @since 28.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class EmbeddedTrackingServer {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(EmbeddedTrackingServer.class);
+	
+	/** address the mock mongodb listens to */
+	public static final String MOCK_MONGO_SERVER = "localhost:27017";
+	
+	/** server configuration */
+	private final BasarTrackingServerConfiguration configuration;
+	/** mongodb stand-in */
+	private MockMongo mockMongo = null;
+	/** runs the server */
+	private Thread serverThread = null;
+	
+	/**
+	 * Initializes the embedded server using the provided input
+	 * @param configuration
+	 */
+	public EmbeddedTrackingServer(final BasarTrackingServerConfiguration configuration) {
+		this.configuration = configuration;
+		
+		List<String> databaseServers = new ArrayList<>();
+		databaseServers.add(MOCK_MONGO_SERVER);
+		this.configuration.setDatabaseServers(databaseServers);
+		this.configuration.getCache().setBackend(BasarTrackingServerCacheConfigElement.BACKEND_LOCAL_DAEMON);
+	}
+	
+	/**
+	 * Reads the server configuration from the given file
+	 * @param configurationFile
+	 * @return
+	 * @throws IOException
+	 */
+	public static EmbeddedTrackingServer fromFile(final File configurationFile) throws IOException {
+		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+		return new EmbeddedTrackingServer(mapper.readValue(configurationFile, BasarTrackingServerConfiguration.class));
+	}
+	
+	/**
+	 * Starts the stand-ins and the server and waits until the server accepts connections
+	 * @param timeoutMillis
+	 * @throws Exception
+	 */
+	public void start(final long timeoutMillis) throws Exception {
+		
+		mockMongo = new MockMongo();
+		mockMongo.start();
+		
+		serverThread = new Thread(new Runnable() {
+			public void run() {
+				try {
+					new BasarTrackingServer().run(configuration);
+				} catch(Exception e) {
+					logger.error("Embedded tracking server failed: " + e.getMessage(), e);
+				}
+			}
+		}, "embedded-tracking-server");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		
+		// the server binds its port after the actor system has been set up
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while(System.currentTimeMillis() < deadline) {
+			try(Socket socket = new Socket()) {
+				socket.connect(new InetSocketAddress("localhost", configuration.getPort()), 100);
+				logger.info("Embedded tracking server started [port="+configuration.getPort()+"]");
+				return;
+			} catch(IOException e) {
+				Thread.sleep(100);
+			}
+		}
+		throw new IllegalStateException("Embedded tracking server did not start within " + timeoutMillis + "ms");
+	}
+	
+	/**
+	 * Stops the mongodb stand-in. The server thread is a daemon and terminates along with the jvm
+	 */
+	public void stop() {
+		if(mockMongo != null)
+			mockMongo.stop();
+	}
+	
+	public int getPort() {
+		return configuration.getPort();
+	}
+	
+}
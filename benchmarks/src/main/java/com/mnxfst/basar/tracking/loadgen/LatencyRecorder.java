@@ -0,0 +1,161 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.loadgen;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records response times of the {@link LoadGenerator load generator} in microseconds. Each response is recorded twice:
+ * <ul>
+ *   <li><i>corrected</i>: measured from the time the request was scheduled to be sent according to the target rate</li>
+ *   <li><i>uncorrected</i>: measured from the time the request was actually written</li>
+ * </ul>
+ * If the server stalls, requests pile up behind the stall while waiting to be sent. The uncorrected times hide this
+ * wait (coordinated omission), the corrected ones include it, thus they represent what a client sending at the target 
+ * rate would experience. Requests scheduled before the end of the warm-up are not recorded.<br/><br/>
+ * Recording is thread-safe, reporting must be carried out by a single thread.
+ * @author mnxfst
+ * @since 28.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class LatencyRecorder {
+
+	private static final int SIGNIFICANT_DIGITS = 3;
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+	
+	/** response times measured from scheduled start */
+	private final Recorder correctedRecorder = new Recorder(SIGNIFICANT_DIGITS);
+	/** response times measured from actual start */
+	private final Recorder uncorrectedRecorder = new Recorder(SIGNIFICANT_DIGITS);
+	/** all corrected response times since end of warm-up */
+	private final Histogram correctedTotal = new Histogram(SIGNIFICANT_DIGITS);
+	/** all uncorrected response times since end of warm-up */
+	private final Histogram uncorrectedTotal = new Histogram(SIGNIFICANT_DIGITS);
+	/** requests scheduled before this time are not recorded, nothing is recorded until set */
+	private volatile long measureFromNanos = Long.MAX_VALUE;
+	
+	/** responses with status 2xx */
+	private final AtomicLong successful = new AtomicLong(0);
+	/** responses with status 503, ie. rejected by the overload protection */
+	private final AtomicLong rejected = new AtomicLong(0);
+	/** responses with any other status */
+	private final AtomicLong failed = new AtomicLong(0);
+	/** requests lost due to closed connections or not answered at all */
+	private final AtomicLong lost = new AtomicLong(0);
+	
+	/** reused by interval reports */
+	private Histogram correctedInterval = null;
+	private Histogram uncorrectedInterval = null;
+	
+	/**
+	 * Records all requests scheduled from the given time on, ie. after the warm-up
+	 * @param measureFromNanos
+	 */
+	public void measureFrom(final long measureFromNanos) {
+		this.measureFromNanos = measureFromNanos;
+	}
+	
+	/**
+	 * Records a response
+	 * @param scheduledNanos time the request was scheduled for
+	 * @param sentNanos time the request was written
+	 * @param receivedNanos time the response was received
+	 * @param status
+	 */
+	public void recordResponse(final long scheduledNanos, final long sentNanos, final long receivedNanos, final int status) {
+		if(scheduledNanos < measureFromNanos)
+			return;
+		
+		correctedRecorder.recordValue(TimeUnit.NANOSECONDS.toMicros(receivedNanos - scheduledNanos));
+		uncorrectedRecorder.recordValue(TimeUnit.NANOSECONDS.toMicros(receivedNanos - sentNanos));
+		if(status >= 200 && status < 300)
+			successful.incrementAndGet();
+		else if(status == 503)
+			rejected.incrementAndGet();
+		else
+			failed.incrementAndGet();
+	}
+	
+	/**
+	 * Records a request which did not receive any response. As its actual response time is unknown, the time passed
+	 * since it was scheduled is recorded as lower bound
+	 * @param scheduledNanos
+	 * @param nowNanos
+	 */
+	public void recordLost(final long scheduledNanos, final long nowNanos) {
+		if(scheduledNanos < measureFromNanos)
+			return;
+		correctedRecorder.recordValue(TimeUnit.NANOSECONDS.toMicros(nowNanos - scheduledNanos));
+		lost.incrementAndGet();
+	}
+	
+	/**
+	 * Prints the response times recorded since the previous call and adds them to the totals
+	 * @param out
+	 * @param elapsedSeconds
+	 */
+	public void reportInterval(final PrintStream out, final long elapsedSeconds) {
+		correctedInterval = correctedRecorder.getIntervalHistogram(correctedInterval);
+		uncorrectedInterval = uncorrectedRecorder.getIntervalHistogram(uncorrectedInterval);
+		correctedTotal.add(correctedInterval);
+		uncorrectedTotal.add(uncorrectedInterval);
+		
+		out.println(String.format("%6ds  responses=%-8d p50=%-10s p99=%-10s max=%-10s (uncorrected p99=%s)",
+				elapsedSeconds, correctedInterval.getTotalCount(), formatMicros(correctedInterval.getValueAtPercentile(50)), 
+				formatMicros(correctedInterval.getValueAtPercentile(99)), formatMicros(correctedInterval.getMaxValue()),
+				formatMicros(uncorrectedInterval.getValueAtPercentile(99))));
+	}
+	
+	/**
+	 * Prints the summary of all response times recorded since the end of the warm-up
+	 * @param out
+	 * @param measuredSeconds
+	 */
+	public void reportSummary(final PrintStream out, final double measuredSeconds) {
+		out.println();
+		out.println(String.format("responses: %d ok, %d rejected (503), %d failed, %d lost, %.1f responses/s",
+				successful.get(), rejected.get(), failed.get(), lost.get(), correctedTotal.getTotalCount() / Math.max(measuredSeconds, 0.001)));
+		out.println(String.format("%-12s %12s %12s", "percentile", "corrected", "uncorrected"));
+		for(double percentile : PERCENTILES)
+			out.println(String.format("%-12s %12s %12s", percentile, formatMicros(correctedTotal.getValueAtPercentile(percentile)), formatMicros(uncorrectedTotal.getValueAtPercentile(percentile))));
+		out.println(String.format("%-12s %12s %12s", "max", formatMicros(correctedTotal.getMaxValue()), formatMicros(uncorrectedTotal.getMaxValue())));
+	}
+	
+	/**
+	 * Writes the corrected percentile distribution in milliseconds, eg. for plotting it with the HdrHistogram tools
+	 * @param out
+	 */
+	public void writeDistribution(final PrintStream out) {
+		correctedTotal.outputPercentileDistribution(out, 1000.0);
+	}
+	
+	/**
+	 * Formats the given number of microseconds as milliseconds
+	 * @param micros
+	 * @return
+	 */
+	protected static String formatMicros(final long micros) {
+		return String.format("%.3fms", micros / 1000.0);
+	}
+	
+}
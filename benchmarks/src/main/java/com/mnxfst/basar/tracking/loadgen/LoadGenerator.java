@@ -0,0 +1,270 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.loadgen;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.PosixParser;
+
+/**
+ * Replays pixel requests against a tracking server at a fixed target rate over a number of keep-alive connections and
+ * reports response time percentiles corrected for coordinated omission (see {@link LatencyRecorder}). Requests are 
+ * scheduled on a fixed timeline and spread round-robin among the connections, thus a stalling server does not 
+ * reduce the offered load but shows up as increased response times.<br/><br/>
+ * Run: <code>java -cp target/benchmarks.jar com.mnxfst.basar.tracking.loadgen.LoadGenerator [options]</code>, see
+ * the command-line help for available options. With <i>-e &lt;config&gt;</i> the server is started inside the jvm
+ * using local stand-ins for mongodb and memcached (see {@link EmbeddedTrackingServer}).
+ * @author mnxfst
+ * @since 28.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class LoadGenerator {
+
+	/** time to wait for outstanding responses after the last request has been sent */
+	private static final long DRAIN_TIMEOUT_MILLIS = 5000;
+	
+	private final String host;
+	private final int port;
+	/** target rate, requests per second */
+	private final int rate;
+	/** number of keep-alive connections */
+	private final int numConnections;
+	private final int warmupSeconds;
+	private final int durationSeconds;
+	private final RequestSource requestSource;
+	private final LatencyRecorder latencyRecorder = new LatencyRecorder();
+	
+	/**
+	 * Initializes the load generator using the provided input
+	 * @param host
+	 * @param port
+	 * @param rate
+	 * @param numConnections
+	 * @param warmupSeconds
+	 * @param durationSeconds
+	 * @param requestSource
+	 */
+	public LoadGenerator(final String host, final int port, final int rate, final int numConnections, final int warmupSeconds, final int durationSeconds, final RequestSource requestSource) {
+		this.host = host;
+		this.port = port;
+		this.rate = Math.max(1, rate);
+		this.numConnections = Math.max(1, numConnections);
+		this.warmupSeconds = Math.max(0, warmupSeconds);
+		this.durationSeconds = Math.max(1, durationSeconds);
+		this.requestSource = requestSource;
+	}
+	
+	/**
+	 * Opens the connections, sends requests at the target rate for warm-up and measurement period and prints the results
+	 * @param out
+	 * @return recorder holding the measured response times
+	 * @throws Exception
+	 */
+	public LatencyRecorder run(final PrintStream out) throws Exception {
+		
+		EventLoopGroup group = new NioEventLoopGroup();
+		ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+		try {
+			Bootstrap bootstrap = new Bootstrap();
+			bootstrap.group(group)
+				.channel(NioSocketChannel.class)
+				.option(ChannelOption.TCP_NODELAY, true)
+				.handler(new ChannelInitializer<SocketChannel>() {
+					protected void initChannel(SocketChannel ch) throws Exception {
+						ch.pipeline().addLast("codec", new HttpClientCodec());
+						ch.pipeline().addLast("handler", new LoadGeneratorHandler(latencyRecorder));
+					}
+				});
+			
+			final Channel[] channels = new Channel[numConnections];
+			final LoadGeneratorHandler[] handlers = new LoadGeneratorHandler[numConnections];
+			for(int i = 0; i < numConnections; i++) {
+				channels[i] = bootstrap.connect(host, port).sync().channel();
+				handlers[i] = channels[i].pipeline().get(LoadGeneratorHandler.class);
+			}
+			out.println("Sending " + rate + " requests/s to " + host + ":" + port + " over " + numConnections + " connections [warm-up=" + warmupSeconds + "s, duration=" + durationSeconds + "s, uris=" + requestSource.size() + "]");
+			
+			final long startNanos = System.nanoTime();
+			final long measureFromNanos = startNanos + TimeUnit.SECONDS.toNanos(warmupSeconds);
+			final long endNanos = measureFromNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+			latencyRecorder.measureFrom(measureFromNanos);
+			
+			reporter.scheduleAtFixedRate(new Runnable() {
+				public void run() {
+					long elapsedSeconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+					if(elapsedSeconds > warmupSeconds)
+						latencyRecorder.reportInterval(out, elapsedSeconds);
+				}
+			}, warmupSeconds + 1, 1, TimeUnit.SECONDS);
+			
+			// requests are scheduled on a fixed timeline. if sending falls behind, the following requests are sent 
+			// immediately but keep their scheduled time, thus the delay is accounted for
+			final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / (double)rate;
+			for(long sequence = 0; ; sequence++) {
+				final long scheduledNanos = startNanos + (long)(sequence * intervalNanos);
+				if(scheduledNanos >= endNanos)
+					break;
+				
+				long now = System.nanoTime();
+				while(now < scheduledNanos) {
+					LockSupport.parkNanos(scheduledNanos - now);
+					now = System.nanoTime();
+				}
+				
+				final int connection = (int)(sequence % numConnections);
+				final LoadGeneratorHandler handler = handlers[connection];
+				channels[connection].eventLoop().execute(new Runnable() {
+					public void run() {
+						handler.send(requestSource.nextRequest(), scheduledNanos);
+					}
+				});
+			}
+			
+			// wait for outstanding responses, requests still pending afterwards are recorded as lost
+			final long drainDeadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+			while(countPendingRequests(channels, handlers) > 0 && System.currentTimeMillis() < drainDeadline)
+				Thread.sleep(10);
+			for(int i = 0; i < numConnections; i++) {
+				final LoadGeneratorHandler handler = handlers[i];
+				channels[i].eventLoop().submit(new Runnable() {
+					public void run() {
+						handler.abandonPendingRequests();
+					}
+				}).sync();
+			}
+			
+			reporter.shutdown();
+			reporter.awaitTermination(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+			latencyRecorder.reportInterval(out, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+			latencyRecorder.reportSummary(out, durationSeconds);
+			
+			for(Channel channel : channels)
+				channel.close().sync();
+		} finally {
+			reporter.shutdownNow();
+			group.shutdownGracefully();
+		}
+		return latencyRecorder;
+	}
+	
+	/**
+	 * Returns the number of requests waiting for their responses. The handlers are queried on their event loops
+	 * @param channels
+	 * @param handlers
+	 * @return
+	 * @throws Exception
+	 */
+	protected int countPendingRequests(final Channel[] channels, final LoadGeneratorHandler[] handlers) throws Exception {
+		int pending = 0;
+		for(int i = 0; i < channels.length; i++) {
+			final LoadGeneratorHandler handler = handlers[i];
+			pending = pending + channels[i].eventLoop().submit(new Callable<Integer>() {
+				public Integer call() throws Exception {
+					return handler.getNumPendingRequests();
+				}
+			}).get();
+		}
+		return pending;
+	}
+	
+	/**
+	 * Ramps up the load generator
+	 * @param args
+	 * @throws Exception
+	 */
+	@SuppressWarnings("static-access")
+	public static void main(String[] args) throws Exception {
+		
+		Options options = new Options();
+		options.addOption(OptionBuilder.withArgName("host").hasArg().withDescription("server host. default: localhost").create("h"));
+		options.addOption(OptionBuilder.withArgName("port").hasArg().withDescription("server port. default: 8080 or the port of the embedded server").create("p"));
+		options.addOption(OptionBuilder.withArgName("rate").hasArg().withDescription("target rate, requests per second. default: 1000").create("r"));
+		options.addOption(OptionBuilder.withArgName("connections").hasArg().withDescription("number of keep-alive connections. default: 16").create("c"));
+		options.addOption(OptionBuilder.withArgName("seconds").hasArg().withDescription("warm-up, not measured. default: 10").create("w"));
+		options.addOption(OptionBuilder.withArgName("seconds").hasArg().withDescription("measurement period. default: 60").create("d"));
+		options.addOption(OptionBuilder.withArgName("file").hasArg().withDescription("file holding recorded pixel urls, one per line. default: synthetic requests").create("u"));
+		options.addOption(OptionBuilder.withArgName("contractors").hasArg().withDescription("comma-separated contractors of synthetic requests. default: contractor1,contractor2").create("t"));
+		options.addOption(OptionBuilder.withArgName("file").hasArg().withDescription("start an embedded server using the given configuration and local stand-ins for mongodb and memcached").create("e"));
+		options.addOption(OptionBuilder.withArgName("file").hasArg().withDescription("write the corrected percentile distribution (hgrm format) to the given file").create("o"));
+		options.addOption("?", false, "print this help");
+		
+		CommandLineParser clParser = new PosixParser();
+		CommandLine cl = clParser.parse(options, args);
+		if(cl.hasOption("?")) {
+			new HelpFormatter().printHelp("LoadGenerator", options);
+			return;
+		}
+		
+		EmbeddedTrackingServer embeddedServer = null;
+		if(cl.hasOption("e")) {
+			embeddedServer = EmbeddedTrackingServer.fromFile(new File(cl.getOptionValue("e")));
+			embeddedServer.start(30000);
+		}
+		
+		try {
+			String host = cl.getOptionValue("h", "localhost");
+			int port = Integer.parseInt(cl.getOptionValue("p", String.valueOf(embeddedServer != null ? embeddedServer.getPort() : 8080)));
+			
+			RequestSource requestSource = null;
+			if(cl.hasOption("u"))
+				requestSource = RequestSource.recorded(new File(cl.getOptionValue("u")), host);
+			else
+				requestSource = RequestSource.synthetic(Arrays.asList(cl.getOptionValue("t", "contractor1,contractor2").split(",")), host, 42);
+			
+			LoadGenerator loadGenerator = new LoadGenerator(host, port, Integer.parseInt(cl.getOptionValue("r", "1000")), Integer.parseInt(cl.getOptionValue("c", "16")), 
+					Integer.parseInt(cl.getOptionValue("w", "10")), Integer.parseInt(cl.getOptionValue("d", "60")), requestSource);
+			LatencyRecorder latencyRecorder = loadGenerator.run(System.out);
+			
+			if(cl.hasOption("o")) {
+				try(PrintStream distribution = new PrintStream(new FileOutputStream(cl.getOptionValue("o")))) {
+					latencyRecorder.writeDistribution(distribution);
+				}
+			}
+		} finally {
+			if(embeddedServer != null)
+				embeddedServer.stop();
+		}
+		
+		// actor system and event loops of the embedded server do not run on daemon threads
+		System.exit(0);
+	}
+	
+}
@@ -0,0 +1,126 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.loadgen;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+
+import java.util.ArrayDeque;
+
+/**
+ * Sends the requests of a single keep-alive connection and records the response times. Requests are pipelined, thus
+ * a slow response delays all requests scheduled behind it on the same connection, just like a browser waiting for 
+ * a free connection. All methods must be invoked by the event loop of the connection.
+ * @author mnxfst
+ * @since 28.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class LoadGeneratorHandler extends SimpleChannelInboundHandler<HttpObject> {
+
+	/** records response times */
+	private final LatencyRecorder latencyRecorder;
+	/** scheduled and actual start of requests waiting for their responses, in order of sending */
+	private final ArrayDeque<long[]> pendingRequests = new ArrayDeque<>();
+	/** context of the connection, set when the handler is added */
+	private ChannelHandlerContext ctx = null;
+	/** status of the response currently received */
+	private int status = 0;
+	
+	/**
+	 * Initializes the handler using the provided input
+	 * @param latencyRecorder
+	 */
+	public LoadGeneratorHandler(final LatencyRecorder latencyRecorder) {
+		this.latencyRecorder = latencyRecorder;
+	}
+	
+	/**
+	 * @see io.netty.channel.ChannelHandlerAdapter#handlerAdded(io.netty.channel.ChannelHandlerContext)
+	 */
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		this.ctx = ctx;
+	}
+	
+	/**
+	 * Sends the provided request or records it as lost if the connection has been closed
+	 * @param request
+	 * @param scheduledNanos time the request was scheduled for
+	 */
+	public void send(final FullHttpRequest request, final long scheduledNanos) {
+		if(ctx == null || !ctx.channel().isActive()) {
+			request.release();
+			latencyRecorder.recordLost(scheduledNanos, System.nanoTime());
+			return;
+		}
+		pendingRequests.add(new long[]{scheduledNanos, System.nanoTime()});
+		ctx.writeAndFlush(request);
+	}
+	
+	/**
+	 * @see io.netty.channel.SimpleChannelInboundHandler#channelRead0(io.netty.channel.ChannelHandlerContext, java.lang.Object)
+	 */
+	protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+		if(msg instanceof HttpResponse)
+			status = ((HttpResponse)msg).getStatus().code();
+		if(msg instanceof LastHttpContent) {
+			long[] pendingRequest = pendingRequests.poll();
+			if(pendingRequest != null)
+				latencyRecorder.recordResponse(pendingRequest[0], pendingRequest[1], System.nanoTime(), status);
+			status = 0;
+		}
+	}
+	
+	/**
+	 * Records all pending requests as lost
+	 * @see io.netty.channel.ChannelInboundHandlerAdapter#channelInactive(io.netty.channel.ChannelHandlerContext)
+	 */
+	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+		abandonPendingRequests();
+		super.channelInactive(ctx);
+	}
+	
+	/**
+	 * @see io.netty.channel.ChannelInboundHandlerAdapter#exceptionCaught(io.netty.channel.ChannelHandlerContext, java.lang.Throwable)
+	 */
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+		ctx.close();
+	}
+	
+	/**
+	 * Records all requests still waiting for their responses as lost
+	 */
+	public void abandonPendingRequests() {
+		final long now = System.nanoTime();
+		long[] pendingRequest = null;
+		while((pendingRequest = pendingRequests.poll()) != null)
+			latencyRecorder.recordLost(pendingRequest[0], now);
+	}
+	
+	/**
+	 * Returns the number of requests waiting for their responses
+	 * @return
+	 */
+	public int getNumPendingRequests() {
+		return pendingRequests.size();
+	}
+	
+}
@@ -0,0 +1,175 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.loadgen;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Provides the pixel requests replayed by the {@link LoadGenerator load generator}. The request uris are either read 
+ * from a file holding recorded urls (one per line, absolute or path and query only) or generated up front from the 
+ * tracking parameters (ev.tp, ev.cr, ev.do, ev.sr, pv.src). Page impression sources are skewed towards few popular 
+ * pages as observed on real sites. Requests carry the headers a browser sends along with a pixel request.<br/><br/>
+ * The uris are replayed round-robin, thus requesting the next one does not involve any randomness. Instances are thread-safe.
+ * @author mnxfst
+ * @since 28.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RequestSource {
+
+	/** number of uris generated for synthetic traffic */
+	public static final int DEFAULT_NUM_SYNTHETIC_URIS = 10000;
+	/** number of distinct page impression sources of synthetic traffic */
+	public static final int DEFAULT_NUM_PAGES = 1000;
+	
+	private static final String[] DOMAINS = {"webshop", "magazine", "app"};
+	private static final String[] SOURCES = {"desktop", "mobile", "tablet"};
+	private static final String[] USER_AGENTS = {
+		"Mozilla/5.0 (Windows NT 6.1; WOW64; rv:25.0) Gecko/20100101 Firefox/25.0",
+		"Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/31.0.1650.57 Safari/537.36",
+		"Mozilla/5.0 (Macintosh; Intel Mac OS X 10_9) AppleWebKit/537.71 (KHTML, like Gecko) Version/7.0 Safari/537.71",
+		"Mozilla/5.0 (iPhone; CPU iPhone OS 7_0_4 like Mac OS X) AppleWebKit/537.51.1 (KHTML, like Gecko) Version/7.0 Mobile/11B554a Safari/9537.53",
+		"Mozilla/5.0 (Linux; Android 4.3; Nexus 7 Build/JSS15Q) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/31.0.1650.59 Safari/537.36",
+		"Mozilla/5.0 (compatible; MSIE 10.0; Windows NT 6.2; Trident/6.0)"
+	};
+	
+	/** request uris (path and query) */
+	private final String[] uris;
+	/** index of next uri */
+	private final AtomicLong next = new AtomicLong(0);
+	/** value of host header */
+	private final String host;
+	
+	/**
+	 * Initializes the source using the provided input
+	 * @param uris
+	 * @param host
+	 */
+	public RequestSource(final List<String> uris, final String host) {
+		if(uris == null || uris.isEmpty())
+			throw new IllegalArgumentException("Missing required request uris");
+		this.uris = uris.toArray(new String[uris.size()]);
+		this.host = host;
+	}
+	
+	/**
+	 * Returns a source generating synthetic page impressions for the given contractors
+	 * @param contractors
+	 * @param host
+	 * @param seed
+	 * @return
+	 */
+	public static RequestSource synthetic(final List<String> contractors, final String host, final long seed) {
+		Random random = new Random(seed);
+		List<String> uris = new ArrayList<>(DEFAULT_NUM_SYNTHETIC_URIS);
+		for(int i = 0; i < DEFAULT_NUM_SYNTHETIC_URIS; i++) {
+			// squaring a uniform value skews the page index towards the first pages
+			double skew = random.nextDouble();
+			int page = (int)(skew * skew * DEFAULT_NUM_PAGES);
+			uris.add("/?ev.tp=pi" +
+					"&ev.cr=" + contractors.get(random.nextInt(contractors.size())) +
+					"&ev.do=" + DOMAINS[random.nextInt(DOMAINS.length)] +
+					"&ev.sr=" + SOURCES[random.nextInt(SOURCES.length)] +
+					"&pv.src=page" + page);
+		}
+		return new RequestSource(uris, host);
+	}
+	
+	/**
+	 * Returns a source replaying the urls found in the given file. Empty lines and lines starting with # are ignored
+	 * @param file
+	 * @param host
+	 * @return
+	 * @throws IOException
+	 */
+	public static RequestSource recorded(final File file, final String host) throws IOException {
+		List<String> uris = new ArrayList<>();
+		try(BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+			String line = null;
+			while((line = reader.readLine()) != null) {
+				line = line.trim();
+				if(!line.isEmpty() && !line.startsWith("#"))
+					uris.add(toRequestUri(line));
+			}
+		}
+		return new RequestSource(uris, host);
+	}
+	
+	/**
+	 * Reduces an absolute url to path and query
+	 * @param url
+	 * @return
+	 * @throws IOException
+	 */
+	protected static String toRequestUri(final String url) throws IOException {
+		if(url.startsWith("/"))
+			return url;
+		try {
+			URI uri = new URI(url);
+			String path = (uri.getRawPath() != null && !uri.getRawPath().isEmpty() ? uri.getRawPath() : "/");
+			return (uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path);
+		} catch(URISyntaxException e) {
+			throw new IOException("Invalid url: " + url, e);
+		}
+	}
+	
+	/**
+	 * Returns the next request
+	 * @return
+	 */
+	public FullHttpRequest nextRequest() {
+		
+		final int idx = (int)(next.getAndIncrement() % uris.length);
+		FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uris[idx], Unpooled.EMPTY_BUFFER);
+		HttpHeaders headers = request.headers();
+		headers.set(HttpHeaders.Names.HOST, host);
+		headers.set(HttpHeaders.Names.USER_AGENT, USER_AGENTS[idx % USER_AGENTS.length]);
+		headers.set(HttpHeaders.Names.ACCEPT, "image/png,image/*;q=0.8,*/*;q=0.5");
+		headers.set(HttpHeaders.Names.ACCEPT_LANGUAGE, "de-de,de;q=0.8,en-us;q=0.5,en;q=0.3");
+		headers.set(HttpHeaders.Names.ACCEPT_ENCODING, "gzip, deflate");
+		headers.set(HttpHeaders.Names.REFERER, "http://www.example.com/");
+		headers.set(HttpHeaders.Names.COOKIE, "sid=" + Integer.toHexString(idx));
+		return request;
+	}
+	
+	/**
+	 * Returns the number of distinct uris
+	 * @return
+	 */
+	public int size() {
+		return uris.length;
+	}
+	
+}
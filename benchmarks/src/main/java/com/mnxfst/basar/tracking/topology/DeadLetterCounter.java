@@ -0,0 +1,67 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import akka.actor.ActorPath;
+import akka.actor.DeadLetter;
+import akka.actor.UntypedActor;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Counts the requests and tracking events dropped by bounded mailboxes on their way to the {@link TrackingEventSink tracking 
+ * event sinks}. Copies of tracking events sent to metric handlers are ignored as the original still reaches the sinks.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class DeadLetterCounter extends UntypedActor {
+
+	/** collects the outcome */
+	private final TopologyResults results;
+	/** parent of all metric handlers, ie. the gateway */
+	private final ActorPath metricHandlersParentPath;
+	
+	/**
+	 * Initializes the counter using the provided input
+	 * @param results
+	 * @param metricHandlersParentPath
+	 */
+	public DeadLetterCounter(final TopologyResults results, final ActorPath metricHandlersParentPath) {
+		this.results = results;
+		this.metricHandlersParentPath = metricHandlersParentPath;
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		if(message instanceof DeadLetter) {
+			DeadLetter deadLetter = (DeadLetter)message;
+			if(deadLetter.message() instanceof HttpRequestMessage) {
+				results.recordDroppedEvent();
+			} else if(deadLetter.message() instanceof TrackingEvent && !metricHandlersParentPath.equals(deadLetter.recipient().path().parent())) {
+				results.recordDroppedEvent();
+			}
+		} else {
+			unhandled(message);
+		}
+	}
+
+}
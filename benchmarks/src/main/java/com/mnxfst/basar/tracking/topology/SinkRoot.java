@@ -0,0 +1,111 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.UntypedActor;
+
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterMessage;
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterSuccessMessage;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerDispatchersConfigElement;
+import com.mnxfst.basar.tracking.db.message.RegisterDatabaseWriterMessage;
+import com.mnxfst.basar.tracking.db.message.RegisterDatabaseWriterSuccessMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Takes the place of both the {@link com.mnxfst.basar.tracking.db.DatabaseRoot database root} and the 
+ * {@link com.mnxfst.basar.tracking.cache.CacheRoot cache root}: tracking events are forwarded to routed 
+ * {@link TrackingEventSink tracking event sinks}, writer registrations are answered with routed {@link PageImpressionSink 
+ * page impression sinks}. The writer router and the number of tracking event sinks are taken from the topology, the
+ * number of page impression sinks from the registration message.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class SinkRoot extends UntypedActor {
+
+	/** topology under test */
+	private final TopologyConfigElement topology;
+	/** collects the outcome */
+	private final TopologyResults results;
+	/** tracking event sinks */
+	private ActorRef trackingEventSinkRef = null;
+	/** page impression sinks created on registration, by component id */
+	private final Map<String, ActorRef> writerRefs = new HashMap<>();
+	
+	/**
+	 * Initializes the root using the provided input
+	 * @param topology
+	 * @param results
+	 */
+	public SinkRoot(final TopologyConfigElement topology, final TopologyResults results) {
+		this.topology = topology;
+		this.results = results;
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#preStart()
+	 */
+	public void preStart() throws Exception {
+		this.trackingEventSinkRef = context().actorOf(TopologyRouting.route(Props.create(TrackingEventSink.class, results), topology.getWriterRouter(), 
+				topology.getNumWriters(), BasarTrackingServerDispatchersConfigElement.DATABASE_WRITERS_DISPATCHER, TopologyRouting.BALANCING_WRITERS_DISPATCHER), "trackingEventSink");
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		
+		if(message instanceof TrackingEvent) {
+			trackingEventSinkRef.tell(message, getSelf());
+		} else if(message instanceof RegisterDatabaseWriterMessage) {
+			RegisterDatabaseWriterMessage msg = (RegisterDatabaseWriterMessage)message;
+			ActorRef writerRef = getWriter(msg.getComponentId(), msg.getNumOfInstances(), BasarTrackingServerDispatchersConfigElement.DATABASE_WRITERS_DISPATCHER);
+			getSender().tell(new RegisterDatabaseWriterSuccessMessage(msg.getComponentId(), writerRef), getSelf());
+			results.writersRegistered();
+		} else if(message instanceof RegisterCacheWriterMessage) {
+			RegisterCacheWriterMessage msg = (RegisterCacheWriterMessage)message;
+			ActorRef writerRef = getWriter(msg.getComponentId(), msg.getNumOfInstances(), BasarTrackingServerDispatchersConfigElement.CACHE_WRITERS_DISPATCHER);
+			getSender().tell(new RegisterCacheWriterSuccessMessage(msg.getComponentId(), writerRef), getSelf());
+		} else {
+			unhandled(message);
+		}
+	}
+	
+	/**
+	 * Returns the page impression sinks registered for the given component id, creates them if required
+	 * @param componentId
+	 * @param numOfInstances
+	 * @param dispatcherId
+	 * @return
+	 */
+	protected ActorRef getWriter(final String componentId, final int numOfInstances, final String dispatcherId) {
+		ActorRef writerRef = writerRefs.get(componentId);
+		if(writerRef == null) {
+			writerRef = context().actorOf(TopologyRouting.route(Props.create(PageImpressionSink.class, results), topology.getWriterRouter(), 
+					numOfInstances, dispatcherId, TopologyRouting.BALANCING_WRITERS_DISPATCHER), componentId);
+			writerRefs.put(componentId, writerRef);
+		}
+		return writerRef;
+	}
+
+}
@@ -0,0 +1,347 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Histogram;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.PosixParser;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.Props;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.mnxfst.basar.tracking.BasarTrackingServerInboundHandler;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerDispatchersConfigElement;
+import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
+import com.mnxfst.basar.tracking.gateway.message.RegisterContractorMessage;
+import com.mnxfst.basar.tracking.http.converter.HttpRequestConverter;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.loadgen.RequestSource;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionConfigElement;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionHandler;
+import com.mnxfst.basar.tracking.model.Metric;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Runs the full pipeline - {@link BasarTrackingServerInboundHandler inbound handler}, {@link HttpRequestConverter converters}, 
+ * {@link ContractorMessageGateway gateway}, {@link PageImpressionHandler page impression handler} and writers - under each of the
+ * configured {@link TopologyConfigElement topologies} and reports per topology:
+ * <ul>
+ *   <li>events/s: events written during the measurement divided by the time taken from first injection to last write</li>
+ *   <li>lag: time from accepting the request in the inbound handler to writing the event (ms resolution)</li>
+ *   <li>alloc: bytes allocated by all threads of the jvm during the measurement per event</li>
+ * </ul>
+ * Each topology runs inside its own actor system. The inbound handler is fed from a single thread through an {@link EmbeddedChannel}, 
+ * thus no network is involved. Writers are replaced by in-memory {@link SinkRoot sinks}. As the bounded mailboxes drop messages 
+ * instead of blocking the sender, the injection is paced by the number of events in flight; dropped events are reported.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TopologyBenchmark {
+
+	/** metric identifier the page impression handler is registered for */
+	public static final String PAGE_IMPRESSION_METRIC = "piMetric";
+	
+	/** benchmark configuration */
+	private final TopologyBenchmarkConfiguration configuration;
+	
+	/**
+	 * Initializes the benchmark using the provided configuration
+	 * @param configuration
+	 */
+	public TopologyBenchmark(final TopologyBenchmarkConfiguration configuration) {
+		this.configuration = configuration;
+		if(this.configuration.getTopologies() == null || this.configuration.getTopologies().isEmpty())
+			this.configuration.setTopologies(defaultTopologies());
+	}
+	
+	/**
+	 * Returns the topologies measured if none are configured: each router with four converters and writers as well as
+	 * round robin with one and eight instances
+	 * @return
+	 */
+	public static List<TopologyConfigElement> defaultTopologies() {
+		List<TopologyConfigElement> topologies = new ArrayList<>();
+		topologies.add(new TopologyConfigElement("round-robin-1", TopologyConfigElement.ROUTER_ROUND_ROBIN, 1, TopologyConfigElement.ROUTER_ROUND_ROBIN, 1));
+		topologies.add(new TopologyConfigElement("round-robin-4", TopologyConfigElement.ROUTER_ROUND_ROBIN, 4, TopologyConfigElement.ROUTER_ROUND_ROBIN, 4));
+		topologies.add(new TopologyConfigElement("round-robin-8", TopologyConfigElement.ROUTER_ROUND_ROBIN, 8, TopologyConfigElement.ROUTER_ROUND_ROBIN, 8));
+		topologies.add(new TopologyConfigElement("smallest-mailbox-4", TopologyConfigElement.ROUTER_SMALLEST_MAILBOX, 4, TopologyConfigElement.ROUTER_SMALLEST_MAILBOX, 4));
+		topologies.add(new TopologyConfigElement("consistent-hashing-4", TopologyConfigElement.ROUTER_CONSISTENT_HASHING, 4, TopologyConfigElement.ROUTER_CONSISTENT_HASHING, 4));
+		topologies.add(new TopologyConfigElement("balancing-4", TopologyConfigElement.ROUTER_BALANCING, 4, TopologyConfigElement.ROUTER_BALANCING, 4));
+		return topologies;
+	}
+	
+	/**
+	 * Measures all configured topologies one after another and writes the results to the given stream
+	 * @param out
+	 * @throws Exception
+	 */
+	public void run(final PrintStream out) throws Exception {
+		out.println("Measuring " + configuration.getTopologies().size() + " topologies [warm-up=" + configuration.getWarmupEvents() + " events, measured=" + 
+				configuration.getMeasuredEvents() + " events, max in flight=" + configuration.getMaxInFlight() + ", contractors=" + configuration.getContractors() + "]");
+		out.println(String.format("%-24s %-30s %12s %10s %10s %10s %14s %10s", "topology", "converters / writers", "events/s", "lag p50", "lag p99", "lag max", "alloc/event", "dropped"));
+		for(TopologyConfigElement topology : configuration.getTopologies())
+			runTopology(topology, out);
+	}
+	
+	/**
+	 * Sets up the pipeline according to the given topology, measures it and writes a report line to the given stream
+	 * @param topology
+	 * @param out
+	 * @throws Exception
+	 */
+	protected void runTopology(final TopologyConfigElement topology, final PrintStream out) throws Exception {
+		
+		final ActorSystem actorSystem = ActorSystem.create("topology", akkaConfig(topology));
+		final TopologyResults results = new TopologyResults();
+		EmbeddedChannel channel = null;
+		try {
+			// writers and database/cache roots
+			ActorRef sinkRootRef = actorSystem.actorOf(Props.create(SinkRoot.class, topology, results), "sinks");
+			
+			// gateway, page impression handler and contractors, as set up by the server
+			ActorRef gatewayRef = actorSystem.actorOf(Props.create(ContractorMessageGateway.class, sinkRootRef, sinkRootRef).withDispatcher(BasarTrackingServerDispatchersConfigElement.GATEWAY_DISPATCHER), "gateway");
+			gatewayRef.tell(pageImpressionConfiguration(topology), ActorRef.noSender());
+			for(String contractor : configuration.getContractors()) {
+				RegisterContractorMessage registerContractorMessage = new RegisterContractorMessage(contractor);
+				registerContractorMessage.addMetric(new Metric(PAGE_IMPRESSION_METRIC, PAGE_IMPRESSION_METRIC));
+				gatewayRef.tell(registerContractorMessage, ActorRef.noSender());
+			}
+			if(!results.awaitWritersRegistered(TimeUnit.SECONDS.toMillis(10)))
+				throw new IllegalStateException("Page impression writers of topology '" + topology.getName() + "' not registered within 10s");
+
+			ActorRef deadLetterCounterRef = actorSystem.actorOf(Props.create(DeadLetterCounter.class, results, gatewayRef.path()), "deadLetterCounter");
+			actorSystem.eventStream().subscribe(deadLetterCounterRef, DeadLetter.class);
+			
+			// converters receive the requests published by the inbound handler 
+			ActorRef httpRequestConverterRef = actorSystem.actorOf(TopologyRouting.route(Props.create(HttpRequestConverter.class, gatewayRef), topology.getConverterRouter(), 
+					topology.getNumConverters(), BasarTrackingServerDispatchersConfigElement.CONVERSION_DISPATCHER, TopologyRouting.BALANCING_CONVERTERS_DISPATCHER), "httpRequestConverter");
+			actorSystem.eventStream().subscribe(httpRequestConverterRef, HttpRequestMessage.class);
+			
+			channel = new EmbeddedChannel(new BasarTrackingServerInboundHandler(actorSystem));
+			RequestSource requestSource = RequestSource.synthetic(configuration.getContractors(), "localhost", 42);
+
+			// warm-up
+			long injected = inject(channel, requestSource, results, 0, configuration.getWarmupEvents());
+			awaitCompletion(results, injected);
+			
+			// measurement
+			results.resetLag();
+			long writtenBefore = results.getTrackingEvents();
+			long droppedBefore = results.getDroppedEvents();
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			injected = inject(channel, requestSource, results, injected, configuration.getMeasuredEvents());
+			awaitCompletion(results, injected);
+			long elapsedNanos = System.nanoTime() - start;
+			long allocatedAfter = allocatedBytes();
+			Histogram lag = results.resetLag();
+			
+			long written = results.getTrackingEvents() - writtenBefore;
+			long dropped = results.getDroppedEvents() - droppedBefore;
+			String allocated = (allocatedBefore < 0 || allocatedAfter < 0 || written == 0 ? "n/a" : String.format("%dB", (allocatedAfter - allocatedBefore) / written));
+			out.println(String.format("%-24s %-30s %12.0f %8dms %8dms %8dms %14s %10d", topology.getName(), 
+					topology.getConverterRouter() + "x" + topology.getNumConverters() + " / " + topology.getWriterRouter() + "x" + topology.getNumWriters(),
+					written * 1e9 / elapsedNanos, lag.getValueAtPercentile(50), lag.getValueAtPercentile(99), lag.getMaxValue(), allocated, dropped));
+		} finally {
+			if(channel != null)
+				channel.close();
+			actorSystem.shutdown();
+			actorSystem.awaitTermination();
+		}
+	}
+	
+	/**
+	 * Feeds the given number of requests into the inbound handler while keeping the number of events in flight below the configured limit
+	 * @param channel
+	 * @param requestSource
+	 * @param results
+	 * @param injected number of events injected before
+	 * @param numOfEvents
+	 * @return number of events injected in total
+	 */
+	protected long inject(final EmbeddedChannel channel, final RequestSource requestSource, final TopologyResults results, final long injected, final long numOfEvents) {
+		
+		long total = injected;
+		for(long i = 0; i < numOfEvents; i++) {
+			
+			if(total - results.getCompletedEvents() >= configuration.getMaxInFlight()) {
+				long stalledSince = System.currentTimeMillis();
+				long completed = results.getCompletedEvents();
+				while(total - completed >= configuration.getMaxInFlight()) {
+					LockSupport.parkNanos(10000);
+					if(results.getCompletedEvents() != completed) {
+						completed = results.getCompletedEvents();
+						stalledSince = System.currentTimeMillis();
+					} else if(System.currentTimeMillis() - stalledSince > configuration.getDrainTimeoutMillis()) {
+						throw new IllegalStateException("Pipeline stalled with " + (total - completed) + " events in flight");
+					}
+				}
+			}
+			
+			channel.writeInbound(requestSource.nextRequest());
+			channel.flush();
+			releaseResponses(channel);
+			total++;
+		}
+		return total;
+	}
+	
+	/**
+	 * Waits until all injected events are either written or dropped
+	 * @param results
+	 * @param injected
+	 */
+	protected void awaitCompletion(final TopologyResults results, final long injected) {
+		long timeout = System.currentTimeMillis() + configuration.getDrainTimeoutMillis();
+		while(results.getCompletedEvents() < injected) {
+			if(System.currentTimeMillis() > timeout)
+				throw new IllegalStateException("Pipeline did not drain within " + configuration.getDrainTimeoutMillis() + "ms: " + (injected - results.getCompletedEvents()) + " events in flight");
+			LockSupport.parkNanos(10000);
+		}
+	}
+	
+	/**
+	 * Releases the responses written by the inbound handler
+	 * @param channel
+	 */
+	protected static void releaseResponses(final EmbeddedChannel channel) {
+		Object response = null;
+		while((response = channel.readOutbound()) != null)
+			ReferenceCountUtil.release(response);
+	}
+	
+	/**
+	 * Returns the bytes allocated by all live threads so far or -1 if the jvm does not provide the information
+	 * @return
+	 */
+	protected static long allocatedBytes() {
+		java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if(!(threadBean instanceof com.sun.management.ThreadMXBean))
+			return -1;
+		com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean)threadBean;
+		if(!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled())
+			return -1;
+
+		long allocated = 0;
+		for(long threadAllocated : allocationBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+			if(threadAllocated > 0)
+				allocated = allocated + threadAllocated;
+		}
+		return allocated;
+	}
+	
+	/**
+	 * Returns the actor system configuration for the given topology: the configured dispatcher settings and the balancing 
+	 * dispatchers on top of application.conf. Logging is reduced as dropped messages are counted anyway
+	 * @param topology
+	 * @return
+	 */
+	protected static Config akkaConfig(final TopologyConfigElement topology) {
+		Map<String, Object> values = new HashMap<>();
+		values.put("akka.loglevel", "WARNING");
+		values.put("akka.stdout-loglevel", "WARNING");
+		values.put("akka.log-dead-letters", "off");
+		Config config = ConfigFactory.parseMap(values, "topology benchmark");
+		if(topology.getDispatchers() != null)
+			config = config.withFallback(topology.getDispatchers().toAkkaConfig());
+		return config.withFallback(TopologyRouting.balancingDispatchers(topology)).withFallback(ConfigFactory.load());
+	}
+	
+	/**
+	 * Returns the page impression handler configuration: writes go directly to the page impression writers which are 
+	 * registered with the {@link SinkRoot sink root}
+	 * @param topology
+	 * @return
+	 */
+	protected static PageImpressionConfigElement pageImpressionConfiguration(final TopologyConfigElement topology) {
+		PageImpressionConfigElement piConfig = new PageImpressionConfigElement();
+		piConfig.setIdentifier(PAGE_IMPRESSION_METRIC);
+		piConfig.setMetricClass(PageImpressionHandler.class.getName());
+		piConfig.setDatabaseWriterId("piMetricDB");
+		piConfig.setDatabaseWriterClass(PageImpressionSink.class.getName());
+		piConfig.setNumDatabaseWriters(topology.getNumWriters());
+		piConfig.setCacheWriterId("piMetricCache");
+		piConfig.setCacheWriterClass(PageImpressionSink.class.getName());
+		piConfig.setNumCacheWriters(topology.getNumWriters());
+		piConfig.setWriteBehindEnabled(false);
+		return piConfig;
+	}
+	
+	/**
+	 * Reads the benchmark configuration from the given file
+	 * @param configurationFile
+	 * @return
+	 * @throws Exception
+	 */
+	public static TopologyBenchmarkConfiguration readConfiguration(final File configurationFile) throws Exception {
+		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+		return mapper.readValue(configurationFile, TopologyBenchmarkConfiguration.class);
+	}
+	
+	/**
+	 * Runs the benchmark
+	 * @param args
+	 * @throws Exception
+	 */
+	@SuppressWarnings("static-access")
+	public static void main(String[] args) throws Exception {
+		
+		Options options = new Options();
+		options.addOption(OptionBuilder.withArgName("file").hasArg().withDescription("yaml file holding load settings and topologies. default: built-in topologies").create("f"));
+		options.addOption(OptionBuilder.withArgName("events").hasArg().withDescription("events measured per topology, overrides the file. default: 1000000").create("n"));
+		options.addOption("?", false, "print this help");
+		
+		CommandLineParser clParser = new PosixParser();
+		CommandLine cl = clParser.parse(options, args);
+		if(cl.hasOption("?")) {
+			new HelpFormatter().printHelp("TopologyBenchmark", options);
+			return;
+		}
+		
+		TopologyBenchmarkConfiguration configuration = (cl.hasOption("f") ? readConfiguration(new File(cl.getOptionValue("f"))) : new TopologyBenchmarkConfiguration());
+		if(cl.hasOption("n"))
+			configuration.setMeasuredEvents(Long.parseLong(cl.getOptionValue("n")));
+		
+		new TopologyBenchmark(configuration).run(System.out);
+		System.exit(0);
+	}
+	
+}
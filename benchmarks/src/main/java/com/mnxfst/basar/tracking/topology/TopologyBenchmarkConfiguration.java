@@ -0,0 +1,107 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configuration of the {@link TopologyBenchmark topology benchmark}: the load applied and the topologies to measure
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TopologyBenchmarkConfiguration implements Serializable {
+
+	private static final long serialVersionUID = -2274637093856102148L;
+
+	/** events sent through each topology before measuring. default: 200000 */
+	private long warmupEvents = 200000;
+	
+	/** events measured per topology. default: 1000000 */
+	private long measuredEvents = 1000000;
+	
+	/** events injected but neither written nor dropped, the injection pauses when reaching the limit. default: 5000 */
+	private int maxInFlight = 5000;
+	
+	/** time to wait for outstanding events after injection has finished. default: 30000 */
+	private long drainTimeoutMillis = 30000;
+	
+	/** contractors of synthetic requests, all registered for page impressions. default: contractor1, contractor2 */
+	private List<String> contractors = new ArrayList<>(Arrays.asList("contractor1", "contractor2"));
+	
+	/** topologies to measure. default: see {@link TopologyBenchmark#defaultTopologies()} */
+	private List<TopologyConfigElement> topologies = new ArrayList<>();
+	
+	/**
+	 * Default constructor
+	 */
+	public TopologyBenchmarkConfiguration() {
+	}
+
+	public long getWarmupEvents() {
+		return warmupEvents;
+	}
+
+	public void setWarmupEvents(long warmupEvents) {
+		this.warmupEvents = warmupEvents;
+	}
+
+	public long getMeasuredEvents() {
+		return measuredEvents;
+	}
+
+	public void setMeasuredEvents(long measuredEvents) {
+		this.measuredEvents = measuredEvents;
+	}
+
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+
+	public void setMaxInFlight(int maxInFlight) {
+		this.maxInFlight = maxInFlight;
+	}
+
+	public long getDrainTimeoutMillis() {
+		return drainTimeoutMillis;
+	}
+
+	public void setDrainTimeoutMillis(long drainTimeoutMillis) {
+		this.drainTimeoutMillis = drainTimeoutMillis;
+	}
+
+	public List<String> getContractors() {
+		return contractors;
+	}
+
+	public void setContractors(List<String> contractors) {
+		this.contractors = contractors;
+	}
+
+	public List<TopologyConfigElement> getTopologies() {
+		return topologies;
+	}
+
+	public void setTopologies(List<TopologyConfigElement> topologies) {
+		this.topologies = topologies;
+	}
+
+}
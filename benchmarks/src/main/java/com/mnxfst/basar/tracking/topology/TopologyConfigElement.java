@@ -0,0 +1,128 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import java.io.Serializable;
+
+import com.mnxfst.basar.tracking.config.BasarTrackingServerDispatchersConfigElement;
+
+/**
+ * Describes a single actor topology measured by the {@link TopologyBenchmark topology benchmark}: the router and the number
+ * of instances used for the http request converters and the writers as well as the dispatcher settings of all stages
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TopologyConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 5906238140873254718L;
+
+	public static final String ROUTER_ROUND_ROBIN = "ROUND_ROBIN";
+	public static final String ROUTER_SMALLEST_MAILBOX = "SMALLEST_MAILBOX";
+	public static final String ROUTER_CONSISTENT_HASHING = "CONSISTENT_HASHING";
+	public static final String ROUTER_BALANCING = "BALANCING";
+
+	/** name shown in the report */
+	private String name = null;
+	
+	/** router in front of the http request converters (ROUND_ROBIN, SMALLEST_MAILBOX, CONSISTENT_HASHING, BALANCING). default: ROUND_ROBIN */
+	private String converterRouter = ROUTER_ROUND_ROBIN;
+	
+	/** number of http request converters. default: 4 */
+	private int numConverters = 4;
+	
+	/** router in front of the tracking event and page impression writers (ROUND_ROBIN, SMALLEST_MAILBOX, CONSISTENT_HASHING, BALANCING). default: ROUND_ROBIN */
+	private String writerRouter = ROUTER_ROUND_ROBIN;
+	
+	/** number of tracking event writers and page impression writers each. default: 4 */
+	private int numWriters = 4;
+	
+	/** dispatcher settings applied on top of application.conf, see dispatchers section of basar-track.yml */
+	private BasarTrackingServerDispatchersConfigElement dispatchers = new BasarTrackingServerDispatchersConfigElement();
+	
+	/**
+	 * Default constructor
+	 */
+	public TopologyConfigElement() {
+	}
+	
+	/**
+	 * Initializes the topology using the provided input, dispatchers are taken from application.conf
+	 * @param name
+	 * @param converterRouter
+	 * @param numConverters
+	 * @param writerRouter
+	 * @param numWriters
+	 */
+	public TopologyConfigElement(final String name, final String converterRouter, final int numConverters, final String writerRouter, final int numWriters) {
+		this.name = name;
+		this.converterRouter = converterRouter;
+		this.numConverters = numConverters;
+		this.writerRouter = writerRouter;
+		this.numWriters = numWriters;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public String getConverterRouter() {
+		return converterRouter;
+	}
+
+	public void setConverterRouter(String converterRouter) {
+		this.converterRouter = converterRouter;
+	}
+
+	public int getNumConverters() {
+		return numConverters;
+	}
+
+	public void setNumConverters(int numConverters) {
+		this.numConverters = numConverters;
+	}
+
+	public String getWriterRouter() {
+		return writerRouter;
+	}
+
+	public void setWriterRouter(String writerRouter) {
+		this.writerRouter = writerRouter;
+	}
+
+	public int getNumWriters() {
+		return numWriters;
+	}
+
+	public void setNumWriters(int numWriters) {
+		this.numWriters = numWriters;
+	}
+
+	public BasarTrackingServerDispatchersConfigElement getDispatchers() {
+		return dispatchers;
+	}
+
+	public void setDispatchers(BasarTrackingServerDispatchersConfigElement dispatchers) {
+		this.dispatchers = dispatchers;
+	}
+
+}
@@ -0,0 +1,116 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Collects the outcome of a single {@link TopologyBenchmark topology benchmark} run. Instances are shared among the
+ * sink actors, thus all counters are thread-safe. The end-to-end lag of an event is measured from the time the inbound 
+ * handler accepted the request (event timestamp) to the time the event reached its sink, in milliseconds.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TopologyResults {
+
+	/** tracking events received by the sinks */
+	private final AtomicLong trackingEvents = new AtomicLong();
+	/** page impression writes received by the sinks */
+	private final AtomicLong pageImpressions = new AtomicLong();
+	/** requests or tracking events dropped on the way to the tracking event sinks */
+	private final AtomicLong droppedEvents = new AtomicLong();
+	/** end-to-end lag of tracking events */
+	private final Recorder lagRecorder = new Recorder(3);
+	/** released as soon as the page impression writers are registered */
+	private final CountDownLatch writersRegistered = new CountDownLatch(1);
+	
+	/**
+	 * Counts a tracking event written by a sink and records its lag
+	 * @param timestamp time the event was accepted
+	 */
+	public void recordTrackingEvent(final long timestamp) {
+		lagRecorder.recordValue(Math.max(0, System.currentTimeMillis() - timestamp));
+		trackingEvents.incrementAndGet();
+	}
+	
+	/**
+	 * Counts a page impression write received by a sink
+	 */
+	public void recordPageImpression() {
+		pageImpressions.incrementAndGet();
+	}
+	
+	/**
+	 * Counts a request or tracking event which was dropped by a bounded mailbox
+	 */
+	public void recordDroppedEvent() {
+		droppedEvents.incrementAndGet();
+	}
+	
+	/**
+	 * Marks the page impression writers as registered
+	 */
+	public void writersRegistered() {
+		writersRegistered.countDown();
+	}
+	
+	/**
+	 * Waits until the page impression writers are registered
+	 * @param timeoutMillis
+	 * @return false if the timeout elapsed before
+	 * @throws InterruptedException
+	 */
+	public boolean awaitWritersRegistered(final long timeoutMillis) throws InterruptedException {
+		return writersRegistered.await(timeoutMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Returns the lag recorded since the previous call and starts a new interval
+	 * @return
+	 */
+	public Histogram resetLag() {
+		return lagRecorder.getIntervalHistogram();
+	}
+	
+	/**
+	 * Returns the number of injected events which will not make it any further: written or dropped
+	 * @return
+	 */
+	public long getCompletedEvents() {
+		return trackingEvents.get() + droppedEvents.get();
+	}
+
+	public long getTrackingEvents() {
+		return trackingEvents.get();
+	}
+
+	public long getPageImpressions() {
+		return pageImpressions.get();
+	}
+
+	public long getDroppedEvents() {
+		return droppedEvents.get();
+	}
+
+}
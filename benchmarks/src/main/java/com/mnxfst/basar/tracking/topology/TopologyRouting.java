@@ -0,0 +1,117 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import akka.actor.Props;
+import akka.routing.ConsistentHashingRouter;
+import akka.routing.ConsistentHashingRouter.ConsistentHashMapper;
+import akka.routing.RoundRobinRouter;
+import akka.routing.SmallestMailboxRouter;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Applies the routers named by a {@link TopologyConfigElement topology} to actor {@link Props props}. The balancing pool 
+ * is built from routees sharing a BalancingDispatcher, ie. a single mailbox, which is defined per topology by 
+ * {@link #balancingDispatchers(TopologyConfigElement)}. Consistent hashing keys requests by uri, tracking events by
+ * contractor and page impression writes by their own hash key.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class TopologyRouting {
+
+	public static final String BALANCING_CONVERTERS_DISPATCHER = "basar.benchmark.balancing-converters";
+	public static final String BALANCING_WRITERS_DISPATCHER = "basar.benchmark.balancing-writers";
+	
+	/** messages per routee and turn on balancing dispatchers */
+	private static final int BALANCING_THROUGHPUT = 5;
+	
+	/** maps messages onto consistent hashing keys, messages implementing ConsistentHashable are left to the router */
+	private static final ConsistentHashMapper hashMapper = new ConsistentHashMapper() {
+		public Object hashKey(Object message) {
+			if(message instanceof HttpRequestMessage)
+				return ((HttpRequestMessage)message).getRequest().getUri();
+			if(message instanceof TrackingEvent)
+				return ((TrackingEvent)message).getContractor();
+			return null;
+		}
+	};
+	
+	private TopologyRouting() {
+	}
+	
+	/**
+	 * Puts the given number of routees created from the provided props behind the referenced router
+	 * @param props routee props
+	 * @param router one of the ROUTER_* constants found in {@link TopologyConfigElement}
+	 * @param numOfInstances
+	 * @param dispatcherId dispatcher the routees run on unless they form a balancing pool
+	 * @param balancingDispatcherId dispatcher the routees run on if they form a balancing pool
+	 * @return
+	 */
+	public static Props route(final Props props, final String router, final int numOfInstances, final String dispatcherId, final String balancingDispatcherId) {
+		
+		final int instances = Math.max(1, numOfInstances);
+		if(router == null || TopologyConfigElement.ROUTER_ROUND_ROBIN.equals(router))
+			return props.withRouter(new RoundRobinRouter(instances)).withDispatcher(dispatcherId);
+		if(TopologyConfigElement.ROUTER_SMALLEST_MAILBOX.equals(router))
+			return props.withRouter(new SmallestMailboxRouter(instances)).withDispatcher(dispatcherId);
+		if(TopologyConfigElement.ROUTER_CONSISTENT_HASHING.equals(router))
+			return props.withRouter(new ConsistentHashingRouter(instances).withHashMapper(hashMapper)).withDispatcher(dispatcherId);
+		if(TopologyConfigElement.ROUTER_BALANCING.equals(router))
+			return props.withRouter(new RoundRobinRouter(instances)).withDispatcher(balancingDispatcherId);
+		
+		throw new IllegalArgumentException("Unknown router: " + router);
+	}
+	
+	/**
+	 * Defines the balancing dispatchers used by the converters and writers of the given topology. Each one runs as many
+	 * threads as there are routees. The mailbox is unbounded as balancing dispatchers require a mailbox shared by all consumers
+	 * @param topology
+	 * @return
+	 */
+	public static Config balancingDispatchers(final TopologyConfigElement topology) {
+		Map<String, Object> values = new HashMap<>();
+		addBalancingDispatcherValues(values, BALANCING_CONVERTERS_DISPATCHER, topology.getNumConverters());
+		addBalancingDispatcherValues(values, BALANCING_WRITERS_DISPATCHER, topology.getNumWriters());
+		return ConfigFactory.parseMap(values, "topology " + topology.getName());
+	}
+	
+	/**
+	 * Adds the options of a balancing dispatcher to the provided map
+	 * @param values
+	 * @param dispatcherId
+	 * @param numOfInstances
+	 */
+	protected static void addBalancingDispatcherValues(final Map<String, Object> values, final String dispatcherId, final int numOfInstances) {
+		final int threads = Math.max(1, numOfInstances);
+		values.put(dispatcherId + ".type", "BalancingDispatcher");
+		values.put(dispatcherId + ".executor", "fork-join-executor");
+		values.put(dispatcherId + ".fork-join-executor.parallelism-min", threads);
+		values.put(dispatcherId + ".fork-join-executor.parallelism-max", threads);
+		values.put(dispatcherId + ".throughput", BALANCING_THROUGHPUT);
+	}
+	
+}
@@ -0,0 +1,60 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.topology;
+
+import akka.actor.UntypedActor;
+
+import com.mnxfst.basar.tracking.event.TrackingEventDocumentEncoder;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * In-memory stand-in for the {@link com.mnxfst.basar.tracking.event.TrackingEventDBWriter tracking event writer}. Events
+ * are encoded into BSON documents just like before being inserted into mongodb, but the documents are discarded
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventSink extends UntypedActor {
+
+	/** encodes events the same way the database writer does */
+	private final TrackingEventDocumentEncoder encoder = new TrackingEventDocumentEncoder();
+	/** collects the outcome */
+	private final TopologyResults results;
+	
+	/**
+	 * Initializes the sink using the provided input
+	 * @param results
+	 */
+	public TrackingEventSink(final TopologyResults results) {
+		this.results = results;
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		if(message instanceof TrackingEvent) {
+			TrackingEvent trackingEvent = (TrackingEvent)message;
+			encoder.encode(trackingEvent);
+			results.recordTrackingEvent(trackingEvent.getTimestamp());
+		} else {
+			unhandled(message);
+		}
+	}
+
+}
@@ -1,174 +1,370 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking;
-
-import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.Channel;
-import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-
-import java.io.File;
-import java.util.List;
-import java.util.Set;
-
-import net.spy.memcached.MemcachedClient;
-
-import org.apache.commons.cli.CommandLine;
-import org.apache.commons.cli.CommandLineParser;
-import org.apache.commons.cli.HelpFormatter;
-import org.apache.commons.cli.Option;
-import org.apache.commons.cli.OptionBuilder;
-import org.apache.commons.cli.Options;
-import org.apache.commons.cli.PosixParser;
-import org.apache.log4j.Logger;
-
-import akka.actor.ActorRef;
-import akka.actor.ActorSystem;
-import akka.actor.Props;
-
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
-import com.mnxfst.basar.tracking.cache.CacheRoot;
-import com.mnxfst.basar.tracking.config.BasarTrackingServerConfiguration;
-import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
-import com.mnxfst.basar.tracking.db.DatabaseRoot;
-import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
-import com.mnxfst.basar.tracking.gateway.message.DeregisterContractorMessage;
-import com.mnxfst.basar.tracking.gateway.message.RegisterContractorMessage;
-import com.mnxfst.basar.tracking.http.converter.HttpRequestConverter;
-import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
-import com.mnxfst.basar.tracking.model.Metric;
-
-/**
- * Core component required for ramping up the tracking server component<br/><br/> 
- * <b>Open Issues</b>
- * <ul>
- *   <li>Read metrics from configuration in a more generic way thus when new elements are added, code must not be changed</li> 
- * </ul>
- * @author mnxfst
- * @since 27.09.2013
- *
- * Revision Control Info $Id$
- *
- */
-public class BasarTrackingServer {
-
-	/** logging facility */
-	private static final Logger logger = Logger.getLogger(BasarTrackingServer.class);
-
-	/**
-	 * Initializes the actor system and bootstraps the netty components
-	 * @param configuration
-	 * @throws Exception
-	 */
-	public void run(final BasarTrackingServerConfiguration configuration) throws Exception {
-		
-		ActorSystem actorSystem = setupActorSystem("btrack", configuration.getDatabaseServers(), configuration.getDatabaseName(),
-				configuration.getDefaultTrackingEventCollection(), configuration.getContractors());
-				
-		// registering the page impression metric
-		actorSystem.eventStream().publish(configuration.getMetrics().getPageImpression());
-		
-		RegisterContractorMessage regMsg = new RegisterContractorMessage("contractor2");
-		regMsg.addMetric(new Metric("piMetric", "piMetric"));
-		actorSystem.eventStream().publish(regMsg);
-		
-		// Configure the server.
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup(1);
-        try {
-            ServerBootstrap b = new ServerBootstrap();
-
-            b.group(bossGroup, workerGroup)
-             .channel(NioServerSocketChannel.class)
-             .childHandler(new BasarTrackingServerInitializer(actorSystem));
-
-            Channel channel = b.bind(configuration.getPort()).sync().channel();
-            channel.closeFuture().sync();
-        } finally {
-            bossGroup.shutdownGracefully();
-            workerGroup.shutdownGracefully();
-        }        
-	}
-
-	/**
-	 * Sets up and initializes the {@link ActorSystem actor system} used for handling inbound events
-	 * @param actorSystemIdentifier
-	 * @param databaseServers
-	 * @param databaseName
-	 * @param defaultTrackingEventCollection
-	 * @param contractors
-	 * @return
-	 */
-	protected ActorSystem setupActorSystem(final String actorSystemIdentifier, final List<String> databaseServers, final String databaseName, final String defaultTrackingEventCollection, final Set<String> contractors) {
-		
-		int numOfTrackingEventInstances = 1;
-		MemcachedClient cacheClient = null;
-		
-		// initialize actor system by assigning the provided name
-		final ActorSystem actorSystem = ActorSystem.create(actorSystemIdentifier);
-		
-		// initialize database actor which serves as root node for all actors accessing the database
-		final ActorRef databaseRootRef = actorSystem.actorOf(Props.create(DatabaseRoot.class, databaseServers, numOfTrackingEventInstances), "dbRoot");
-		// initialize cache actor which serves as root node for all actors accessing the cache layer
-		final ActorRef cacheRootRef = actorSystem.actorOf(Props.create(CacheRoot.class, cacheClient), "cacheRoot");
-		// initialize inbound message gateway which is responsible for fully setting up subsequent hierarchies
-		final ActorRef gatewayRef = actorSystem.actorOf(Props.create(ContractorMessageGateway.class, databaseRootRef, cacheRootRef), "messageGateway");
-		// initialize http request converter and assign it to the event stream
-		final ActorRef httpRequestConverterRef = actorSystem.actorOf(Props.create(HttpRequestConverter.class, gatewayRef), "httpRequestConverter");
-		
-		// attach the request converter to the event stream as the tracking server simply publishes inbound requests on the internal bus
-		actorSystem.eventStream().subscribe(httpRequestConverterRef, HttpRequestMessage.class);
-		
-		// attach the message gateway to the event stream to receive metric configuration via messages
-		actorSystem.eventStream().subscribe(gatewayRef, BasarTrackingServerMetricConfigElement.class);
-		actorSystem.eventStream().subscribe(gatewayRef, RegisterContractorMessage.class);
-		actorSystem.eventStream().subscribe(gatewayRef, DeregisterContractorMessage.class);
-		
-		return actorSystem;
-	}
-	
-	public static void main(String[] args) throws Exception {
-		
-		Options options = new Options();
-		@SuppressWarnings("static-access")
-		Option configFileOption = OptionBuilder.withArgName("file")
-											.hasArg()
-											.withDescription("configuration file name")
-											.create("f");
-		options.addOption(configFileOption);
-		
-		CommandLineParser clParser = new PosixParser();
-		CommandLine cl = clParser.parse(options, args);
-
-		// ensure that the option 'f' is contained in the command-line arguments, otherwise
-		// print usage and return
-		if(!cl.hasOption("f")) {
-			HelpFormatter formatter = new HelpFormatter();
-			formatter.printHelp( "ant", options );
-			return;
-		}
-		
-		String configurationFileName = cl.getOptionValue("f");
-		logger.info("Reading server configuration from: " + configurationFileName);
-		
-		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-		new BasarTrackingServer().run(mapper.readValue(new File(configurationFileName), BasarTrackingServerConfiguration.class));
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.OptionBuilder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.PosixParser;
+import org.apache.log4j.Logger;
+
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.actor.Props;
+import akka.pattern.Patterns;
+import akka.routing.RoundRobinRouter;
+
+import com.codahale.metrics.JmxReporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.mnxfst.basar.tracking.cache.CacheRoot;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerCacheConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerConfiguration;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerDispatchersConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerEventWriterConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerNetworkConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerRawIngestConfigElement;
+import com.mnxfst.basar.tracking.db.DatabaseRoot;
+import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
+import com.mnxfst.basar.tracking.gateway.message.DeregisterContractorMessage;
+import com.mnxfst.basar.tracking.gateway.message.RegisterContractorMessage;
+import com.mnxfst.basar.tracking.http.converter.HttpRequestConverter;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.ingest.IngestStage;
+import com.mnxfst.basar.tracking.ingest.raw.RawRequestLog;
+import com.mnxfst.basar.tracking.ingest.raw.RawRequestLogReader;
+import com.mnxfst.basar.tracking.instrumentation.ContractorMetrics;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.journal.JournalReplayer;
+import com.mnxfst.basar.tracking.model.Metric;
+import com.mnxfst.basar.tracking.overload.OverloadDetector;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Core component required for ramping up the tracking server component<br/><br/> 
+ * <b>Open Issues</b>
+ * <ul>
+ *   <li>Read metrics from configuration in a more generic way thus when new elements are added, code must not be changed</li> 
+ * </ul>
+ * @author mnxfst
+ * @since 27.09.2013
+ *
+ * Revision Control Info $Id$
+ *
+ */
+public class BasarTrackingServer {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(BasarTrackingServer.class);
+	
+	/** reference towards inbound message gateway, set up by setupActorSystem */
+	private ActorRef gatewayRef = null;
+	/** reference towards cache root node, set up by setupActorSystem */
+	private ActorRef cacheRootRef = null;
+	/** reference towards database root node, set up by setupActorSystem */
+	private ActorRef databaseRootRef = null;
+
+	/**
+	 * Initializes the actor system and bootstraps the netty components
+	 * @param configuration
+	 * @throws Exception
+	 */
+	public void run(final BasarTrackingServerConfiguration configuration) throws Exception {
+		
+		// open the write-ahead journal before any event is accepted
+		EventJournal journal = null;
+		if(configuration.getJournal().isEnabled()) {
+			journal = new EventJournal(configuration.getJournal());
+			journal.open();
+		}
+		
+		ActorSystem actorSystem = setupActorSystem("btrack", configuration.getDatabaseServers(), configuration.getDatabaseName(),
+				configuration.getDefaultTrackingEventCollection(), configuration.getContractors(), configuration.getIngest().getNumConverters(), configuration.getEventWriter(), configuration.getCache(), configuration.getDispatchers(), journal);
+		
+		// feed the events left unacknowledged by the previous run back into the database writers and keep redelivering
+		// events lost while running
+		JournalReplayer journalReplayer = null;
+		if(journal != null) {
+			if(!configuration.getJournal().isReplayEnabled())
+				journal.discardRecovered();
+			journalReplayer = new JournalReplayer(journal, databaseRootRef, configuration.getJournal().getReplayMaxInFlight(), 
+					configuration.getJournal().isReplayEnabled(), configuration.getJournal().getRedeliverIntervalMillis());
+			Thread replayerThread = new Thread(journalReplayer, "journal-replayer");
+			replayerThread.setDaemon(true);
+			replayerThread.start();
+		}
+				
+		// registering the page impression metric
+		actorSystem.eventStream().publish(configuration.getMetrics().getPageImpression());
+		
+		RegisterContractorMessage regMsg = new RegisterContractorMessage("contractor2");
+		regMsg.addMetric(new Metric("piMetric", "piMetric"));
+		actorSystem.eventStream().publish(regMsg);
+		
+		// reject inbound requests while the pipeline drops messages due to full mailboxes
+		OverloadSignal overloadSignal = null;
+		if(configuration.getOverload().isEnabled()) {
+			overloadSignal = new OverloadSignal(configuration.getOverload().getRejectMillis());
+			ActorRef overloadDetectorRef = actorSystem.actorOf(Props.create(OverloadDetector.class, overloadSignal), "overloadDetector");
+			actorSystem.eventStream().subscribe(overloadDetectorRef, DeadLetter.class);
+			// ... and while the journal waits for acknowledgements
+			if(journal != null)
+				journal.setOverloadSignal(overloadSignal);
+		}
+		
+		// expose pipeline metrics as mbeans
+		JmxReporter jmxReporter = null;
+		if(configuration.getInstrumentation().isJmxEnabled()) {
+			jmxReporter = JmxReporter.forRegistry(PipelineMetrics.registry()).inDomain(configuration.getInstrumentation().getJmxDomain()).build();
+			jmxReporter.start();
+		}
+		
+		// store-then-parse: inbound handlers append raw requests to a local log, a single reader converts them asynchronously
+		RawRequestLog rawRequestLog = null;
+		RawRequestLogReader rawRequestLogReader = null;
+		final BasarTrackingServerRawIngestConfigElement rawIngest = configuration.getRawIngest();
+		if(rawIngest.isEnabled()) {
+			rawRequestLog = new RawRequestLog(rawIngest);
+			rawRequestLog.open();
+			rawRequestLogReader = new RawRequestLogReader(rawRequestLog, gatewayRef, journal, overloadSignal, rawIngest.getMaxBatchSize(), rawIngest.getIdleParkNanos());
+			rawRequestLogReader.start();
+		}
+		
+		// set up ring buffers handing inbound requests over to the message gateway, not required if raw requests are logged
+		IngestStage ingestStage = null;
+		if(configuration.getIngest().isEnabled() && rawRequestLog == null) {
+			ingestStage = new IngestStage(gatewayRef, configuration.getIngest(), journal);
+			ingestStage.start();
+		}
+		
+		// use the native transport only if requested and supported by the platform
+		final BasarTrackingServerNetworkConfigElement network = configuration.getNetwork();
+		final boolean useEpoll = network.isEpoll() && Epoll.isAvailable();
+		if(network.isEpoll() && !useEpoll)
+			logger.warn("Native epoll transport requested but not available. Falling back to nio transport");
+		
+		// Configure the server.
+        EventLoopGroup bossGroup = createEventLoopGroup(useEpoll, network.getBossThreads());
+        EventLoopGroup workerGroup = createEventLoopGroup(useEpoll, network.getWorkerThreads());
+        try {
+            ServerBootstrap b = new ServerBootstrap();
+
+            b.group(bossGroup, workerGroup)
+             .channel(useEpoll ? EpollServerSocketChannel.class : NioServerSocketChannel.class)
+             .option(ChannelOption.SO_BACKLOG, network.getSoBacklog())
+             .childOption(ChannelOption.TCP_NODELAY, network.isTcpNoDelay())
+             .childOption(ChannelOption.SO_KEEPALIVE, network.isSoKeepAlive())
+             .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+             .childHandler(new BasarTrackingServerInitializer(actorSystem, ingestStage, network.getBeaconPath(), overloadSignal, configuration.getInstrumentation().getMetricsPath(), rawRequestLog));
+            
+            if(network.getSoReceiveBuffer() > 0)
+            	b.childOption(ChannelOption.SO_RCVBUF, network.getSoReceiveBuffer());
+            if(network.getSoSendBuffer() > 0)
+            	b.childOption(ChannelOption.SO_SNDBUF, network.getSoSendBuffer());
+
+            // with SO_REUSEPORT each boss thread gets its own listening socket bound to the same port, thus
+            // the kernel distributes inbound connections among all acceptors instead of a single one
+            int numOfAcceptors = 1;
+            if(useEpoll && network.isReusePort()) {
+            	b.option(EpollChannelOption.SO_REUSEPORT, true);
+            	numOfAcceptors = Math.max(1, network.getBossThreads());
+            }
+            
+            List<Channel> channels = new ArrayList<>();
+            for(int i = 0; i < numOfAcceptors; i++)
+            	channels.add(b.bind(configuration.getPort()).sync().channel());
+            logger.info("Tracking server listening [port="+configuration.getPort()+", transport="+(useEpoll ? "epoll" : "nio")+", acceptors="+numOfAcceptors+"]");
+            
+            for(Channel channel : channels)
+            	channel.closeFuture().sync();
+        } finally {
+            bossGroup.shutdownGracefully();
+            // wait for the workers to stop publishing before draining the ring buffers
+            workerGroup.shutdownGracefully().awaitUninterruptibly();
+            if(ingestStage != null)
+            	ingestStage.shutdown(5000);
+            if(rawRequestLogReader != null)
+            	rawRequestLogReader.shutdown(5000);
+            if(rawRequestLog != null)
+            	rawRequestLog.close();
+            if(journalReplayer != null)
+            	journalReplayer.shutdown();
+            shutdownActorSystem(actorSystem, 5000);
+            if(journal != null)
+            	journal.close();
+            if(jmxReporter != null)
+            	jmxReporter.stop();
+        }        
+	}
+	
+	/**
+	 * Shuts down the actor system. The cache hierarchy is stopped first, thus write-behind cache writers hand their 
+	 * remaining counts over to the database writers which are still alive and flush them when the system shuts down
+	 * @param actorSystem
+	 * @param timeoutMillis
+	 */
+	protected void shutdownActorSystem(final ActorSystem actorSystem, final long timeoutMillis) {
+		final FiniteDuration timeout = Duration.create(timeoutMillis, TimeUnit.MILLISECONDS);
+		if(cacheRootRef != null) {
+			try {
+				Await.result(Patterns.gracefulStop(cacheRootRef, timeout), timeout);
+			} catch(Exception e) {
+				logger.warn("Cache root did not stop within " + timeoutMillis + "ms: " + e.getMessage());
+			}
+		}
+		actorSystem.shutdown();
+		actorSystem.awaitTermination(timeout);
+	}
+	
+	/**
+	 * Creates an {@link EventLoopGroup event loop group} for the requested transport. A thread count
+	 * of 0 lets netty choose the number of threads (2 * number of cores)
+	 * @param useEpoll
+	 * @param numOfThreads
+	 * @return
+	 */
+	protected EventLoopGroup createEventLoopGroup(final boolean useEpoll, final int numOfThreads) {
+		final int threads = Math.max(0, numOfThreads);
+		if(useEpoll)
+			return new EpollEventLoopGroup(threads);
+		return new NioEventLoopGroup(threads);
+	}
+
+	/**
+	 * Sets up and initializes the {@link ActorSystem actor system} used for handling inbound events
+	 * @param actorSystemIdentifier
+	 * @param databaseServers
+	 * @param databaseName
+	 * @param defaultTrackingEventCollection
+	 * @param contractors
+	 * @param numOfRequestConverters number of http request converter instances, 0 = number of cores
+	 * @param eventWriterConfiguration batching and write concern of tracking event writers
+	 * @param cacheConfiguration backend of the cache tier, the cache root node creates and owns the client
+	 * @param dispatchersConfiguration dispatchers assigned to the pipeline stages, overrides the values found in application.conf
+	 * @return
+	 */
+	protected ActorSystem setupActorSystem(final String actorSystemIdentifier, final List<String> databaseServers, final String databaseName, final String defaultTrackingEventCollection, final Set<String> contractors, final int numOfRequestConverters, final BasarTrackingServerEventWriterConfigElement eventWriterConfiguration, final BasarTrackingServerCacheConfigElement cacheConfiguration, final BasarTrackingServerDispatchersConfigElement dispatchersConfiguration) {
+		return setupActorSystem(actorSystemIdentifier, databaseServers, databaseName, defaultTrackingEventCollection, contractors, numOfRequestConverters, eventWriterConfiguration, cacheConfiguration, dispatchersConfiguration, null);
+	}
+
+	/**
+	 * Sets up and initializes the {@link ActorSystem actor system} used for handling inbound events
+	 * @param actorSystemIdentifier
+	 * @param databaseServers
+	 * @param databaseName
+	 * @param defaultTrackingEventCollection
+	 * @param contractors
+	 * @param numOfRequestConverters number of http request converter instances, 0 = number of cores
+	 * @param eventWriterConfiguration batching and write concern of tracking event writers
+	 * @param cacheConfiguration backend of the cache tier, the cache root node creates and owns the client
+	 * @param dispatchersConfiguration dispatchers assigned to the pipeline stages, overrides the values found in application.conf
+	 * @param journal journal appended by the request converters and acknowledged by the tracking event writers, may be null
+	 * @return
+	 */
+	protected ActorSystem setupActorSystem(final String actorSystemIdentifier, final List<String> databaseServers, final String databaseName, final String defaultTrackingEventCollection, final Set<String> contractors, final int numOfRequestConverters, final BasarTrackingServerEventWriterConfigElement eventWriterConfiguration, final BasarTrackingServerCacheConfigElement cacheConfiguration, final BasarTrackingServerDispatchersConfigElement dispatchersConfiguration, final EventJournal journal) {
+		
+		int numOfTrackingEventInstances = 1;
+		
+		// only configured contractors receive metrics of their own, any other value found in inbound requests is tagged as unknown 
+		ContractorMetrics.registerContractors(contractors);
+		
+		// initialize actor system by assigning the provided name - the configured dispatchers override those found in application.conf
+		final ActorSystem actorSystem;
+		if(dispatchersConfiguration != null)
+			actorSystem = ActorSystem.create(actorSystemIdentifier, dispatchersConfiguration.toAkkaConfig().withFallback(ConfigFactory.load()));
+		else
+			actorSystem = ActorSystem.create(actorSystemIdentifier);
+		
+		// initialize database actor which serves as root node for all actors accessing the database
+		this.databaseRootRef = actorSystem.actorOf(Props.create(DatabaseRoot.class, databaseServers, numOfTrackingEventInstances, eventWriterConfiguration, journal), "dbRoot");
+		// initialize cache actor which serves as root node for all actors accessing the cache layer
+		this.cacheRootRef = actorSystem.actorOf(Props.create(CacheRoot.class, cacheConfiguration), "cacheRoot");
+		// initialize inbound message gateway which is responsible for fully setting up subsequent hierarchies
+		this.gatewayRef = actorSystem.actorOf(Props.create(ContractorMessageGateway.class, databaseRootRef, cacheRootRef).withDispatcher(BasarTrackingServerDispatchersConfigElement.GATEWAY_DISPATCHER), "messageGateway");
+		// initialize http request converters and assign them to the event stream - the converter keeps no state, thus
+		// requests are simply distributed round-robin among all instances
+		final int numOfConverters = (numOfRequestConverters > 0 ? numOfRequestConverters : Runtime.getRuntime().availableProcessors());
+		final ActorRef httpRequestConverterRef = actorSystem.actorOf(Props.create(HttpRequestConverter.class, gatewayRef, journal).withRouter(new RoundRobinRouter(numOfConverters)).withDispatcher(BasarTrackingServerDispatchersConfigElement.CONVERSION_DISPATCHER), "httpRequestConverter");
+		
+		// attach the request converter to the event stream as the tracking server simply publishes inbound requests on the internal bus
+		actorSystem.eventStream().subscribe(httpRequestConverterRef, HttpRequestMessage.class);
+		
+		// attach the message gateway to the event stream to receive metric configuration via messages
+		actorSystem.eventStream().subscribe(gatewayRef, BasarTrackingServerMetricConfigElement.class);
+		actorSystem.eventStream().subscribe(gatewayRef, RegisterContractorMessage.class);
+		actorSystem.eventStream().subscribe(gatewayRef, DeregisterContractorMessage.class);
+		
+		return actorSystem;
+	}
+	
+	public static void main(String[] args) throws Exception {
+		
+		Options options = new Options();
+		@SuppressWarnings("static-access")
+		Option configFileOption = OptionBuilder.withArgName("file")
+											.hasArg()
+											.withDescription("configuration file name")
+											.create("f");
+		options.addOption(configFileOption);
+		
+		CommandLineParser clParser = new PosixParser();
+		CommandLine cl = clParser.parse(options, args);
+
+		// ensure that the option 'f' is contained in the command-line arguments, otherwise
+		// print usage and return
+		if(!cl.hasOption("f")) {
+			HelpFormatter formatter = new HelpFormatter();
+			formatter.printHelp( "ant", options );
+			return;
+		}
+		
+		String configurationFileName = cl.getOptionValue("f");
+		logger.info("Reading server configuration from: " + configurationFileName);
+		
+		ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+		new BasarTrackingServer().run(mapper.readValue(new File(configurationFileName), BasarTrackingServerConfiguration.class));
+	}
+	
+}
@@ -1,95 +1,307 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking;
-
-import io.netty.buffer.Unpooled;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.handler.codec.http.DefaultFullHttpResponse;
-import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.HttpVersion;
-
-import org.apache.log4j.Logger;
-
-import akka.actor.ActorSystem;
-
-import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
-
-/**
- * Core {@link HttpRequest request} handler which receives all inbound traffic, forwards it into the asynchronous
- * processing pipeline and responds with an empty tracking pixel.
- * @author mnxfst
- * @since 27.09.2013
- *
- * Revision Control Info $Id$
- */
-public class BasarTrackingServerInboundHandler extends SimpleChannelInboundHandler<Object>  {
-
-	/** logging facility */
-	private static final Logger logger = Logger.getLogger(BasarTrackingServerInboundHandler.class);
-	
-	/** returned 1x1 pixel */
-	private static byte[] trackingPng = {(byte)0x89,0x50,0x4E,0x47,0x0D,0x0A,0x1A,0x0A,0x00,0x00,0x00,0x0D,0x49,0x48,0x44,0x52,0x00,0x00,0x00,0x01,0x00,0x00,0x00,0x01,0x08,0x06,0x00,0x00,0x00,0x1F,0x15,(byte)0xC4,(byte)0x89,0x00,0x00,0x00,0x0B,0x49,0x44,0x41,0x54,0x78,(byte)0xDA,0x63,0x60,0x00,0x02,0x00,0x00,0x05,0x00,0x01,(byte)0xE9,(byte)0xFA,(byte)0xDC,(byte)0xD8,0x00,0x00,0x00,0x00,0x49,0x45,0x4E,0x44,(byte)0xAE,0x42,0x60,(byte)0x82};
-	/** size of pixel required for setting response header properly */
-	private static int trackingPngLenght = trackingPng.length;
-	
-	/** entry point towards asynchronous request processing pipeline */
-	private final ActorSystem actorSystem;
-	
-	/**
-	 * Initializes the http request handler using the provided input
-	 * @param actorSystem
-	 */
-	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem) {
-		this.actorSystem = actorSystem;		
-	}
-	
-	/**
-	 * @see io.netty.channel.ChannelInboundHandlerAdapter#channelReadComplete(io.netty.channel.ChannelHandlerContext)
-	 */
-	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
-		ctx.flush();
-	}
-
-	/**
-	 * @see io.netty.channel.SimpleChannelInboundHandler#channelRead0(io.netty.channel.ChannelHandlerContext, java.lang.Object)
-	 */
-	public void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
-		
-		if (msg instanceof HttpRequest) {
-
-			// forward request into actor hierarchy for asynchronous processing and freeing up resources for serving upcoming requests
-			// no special actor is targeted but the request is published on the event stream accessible for all "root" level actors
-			HttpRequestMessage requestMessage = new HttpRequestMessage();
-			requestMessage.setInboundInterface("http");
-			requestMessage.setRequest((HttpRequest)msg);
-			requestMessage.setTimestamp(System.currentTimeMillis());
-			actorSystem.eventStream().publish(requestMessage);
-
-			logger.info(this);
-			
-			// respond with 1x1 empty pixel
-			FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, Unpooled.wrappedBuffer(trackingPng));
-			response.headers().set("Content-Type", "image/gif");
-			response.headers().set("Content-Length", trackingPngLenght);
-			ctx.write(response);
-//			ctx.channel().writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
-		}
-	}
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.ActorSystem;
+
+import com.codahale.metrics.Meter;
+import com.mnxfst.basar.tracking.http.TrackingResponses;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.ingest.IngestRingBuffer;
+import com.mnxfst.basar.tracking.ingest.IngestStage;
+import com.mnxfst.basar.tracking.ingest.raw.RawHttpRequest;
+import com.mnxfst.basar.tracking.ingest.raw.RawRequestLog;
+import com.mnxfst.basar.tracking.instrumentation.MetricsReport;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+
+/**
+ * Core {@link HttpRequest request} handler which receives all inbound traffic, forwards it into the asynchronous
+ * processing pipeline and responds with an empty tracking pixel. Requests are written to the {@link IngestRingBuffer ring buffer}
+ * owned by the channel's event loop. If no {@link IngestStage ingest stage} is available or the buffer is full, they are 
+ * published on the event stream instead. Requests towards the configured beacon path (optionally followed by query parameters) are
+ * answered with 204 (no content) instead. All responses are {@link TrackingResponses pre-encoded}.<br/><br/>
+ * If an {@link OverloadSignal overload signal} is provided, requests are answered with 503 (service unavailable) and
+ * dropped while the pipeline is overloaded. A full ring buffer signals an overload as well, instead of falling back to the 
+ * event stream.<br/><br/>
+ * Requests towards the metrics path are answered with the {@link MetricsReport metrics report} and never enter the pipeline.<br/><br/>
+ * If a {@link RawRequestLog raw request log} is provided, the channel receives {@link RawHttpRequest raw requests} which are appended
+ * to the log as they are, without creating any intermediate strings. Conversion happens asynchronously while reading the log, thus the 
+ * overload signal is not checked. Requests are rejected only if the log exceeds its disk budget.
+ * @author mnxfst
+ * @since 27.09.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerInboundHandler extends SimpleChannelInboundHandler<Object>  {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(BasarTrackingServerInboundHandler.class);
+	
+	/** default path of requests answered with 204 instead of the tracking pixel */
+	public static final String DEFAULT_BEACON_PATH = "/beacon";
+	
+	/** entry point towards asynchronous request processing pipeline */
+	private final ActorSystem actorSystem;
+	
+	/** provides the ring buffers, may be null */
+	private final IngestStage ingestStage;
+	
+	/** ring buffer owned by the event loop of this handler's channel */
+	private IngestRingBuffer ringBuffer = null;
+	
+	/** requests starting with this path receive an empty response */
+	private final String beaconPath;
+	
+	/** tells whether the pipeline is overloaded, may be null */
+	private final OverloadSignal overloadSignal;
+	
+	/** requests towards this path receive the metrics report, may be null */
+	private final String metricsPath;
+	
+	/** receives the raw requests, may be null */
+	private final RawRequestLog rawRequestLog;
+	/** beacon path compared against the raw request uri */
+	private final byte[] beaconPathBytes;
+	/** metrics path compared against the raw request uri */
+	private final byte[] metricsPathBytes;
+	
+	/** requests handed over to the pipeline */
+	private final Meter acceptedRequests;
+	/** requests rejected due to an overload */
+	private final Meter rejectedRequests;
+	
+	/**
+	 * Initializes the http request handler using the provided input
+	 * @param actorSystem
+	 */
+	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem) {
+		this(actorSystem, null, DEFAULT_BEACON_PATH);		
+	}
+	
+	/**
+	 * Initializes the http request handler using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 */
+	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath) {
+		this(actorSystem, ingestStage, beaconPath, null);
+	}
+	
+	/**
+	 * Initializes the http request handler using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 */
+	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal) {
+		this(actorSystem, ingestStage, beaconPath, overloadSignal, null);
+	}
+	
+	/**
+	 * Initializes the http request handler using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 * @param metricsPath
+	 */
+	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal, final String metricsPath) {
+		this(actorSystem, ingestStage, beaconPath, overloadSignal, metricsPath, null);
+	}
+	
+	/**
+	 * Initializes the http request handler using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 * @param metricsPath
+	 * @param rawRequestLog receives raw requests, may be null
+	 */
+	public BasarTrackingServerInboundHandler(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal, final String metricsPath, final RawRequestLog rawRequestLog) {
+		this.actorSystem = actorSystem;
+		this.ingestStage = ingestStage;
+		this.beaconPath = beaconPath;
+		this.overloadSignal = overloadSignal;
+		this.metricsPath = (metricsPath != null && !metricsPath.isEmpty() ? metricsPath : null);
+		this.rawRequestLog = rawRequestLog;
+		this.beaconPathBytes = (beaconPath != null ? beaconPath.getBytes(StandardCharsets.US_ASCII) : null);
+		this.metricsPathBytes = (this.metricsPath != null ? this.metricsPath.getBytes(StandardCharsets.US_ASCII) : null);
+		this.acceptedRequests = PipelineMetrics.registry().meter(PipelineMetrics.INBOUND_ACCEPTED);
+		this.rejectedRequests = PipelineMetrics.registry().meter(PipelineMetrics.INBOUND_REJECTED);
+	}
+	
+	/**
+	 * Looks up the ring buffer of the event loop the channel is registered with
+	 * @see io.netty.channel.ChannelHandlerAdapter#handlerAdded(io.netty.channel.ChannelHandlerContext)
+	 */
+	public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+		if(ingestStage != null)
+			this.ringBuffer = ingestStage.getRingBuffer(ctx.channel().eventLoop());
+	}
+	
+	/**
+	 * @see io.netty.channel.ChannelInboundHandlerAdapter#channelReadComplete(io.netty.channel.ChannelHandlerContext)
+	 */
+	public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+		ctx.flush();
+	}
+
+	/**
+	 * @see io.netty.channel.SimpleChannelInboundHandler#channelRead0(io.netty.channel.ChannelHandlerContext, java.lang.Object)
+	 */
+	public void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+		
+		if (msg instanceof RawHttpRequest) {
+			
+			RawHttpRequest request = (RawHttpRequest)msg;
+			boolean keepAlive = request.isKeepAlive();
+			
+			if(metricsPathBytes != null && request.isPath(metricsPathBytes)) {
+				if(keepAlive)
+					ctx.write(TrackingResponses.json(MetricsReport.toJson(PipelineMetrics.registry()), true));
+				else
+					ctx.write(TrackingResponses.json(MetricsReport.toJson(PipelineMetrics.registry()), false)).addListener(ChannelFutureListener.CLOSE);
+				return;
+			}
+			
+			// copy request line and selected headers into the log, the buffer is released after returning
+			boolean appended = false;
+			try {
+				appended = rawRequestLog.append(request, System.currentTimeMillis());
+			} catch(IOException e) {
+				logger.error("Failed to append raw request: " + e.getMessage());
+			}
+			if(!appended) {
+				reject(ctx, keepAlive);
+				return;
+			}
+			acceptedRequests.mark();
+			respond(ctx, beaconPathBytes != null && request.isPath(beaconPathBytes), keepAlive);
+			
+		} else if (msg instanceof HttpRequest) {
+
+			HttpRequest request = (HttpRequest)msg;
+			boolean keepAlive = HttpHeaders.isKeepAlive(request);
+			
+			// the metrics report is served regardless of the pipeline state
+			if(metricsPath != null && isMetricsRequest(request.getUri())) {
+				if(keepAlive)
+					ctx.write(TrackingResponses.json(MetricsReport.toJson(PipelineMetrics.registry()), true));
+				else
+					ctx.write(TrackingResponses.json(MetricsReport.toJson(PipelineMetrics.registry()), false)).addListener(ChannelFutureListener.CLOSE);
+				return;
+			}
+			
+			// reject the request while the pipeline is overloaded
+			if(overloadSignal != null && overloadSignal.isOverloaded()) {
+				reject(ctx, keepAlive);
+				return;
+			}
+			
+			// forward request into actor hierarchy for asynchronous processing and freeing up resources for serving upcoming requests
+			// the request is written to the ring buffer of this event loop. if there is none or if it is full, the request is published
+			// on the event stream accessible for all "root" level actors
+			long timestamp = System.currentTimeMillis();
+			if(ringBuffer == null || !ringBuffer.publish(request, "http", timestamp)) {
+				if(ringBuffer != null && overloadSignal != null) {
+					overloadSignal.signal();
+					reject(ctx, keepAlive);
+					return;
+				}
+				actorSystem.eventStream().publish(new HttpRequestMessage(request, "http", timestamp));
+			}
+			acceptedRequests.mark();
+
+			// respond with 1x1 empty pixel or 204 for beacon requests, close the connection if the client asked for it
+			respond(ctx, isBeaconRequest(request.getUri()), keepAlive);
+		}
+	}
+	
+	/**
+	 * Answers an accepted request with the 1x1 empty pixel or 204 for beacon requests, closes the connection if the client asked for it
+	 * @param ctx
+	 * @param beacon
+	 * @param keepAlive
+	 */
+	protected void respond(final ChannelHandlerContext ctx, final boolean beacon, final boolean keepAlive) {
+		if(keepAlive) {
+			ctx.write(beacon ? TrackingResponses.noContent(true) : TrackingResponses.pixel(true));
+		} else {
+			ctx.write(beacon ? TrackingResponses.noContent(false) : TrackingResponses.pixel(false)).addListener(ChannelFutureListener.CLOSE);
+		}
+	}
+	
+	/**
+	 * Returns true if the provided uri references the metrics endpoint, query parameters are ignored
+	 * @param uri
+	 * @return
+	 */
+	protected boolean isMetricsRequest(final String uri) {
+		return isPath(uri, metricsPath);
+	}
+	
+	/**
+	 * Returns true if the provided uri references the beacon endpoint, query parameters are ignored
+	 * @param uri
+	 * @return
+	 */
+	protected boolean isBeaconRequest(final String uri) {
+		return beaconPath != null && isPath(uri, beaconPath);
+	}
+	
+	/**
+	 * Returns true if the provided uri equals the path or continues with query parameters
+	 * @param uri
+	 * @param path
+	 * @return
+	 */
+	protected static boolean isPath(final String uri, final String path) {
+		if(uri == null || !uri.startsWith(path))
+			return false;
+		return uri.length() == path.length() || uri.charAt(path.length()) == '?';
+	}
+	
+	/**
+	 * Answers the request with 503 (service unavailable)
+	 * @param ctx
+	 * @param keepAlive
+	 */
+	protected void reject(final ChannelHandlerContext ctx, final boolean keepAlive) {
+		if(overloadSignal != null)
+			overloadSignal.requestRejected();
+		rejectedRequests.mark();
+		if(keepAlive)
+			ctx.write(TrackingResponses.serviceUnavailable(true));
+		else
+			ctx.write(TrackingResponses.serviceUnavailable(false)).addListener(ChannelFutureListener.CLOSE);
+	}
+}
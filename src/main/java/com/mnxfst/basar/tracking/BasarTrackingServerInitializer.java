@@ -1,57 +1,131 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking;
-
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelPipeline;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.handler.codec.http.HttpRequestDecoder;
-import io.netty.handler.codec.http.HttpResponseEncoder;
-import akka.actor.ActorSystem;
-
-/**
- * Initializes the request processing pipeline by adding decoder, encoder and handler
- * components as single stepts
- * @author mnxfst
- * @since 27.09.2013
- *
- * Revision Control Info $Id$
- */
-public class BasarTrackingServerInitializer extends ChannelInitializer<SocketChannel> {
-
-	private final ActorSystem actorSystem;
-	
-	/**
-	 * Initializes the instance using the provided input
-	 * @param actorSystem
-	 */
-	public BasarTrackingServerInitializer(final ActorSystem actorSystem) {
-		this.actorSystem = actorSystem;
-	}
-	
-	/**
-	 * @see io.netty.channel.ChannelInitializer#initChannel(io.netty.channel.Channel)
-	 */
-	protected void initChannel(SocketChannel ch) throws Exception {
-		
-        ChannelPipeline p = ch.pipeline();
-        p.addLast("decoder", new HttpRequestDecoder());
-        p.addLast("encoder", new HttpResponseEncoder());        
-        p.addLast("handler", new BasarTrackingServerInboundHandler(actorSystem));	
-	}
-
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking;
+
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import akka.actor.ActorSystem;
+
+import com.mnxfst.basar.tracking.ingest.IngestStage;
+import com.mnxfst.basar.tracking.ingest.raw.RawHttpRequestDecoder;
+import com.mnxfst.basar.tracking.ingest.raw.RawRequestLog;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+
+/**
+ * Initializes the request processing pipeline by adding decoder and handler
+ * components as single stepts. No response encoder is required as the handler
+ * writes {@link com.mnxfst.basar.tracking.http.TrackingResponses pre-encoded responses}. If a {@link RawRequestLog raw request log}
+ * is provided, the http decoder is replaced by the {@link RawHttpRequestDecoder raw request decoder}
+ * @author mnxfst
+ * @since 27.09.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerInitializer extends ChannelInitializer<SocketChannel> {
+
+	private final ActorSystem actorSystem;
+	
+	/** ring buffers handing requests over to the actor pipeline, may be null */
+	private final IngestStage ingestStage;
+	
+	/** requests starting with this path receive an empty response */
+	private final String beaconPath;
+	
+	/** tells whether the pipeline is overloaded, may be null */
+	private final OverloadSignal overloadSignal;
+	
+	/** requests towards this path receive the metrics report, may be null */
+	private final String metricsPath;
+	
+	/** receives the raw requests, may be null */
+	private final RawRequestLog rawRequestLog;
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param actorSystem
+	 */
+	public BasarTrackingServerInitializer(final ActorSystem actorSystem) {
+		this(actorSystem, null, BasarTrackingServerInboundHandler.DEFAULT_BEACON_PATH);
+	}
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 */
+	public BasarTrackingServerInitializer(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath) {
+		this(actorSystem, ingestStage, beaconPath, null);
+	}
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 */
+	public BasarTrackingServerInitializer(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal) {
+		this(actorSystem, ingestStage, beaconPath, overloadSignal, null);
+	}
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 * @param metricsPath
+	 */
+	public BasarTrackingServerInitializer(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal, final String metricsPath) {
+		this(actorSystem, ingestStage, beaconPath, overloadSignal, metricsPath, null);
+	}
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param actorSystem
+	 * @param ingestStage
+	 * @param beaconPath
+	 * @param overloadSignal
+	 * @param metricsPath
+	 * @param rawRequestLog receives raw requests, may be null
+	 */
+	public BasarTrackingServerInitializer(final ActorSystem actorSystem, final IngestStage ingestStage, final String beaconPath, final OverloadSignal overloadSignal, final String metricsPath, final RawRequestLog rawRequestLog) {
+		this.actorSystem = actorSystem;
+		this.ingestStage = ingestStage;
+		this.beaconPath = beaconPath;
+		this.overloadSignal = overloadSignal;
+		this.metricsPath = metricsPath;
+		this.rawRequestLog = rawRequestLog;
+	}
+	
+	/**
+	 * @see io.netty.channel.ChannelInitializer#initChannel(io.netty.channel.Channel)
+	 */
+	protected void initChannel(SocketChannel ch) throws Exception {
+		
+        ChannelPipeline p = ch.pipeline();
+        if(rawRequestLog != null)
+        	p.addLast("decoder", new RawHttpRequestDecoder(rawRequestLog.getHeaders(), rawRequestLog.getMaxHeadSize()));
+        else
+        	p.addLast("decoder", new HttpRequestDecoder());
+        p.addLast("handler", new BasarTrackingServerInboundHandler(actorSystem, ingestStage, beaconPath, overloadSignal, metricsPath, rawRequestLog));	
+	}
+
+}
@@ -1,135 +1,223 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.cache;
-
-import java.util.HashMap;
-import java.util.Map;
-
-import net.spy.memcached.MemcachedClient;
-
-import org.apache.commons.lang.StringUtils;
-
-import akka.actor.ActorRef;
-import akka.actor.Props;
-import akka.actor.SupervisorStrategy;
-import akka.actor.UntypedActor;
-import akka.routing.RoundRobinRouter;
-
-import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterErrorMessage;
-import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterMessage;
-import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterSuccessMessage;
-
-/**
- * Root node to actor hierarchy reading/writing data from/to cache. Provides access to
- * cache and implements a {@link SupervisorStrategy supervisor strategy} to handle 
- * errors gracefully.<br/><br/>
- * <b>Open issues</b>
- * <ul>
- *   <li>implement a supervisor strategy for failing cache connections</li>
- *   <li>derive a concept for multiple cache root nodes given the fact that writers are registered with the node instance creating them</li>
- *   <li>handle writer de-registration</li> 
- * </ul>
- * @author mnxfst
- * @since 30.10.2013
- *
- * Revision Control Info $Id$
- */
-public class CacheRoot extends UntypedActor {
-
-	///////////////////////////////////////////////////////////////////////////////////
-	// error codes to be used when responding to invalid cache writer registrations
-	public static final int ERROR_MISSING_COMPONENT_IDENTIFIER = 1;
-	public static final int ERROR_MISSING_COMPONENT_CLASS = 2;
-	public static final int ERROR_INVALID_NUMBER_OF_INSTANCES = 3;
-	public static final int ERROR_UNKNOWN_COMPONENT_CLASS = 4;
-	//
-	///////////////////////////////////////////////////////////////////////////////////
-
-	/** client used for accessing the memcached layer */
-	private final MemcachedClient memcachedClient;
-	
-	/** map of registered cache writers */
-	private final Map<String, ActorRef> registeredCacheWriters = new HashMap<>();	
-
-	/**
-	 * Initializes the cache root using the provided input
-	 * @param memcachedClient
-	 */
-	public CacheRoot(final MemcachedClient memcachedClient) {
-		this.memcachedClient = memcachedClient;
-	}
-	
-	/**
-	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
-	 */
-	public void onReceive(Object message) throws Exception {
-
-		if(message instanceof RegisterCacheWriterMessage) {
-			handleCacheWriterRegistration((RegisterCacheWriterMessage)message);
-		} else {
-			unhandled(message);
-		}
-		
-	}
-
-	/**
-	 * Creates a new {@link CacheValueWriter cache writer} instance from the provided
-	 * input and informs the calling party about the new instance 
-	 * @param msg
-	 */
-	protected void handleCacheWriterRegistration(final RegisterCacheWriterMessage msg) {
-		if(msg != null) {
-			
-			if(StringUtils.isBlank(msg.getComponentId())) {
-				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Missing required component identifier", ERROR_MISSING_COMPONENT_IDENTIFIER), getSelf());
-				return;
-			}
-			
-			if(StringUtils.isBlank(msg.getComponentClass())) {
-				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Missing required component class", ERROR_MISSING_COMPONENT_CLASS), getSelf());
-				return;
-			}
-			
-			if(msg.getNumOfInstances() < 1) {
-				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Invalid number of instances: " + msg.getNumOfInstances(), ERROR_INVALID_NUMBER_OF_INSTANCES), getSelf());
-				return;
-			}
-			
-			// try to get the class referenced by the name contained in the message
-			Class<?> cacheWriterClass = null;
-			try {
-				cacheWriterClass = Class.forName(msg.getComponentClass());
-			} catch (ClassNotFoundException e) {
-				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Unknown component class: " + msg.getComponentClass(), ERROR_UNKNOWN_COMPONENT_CLASS), getSelf());
-				return;
-			}
-			
-			// instantiate actor 
-			final ActorRef cacheWriterRef;
-			if(msg.getNumOfInstances() > 1)
-				cacheWriterRef = context().actorOf(Props.create(cacheWriterClass, this.memcachedClient).withRouter(new RoundRobinRouter(msg.getNumOfInstances())), msg.getComponentId());
-			else
-				cacheWriterRef = context().actorOf(Props.create(cacheWriterClass, this.memcachedClient), msg.getComponentId());
-			
-			// register newly created cache writer/actor with this actor
-			this.registeredCacheWriters.put(msg.getComponentId(), cacheWriterRef);
-			
-			getSender().tell(new RegisterCacheWriterSuccessMessage(msg.getComponentId(), cacheWriterRef), getSelf());
-		}		
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.spy.memcached.MemcachedClient;
+
+import org.apache.commons.lang.StringUtils;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.SupervisorStrategy;
+import akka.actor.UntypedActor;
+import akka.routing.ConsistentHashingRouter;
+import akka.routing.RoundRobinRouter;
+import akka.routing.RouterConfig;
+
+import com.mnxfst.basar.tracking.cache.client.CacheClient;
+import com.mnxfst.basar.tracking.cache.client.CacheClientFactory;
+import com.mnxfst.basar.tracking.cache.client.InstrumentedCacheClient;
+import com.mnxfst.basar.tracking.cache.client.MemcachedCacheClient;
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterErrorMessage;
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterMessage;
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterSuccessMessage;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerCacheConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerDispatchersConfigElement;
+
+/**
+ * Root node to actor hierarchy reading/writing data from/to cache. Provides access to
+ * cache and implements a {@link SupervisorStrategy supervisor strategy} to handle 
+ * errors gracefully.<br/><br/>
+ * Multiple writer instances are provided either through a {@link RoundRobinRouter round-robin router} or through a
+ * {@link ConsistentHashingRouter consistent hashing router}. The latter requires all messages sent to the writers to
+ * implement {@link ConsistentHashingRouter.ConsistentHashable} (or to be sent as {@link akka.routing.Broadcast broadcast})
+ * and makes each key owned by exactly one writer instance which may therefore aggregate its keys locally.<br/><br/>
+ * If initialized with a {@link BasarTrackingServerCacheConfigElement cache configuration}, the root node creates the
+ * {@link CacheClient cache client} on start-up and shuts it down after all cache writers have been stopped. Clients
+ * provided by the caller are not shut down.<br/><br/>
+ * <b>Open issues</b>
+ * <ul>
+ *   <li>implement a supervisor strategy for failing cache connections</li>
+ *   <li>derive a concept for multiple cache root nodes given the fact that writers are registered with the node instance creating them</li>
+ *   <li>handle writer de-registration</li> 
+ * </ul>
+ * @author mnxfst
+ * @since 30.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class CacheRoot extends UntypedActor {
+
+	///////////////////////////////////////////////////////////////////////////////////
+	// error codes to be used when responding to invalid cache writer registrations
+	public static final int ERROR_MISSING_COMPONENT_IDENTIFIER = 1;
+	public static final int ERROR_MISSING_COMPONENT_CLASS = 2;
+	public static final int ERROR_INVALID_NUMBER_OF_INSTANCES = 3;
+	public static final int ERROR_UNKNOWN_COMPONENT_CLASS = 4;
+	public static final int ERROR_UNKNOWN_ROUTING = 5;
+	//
+	///////////////////////////////////////////////////////////////////////////////////
+
+	/** client used for accessing the cache backend */
+	private CacheClient cacheClient;
+	/** configuration of the cache backend, null if the client is provided by the caller */
+	private final BasarTrackingServerCacheConfigElement cacheConfiguration;
+	
+	/** map of registered cache writers */
+	private final Map<String, ActorRef> registeredCacheWriters = new HashMap<>();	
+
+	/**
+	 * Initializes the cache root using the provided input
+	 * @param memcachedClient
+	 */
+	public CacheRoot(final MemcachedClient memcachedClient) {
+		this(new MemcachedCacheClient(memcachedClient));
+	}
+	
+	/**
+	 * Initializes the cache root using the provided input
+	 * @param cacheClient
+	 */
+	public CacheRoot(final CacheClient cacheClient) {
+		this.cacheClient = cacheClient;
+		this.cacheConfiguration = null;
+	}
+	
+	/**
+	 * Initializes the cache root using the provided input. The constructor does not establish a connection
+	 * with the cache backend as this will be carried out by preStart()
+	 * @param cacheConfiguration
+	 */
+	public CacheRoot(final BasarTrackingServerCacheConfigElement cacheConfiguration) {
+		if(cacheConfiguration == null)
+			throw new RuntimeException("Missing required cache configuration");
+		this.cacheConfiguration = cacheConfiguration;
+	}
+	
+	/**
+	 * Creates the cache client if this node owns it. The client is decorated to report operation latencies and errors
+	 * @see akka.actor.UntypedActor#preStart()
+	 */
+	public void preStart() throws Exception {
+		if(this.cacheConfiguration != null)
+			this.cacheClient = new InstrumentedCacheClient(CacheClientFactory.create(this.cacheConfiguration));
+	}
+	
+	/**
+	 * Shuts down the cache client if this node owns it. Children are stopped before, thus the cache writers were able 
+	 * to flush their remaining values
+	 * @see akka.actor.UntypedActor#postStop()
+	 */
+	public void postStop() throws Exception {
+		if(this.cacheConfiguration != null && this.cacheClient != null) {
+			this.cacheClient.shutdown();
+			this.cacheClient = null;
+		}
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+
+		if(message instanceof RegisterCacheWriterMessage) {
+			handleCacheWriterRegistration((RegisterCacheWriterMessage)message);
+		} else {
+			unhandled(message);
+		}
+		
+	}
+
+	/**
+	 * Creates a new {@link CacheValueWriter cache writer} instance from the provided
+	 * input and informs the calling party about the new instance 
+	 * @param msg
+	 */
+	protected void handleCacheWriterRegistration(final RegisterCacheWriterMessage msg) {
+		if(msg != null) {
+			
+			if(StringUtils.isBlank(msg.getComponentId())) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Missing required component identifier", ERROR_MISSING_COMPONENT_IDENTIFIER), getSelf());
+				return;
+			}
+			
+			if(StringUtils.isBlank(msg.getComponentClass())) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Missing required component class", ERROR_MISSING_COMPONENT_CLASS), getSelf());
+				return;
+			}
+			
+			if(msg.getNumOfInstances() < 1) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Invalid number of instances: " + msg.getNumOfInstances(), ERROR_INVALID_NUMBER_OF_INSTANCES), getSelf());
+				return;
+			}
+			
+			final String routing = (StringUtils.isBlank(msg.getRouting()) ? RegisterCacheWriterMessage.ROUTING_ROUND_ROBIN : msg.getRouting());
+			if(!RegisterCacheWriterMessage.ROUTING_ROUND_ROBIN.equalsIgnoreCase(routing) && !RegisterCacheWriterMessage.ROUTING_CONSISTENT_HASHING.equalsIgnoreCase(routing)) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Unknown routing: " + msg.getRouting(), ERROR_UNKNOWN_ROUTING), getSelf());
+				return;
+			}
+			
+			// try to get the class referenced by the name contained in the message
+			Class<?> cacheWriterClass = null;
+			try {
+				cacheWriterClass = Class.forName(msg.getComponentClass());
+			} catch (ClassNotFoundException e) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "Unknown component class: " + msg.getComponentClass(), ERROR_UNKNOWN_COMPONENT_CLASS), getSelf());
+				return;
+			}
+			
+			// instantiate actor - the configuration is handed over only if provided by the message
+			final Props cacheWriterProps;
+			try {
+				if(msg.getConfiguration() != null)
+					cacheWriterProps = Props.create(cacheWriterClass, this.cacheClient, msg.getConfiguration()).withDispatcher(BasarTrackingServerDispatchersConfigElement.CACHE_WRITERS_DISPATCHER);
+				else
+					cacheWriterProps = Props.create(cacheWriterClass, this.cacheClient).withDispatcher(BasarTrackingServerDispatchersConfigElement.CACHE_WRITERS_DISPATCHER);
+			} catch(IllegalArgumentException e) {
+				getSender().tell(new RegisterCacheWriterErrorMessage(msg.getComponentId(), "No matching constructor found for component class: " + msg.getComponentClass(), ERROR_UNKNOWN_COMPONENT_CLASS), getSelf());
+				return;
+			}
+			
+			final ActorRef cacheWriterRef;
+			if(msg.getNumOfInstances() > 1)
+				cacheWriterRef = context().actorOf(cacheWriterProps.withRouter(createRouter(routing, msg.getNumOfInstances())), msg.getComponentId());
+			else
+				cacheWriterRef = context().actorOf(cacheWriterProps, msg.getComponentId());
+			
+			// register newly created cache writer/actor with this actor
+			this.registeredCacheWriters.put(msg.getComponentId(), cacheWriterRef);
+			
+			getSender().tell(new RegisterCacheWriterSuccessMessage(msg.getComponentId(), cacheWriterRef), getSelf());
+		}		
+	}
+	
+	/**
+	 * Creates the router referenced by the given routing
+	 * @param routing
+	 * @param numOfInstances
+	 * @return
+	 */
+	protected RouterConfig createRouter(final String routing, final int numOfInstances) {
+		if(RegisterCacheWriterMessage.ROUTING_CONSISTENT_HASHING.equalsIgnoreCase(routing))
+			return new ConsistentHashingRouter(numOfInstances);
+		return new RoundRobinRouter(numOfInstances);
+	}
+	
+}
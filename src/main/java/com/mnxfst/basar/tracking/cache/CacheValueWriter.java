@@ -1,85 +1,487 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.cache;
-
-import net.spy.memcached.CASValue;
-import net.spy.memcached.MemcachedClient;
-import akka.actor.SupervisorStrategy;
-import akka.actor.UntypedActor;
-
-/**
- * Common parent to all nodes that wish to write data to the in-memory cache. This implementation provides
- * an expected constructor interface that all extending classes must comply with. Although other nodes are
- * allowed to access the cache as well children of a common cache root share the same {@link SupervisorStrategy supervisor strategy}
- * they benefit from. 
- * @author mnxfst
- * @since 29.10.2013
- *
- * Revision Control Info $Id$
- */
-public abstract class CacheValueWriter extends UntypedActor {
-
-	/** default expiration time */
-	private final static int expirationTime = 60*60*24*29;
-
-	private final MemcachedClient memcachedClient;
-	
-	/**
-	 * Initializes the cache value writer using the provided input
-	 * @param memcachedClient
-	 */
-	public CacheValueWriter(final MemcachedClient memcachedClient) {
-		this.memcachedClient = memcachedClient;
-	}
-	
-	/**
-	 * Returns and locks the value associated with the given key
-	 * @param key
-	 * @return
-	 */
-	public CASValue<Object> readCacheValueAndLock(final String key) {
-		return this.memcachedClient.gets(key);
-	}
-	
-	/**
-	 * Write and unlock value
-	 * @param key
-	 * @param value
-	 */
-	public void writeCacheValue(final String key, final CASValue<Object> value) {
-		this.memcachedClient.asyncCAS(key, value.getCas(), value.getValue());
-	}
-	
-	/**
-	 * Returns the value associated with the provided key
-	 * @param key
-	 * @return
-	 */
-	public Object readCacheValue(final String key) {
-		return this.memcachedClient.get(key);
-	}
-	
-	/**
-	 * Writes the provided value to cache
-	 * @param key
-	 * @param object
-	 */
-	public void writeCacheValue(final String key, final Object object) {
-		this.memcachedClient.set(key, expirationTime, object); 
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import net.spy.memcached.CASValue;
+import net.spy.memcached.MemcachedClient;
+import net.spy.memcached.transcoders.Transcoder;
+
+import org.apache.log4j.Logger;
+
+import scala.concurrent.duration.Duration;
+import akka.actor.ActorRef;
+import akka.actor.SupervisorStrategy;
+import akka.actor.UntypedActor;
+
+import com.mnxfst.basar.tracking.cache.client.CacheClient;
+import com.mnxfst.basar.tracking.cache.client.MemcachedCacheClient;
+import com.mnxfst.basar.tracking.cache.message.CheckPendingIncrementsMessage;
+import com.mnxfst.basar.tracking.cache.near.TinyLfuCache;
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+
+/**
+ * Common parent to all nodes that wish to write data to the in-memory cache. This implementation provides
+ * an expected constructor interface that all extending classes must comply with. Although other nodes are
+ * allowed to access the cache as well children of a common cache root share the same {@link SupervisorStrategy supervisor strategy}
+ * they benefit from.<br/><br/>
+ * Optionally the writer keeps a bounded near cache in front of the cache backend. It is owned by the writer instance
+ * and managed by a {@link TinyLfuCache W-TinyLFU} policy, thus it holds the few keys accessed all the time. Reads of 
+ * cached keys are served locally. Writes are either passed to the backend right away (write-through) or collected
+ * locally - counter increments are added up - until the entry is evicted or {@link #flushNearCache() flushed} (write-behind).<br/><br/>
+ * Counter increments are issued asynchronously. While increments are pending, the writer sends itself a 
+ * {@link CheckPendingIncrementsMessage check message} from time to time, thus increments which missed their key are re-applied 
+ * even if no further messages arrive. Extending classes must pass this message to {@link #onCheckPendingIncrements()}. 
+ * @author mnxfst
+ * @since 29.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public abstract class CacheValueWriter extends UntypedActor {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(CacheValueWriter.class);
+	
+	/** default expiration time */
+	private final static int expirationTime = 60*60*24*29;
+	/** time between two checks of pending increments */
+	private static final long PENDING_INCREMENTS_CHECK_MILLIS = 10;
+	/** max. time to wait for pending increments when the writer stops */
+	private static final long PENDING_INCREMENTS_TIMEOUT_MILLIS = 5000;
+
+	/** client of the cache backend - memcached or embedded store */
+	private final CacheClient cacheClient;
+	/** transcoder used for all values read from or written to cache */
+	private final Transcoder<Object> transcoder;
+	/** optional near cache, null if disabled */
+	private final TinyLfuCache<String, NearCacheEntry> nearCache;
+	/** collect writes inside the near cache instead of passing them to the backend right away */
+	private final boolean nearCacheWriteBehind;
+	/** counter increments issued but not evaluated yet, in order of issue */
+	private final Queue<PendingIncrement> pendingIncrements = new ArrayDeque<>();
+	/** a check of pending increments has been scheduled */
+	private boolean pendingIncrementsCheckScheduled = false;
+	/** the writer has been stopped, thus no further checks are scheduled */
+	private boolean stopped = false;
+	
+	/**
+	 * Initializes the cache value writer using the provided input. Values are written by a {@link CompactValueTranscoder}
+	 * without any codecs, thus using java serialization
+	 * @param memcachedClient
+	 */
+	public CacheValueWriter(final MemcachedClient memcachedClient) {
+		this(memcachedClient, new CompactValueTranscoder());
+	}
+	
+	/**
+	 * Initializes the cache value writer using the provided input
+	 * @param memcachedClient
+	 * @param transcoder
+	 */
+	public CacheValueWriter(final MemcachedClient memcachedClient, final Transcoder<Object> transcoder) {
+		this(new MemcachedCacheClient(memcachedClient), transcoder);
+	}
+	
+	/**
+	 * Initializes the cache value writer using the provided input. Values are written by a {@link CompactValueTranscoder}
+	 * without any codecs, thus using java serialization
+	 * @param cacheClient
+	 */
+	public CacheValueWriter(final CacheClient cacheClient) {
+		this(cacheClient, new CompactValueTranscoder());
+	}
+	
+	/**
+	 * Initializes the cache value writer using the provided input
+	 * @param cacheClient
+	 * @param transcoder
+	 */
+	public CacheValueWriter(final CacheClient cacheClient, final Transcoder<Object> transcoder) {
+		this(cacheClient, transcoder, 0, false);
+	}
+	
+	/**
+	 * Initializes the cache value writer using the provided input
+	 * @param cacheClient
+	 * @param transcoder
+	 * @param nearCacheMaxEntries max. number of entries kept by the near cache, 0 = no near cache
+	 * @param nearCacheWriteBehind collect writes inside the near cache
+	 */
+	public CacheValueWriter(final CacheClient cacheClient, final Transcoder<Object> transcoder, final int nearCacheMaxEntries, final boolean nearCacheWriteBehind) {
+		this.cacheClient = cacheClient;
+		this.transcoder = transcoder;
+		this.nearCacheWriteBehind = nearCacheWriteBehind;
+		if(nearCacheMaxEntries > 0) {
+			this.nearCache = new TinyLfuCache<>(nearCacheMaxEntries, new TinyLfuCache.EvictionListener<String, NearCacheEntry>() {
+				public void onEviction(String key, NearCacheEntry entry) {
+					writeBack(key, entry);
+				}
+			});
+		} else {
+			this.nearCache = null;
+		}
+	}
+	
+	/**
+	 * Writes back all pending near cache entries and waits for pending increments
+	 * @see akka.actor.UntypedActor#postStop()
+	 */
+	public void postStop() throws Exception {
+		this.stopped = true;
+		flushNearCache();
+		awaitPendingIncrements(PENDING_INCREMENTS_TIMEOUT_MILLIS);
+		if(nearCache != null)
+			logger.info("Near cache statistics [writer="+getSelf().path()+", hits="+nearCache.getHitCount()+", misses="+nearCache.getMissCount()+", evictions="+nearCache.getEvictionCount()+"]");
+	}
+	
+	/**
+	 * Returns and locks the value associated with the given key
+	 * @param key
+	 * @return
+	 */
+	public CASValue<Object> readCacheValueAndLock(final String key) {
+		// CAS operations work on the backend value, thus pending local changes are written first and the local copy is dropped
+		invalidateNearCacheEntry(key);
+		return this.cacheClient.gets(key, transcoder);
+	}
+	
+	/**
+	 * Write and unlock value
+	 * @param key
+	 * @param value
+	 */
+	public void writeCacheValue(final String key, final CASValue<Object> value) {
+		invalidateNearCacheEntry(key);
+		this.cacheClient.asyncCAS(key, value.getCas(), value.getValue(), transcoder);
+	}
+	
+	/**
+	 * Returns the value associated with the provided key
+	 * @param key
+	 * @return
+	 */
+	public Object readCacheValue(final String key) {
+		if(nearCache == null)
+			return this.cacheClient.get(key, transcoder);
+		
+		NearCacheEntry entry = nearCache.get(key);
+		if(entry != null && entry.value != null)
+			return entry.value;
+		
+		Object value = this.cacheClient.get(key, transcoder);
+		if(value != null) {
+			if(entry == null) {
+				entry = new NearCacheEntry();
+				nearCache.put(key, entry);
+			}
+			entry.value = value;
+		}
+		return value;
+	}
+	
+	/**
+	 * Asynchronously increments the numeric value associated with the given key. The returned future provides
+	 * the new value or -1 if the key does not exist. Numeric values are modified by the cache server, thus 
+	 * concurrent increments never get lost 
+	 * @param key
+	 * @param by
+	 * @return
+	 */
+	public Future<Long> incrementCounter(final String key, final long by) {
+		return this.cacheClient.asyncIncr(key, by);
+	}
+	
+	/**
+	 * Increments the numeric value associated with the given key. If the key does not exist, it is initialized
+	 * with the provided value. The call blocks until the operation has completed
+	 * @param key
+	 * @param by
+	 * @param initial
+	 * @return new value
+	 */
+	public long incrementCounter(final String key, final long by, final long initial) {
+		return this.cacheClient.incr(key, by, initial, expirationTime);
+	}
+	
+	/**
+	 * Adds the given value to the numeric value associated with the key. Keys found missing by the backend are 
+	 * initialized with the given value once the increment has completed, see {@link #checkPendingIncrements()}.
+	 * With a write-behind near cache, increments of the same key are added up locally and written as one
+	 * @param key
+	 * @param by
+	 */
+	public void addToCounter(final String key, final long by) {
+		if(nearCache == null) {
+			issueIncrement(key, by);
+			return;
+		}
+		
+		NearCacheEntry entry = nearCache.get(key);
+		if(entry == null) {
+			entry = new NearCacheEntry();
+			nearCache.put(key, entry);
+		}
+		
+		if(nearCacheWriteBehind) {
+			entry.pendingDelta = entry.pendingDelta + by;
+		} else {
+			issueIncrement(key, by);
+			if(entry.counter >= 0)
+				entry.counter = entry.counter + by;
+		}
+	}
+	
+	/**
+	 * Returns the numeric value associated with the provided key or -1 if the key does not exist. The value
+	 * includes increments still pending inside the near cache
+	 * @param key
+	 * @return
+	 */
+	public long readCounter(final String key) {
+		NearCacheEntry entry = (nearCache != null ? nearCache.get(key) : null);
+		if(entry != null && entry.counter >= 0)
+			return entry.counter + entry.pendingDelta;
+		
+		Object value = this.cacheClient.get(key, transcoder);
+		long counter = (value != null ? Long.parseLong(value.toString().trim()) : -1);
+		if(nearCache == null)
+			return counter;
+		
+		if(entry == null) {
+			entry = new NearCacheEntry();
+			nearCache.put(key, entry);
+		}
+		entry.counter = counter;
+		if(counter < 0)
+			return (entry.pendingDelta > 0 ? entry.pendingDelta : -1);
+		return counter + entry.pendingDelta;
+	}
+	
+	/**
+	 * Writes the provided value to cache
+	 * @param key
+	 * @param object
+	 */
+	public void writeCacheValue(final String key, final Object object) {
+		if(nearCache == null) {
+			this.cacheClient.set(key, expirationTime, object, transcoder);
+			return;
+		}
+		
+		NearCacheEntry entry = nearCache.get(key);
+		if(entry == null) {
+			entry = new NearCacheEntry();
+			nearCache.put(key, entry);
+		}
+		entry.value = object;
+		if(nearCacheWriteBehind)
+			entry.valueDirty = true;
+		else
+			this.cacheClient.set(key, expirationTime, object, transcoder);
+	}
+	
+	/**
+	 * Writes all changes collected by the near cache to the backend. Entries remain cached
+	 */
+	public void flushNearCache() {
+		if(nearCache == null || !nearCacheWriteBehind)
+			return;
+		for(Map.Entry<String, NearCacheEntry> entry : nearCache.entries())
+			writeBack(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Evaluates all completed counter increments in the order they were issued. Increments which missed their key are 
+	 * re-applied asynchronously using an increment with default value which atomically adds the key if it still does not 
+	 * exist. Schedules the next check if increments remain pending
+	 */
+	protected void checkPendingIncrements() {
+		
+		while(!pendingIncrements.isEmpty() && pendingIncrements.peek().result.isDone()) {
+			PendingIncrement pendingIncrement = pendingIncrements.poll();
+			try {
+				if(pendingIncrement.result.get().longValue() < 0) {
+					if(pendingIncrement.initializing)
+						logger.error("Failed to initialize cached counter [key="+pendingIncrement.cacheKey+", count="+pendingIncrement.count+"]");
+					else
+						pendingIncrements.add(new PendingIncrement(pendingIncrement.cacheKey, pendingIncrement.count, 
+								this.cacheClient.asyncIncr(pendingIncrement.cacheKey, pendingIncrement.count, pendingIncrement.count, expirationTime), true));
+				}
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch(ExecutionException | RuntimeException e) {
+				logger.error("Failed to increment cached counter [key="+pendingIncrement.cacheKey+", count="+pendingIncrement.count+"]: " + e.getMessage());
+			}
+		}
+		schedulePendingIncrementsCheck();
+	}
+	
+	/**
+	 * Handles the {@link CheckPendingIncrementsMessage check message} sent by the writer to itself
+	 */
+	protected void onCheckPendingIncrements() {
+		this.pendingIncrementsCheckScheduled = false;
+		checkPendingIncrements();
+	}
+	
+	/**
+	 * Schedules a check of pending increments unless one is scheduled already, no increments are pending or the writer has been stopped
+	 */
+	protected void schedulePendingIncrementsCheck() {
+		if(stopped || pendingIncrementsCheckScheduled || pendingIncrements.isEmpty())
+			return;
+		this.pendingIncrementsCheckScheduled = true;
+		context().system().scheduler().scheduleOnce(Duration.create(PENDING_INCREMENTS_CHECK_MILLIS, TimeUnit.MILLISECONDS), getSelf(), 
+				CheckPendingIncrementsMessage.INSTANCE, context().dispatcher(), ActorRef.noSender());
+	}
+	
+	/**
+	 * Waits until all pending increments - including re-applied ones - have been evaluated or the timeout is reached
+	 * @param timeoutMillis
+	 */
+	protected void awaitPendingIncrements(final long timeoutMillis) {
+		
+		final long deadline = System.currentTimeMillis() + timeoutMillis;
+		while(!pendingIncrements.isEmpty()) {
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				logger.warn("Gave up waiting for " + pendingIncrements.size() + " pending counter increments");
+				return;
+			}
+			try {
+				pendingIncrements.peek().result.get(remaining, TimeUnit.MILLISECONDS);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch(ExecutionException | TimeoutException | RuntimeException e) {
+				// failed increments are reported when being evaluated
+			}
+			checkPendingIncrements();
+		}
+	}
+	
+	/**
+	 * Issues an asynchronous increment and keeps track of its result
+	 * @param key
+	 * @param by
+	 */
+	protected void issueIncrement(final String key, final long by) {
+		Future<Long> result = incrementCounter(key, by);
+		pendingIncrements.add(new PendingIncrement(key, by, result, false));
+		// increments of the embedded store complete immediately
+		if(result.isDone())
+			checkPendingIncrements();
+		else
+			schedulePendingIncrementsCheck();
+	}
+	
+	/**
+	 * Writes pending changes of the given near cache entry to the backend
+	 * @param key
+	 * @param entry
+	 */
+	protected void writeBack(final String key, final NearCacheEntry entry) {
+		if(entry.pendingDelta != 0) {
+			issueIncrement(key, entry.pendingDelta);
+			if(entry.counter >= 0)
+				entry.counter = entry.counter + entry.pendingDelta;
+			entry.pendingDelta = 0;
+		}
+		if(entry.valueDirty) {
+			this.cacheClient.set(key, expirationTime, entry.value, transcoder);
+			entry.valueDirty = false;
+		}
+	}
+	
+	/**
+	 * Writes pending changes of the referenced near cache entry and drops it
+	 * @param key
+	 */
+	protected void invalidateNearCacheEntry(final String key) {
+		if(nearCache == null)
+			return;
+		NearCacheEntry entry = nearCache.remove(key);
+		if(entry != null)
+			writeBack(key, entry);
+	}
+	
+	/**
+	 * Returns true if the near cache collects writes
+	 * @return
+	 */
+	public boolean isNearCacheWriteBehind() {
+		return nearCache != null && nearCacheWriteBehind;
+	}
+	
+	public long getNearCacheHitCount() {
+		return (nearCache != null ? nearCache.getHitCount() : 0);
+	}
+	
+	public long getNearCacheMissCount() {
+		return (nearCache != null ? nearCache.getMissCount() : 0);
+	}
+	
+	public long getNearCacheEvictionCount() {
+		return (nearCache != null ? nearCache.getEvictionCount() : 0);
+	}
+	
+	/**
+	 * Locally cached value or counter
+	 * @author mnxfst
+	 * @since 24.11.2013
+	 */
+	protected static final class NearCacheEntry {
+		/** cached value, null if the entry holds a counter */
+		private Object value = null;
+		/** value has not been written to the backend yet */
+		private boolean valueDirty = false;
+		/** counter value known from the backend, -1 if unknown */
+		private long counter = -1;
+		/** increments not written to the backend yet */
+		private long pendingDelta = 0;
+	}
+	
+	/**
+	 * Increment sent to cache but not evaluated yet
+	 * @author mnxfst
+	 * @since 22.11.2013
+	 */
+	protected static final class PendingIncrement {
+		private final String cacheKey;
+		private final long count;
+		/** new value or -1 if the key does not exist */
+		private final Future<Long> result;
+		/** increment with default value re-applying a missed one */
+		private final boolean initializing;
+		
+		private PendingIncrement(final String cacheKey, final long count, final Future<Long> result, final boolean initializing) {
+			this.cacheKey = cacheKey;
+			this.count = count;
+			this.result = result;
+			this.initializing = initializing;
+		}
+	}
+	
+}
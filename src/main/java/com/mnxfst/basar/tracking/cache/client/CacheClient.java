@@ -0,0 +1,107 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.util.concurrent.Future;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * Backend-neutral view on the cache operations used by {@link com.mnxfst.basar.tracking.cache.CacheValueWriter cache writers}. 
+ * The operations follow the semantics of the memcached protocol, thus writers behave the same regardless whether values
+ * are kept inside the jvm or by external memcached servers. Implementations must be thread-safe.
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public interface CacheClient {
+
+	/**
+	 * Returns the value associated with the given key or null if none exists
+	 * @param key
+	 * @param transcoder
+	 * @return
+	 */
+	public <T> T get(final String key, final Transcoder<T> transcoder);
+	
+	/**
+	 * Returns the value associated with the given key along with its CAS identifier or null if none exists
+	 * @param key
+	 * @param transcoder
+	 * @return
+	 */
+	public <T> CASValue<T> gets(final String key, final Transcoder<T> transcoder);
+	
+	/**
+	 * Replaces the value associated with the given key if its CAS identifier still matches
+	 * @param key
+	 * @param casId
+	 * @param value
+	 * @param transcoder
+	 * @return
+	 */
+	public <T> Future<CASResponse> asyncCAS(final String key, final long casId, final T value, final Transcoder<T> transcoder);
+	
+	/**
+	 * Associates the given value with the key
+	 * @param key
+	 * @param expirationTime seconds relative to now (up to 30 days) or absolute unix time, 0 = never expires
+	 * @param value
+	 * @param transcoder
+	 * @return
+	 */
+	public <T> Future<Boolean> set(final String key, final int expirationTime, final T value, final Transcoder<T> transcoder);
+	
+	/**
+	 * Increments the numeric value associated with the given key. The future provides the new value or -1 if the key does not exist
+	 * @param key
+	 * @param by
+	 * @return
+	 */
+	public Future<Long> asyncIncr(final String key, final long by);
+	
+	/**
+	 * Increments the numeric value associated with the given key or initializes it with the default value if the key
+	 * does not exist. The call blocks until the operation has completed
+	 * @param key
+	 * @param by
+	 * @param defaultValue
+	 * @param expirationTime
+	 * @return new value
+	 */
+	public long incr(final String key, final long by, final long defaultValue, final int expirationTime);
+	
+	/**
+	 * Asynchronously increments the numeric value associated with the given key. If the key does not exist, it is 
+	 * initialized with the default value
+	 * @param key
+	 * @param by
+	 * @param defaultValue
+	 * @param expirationTime
+	 * @return new value
+	 */
+	public Future<Long> asyncIncr(final String key, final long by, final long defaultValue, final int expirationTime);
+	
+	/**
+	 * Releases all resources held by the client
+	 */
+	public void shutdown();
+	
+}
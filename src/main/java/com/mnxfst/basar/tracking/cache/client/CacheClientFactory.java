@@ -0,0 +1,148 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+import java.util.List;
+
+import net.spy.memcached.AddrUtil;
+import net.spy.memcached.ConnectionFactory;
+import net.spy.memcached.ConnectionFactoryBuilder;
+import net.spy.memcached.DefaultHashAlgorithm;
+import net.spy.memcached.MemcachedClient;
+
+import org.apache.log4j.Logger;
+
+import com.mnxfst.basar.tracking.config.BasarTrackingServerCacheConfigElement;
+import com.thimbleware.jmemcached.CacheImpl;
+import com.thimbleware.jmemcached.Key;
+import com.thimbleware.jmemcached.LocalCacheElement;
+import com.thimbleware.jmemcached.MemCacheDaemon;
+import com.thimbleware.jmemcached.storage.CacheStorage;
+import com.thimbleware.jmemcached.storage.hash.ConcurrentLinkedHashMap;
+
+/**
+ * Creates the {@link CacheClient cache client} for the backend referenced by the {@link BasarTrackingServerCacheConfigElement configuration}
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class CacheClientFactory {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(CacheClientFactory.class);
+	
+	private CacheClientFactory() {		
+	}
+	
+	/**
+	 * Creates the cache client for the configured backend. The caller owns the client and must {@link CacheClient#shutdown() shut it down}
+	 * @param configuration
+	 * @return
+	 * @throws IOException if the connection to the memcached servers cannot be established
+	 * @throws IllegalArgumentException if the configuration is invalid
+	 */
+	public static CacheClient create(final BasarTrackingServerCacheConfigElement configuration) throws IOException {
+		
+		if(configuration == null)
+			throw new IllegalArgumentException("Missing required cache configuration");
+		
+		final String backend = configuration.getBackend();
+		if(BasarTrackingServerCacheConfigElement.BACKEND_EMBEDDED.equalsIgnoreCase(backend)) {
+			logger.info("Cache backend: embedded store [maxItems="+configuration.getMaxItems()+", maxBytes="+configuration.getMaxBytes()+", offHeap="+configuration.isOffHeap()+"]");
+			return new EmbeddedCacheClient(configuration.getMaxItems(), configuration.getMaxBytes(), configuration.isOffHeap());
+		}
+		
+		if(BasarTrackingServerCacheConfigElement.BACKEND_LOCAL_DAEMON.equalsIgnoreCase(backend)) {
+			InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), configuration.getLocalDaemonPort());
+			MemCacheDaemon<LocalCacheElement> daemon = startLocalDaemon(address, configuration.getMaxItems(), configuration.getMaxBytes());
+			logger.info("Cache backend: local daemon [address="+address+", maxItems="+configuration.getMaxItems()+", maxBytes="+configuration.getMaxBytes()+"]");
+			try {
+				return new MemcachedCacheClient(createMemcachedClients(Collections.singletonList(address), configuration), daemon);
+			} catch(IOException e) {
+				daemon.stop();
+				throw e;
+			}
+		}
+		
+		if(BasarTrackingServerCacheConfigElement.BACKEND_MEMCACHED.equalsIgnoreCase(backend)) {
+			if(configuration.getServers() == null || configuration.getServers().isEmpty())
+				throw new IllegalArgumentException("Missing required memcached servers");
+			logger.info("Cache backend: memcached [servers="+configuration.getServers()+", ketamaHashing="+configuration.isKetamaHashing()+", connectionPoolSize="+configuration.getConnectionPoolSize()+", operationTimeoutMillis="+configuration.getOperationTimeoutMillis()+"]");
+			return new MemcachedCacheClient(createMemcachedClients(AddrUtil.getAddresses(configuration.getServers()), configuration), null);
+		}
+		
+		throw new IllegalArgumentException("Unknown cache backend: " + backend);
+	}
+	
+	/**
+	 * Creates the configured number of memcached clients connected to the given servers. Keys are distributed among the servers 
+	 * using ketama consistent hashing if requested, thus adding or removing a server remaps only the keys owned by that server. 
+	 * All clients share the same server locator, thus a key is mapped onto the same server regardless of the client used
+	 * @param addresses
+	 * @param configuration
+	 * @return
+	 * @throws IOException if the connection to the memcached servers cannot be established
+	 */
+	public static MemcachedClient[] createMemcachedClients(final List<InetSocketAddress> addresses, final BasarTrackingServerCacheConfigElement configuration) throws IOException {
+		
+		ConnectionFactoryBuilder builder = new ConnectionFactoryBuilder();
+		if(configuration.getOperationTimeoutMillis() > 0)
+			builder.setOpTimeout(configuration.getOperationTimeoutMillis());
+		if(configuration.isKetamaHashing()) {
+			builder.setLocatorType(ConnectionFactoryBuilder.Locator.CONSISTENT);
+			builder.setHashAlg(DefaultHashAlgorithm.KETAMA_HASH);
+		}
+		ConnectionFactory connectionFactory = builder.build();
+		
+		MemcachedClient[] clients = new MemcachedClient[Math.max(1, configuration.getConnectionPoolSize())];
+		try {
+			for(int i = 0; i < clients.length; i++)
+				clients[i] = new MemcachedClient(connectionFactory, addresses);
+		} catch(IOException e) {
+			for(MemcachedClient client : clients) {
+				if(client != null)
+					client.shutdown();
+			}
+			throw e;
+		}
+		return clients;
+	}
+	
+	/**
+	 * Starts a jmemcached daemon listening to the given address. Least recently used items are evicted first 
+	 * @param address
+	 * @param maxItems
+	 * @param maxBytes
+	 * @return
+	 */
+	public static MemCacheDaemon<LocalCacheElement> startLocalDaemon(final InetSocketAddress address, final int maxItems, final long maxBytes) {
+		CacheStorage<Key, LocalCacheElement> storage = ConcurrentLinkedHashMap.create(ConcurrentLinkedHashMap.EvictionPolicy.LRU, maxItems, maxBytes);
+		MemCacheDaemon<LocalCacheElement> daemon = new MemCacheDaemon<LocalCacheElement>();
+		daemon.setCache(new CacheImpl(storage));
+		daemon.setBinary(false);
+		daemon.setAddr(address);
+		daemon.setVerbose(false);
+		daemon.start();
+		return daemon;
+	}
+	
+}
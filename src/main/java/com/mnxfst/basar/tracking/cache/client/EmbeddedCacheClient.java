@@ -0,0 +1,494 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * {@link CacheClient} keeping all values inside the jvm, thus the cache tier runs on a single node without any external
+ * service. Values are stored in their transcoded form - optionally inside direct buffers outside the java heap - and the 
+ * store is bounded by number of items as well as by number of bytes. Counters are kept as plain numbers and incremented 
+ * in place, thus increments neither format digits nor allocate buffers; digits are produced only when a counter is read. If either bound is exceeded, the least recently 
+ * used items are evicted first.<br/><br/>
+ * Keys are spread among segments, each guarded by its own lock, thus concurrent writers rarely contend. All operations
+ * complete before they return, futures are provided for compatibility only.
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class EmbeddedCacheClient implements CacheClient {
+
+	/** expiration times above this value are absolute unix times (see memcached protocol) */
+	private static final int MAX_RELATIVE_EXPIRATION = 60*60*24*30;
+	/** estimated bookkeeping overhead per item given in bytes */
+	private static final int ITEM_OVERHEAD = 64;
+	/** numeric values are read and written as ascii digits, as memcached does */
+	private static final Charset ASCII = Charset.forName("US-ASCII");
+	/** number of segments - must be a power of two */
+	private static final int NUM_SEGMENTS = 16;
+	
+	private final Segment[] segments = new Segment[NUM_SEGMENTS];
+	/** keep values in direct buffers */
+	private final boolean offHeap;
+	/** source of CAS identifiers */
+	private final AtomicLong casCounter = new AtomicLong();
+	/** number of items evicted so far */
+	private final AtomicLong evictions = new AtomicLong();
+	
+	/**
+	 * Initializes the store using the provided bounds
+	 * @param maxItems
+	 * @param maxBytes
+	 * @param offHeap
+	 */
+	public EmbeddedCacheClient(final int maxItems, final long maxBytes, final boolean offHeap) {
+		if(maxItems < 1)
+			throw new IllegalArgumentException("Invalid max. number of items: " + maxItems);
+		if(maxBytes < 1)
+			throw new IllegalArgumentException("Invalid max. number of bytes: " + maxBytes);
+		this.offHeap = offHeap;
+		for(int i = 0; i < NUM_SEGMENTS; i++)
+			this.segments[i] = new Segment(Math.max(1, maxItems / NUM_SEGMENTS), Math.max(1, maxBytes / NUM_SEGMENTS));
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#get(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> T get(String key, Transcoder<T> transcoder) {
+		Segment segment = segmentFor(key);
+		CachedData data;
+		synchronized(segment) {
+			Item item = segment.getItem(key);
+			if(item == null)
+				return null;
+			data = item.toCachedData(transcoder.getMaxSize());
+		}
+		return transcoder.decode(data);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#gets(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> CASValue<T> gets(String key, Transcoder<T> transcoder) {
+		Segment segment = segmentFor(key);
+		CachedData data;
+		long casId;
+		synchronized(segment) {
+			Item item = segment.getItem(key);
+			if(item == null)
+				return null;
+			data = item.toCachedData(transcoder.getMaxSize());
+			casId = item.casId;
+		}
+		return new CASValue<T>(casId, transcoder.decode(data));
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncCAS(java.lang.String, long, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<CASResponse> asyncCAS(String key, long casId, T value, Transcoder<T> transcoder) {
+		CachedData data = transcoder.encode(value);
+		Segment segment = segmentFor(key);
+		synchronized(segment) {
+			Item item = segment.getItem(key);
+			if(item == null)
+				return new CompletedFuture<CASResponse>(CASResponse.NOT_FOUND);
+			if(item.casId != casId)
+				return new CompletedFuture<CASResponse>(CASResponse.EXISTS);
+			segment.putItem(key, newItem(data.getFlags(), data.getData(), item.expiresAt));
+		}
+		return new CompletedFuture<CASResponse>(CASResponse.OK);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#set(java.lang.String, int, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<Boolean> set(String key, int expirationTime, T value, Transcoder<T> transcoder) {
+		CachedData data = transcoder.encode(value);
+		Item item = newItem(data.getFlags(), data.getData(), toExpiresAt(expirationTime));
+		Segment segment = segmentFor(key);
+		synchronized(segment) {
+			segment.putItem(key, item);
+		}
+		return new CompletedFuture<Boolean>(Boolean.TRUE);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long)
+	 */
+	public Future<Long> asyncIncr(String key, long by) {
+		try {
+			return new CompletedFuture<Long>(Long.valueOf(mutate(key, by, -1, 0, false)));
+		} catch(IllegalStateException e) {
+			return new CompletedFuture<Long>(e);
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#incr(java.lang.String, long, long, int)
+	 */
+	public long incr(String key, long by, long defaultValue, int expirationTime) {
+		return mutate(key, by, defaultValue, expirationTime, true);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long, long, int)
+	 */
+	public Future<Long> asyncIncr(String key, long by, long defaultValue, int expirationTime) {
+		try {
+			return new CompletedFuture<Long>(Long.valueOf(mutate(key, by, defaultValue, expirationTime, true)));
+		} catch(IllegalStateException e) {
+			return new CompletedFuture<Long>(e);
+		}
+	}
+
+	/**
+	 * Drops all items
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#shutdown()
+	 */
+	public void shutdown() {
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				segment.clear();
+				segment.bytes = 0;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the number of items currently stored
+	 * @return
+	 */
+	public int size() {
+		int size = 0;
+		for(Segment segment : segments) {
+			synchronized(segment) {
+				size = size + segment.size();
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Returns the number of items evicted so far
+	 * @return
+	 */
+	public long getEvictions() {
+		return evictions.get();
+	}
+	
+	/**
+	 * Increments the numeric value associated with the given key
+	 * @param key
+	 * @param by
+	 * @param defaultValue
+	 * @param expirationTime
+	 * @param addIfMissing add the key using the default value if it does not exist
+	 * @return new value or -1 if the key does not exist and must not be added
+	 * @throws IllegalStateException if the value is not numeric
+	 */
+	protected long mutate(final String key, final long by, final long defaultValue, final int expirationTime, final boolean addIfMissing) {
+		Segment segment = segmentFor(key);
+		synchronized(segment) {
+			Item item = segment.getItem(key);
+			if(item == null) {
+				if(!addIfMissing)
+					return -1;
+				segment.putItem(key, new Item(0, defaultValue, casCounter.incrementAndGet(), toExpiresAt(expirationTime)));
+				return defaultValue;
+			}
+			
+			if(!item.numeric) {
+				// values written by set are converted once, later increments are applied in place
+				long value;
+				try {
+					value = Long.parseLong(new String(item.getData(), ASCII).trim());
+				} catch(NumberFormatException e) {
+					throw new IllegalStateException("Cannot increment non-numeric value of key " + key);
+				}
+				item = new Item(item.flags, value, item.casId, item.expiresAt);
+				segment.putItem(key, item);
+			}
+			
+			int previousLength = item.length();
+			item.numericValue = item.numericValue + by;
+			item.casId = casCounter.incrementAndGet();
+			segment.resizeItem(key, item, previousLength);
+			return item.numericValue;
+		}
+	}
+	
+	/**
+	 * Returns the number of ascii digits (including the sign) of the given value
+	 * @param value
+	 * @return
+	 */
+	protected static int digits(final long value) {
+		if(value == Long.MIN_VALUE)
+			return 20;
+		int digits = (value < 0 ? 2 : 1);
+		for(long remaining = Math.abs(value); remaining >= 10; remaining = remaining / 10)
+			digits++;
+		return digits;
+	}
+	
+	/**
+	 * Creates a new item holding a copy of the provided data
+	 * @param flags
+	 * @param data
+	 * @param expiresAt
+	 * @return
+	 */
+	protected Item newItem(final int flags, final byte[] data, final long expiresAt) {
+		if(offHeap) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+			buffer.put(data);
+			buffer.flip();
+			return new Item(flags, null, buffer, casCounter.incrementAndGet(), expiresAt);
+		}
+		return new Item(flags, data, null, casCounter.incrementAndGet(), expiresAt);
+	}
+	
+	/**
+	 * Converts a memcached expiration time into an absolute time given in milliseconds, 0 = never expires
+	 * @param expirationTime
+	 * @return
+	 */
+	protected static long toExpiresAt(final int expirationTime) {
+		if(expirationTime <= 0)
+			return 0;
+		if(expirationTime > MAX_RELATIVE_EXPIRATION)
+			return expirationTime * 1000L;
+		return System.currentTimeMillis() + expirationTime * 1000L;
+	}
+	
+	/**
+	 * Returns the segment responsible for the given key
+	 * @param key
+	 * @return
+	 */
+	protected Segment segmentFor(final String key) {
+		int hash = key.hashCode();
+		hash = hash ^ (hash >>> 16);
+		return segments[hash & (NUM_SEGMENTS - 1)];
+	}
+	
+	/**
+	 * Stored value
+	 * @author mnxfst
+	 * @since 23.11.2013
+	 */
+	protected static final class Item {
+		private final int flags;
+		/** value if kept on heap */
+		private final byte[] heapData;
+		/** value if kept off heap */
+		private final ByteBuffer directData;
+		/** true if the item is a counter, its value is held by numericValue */
+		private final boolean numeric;
+		/** counter value, modified in place by increments */
+		private long numericValue;
+		/** modified in place by increments */
+		private long casId;
+		/** absolute expiration time given in milliseconds, 0 = never expires */
+		private final long expiresAt;
+		
+		private Item(final int flags, final byte[] heapData, final ByteBuffer directData, final long casId, final long expiresAt) {
+			this.flags = flags;
+			this.heapData = heapData;
+			this.directData = directData;
+			this.numeric = false;
+			this.casId = casId;
+			this.expiresAt = expiresAt;
+		}
+		
+		private Item(final int flags, final long numericValue, final long casId, final long expiresAt) {
+			this.flags = flags;
+			this.heapData = null;
+			this.directData = null;
+			this.numeric = true;
+			this.numericValue = numericValue;
+			this.casId = casId;
+			this.expiresAt = expiresAt;
+		}
+		
+		private int length() {
+			if(numeric)
+				return digits(numericValue);
+			return (heapData != null ? heapData.length : directData.remaining());
+		}
+		
+		private byte[] getData() {
+			if(numeric)
+				return String.valueOf(numericValue).getBytes(ASCII);
+			if(heapData != null)
+				return heapData;
+			byte[] data = new byte[directData.remaining()];
+			directData.duplicate().get(data);
+			return data;
+		}
+		
+		private CachedData toCachedData(final int maxSize) {
+			return new CachedData(flags, getData(), maxSize);
+		}
+	}
+	
+	/**
+	 * Access-ordered part of the store. Callers must hold the segment lock 
+	 * @author mnxfst
+	 * @since 23.11.2013
+	 */
+	protected final class Segment extends LinkedHashMap<String, Item> {
+
+		private static final long serialVersionUID = -1763405218890125386L;
+
+		private final int maxItems;
+		private final long maxBytes;
+		/** estimated number of bytes currently stored */
+		private long bytes = 0;
+		
+		private Segment(final int maxItems, final long maxBytes) {
+			super(16, 0.75f, true);
+			this.maxItems = maxItems;
+			this.maxBytes = maxBytes;
+		}
+		
+		/**
+		 * Returns the item associated with the key, expired items are removed
+		 * @param key
+		 * @return
+		 */
+		private Item getItem(final String key) {
+			Item item = get(key);
+			if(item != null && item.expiresAt > 0 && item.expiresAt <= System.currentTimeMillis()) {
+				removeItem(key);
+				return null;
+			}
+			return item;
+		}
+		
+		/**
+		 * Associates the item with the key and evicts least recently used items until the bounds are met
+		 * @param key
+		 * @param item
+		 */
+		private void putItem(final String key, final Item item) {
+			Item previous = put(key, item);
+			if(previous != null)
+				bytes = bytes - sizeOf(key, previous);
+			bytes = bytes + sizeOf(key, item);
+			evict(item);
+		}
+		
+		/**
+		 * Accounts for the changed length of an item modified in place and evicts least recently used items until the bounds are met
+		 * @param key
+		 * @param item
+		 * @param previousLength length of the item before it has been modified
+		 */
+		private void resizeItem(final String key, final Item item, final int previousLength) {
+			if(item.length() == previousLength)
+				return;
+			bytes = bytes + item.length() - previousLength;
+			evict(item);
+		}
+		
+		/**
+		 * Evicts least recently used items until the bounds are met
+		 * @param item item which must not be evicted
+		 */
+		private void evict(final Item item) {
+			Iterator<Map.Entry<String, Item>> iter = entrySet().iterator();
+			while((size() > maxItems || bytes > maxBytes) && iter.hasNext()) {
+				Map.Entry<String, Item> eldest = iter.next();
+				// never evict the item just written
+				if(eldest.getValue() == item)
+					break;
+				bytes = bytes - sizeOf(eldest.getKey(), eldest.getValue());
+				iter.remove();
+				evictions.incrementAndGet();
+			}
+		}
+		
+		private void removeItem(final String key) {
+			Item item = remove(key);
+			if(item != null)
+				bytes = bytes - sizeOf(key, item);
+		}
+		
+		private long sizeOf(final String key, final Item item) {
+			return ITEM_OVERHEAD + 2 * key.length() + item.length();
+		}
+	}
+	
+	/**
+	 * Future of an operation which has already completed
+	 * @author mnxfst
+	 * @since 23.11.2013
+	 */
+	protected static final class CompletedFuture<V> implements Future<V> {
+		private final V value;
+		private final Throwable error;
+		
+		private CompletedFuture(final V value) {
+			this.value = value;
+			this.error = null;
+		}
+		
+		private CompletedFuture(final Throwable error) {
+			this.value = null;
+			this.error = error;
+		}
+		
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return false;
+		}
+
+		public boolean isCancelled() {
+			return false;
+		}
+
+		public boolean isDone() {
+			return true;
+		}
+
+		public V get() throws ExecutionException {
+			if(error != null)
+				throw new ExecutionException(error);
+			return value;
+		}
+
+		public V get(long timeout, TimeUnit unit) throws ExecutionException {
+			return get();
+		}
+	}
+
+}
@@ -0,0 +1,191 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.util.concurrent.Future;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.transcoders.Transcoder;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+
+/**
+ * Decorates a {@link CacheClient cache client} with metrics. Synchronous operations (get, gets, incr) are measured by timers 
+ * named <i>cache.&lt;operation&gt;</i>, asynchronous operations (asyncCAS, set, asyncIncr) are counted by meters of the 
+ * same name as their completion is not awaited. Operations failing with an exception are counted by meters named 
+ * <i>cache.&lt;operation&gt;.errors</i>
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class InstrumentedCacheClient implements CacheClient {
+
+	/** decorated client */
+	private final CacheClient cacheClient;
+	
+	private final Timer getTimer;
+	private final Meter getErrors;
+	private final Timer getsTimer;
+	private final Meter getsErrors;
+	private final Timer incrTimer;
+	private final Meter incrErrors;
+	private final Meter asyncCASMeter;
+	private final Meter asyncCASErrors;
+	private final Meter setMeter;
+	private final Meter setErrors;
+	private final Meter asyncIncrMeter;
+	private final Meter asyncIncrErrors;
+	
+	/**
+	 * Initializes the client using the provided input
+	 * @param cacheClient
+	 */
+	public InstrumentedCacheClient(final CacheClient cacheClient) {
+		this(cacheClient, PipelineMetrics.registry());
+	}
+	
+	/**
+	 * Initializes the client using the provided input
+	 * @param cacheClient
+	 * @param registry
+	 */
+	public InstrumentedCacheClient(final CacheClient cacheClient, final MetricRegistry registry) {
+		this.cacheClient = cacheClient;
+		this.getTimer = registry.timer(PipelineMetrics.name(PipelineMetrics.CACHE, "get"));
+		this.getErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "get", "errors"));
+		this.getsTimer = registry.timer(PipelineMetrics.name(PipelineMetrics.CACHE, "gets"));
+		this.getsErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "gets", "errors"));
+		this.incrTimer = registry.timer(PipelineMetrics.name(PipelineMetrics.CACHE, "incr"));
+		this.incrErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "incr", "errors"));
+		this.asyncCASMeter = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "asyncCAS"));
+		this.asyncCASErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "asyncCAS", "errors"));
+		this.setMeter = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "set"));
+		this.setErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "set", "errors"));
+		this.asyncIncrMeter = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "asyncIncr"));
+		this.asyncIncrErrors = registry.meter(PipelineMetrics.name(PipelineMetrics.CACHE, "asyncIncr", "errors"));
+	}
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#get(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> T get(String key, Transcoder<T> transcoder) {
+		final Timer.Context timerContext = getTimer.time();
+		try {
+			return cacheClient.get(key, transcoder);
+		} catch(RuntimeException e) {
+			getErrors.mark();
+			throw e;
+		} finally {
+			timerContext.stop();
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#gets(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> CASValue<T> gets(String key, Transcoder<T> transcoder) {
+		final Timer.Context timerContext = getsTimer.time();
+		try {
+			return cacheClient.gets(key, transcoder);
+		} catch(RuntimeException e) {
+			getsErrors.mark();
+			throw e;
+		} finally {
+			timerContext.stop();
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncCAS(java.lang.String, long, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<CASResponse> asyncCAS(String key, long casId, T value, Transcoder<T> transcoder) {
+		asyncCASMeter.mark();
+		try {
+			return cacheClient.asyncCAS(key, casId, value, transcoder);
+		} catch(RuntimeException e) {
+			asyncCASErrors.mark();
+			throw e;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#set(java.lang.String, int, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<Boolean> set(String key, int expirationTime, T value, Transcoder<T> transcoder) {
+		setMeter.mark();
+		try {
+			return cacheClient.set(key, expirationTime, value, transcoder);
+		} catch(RuntimeException e) {
+			setErrors.mark();
+			throw e;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long)
+	 */
+	public Future<Long> asyncIncr(String key, long by) {
+		asyncIncrMeter.mark();
+		try {
+			return cacheClient.asyncIncr(key, by);
+		} catch(RuntimeException e) {
+			asyncIncrErrors.mark();
+			throw e;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#incr(java.lang.String, long, long, int)
+	 */
+	public long incr(String key, long by, long defaultValue, int expirationTime) {
+		final Timer.Context timerContext = incrTimer.time();
+		try {
+			return cacheClient.incr(key, by, defaultValue, expirationTime);
+		} catch(RuntimeException e) {
+			incrErrors.mark();
+			throw e;
+		} finally {
+			timerContext.stop();
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long, long, int)
+	 */
+	public Future<Long> asyncIncr(String key, long by, long defaultValue, int expirationTime) {
+		asyncIncrMeter.mark();
+		try {
+			return cacheClient.asyncIncr(key, by, defaultValue, expirationTime);
+		} catch(RuntimeException e) {
+			asyncIncrErrors.mark();
+			throw e;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#shutdown()
+	 */
+	public void shutdown() {
+		cacheClient.shutdown();
+	}
+
+}
@@ -0,0 +1,144 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.util.concurrent.Future;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+import net.spy.memcached.MemcachedClient;
+import net.spy.memcached.transcoders.Transcoder;
+
+import com.thimbleware.jmemcached.MemCacheDaemon;
+
+/**
+ * {@link CacheClient} backed by memcached servers accessed through a {@link MemcachedClient}. If the servers are 
+ * provided by a {@link MemCacheDaemon daemon} started inside the jvm, the daemon is stopped along with the client.<br/><br/>
+ * Multiple memcached clients may be provided as pool. Operations are assigned to a client by key, thus all operations 
+ * on a key are issued through the same connection and keep their order
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class MemcachedCacheClient implements CacheClient {
+
+	/** pooled clients, each key is assigned to exactly one client */
+	private final MemcachedClient[] memcachedClients;
+	/** daemon owned by this client, null if the servers are external */
+	private final MemCacheDaemon<?> daemon;
+	
+	/**
+	 * Initializes the client using the provided input
+	 * @param memcachedClient
+	 */
+	public MemcachedCacheClient(final MemcachedClient memcachedClient) {
+		this(memcachedClient, null);
+	}
+	
+	/**
+	 * Initializes the client using the provided input
+	 * @param memcachedClient
+	 * @param daemon daemon stopped on {@link #shutdown()}
+	 */
+	public MemcachedCacheClient(final MemcachedClient memcachedClient, final MemCacheDaemon<?> daemon) {
+		this(new MemcachedClient[]{memcachedClient}, daemon);
+	}
+	
+	/**
+	 * Initializes the client using the provided input
+	 * @param memcachedClients pool of clients connected to the same servers
+	 * @param daemon daemon stopped on {@link #shutdown()}
+	 */
+	public MemcachedCacheClient(final MemcachedClient[] memcachedClients, final MemCacheDaemon<?> daemon) {
+		if(memcachedClients == null || memcachedClients.length < 1)
+			throw new IllegalArgumentException("Missing required memcached client");
+		this.memcachedClients = memcachedClients;
+		this.daemon = daemon;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#get(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> T get(String key, Transcoder<T> transcoder) {
+		return clientOf(key).get(key, transcoder);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#gets(java.lang.String, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> CASValue<T> gets(String key, Transcoder<T> transcoder) {
+		return clientOf(key).gets(key, transcoder);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncCAS(java.lang.String, long, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<CASResponse> asyncCAS(String key, long casId, T value, Transcoder<T> transcoder) {
+		return clientOf(key).asyncCAS(key, casId, value, transcoder);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#set(java.lang.String, int, java.lang.Object, net.spy.memcached.transcoders.Transcoder)
+	 */
+	public <T> Future<Boolean> set(String key, int expirationTime, T value, Transcoder<T> transcoder) {
+		return clientOf(key).set(key, expirationTime, value, transcoder);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long)
+	 */
+	public Future<Long> asyncIncr(String key, long by) {
+		return clientOf(key).asyncIncr(key, by);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#incr(java.lang.String, long, long, int)
+	 */
+	public long incr(String key, long by, long defaultValue, int expirationTime) {
+		return clientOf(key).incr(key, by, defaultValue, expirationTime);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#asyncIncr(java.lang.String, long, long, int)
+	 */
+	public Future<Long> asyncIncr(String key, long by, long defaultValue, int expirationTime) {
+		return clientOf(key).asyncIncr(key, by, defaultValue, expirationTime);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.client.CacheClient#shutdown()
+	 */
+	public void shutdown() {
+		for(MemcachedClient memcachedClient : memcachedClients)
+			memcachedClient.shutdown();
+		if(daemon != null)
+			daemon.stop();
+	}
+	
+	/**
+	 * Returns the pooled client the referenced key is assigned to
+	 * @param key
+	 * @return
+	 */
+	protected MemcachedClient clientOf(final String key) {
+		if(memcachedClients.length == 1)
+			return memcachedClients[0];
+		return memcachedClients[(key.hashCode() & Integer.MAX_VALUE) % memcachedClients.length];
+	}
+
+}
@@ -0,0 +1,44 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.message;
+
+import java.io.Serializable;
+
+import com.mnxfst.basar.tracking.cache.CacheValueWriter;
+
+/**
+ * Sent by a {@link CacheValueWriter} to itself while counter increments are pending, thus increments which missed their
+ * key are re-applied even if the writer receives no further messages
+ * @author mnxfst
+ * @since 19.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class CheckPendingIncrementsMessage implements Serializable {
+
+	private static final long serialVersionUID = -1874362295038216507L;
+
+	/** shared instance as the message carries no state */
+	public static final CheckPendingIncrementsMessage INSTANCE = new CheckPendingIncrementsMessage();
+
+	/**
+	 * Default constructor
+	 */
+	public CheckPendingIncrementsMessage() {		
+	}
+
+}
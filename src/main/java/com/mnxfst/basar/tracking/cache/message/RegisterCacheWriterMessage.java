@@ -1,90 +1,148 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.cache.message;
-
-import java.io.Serializable;
-
-import com.fasterxml.jackson.annotation.JsonProperty;
-import com.mnxfst.basar.tracking.cache.CacheRoot;
-import com.mnxfst.basar.tracking.cache.CacheValueWriter;
-
-/**
- * Requests the {@link CacheRoot cache root node} to register a new {@link CacheValueWriter cache value writer}.
- * @author mnxfst
- * @since 30.10.2013
- *
- * Revision Control Info $Id$
- */
-public class RegisterCacheWriterMessage implements Serializable {
-
-	private static final long serialVersionUID = 2552944926243570970L;
-	
-	/** unique key used as identifier when creating the writer component */  
-	@JsonProperty ( value = "componentId", required = true )
-	private String componentId = null;
-
-	/** component class */
-	@JsonProperty ( value = "componentClass", required = true )
-	private String componentClass = null;
-	
-	/** number of instances to create and provide through round-robin-router */
-	@JsonProperty ( value = "numInstances", required = true )
-	private int numOfInstances = 1;
-	
-	/**
-	 * Default constructor
-	 */
-	public RegisterCacheWriterMessage() {		
-	}
-	
-	/**
-	 * Initializes the message using the provided input
-	 * @param componentId
-	 * @param componentClass
-	 * @param numOfInstances
-	 */
-	public RegisterCacheWriterMessage(final String componentId, final String componentClass, final int numOfInstances) {
-		this.componentId = componentId;
-		this.componentClass = componentClass;
-		this.numOfInstances = numOfInstances;
-	}
-
-	public String getComponentId() {
-		return componentId;
-	}
-
-	public void setComponentId(String componentId) {
-		this.componentId = componentId;
-	}
-
-	public String getComponentClass() {
-		return componentClass;
-	}
-
-	public void setComponentClass(String componentClass) {
-		this.componentClass = componentClass;
-	}
-
-	public int getNumOfInstances() {
-		return numOfInstances;
-	}
-
-	public void setNumOfInstances(int numOfInstances) {
-		this.numOfInstances = numOfInstances;
-	}
-
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.message;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mnxfst.basar.tracking.cache.CacheRoot;
+import com.mnxfst.basar.tracking.cache.CacheValueWriter;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
+
+/**
+ * Requests the {@link CacheRoot cache root node} to register a new {@link CacheValueWriter cache value writer}.
+ * If a metric configuration is provided, it is handed over to the writer which must therefore provide a constructor
+ * accepting the cache client and the configuration.
+ * @author mnxfst
+ * @since 30.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RegisterCacheWriterMessage implements Serializable {
+
+	private static final long serialVersionUID = 2552944926243570970L;
+	
+	/** messages are distributed among the writer instances in turn */
+	public static final String ROUTING_ROUND_ROBIN = "ROUND_ROBIN";
+	/** messages are distributed by their consistent hash key, thus each key is owned by exactly one writer instance */
+	public static final String ROUTING_CONSISTENT_HASHING = "CONSISTENT_HASHING";
+	
+	/** unique key used as identifier when creating the writer component */  
+	@JsonProperty ( value = "componentId", required = true )
+	private String componentId = null;
+
+	/** component class */
+	@JsonProperty ( value = "componentClass", required = true )
+	private String componentClass = null;
+	
+	/** number of instances to create and provide through router */
+	@JsonProperty ( value = "numInstances", required = true )
+	private int numOfInstances = 1;
+	
+	/** router used for distributing messages among multiple instances: ROUND_ROBIN or CONSISTENT_HASHING */
+	@JsonProperty ( value = "routing", required = false )
+	private String routing = ROUTING_ROUND_ROBIN;
+	
+	/** optional configuration handed over to the writer instances */
+	@JsonIgnore
+	private BasarTrackingServerMetricConfigElement configuration = null;
+	
+	/**
+	 * Default constructor
+	 */
+	public RegisterCacheWriterMessage() {		
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param componentId
+	 * @param componentClass
+	 * @param numOfInstances
+	 */
+	public RegisterCacheWriterMessage(final String componentId, final String componentClass, final int numOfInstances) {
+		this.componentId = componentId;
+		this.componentClass = componentClass;
+		this.numOfInstances = numOfInstances;
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param componentId
+	 * @param componentClass
+	 * @param numOfInstances
+	 * @param configuration
+	 */
+	public RegisterCacheWriterMessage(final String componentId, final String componentClass, final int numOfInstances, final BasarTrackingServerMetricConfigElement configuration) {
+		this(componentId, componentClass, numOfInstances);
+		this.configuration = configuration;
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param componentId
+	 * @param componentClass
+	 * @param numOfInstances
+	 * @param routing
+	 * @param configuration
+	 */
+	public RegisterCacheWriterMessage(final String componentId, final String componentClass, final int numOfInstances, final String routing, final BasarTrackingServerMetricConfigElement configuration) {
+		this(componentId, componentClass, numOfInstances, configuration);
+		this.routing = routing;
+	}
+
+	public String getComponentId() {
+		return componentId;
+	}
+
+	public void setComponentId(String componentId) {
+		this.componentId = componentId;
+	}
+
+	public String getComponentClass() {
+		return componentClass;
+	}
+
+	public void setComponentClass(String componentClass) {
+		this.componentClass = componentClass;
+	}
+
+	public int getNumOfInstances() {
+		return numOfInstances;
+	}
+
+	public void setNumOfInstances(int numOfInstances) {
+		this.numOfInstances = numOfInstances;
+	}
+
+	public String getRouting() {
+		return routing;
+	}
+
+	public void setRouting(String routing) {
+		this.routing = routing;
+	}
+
+	public BasarTrackingServerMetricConfigElement getConfiguration() {
+		return configuration;
+	}
+
+	public void setConfiguration(BasarTrackingServerMetricConfigElement configuration) {
+		this.configuration = configuration;
+	}
+
+}
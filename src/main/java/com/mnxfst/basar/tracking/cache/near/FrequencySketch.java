@@ -0,0 +1,124 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.near;
+
+/**
+ * Approximates how often keys have been accessed recently using a count-min sketch with four 4-bit counters per key. 
+ * All counters are halved as soon as the number of recorded accesses reaches ten times the size of the cache, thus 
+ * the sketch follows changes in popularity instead of accumulating history forever. The sketch is not thread-safe.
+ * @author mnxfst
+ * @since 24.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class FrequencySketch {
+
+	/** seeds of the four hash functions */
+	private static final int[] SEEDS = { 0x97cb3127, 0xb8b4f3e1, 0x5e2d58d8, 0x1c6e8d4b };
+	/** max. value of a 4-bit counter */
+	private static final int MAX_COUNT = 15;
+	/** mask applied when halving all counters of a word */
+	private static final long RESET_MASK = 0x7777777777777777L;
+	
+	/** 16 counters per word */
+	private final long[] table;
+	/** mask selecting a counter */
+	private final int counterMask;
+	/** number of recorded accesses which triggers halving all counters */
+	private final int sampleSize;
+	/** number of accesses recorded since the previous reset */
+	private int additions = 0;
+	
+	/**
+	 * Initializes the sketch for a cache holding the given number of entries
+	 * @param maximumSize
+	 */
+	public FrequencySketch(final int maximumSize) {
+		int words = Integer.highestOneBit(Math.max(16, maximumSize) - 1) << 1;
+		this.table = new long[words];
+		this.counterMask = (words << 4) - 1;
+		this.sampleSize = (maximumSize > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : Math.max(16, maximumSize) * 10);
+	}
+	
+	/**
+	 * Records an access to the given key
+	 * @param key
+	 */
+	public void increment(final Object key) {
+		final int hash = spread(key.hashCode());
+		boolean added = false;
+		for(int i = 0; i < SEEDS.length; i++) {
+			int slot = counterIndex(hash, i);
+			int shift = (slot & 15) << 2;
+			int word = slot >>> 4;
+			if(((table[word] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+				table[word] = table[word] + (1L << shift);
+				added = true;
+			}
+		}
+		
+		if(added && ++additions >= sampleSize)
+			reset();
+	}
+	
+	/**
+	 * Returns the estimated number of recent accesses to the given key (0-15)
+	 * @param key
+	 * @return
+	 */
+	public int frequency(final Object key) {
+		final int hash = spread(key.hashCode());
+		int frequency = MAX_COUNT;
+		for(int i = 0; i < SEEDS.length; i++) {
+			int slot = counterIndex(hash, i);
+			int count = (int)((table[slot >>> 4] >>> ((slot & 15) << 2)) & MAX_COUNT);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+	
+	/**
+	 * Halves all counters
+	 */
+	protected void reset() {
+		for(int i = 0; i < table.length; i++)
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		additions = additions >>> 1;
+	}
+	
+	/**
+	 * Returns the index of the counter selected by the i-th hash function
+	 * @param hash
+	 * @param i
+	 * @return
+	 */
+	protected int counterIndex(final int hash, final int i) {
+		return spread(hash + SEEDS[i]) & counterMask;
+	}
+	
+	/**
+	 * Applies a supplemental hash function to defend against poor hash codes
+	 * @param x
+	 * @return
+	 */
+	protected static int spread(int x) {
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		x = ((x >>> 16) ^ x) * 0x45d9f3b;
+		return (x >>> 16) ^ x;
+	}
+	
+}
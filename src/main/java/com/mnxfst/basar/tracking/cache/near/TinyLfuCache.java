@@ -0,0 +1,240 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.near;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded in-process cache using the W-TinyLFU policy: new entries enter a small LRU window (1% of the size). Entries 
+ * leaving the window compete with the least recently used entry of the main area, which is admitted only if the 
+ * {@link FrequencySketch sketch} considers it more popular. The main area is a segmented LRU where entries accessed 
+ * again are promoted from probation (20%) to protected (80%). Thus a burst of one-off keys never displaces the few keys
+ * accessed all the time.<br/><br/>
+ * Entries dropped from the cache - evicted or rejected by admission - are reported to the {@link EvictionListener listener}. 
+ * The cache is not thread-safe and is meant to be owned by a single actor.
+ * @author mnxfst
+ * @since 24.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TinyLfuCache<K, V> {
+
+	/**
+	 * Notified about each entry dropped from the cache
+	 */
+	public static interface EvictionListener<K, V> {
+		public void onEviction(final K key, final V value);
+	}
+	
+	private final int maximumSize;
+	private final int maximumWindowSize;
+	private final int maximumProtectedSize;
+	private final FrequencySketch sketch;
+	private final EvictionListener<K, V> evictionListener;
+	
+	/** admission window, least recently used first */
+	private final LinkedHashMap<K, V> window = new LinkedHashMap<>(16, 0.75f, true);
+	/** main area entries accessed once, least recently used first */
+	private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+	/** main area entries accessed more than once, least recently used first */
+	private final LinkedHashMap<K, V> protectedArea = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+	
+	/**
+	 * Initializes the cache using the provided input
+	 * @param maximumSize max. number of entries
+	 * @param evictionListener optional listener notified about dropped entries
+	 */
+	public TinyLfuCache(final int maximumSize, final EvictionListener<K, V> evictionListener) {
+		if(maximumSize < 1)
+			throw new IllegalArgumentException("Invalid maximum size: " + maximumSize);
+		this.maximumSize = maximumSize;
+		this.maximumWindowSize = Math.max(1, maximumSize / 100);
+		this.maximumProtectedSize = (int)((maximumSize - maximumWindowSize) * 0.8);
+		this.sketch = new FrequencySketch(maximumSize);
+		this.evictionListener = evictionListener;
+	}
+	
+	/**
+	 * Returns the value associated with the key or null if it is not cached
+	 * @param key
+	 * @return
+	 */
+	public V get(final K key) {
+		sketch.increment(key);
+		
+		V value = window.get(key);
+		if(value == null)
+			value = protectedArea.get(key);
+		if(value == null) {
+			value = probation.remove(key);
+			if(value != null)
+				promote(key, value);
+		}
+		
+		if(value != null)
+			hitCount++;
+		else
+			missCount++;
+		return value;
+	}
+	
+	/**
+	 * Associates the value with the key. New entries are added to the admission window
+	 * @param key
+	 * @param value
+	 */
+	public void put(final K key, final V value) {
+		sketch.increment(key);
+		
+		if(window.containsKey(key)) {
+			window.put(key, value);
+		} else if(protectedArea.containsKey(key)) {
+			protectedArea.put(key, value);
+		} else if(probation.containsKey(key)) {
+			probation.remove(key);
+			promote(key, value);
+		} else {
+			window.put(key, value);
+			if(window.size() > maximumWindowSize)
+				admit();
+		}
+	}
+	
+	/**
+	 * Removes the entry associated with the key without notifying the listener
+	 * @param key
+	 * @return
+	 */
+	public V remove(final K key) {
+		V value = window.remove(key);
+		if(value == null)
+			value = probation.remove(key);
+		if(value == null)
+			value = protectedArea.remove(key);
+		return value;
+	}
+	
+	/**
+	 * Returns a snapshot of all cached entries
+	 * @return
+	 */
+	public List<Map.Entry<K, V>> entries() {
+		List<Map.Entry<K, V>> entries = new ArrayList<>(size());
+		entries.addAll(window.entrySet());
+		entries.addAll(probation.entrySet());
+		entries.addAll(protectedArea.entrySet());
+		return entries;
+	}
+	
+	/**
+	 * Returns the number of cached entries
+	 * @return
+	 */
+	public int size() {
+		return window.size() + probation.size() + protectedArea.size();
+	}
+	
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+	
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	public long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Moves the entry to the protected area. If the protected area exceeds its limit, its least recently used
+	 * entry is demoted to probation
+	 * @param key
+	 * @param value
+	 */
+	protected void promote(final K key, final V value) {
+		protectedArea.put(key, value);
+		if(protectedArea.size() > maximumProtectedSize) {
+			Map.Entry<K, V> demoted = removeEldest(protectedArea);
+			probation.put(demoted.getKey(), demoted.getValue());
+		}
+	}
+	
+	/**
+	 * Moves the least recently used window entry into the main area if there is space left or if it is accessed
+	 * more frequently than the main area's eviction victim. The loser of this comparison is dropped 
+	 */
+	protected void admit() {
+		Map.Entry<K, V> candidate = removeEldest(window);
+		if(probation.size() + protectedArea.size() < maximumSize - maximumWindowSize) {
+			probation.put(candidate.getKey(), candidate.getValue());
+			return;
+		}
+		
+		LinkedHashMap<K, V> victimArea = (probation.isEmpty() ? protectedArea : probation);
+		if(victimArea.isEmpty()) {
+			evict(candidate.getKey(), candidate.getValue());
+			return;
+		}
+		K victimKey = victimArea.keySet().iterator().next();
+		if(sketch.frequency(candidate.getKey()) > sketch.frequency(victimKey)) {
+			Map.Entry<K, V> victim = removeEldest(victimArea);
+			probation.put(candidate.getKey(), candidate.getValue());
+			evict(victim.getKey(), victim.getValue());
+		} else {
+			evict(candidate.getKey(), candidate.getValue());
+		}
+	}
+	
+	/**
+	 * Reports the dropped entry
+	 * @param key
+	 * @param value
+	 */
+	protected void evict(final K key, final V value) {
+		evictionCount++;
+		if(evictionListener != null)
+			evictionListener.onEviction(key, value);
+	}
+	
+	/**
+	 * Removes and returns the least recently used entry of the given area
+	 * @param area
+	 * @return
+	 */
+	protected static <K, V> Map.Entry<K, V> removeEldest(final LinkedHashMap<K, V> area) {
+		Iterator<Map.Entry<K, V>> iter = area.entrySet().iterator();
+		Map.Entry<K, V> eldest = iter.next();
+		Map.Entry<K, V> copy = new AbstractMap.SimpleImmutableEntry<>(eldest.getKey(), eldest.getValue());
+		iter.remove();
+		return copy;
+	}
+	
+}
@@ -0,0 +1,70 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.transcoder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Fixed-layout binary encoding of a single cached value type used by {@link CompactValueTranscoder}. Each codec is
+ * identified by a type id which must be unique among all codecs registered with the same transcoder. The version is
+ * written along with every value, thus a codec is able to read values written by its predecessors after the layout 
+ * has changed.
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public interface CompactValueCodec<T> {
+
+	/**
+	 * Returns the type of values handled by this codec
+	 * @return
+	 */
+	public Class<T> getValueType();
+	
+	/**
+	 * Returns the identifier written along with each value
+	 * @return
+	 */
+	public byte getTypeId();
+	
+	/**
+	 * Returns the version of the layout written by {@link #write(Object, DataOutput)}
+	 * @return
+	 */
+	public byte getVersion();
+	
+	/**
+	 * Writes the provided value
+	 * @param value
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(final T value, final DataOutput out) throws IOException;
+	
+	/**
+	 * Reads a value written using the given layout version
+	 * @param version
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public T read(final byte version, final DataInput in) throws IOException;
+	
+}
@@ -0,0 +1,143 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.transcoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+import net.spy.memcached.transcoders.Transcoder;
+
+/**
+ * Writes cached values using the fixed binary layout provided by the {@link CompactValueCodec codec} registered for 
+ * the value type instead of default java serialization, which would add class descriptors to each value. Encoded
+ * values are marked by {@link #FLAG_COMPACT} and start with the type id and layout version followed by the codec 
+ * specific payload. Values without codec as well as values written by other clients - eg. numeric counters - are 
+ * handed over to a {@link SerializingTranscoder}.<br/><br/>
+ * Codecs must be registered before the transcoder is used, it is thread-safe afterwards. 
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class CompactValueTranscoder implements Transcoder<Object> {
+
+	/** marks values written using a codec - outside the range used by the serializing transcoder for its own types */
+	public static final int FLAG_COMPACT = 0x8000;
+	
+	/** handles all values without codec */
+	private final SerializingTranscoder fallbackTranscoder = new SerializingTranscoder();
+	/** registered codecs by value type */
+	private final Map<Class<?>, CompactValueCodec<?>> codecsByType = new HashMap<>();
+	/** registered codecs by type id */
+	private final CompactValueCodec<?>[] codecsById = new CompactValueCodec<?>[256];
+	
+	/**
+	 * Initializes the transcoder using the provided codecs
+	 * @param codecs
+	 */
+	public CompactValueTranscoder(final CompactValueCodec<?>... codecs) {
+		if(codecs != null) {
+			for(CompactValueCodec<?> codec : codecs)
+				register(codec);
+		}
+	}
+	
+	/**
+	 * Registers the provided codec
+	 * @param codec
+	 * @throws IllegalArgumentException if another codec has been registered for the same type or type id
+	 */
+	public void register(final CompactValueCodec<?> codec) {
+		if(codec == null)
+			throw new IllegalArgumentException("Missing required codec");
+		int typeId = codec.getTypeId() & 0xff;
+		if(codecsById[typeId] != null)
+			throw new IllegalArgumentException("Type id " + typeId + " already registered by " + codecsById[typeId].getClass().getName());
+		if(codecsByType.containsKey(codec.getValueType()))
+			throw new IllegalArgumentException("Type " + codec.getValueType().getName() + " already registered");
+		codecsById[typeId] = codec;
+		codecsByType.put(codec.getValueType(), codec);
+	}
+	
+	/**
+	 * @see net.spy.memcached.transcoders.Transcoder#asyncDecode(net.spy.memcached.CachedData)
+	 */
+	public boolean asyncDecode(CachedData d) {
+		return false;
+	}
+
+	/**
+	 * @see net.spy.memcached.transcoders.Transcoder#encode(java.lang.Object)
+	 */
+	@SuppressWarnings("unchecked")
+	public CachedData encode(Object o) {
+		
+		CompactValueCodec<Object> codec = (o != null ? (CompactValueCodec<Object>)codecsByType.get(o.getClass()) : null);
+		if(codec == null)
+			return fallbackTranscoder.encode(o);
+		
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(codec.getTypeId());
+			out.writeByte(codec.getVersion());
+			codec.write(o, out);
+			out.flush();
+			return new CachedData(FLAG_COMPACT, bytes.toByteArray(), getMaxSize());
+		} catch(IOException e) {
+			throw new IllegalArgumentException("Failed to encode value of type " + o.getClass().getName() + ": " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * @see net.spy.memcached.transcoders.Transcoder#decode(net.spy.memcached.CachedData)
+	 */
+	public Object decode(CachedData d) {
+		
+		if((d.getFlags() & FLAG_COMPACT) == 0)
+			return fallbackTranscoder.decode(d);
+		
+		byte[] data = d.getData();
+		if(data == null || data.length < 2)
+			return null;
+		
+		CompactValueCodec<?> codec = codecsById[data[0] & 0xff];
+		if(codec == null)
+			return null;
+		
+		try {
+			return codec.read(data[1], new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2)));
+		} catch(IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @see net.spy.memcached.transcoders.Transcoder#getMaxSize()
+	 */
+	public int getMaxSize() {
+		return CachedData.MAX_SIZE;
+	}
+
+}
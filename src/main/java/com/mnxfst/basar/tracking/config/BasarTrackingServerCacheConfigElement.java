@@ -0,0 +1,144 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configures the backend of the {@link com.mnxfst.basar.tracking.cache.CacheRoot cache tier}
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerCacheConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 4809215530912470218L;
+
+	/** backend values */
+	public static final String BACKEND_EMBEDDED = "EMBEDDED";
+	public static final String BACKEND_LOCAL_DAEMON = "LOCAL_DAEMON";
+	public static final String BACKEND_MEMCACHED = "MEMCACHED";
+	
+	/** cache backend: EMBEDDED (in-jvm store), LOCAL_DAEMON (jmemcached daemon started in-jvm) or MEMCACHED (external servers). default: EMBEDDED */
+	private String backend = BACKEND_EMBEDDED;
+	
+	/** list of hostname and ports of memcached servers (MEMCACHED only). format: <cache host>:<port> */
+	private List<String> servers = new ArrayList<>();
+	
+	/** distribute keys among the memcached servers using ketama consistent hashing, thus adding or removing a server remaps only the keys of that server (MEMCACHED only). default: true */
+	private boolean ketamaHashing = true;
+	
+	/** number of memcached clients (each holding one connection per server) the cache operations are spread upon by key (MEMCACHED and LOCAL_DAEMON). default: 1 */
+	private int connectionPoolSize = 1;
+	
+	/** time to wait for a memcached operation to complete (MEMCACHED and LOCAL_DAEMON). default: 2500 */
+	private long operationTimeoutMillis = 2500;
+	
+	/** port the local daemon listens to on the loopback interface (LOCAL_DAEMON only). default: 11211 */
+	private int localDaemonPort = 11211;
+	
+	/** max. number of items kept by the embedded store or the local daemon. default: 100000 */
+	private int maxItems = 100000;
+	
+	/** max. number of bytes kept by the embedded store or the local daemon. default: 64MB */
+	private long maxBytes = 64 * 1024 * 1024;
+	
+	/** keep values of the embedded store in direct (off-heap) buffers (EMBEDDED only). default: false */
+	private boolean offHeap = false;
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerCacheConfigElement() {
+	}
+
+	public String getBackend() {
+		return backend;
+	}
+
+	public void setBackend(String backend) {
+		this.backend = backend;
+	}
+
+	public List<String> getServers() {
+		return servers;
+	}
+
+	public void setServers(List<String> servers) {
+		this.servers = servers;
+	}
+
+	public boolean isKetamaHashing() {
+		return ketamaHashing;
+	}
+
+	public void setKetamaHashing(boolean ketamaHashing) {
+		this.ketamaHashing = ketamaHashing;
+	}
+
+	public int getConnectionPoolSize() {
+		return connectionPoolSize;
+	}
+
+	public void setConnectionPoolSize(int connectionPoolSize) {
+		this.connectionPoolSize = connectionPoolSize;
+	}
+
+	public long getOperationTimeoutMillis() {
+		return operationTimeoutMillis;
+	}
+
+	public void setOperationTimeoutMillis(long operationTimeoutMillis) {
+		this.operationTimeoutMillis = operationTimeoutMillis;
+	}
+
+	public int getLocalDaemonPort() {
+		return localDaemonPort;
+	}
+
+	public void setLocalDaemonPort(int localDaemonPort) {
+		this.localDaemonPort = localDaemonPort;
+	}
+
+	public int getMaxItems() {
+		return maxItems;
+	}
+
+	public void setMaxItems(int maxItems) {
+		this.maxItems = maxItems;
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public void setMaxBytes(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	public void setOffHeap(boolean offHeap) {
+		this.offHeap = offHeap;
+	}
+
+}
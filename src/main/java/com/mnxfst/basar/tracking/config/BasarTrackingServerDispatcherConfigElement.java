@@ -0,0 +1,94 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures a single dispatcher serving one stage of the actor pipeline, see {@link BasarTrackingServerDispatchersConfigElement}.
+ * Options left at their defaults keep the values found in application.conf
+ * @author mnxfst
+ * @since 24.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerDispatcherConfigElement implements Serializable {
+
+	private static final long serialVersionUID = -6283054117405296410L;
+
+	/** executor values */
+	public static final String EXECUTOR_FORK_JOIN = "fork-join-executor";
+	public static final String EXECUTOR_THREAD_POOL = "thread-pool-executor";
+	
+	/** pool type: fork-join-executor (non-blocking stages) or thread-pool-executor (stages doing blocking calls), null = application.conf */
+	private String executor = null;
+	
+	/** number of threads, 0 = application.conf. default: 0 */
+	private int poolSize = 0;
+	
+	/** max. number of messages processed by an actor before the thread is handed over to the next actor, 0 = application.conf. default: 0 */
+	private int throughput = 0;
+	
+	/** max. number of messages queued per actor, further messages are dropped (dead letters) which signals an overload, 0 = application.conf. default: 0 */
+	private int mailboxCapacity = 0;
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerDispatcherConfigElement() {
+	}
+
+	public String getExecutor() {
+		return executor;
+	}
+
+	public void setExecutor(String executor) {
+		this.executor = executor;
+	}
+
+	public int getPoolSize() {
+		return poolSize;
+	}
+
+	public void setPoolSize(int poolSize) {
+		this.poolSize = poolSize;
+	}
+
+	public int getThroughput() {
+		return throughput;
+	}
+
+	public void setThroughput(int throughput) {
+		this.throughput = throughput;
+	}
+
+	public int getMailboxCapacity() {
+		return mailboxCapacity;
+	}
+
+	public void setMailboxCapacity(int mailboxCapacity) {
+		this.mailboxCapacity = mailboxCapacity;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return "BasarTrackingServerDispatcherConfigElement [executor=" + executor + ", poolSize=" + poolSize + ", throughput=" + throughput + ", mailboxCapacity=" + mailboxCapacity + "]";
+	}
+
+}
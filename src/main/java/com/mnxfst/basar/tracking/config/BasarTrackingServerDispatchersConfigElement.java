@@ -0,0 +1,167 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+/**
+ * Assigns each stage of the actor pipeline its own dispatcher, thus blocking database writes do not starve request conversion 
+ * or metric handling. The dispatchers are defined in application.conf (see <i>basar.dispatchers</i>) and may be tuned 
+ * through this element which is {@link #toAkkaConfig() converted} into an Akka configuration overriding the defaults.
+ * Actors creating the stage actors assign them the dispatcher referenced by the matching identifier
+ * @author mnxfst
+ * @since 24.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerDispatchersConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 2746194521830179462L;
+
+	///////////////////////////////////////////////////////////////////////////////////
+	// dispatcher identifiers as found in application.conf
+	public static final String CONVERSION_DISPATCHER = "basar.dispatchers.conversion";
+	public static final String GATEWAY_DISPATCHER = "basar.dispatchers.gateway";
+	public static final String METRIC_HANDLERS_DISPATCHER = "basar.dispatchers.metric-handlers";
+	public static final String DATABASE_WRITERS_DISPATCHER = "basar.dispatchers.database-writers";
+	public static final String CACHE_WRITERS_DISPATCHER = "basar.dispatchers.cache-writers";
+	//
+	///////////////////////////////////////////////////////////////////////////////////
+	
+	/** mailbox dropping messages once full without blocking the sender, reports the depth of its queues to the pipeline metrics */
+	public static final String BOUNDED_MAILBOX_TYPE = "com.mnxfst.basar.tracking.instrumentation.InstrumentedBoundedMailbox";
+	
+	/** http request converters */
+	private BasarTrackingServerDispatcherConfigElement conversion = new BasarTrackingServerDispatcherConfigElement();
+	
+	/** contractor message gateway */
+	private BasarTrackingServerDispatcherConfigElement gateway = new BasarTrackingServerDispatcherConfigElement();
+	
+	/** metric handlers created by the gateway */
+	private BasarTrackingServerDispatcherConfigElement metricHandlers = new BasarTrackingServerDispatcherConfigElement();
+	
+	/** tracking event and metric database writers */
+	private BasarTrackingServerDispatcherConfigElement databaseWriters = new BasarTrackingServerDispatcherConfigElement();
+	
+	/** metric cache writers */
+	private BasarTrackingServerDispatcherConfigElement cacheWriters = new BasarTrackingServerDispatcherConfigElement();
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerDispatchersConfigElement() {
+	}
+	
+	/**
+	 * Converts the configured options into an Akka configuration. Options not configured are left out, thus the values
+	 * found in application.conf apply when the result is used with the loaded configuration as fallback
+	 * @return
+	 */
+	public Config toAkkaConfig() {
+		Map<String, Object> values = new HashMap<>();
+		addDispatcherValues(values, CONVERSION_DISPATCHER, conversion);
+		addDispatcherValues(values, GATEWAY_DISPATCHER, gateway);
+		addDispatcherValues(values, METRIC_HANDLERS_DISPATCHER, metricHandlers);
+		addDispatcherValues(values, DATABASE_WRITERS_DISPATCHER, databaseWriters);
+		addDispatcherValues(values, CACHE_WRITERS_DISPATCHER, cacheWriters);
+		return ConfigFactory.parseMap(values, "basar-track.yml dispatchers");
+	}
+	
+	/**
+	 * Adds the options of the given dispatcher to the provided map
+	 * @param values
+	 * @param dispatcherId
+	 * @param dispatcher
+	 */
+	protected static void addDispatcherValues(final Map<String, Object> values, final String dispatcherId, final BasarTrackingServerDispatcherConfigElement dispatcher) {
+		if(dispatcher == null)
+			return;
+		
+		if(StringUtils.isNotBlank(dispatcher.getExecutor())) {
+			if(!BasarTrackingServerDispatcherConfigElement.EXECUTOR_FORK_JOIN.equals(dispatcher.getExecutor()) && !BasarTrackingServerDispatcherConfigElement.EXECUTOR_THREAD_POOL.equals(dispatcher.getExecutor()))
+				throw new IllegalArgumentException("Unknown executor for dispatcher " + dispatcherId + ": " + dispatcher.getExecutor());
+			values.put(dispatcherId + ".executor", dispatcher.getExecutor());
+		}
+		
+		if(dispatcher.getPoolSize() > 0) {
+			// the pool size is applied to both executors as the executor itself may be taken from application.conf
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_FORK_JOIN + ".parallelism-min", dispatcher.getPoolSize());
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_FORK_JOIN + ".parallelism-max", dispatcher.getPoolSize());
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_THREAD_POOL + ".core-pool-size-min", dispatcher.getPoolSize());
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_THREAD_POOL + ".core-pool-size-max", dispatcher.getPoolSize());
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_THREAD_POOL + ".max-pool-size-min", dispatcher.getPoolSize());
+			values.put(dispatcherId + "." + BasarTrackingServerDispatcherConfigElement.EXECUTOR_THREAD_POOL + ".max-pool-size-max", dispatcher.getPoolSize());
+		}
+		
+		if(dispatcher.getThroughput() > 0)
+			values.put(dispatcherId + ".throughput", dispatcher.getThroughput());
+		
+		// messages exceeding the capacity are dropped immediately, thus senders (eg. netty event loops) never block
+		if(dispatcher.getMailboxCapacity() > 0) {
+			values.put(dispatcherId + ".mailbox-type", BOUNDED_MAILBOX_TYPE);
+			values.put(dispatcherId + ".mailbox-capacity", dispatcher.getMailboxCapacity());
+		}
+	}
+
+	public BasarTrackingServerDispatcherConfigElement getConversion() {
+		return conversion;
+	}
+
+	public void setConversion(BasarTrackingServerDispatcherConfigElement conversion) {
+		this.conversion = conversion;
+	}
+
+	public BasarTrackingServerDispatcherConfigElement getGateway() {
+		return gateway;
+	}
+
+	public void setGateway(BasarTrackingServerDispatcherConfigElement gateway) {
+		this.gateway = gateway;
+	}
+
+	public BasarTrackingServerDispatcherConfigElement getMetricHandlers() {
+		return metricHandlers;
+	}
+
+	public void setMetricHandlers(BasarTrackingServerDispatcherConfigElement metricHandlers) {
+		this.metricHandlers = metricHandlers;
+	}
+
+	public BasarTrackingServerDispatcherConfigElement getDatabaseWriters() {
+		return databaseWriters;
+	}
+
+	public void setDatabaseWriters(BasarTrackingServerDispatcherConfigElement databaseWriters) {
+		this.databaseWriters = databaseWriters;
+	}
+
+	public BasarTrackingServerDispatcherConfigElement getCacheWriters() {
+		return cacheWriters;
+	}
+
+	public void setCacheWriters(BasarTrackingServerDispatcherConfigElement cacheWriters) {
+		this.cacheWriters = cacheWriters;
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures the {@link com.mnxfst.basar.tracking.event.TrackingEventDBWriter tracking event writers} set up
+ * for each contractor collection
+ * @author mnxfst
+ * @since 19.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerEventWriterConfigElement implements Serializable {
+
+	private static final long serialVersionUID = -6027519414726911230L;
+
+	/** write concern values */
+	public static final String WRITE_CONCERN_NONE = "NONE";
+	public static final String WRITE_CONCERN_ACK = "ACK";
+	public static final String WRITE_CONCERN_JOURNAL = "JOURNAL";
+	public static final String WRITE_CONCERN_FSYNC = "FSYNC";
+
+	/** collect events and insert them as multi-document batches instead of one by one. default: true */
+	private boolean batchEnabled = true;
+
+	/** max. number of documents per batch. default: 500 */
+	private int maxBatchDocuments = 500;
+
+	/** max. (estimated) size of a batch given in bytes. default: 1MB */
+	private int maxBatchBytes = 1024 * 1024;
+
+	/** max. time a document waits inside a batch before the batch is written. default: 100ms */
+	private long lingerMillis = 100;
+
+	/** max. number of batches written concurrently by a single writer. default: 4 */
+	private int maxInFlightBatches = 4;
+
+	/** write concern applied to inserts: NONE, ACK, JOURNAL or FSYNC. default: ACK */
+	private String writeConcern = WRITE_CONCERN_ACK;
+
+	/** time to wait for JOURNAL or FSYNC durability given in milliseconds, 0 = no limit. default: 0 */
+	private int writeConcernTimeoutMillis = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerEventWriterConfigElement() {
+	}
+
+	public boolean isBatchEnabled() {
+		return batchEnabled;
+	}
+
+	public void setBatchEnabled(boolean batchEnabled) {
+		this.batchEnabled = batchEnabled;
+	}
+
+	public int getMaxBatchDocuments() {
+		return maxBatchDocuments;
+	}
+
+	public void setMaxBatchDocuments(int maxBatchDocuments) {
+		this.maxBatchDocuments = maxBatchDocuments;
+	}
+
+	public int getMaxBatchBytes() {
+		return maxBatchBytes;
+	}
+
+	public void setMaxBatchBytes(int maxBatchBytes) {
+		this.maxBatchBytes = maxBatchBytes;
+	}
+
+	public long getLingerMillis() {
+		return lingerMillis;
+	}
+
+	public void setLingerMillis(long lingerMillis) {
+		this.lingerMillis = lingerMillis;
+	}
+
+	public int getMaxInFlightBatches() {
+		return maxInFlightBatches;
+	}
+
+	public void setMaxInFlightBatches(int maxInFlightBatches) {
+		this.maxInFlightBatches = maxInFlightBatches;
+	}
+
+	public String getWriteConcern() {
+		return writeConcern;
+	}
+
+	public void setWriteConcern(String writeConcern) {
+		this.writeConcern = writeConcern;
+	}
+
+	public int getWriteConcernTimeoutMillis() {
+		return writeConcernTimeoutMillis;
+	}
+
+	public void setWriteConcernTimeoutMillis(int writeConcernTimeoutMillis) {
+		this.writeConcernTimeoutMillis = writeConcernTimeoutMillis;
+	}
+
+}
@@ -0,0 +1,105 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures the {@link com.mnxfst.basar.tracking.ingest.IngestStage ingest stage} handing inbound requests
+ * from netty over to the actor pipeline
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerIngestConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 4128739451250385012L;
+
+	/** use ring buffers instead of publishing requests on the event stream. default: true */
+	private boolean enabled = true;
+
+	/** number of slots per ring buffer, rounded up to the next power of two. default: 8192 */
+	private int ringBufferSize = 8192;
+
+	/** max. number of requests drained from a ring buffer and forwarded as a single batch. default: 256 */
+	private int maxBatchSize = 256;
+
+	/** time a consumer parks if all its ring buffers are empty. default: 50000ns */
+	private long idleParkNanos = 50000;
+
+	/** number of consumer threads draining the ring buffers, each ring buffer is assigned to exactly one consumer. default: 1 */
+	private int numConsumers = 1;
+
+	/** number of request converter instances serving the event stream, 0 = number of cores. default: 0 */
+	private int numConverters = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerIngestConfigElement() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getRingBufferSize() {
+		return ringBufferSize;
+	}
+
+	public void setRingBufferSize(int ringBufferSize) {
+		this.ringBufferSize = ringBufferSize;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public long getIdleParkNanos() {
+		return idleParkNanos;
+	}
+
+	public void setIdleParkNanos(long idleParkNanos) {
+		this.idleParkNanos = idleParkNanos;
+	}
+
+	public int getNumConsumers() {
+		return numConsumers;
+	}
+
+	public void setNumConsumers(int numConsumers) {
+		this.numConsumers = numConsumers;
+	}
+
+	public int getNumConverters() {
+		return numConverters;
+	}
+
+	public void setNumConverters(int numConverters) {
+		this.numConverters = numConverters;
+	}
+
+}
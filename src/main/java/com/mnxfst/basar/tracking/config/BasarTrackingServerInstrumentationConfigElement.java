@@ -0,0 +1,72 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures the exposure of {@link com.mnxfst.basar.tracking.instrumentation.PipelineMetrics pipeline metrics} via
+ * http and jmx
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerInstrumentationConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 5315986034770941284L;
+
+	/** path of the http endpoint providing all metrics as json document, empty = disabled. default: /metrics */
+	private String metricsPath = "/metrics";
+	
+	/** register all metrics as mbeans. default: true */
+	private boolean jmxEnabled = true;
+	
+	/** domain of the registered mbeans. default: basar */
+	private String jmxDomain = "basar";
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerInstrumentationConfigElement() {
+	}
+
+	public String getMetricsPath() {
+		return metricsPath;
+	}
+
+	public void setMetricsPath(String metricsPath) {
+		this.metricsPath = metricsPath;
+	}
+
+	public boolean isJmxEnabled() {
+		return jmxEnabled;
+	}
+
+	public void setJmxEnabled(boolean jmxEnabled) {
+		this.jmxEnabled = jmxEnabled;
+	}
+
+	public String getJmxDomain() {
+		return jmxDomain;
+	}
+
+	public void setJmxDomain(String jmxDomain) {
+		this.jmxDomain = jmxDomain;
+	}
+
+}
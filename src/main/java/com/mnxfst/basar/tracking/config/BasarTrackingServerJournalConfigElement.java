@@ -0,0 +1,138 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures the {@link com.mnxfst.basar.tracking.journal.EventJournal write-ahead journal} which keeps converted
+ * tracking events on local disk until the tracking event writers have inserted them into mongodb
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerJournalConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 7310924856731190385L;
+
+	/** write converted events to the journal and replay unacknowledged ones on startup. default: false */
+	private boolean enabled = false;
+	
+	/** directory holding journal segments and checkpoint. default: journal */
+	private String directory = "journal";
+	
+	/** size of a single memory-mapped segment file given in bytes. default: 64MB */
+	private int segmentSize = 64 * 1024 * 1024;
+	
+	/** max. time between two group commits (segment flushed to disk) given in milliseconds. default: 10 */
+	private long flushIntervalMillis = 10;
+	
+	/** number of bytes appended since the last group commit which triggers the next one early. default: 1MB */
+	private int flushBytes = 1024 * 1024;
+	
+	/** max. number of events tracked between the oldest unacknowledged and the latest event, rounded up to the next power of two. default: 4194304 */
+	private int maxUnacknowledged = 4 * 1024 * 1024;
+	
+	/** replay events not acknowledged before the previous shutdown or crash. default: true */
+	private boolean replayEnabled = true;
+	
+	/** max. number of replayed events waiting for acknowledgement, the replay pauses when reaching the limit. default: 5000 */
+	private int replayMaxInFlight = 5000;
+	
+	/** min. age of events not acknowledged while running (eg. failed inserts) before they are redelivered, 0 disables redelivery. default: 30000 */
+	private long redeliverIntervalMillis = 30000;
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerJournalConfigElement() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public long getFlushIntervalMillis() {
+		return flushIntervalMillis;
+	}
+
+	public void setFlushIntervalMillis(long flushIntervalMillis) {
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	public int getFlushBytes() {
+		return flushBytes;
+	}
+
+	public void setFlushBytes(int flushBytes) {
+		this.flushBytes = flushBytes;
+	}
+
+	public int getMaxUnacknowledged() {
+		return maxUnacknowledged;
+	}
+
+	public void setMaxUnacknowledged(int maxUnacknowledged) {
+		this.maxUnacknowledged = maxUnacknowledged;
+	}
+
+	public boolean isReplayEnabled() {
+		return replayEnabled;
+	}
+
+	public void setReplayEnabled(boolean replayEnabled) {
+		this.replayEnabled = replayEnabled;
+	}
+
+	public int getReplayMaxInFlight() {
+		return replayMaxInFlight;
+	}
+
+	public void setReplayMaxInFlight(int replayMaxInFlight) {
+		this.replayMaxInFlight = replayMaxInFlight;
+	}
+
+	public long getRedeliverIntervalMillis() {
+		return redeliverIntervalMillis;
+	}
+
+	public void setRedeliverIntervalMillis(long redeliverIntervalMillis) {
+		this.redeliverIntervalMillis = redeliverIntervalMillis;
+	}
+
+}
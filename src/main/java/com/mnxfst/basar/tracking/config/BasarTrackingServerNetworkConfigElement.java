@@ -0,0 +1,150 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Describes the listener topology of the tracking server, eg. number of boss and worker threads,
+ * transport type and socket options. A value of 0 for any thread count or buffer size tells
+ * the server to use the default provided by netty or the operating system.
+ * @author mnxfst
+ * @since 12.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerNetworkConfigElement implements Serializable {
+
+	private static final long serialVersionUID = 2957283451286023376L;
+
+	/** number of threads accepting inbound connections. default: 1 */
+	private int bossThreads = 1;
+
+	/** number of threads decoding requests and writing responses. default: 0 (2 * number of cores) */
+	private int workerThreads = 0;
+
+	/** use the native epoll transport if available (linux only). default: false */
+	private boolean epoll = false;
+
+	/** bind one acceptor per boss thread to the same port using SO_REUSEPORT (requires epoll). default: false */
+	private boolean reusePort = false;
+
+	/** disable nagle's algorithm on accepted connections. default: true */
+	private boolean tcpNoDelay = true;
+
+	/** keep accepted connections alive on tcp level. default: true */
+	private boolean soKeepAlive = true;
+
+	/** maximum length of the queue holding not yet accepted connections. default: 1024 */
+	private int soBacklog = 1024;
+
+	/** size of socket receive buffer. default: 0 (os default) */
+	private int soReceiveBuffer = 0;
+
+	/** size of socket send buffer. default: 0 (os default) */
+	private int soSendBuffer = 0;
+
+	/** requests towards this path are answered with 204 (no content) instead of the tracking pixel. default: /beacon */
+	private String beaconPath = "/beacon";
+
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerNetworkConfigElement() {
+	}
+
+	public int getBossThreads() {
+		return bossThreads;
+	}
+
+	public void setBossThreads(int bossThreads) {
+		this.bossThreads = bossThreads;
+	}
+
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+
+	public boolean isEpoll() {
+		return epoll;
+	}
+
+	public void setEpoll(boolean epoll) {
+		this.epoll = epoll;
+	}
+
+	public boolean isReusePort() {
+		return reusePort;
+	}
+
+	public void setReusePort(boolean reusePort) {
+		this.reusePort = reusePort;
+	}
+
+	public boolean isTcpNoDelay() {
+		return tcpNoDelay;
+	}
+
+	public void setTcpNoDelay(boolean tcpNoDelay) {
+		this.tcpNoDelay = tcpNoDelay;
+	}
+
+	public boolean isSoKeepAlive() {
+		return soKeepAlive;
+	}
+
+	public void setSoKeepAlive(boolean soKeepAlive) {
+		this.soKeepAlive = soKeepAlive;
+	}
+
+	public int getSoBacklog() {
+		return soBacklog;
+	}
+
+	public void setSoBacklog(int soBacklog) {
+		this.soBacklog = soBacklog;
+	}
+
+	public int getSoReceiveBuffer() {
+		return soReceiveBuffer;
+	}
+
+	public void setSoReceiveBuffer(int soReceiveBuffer) {
+		this.soReceiveBuffer = soReceiveBuffer;
+	}
+
+	public int getSoSendBuffer() {
+		return soSendBuffer;
+	}
+
+	public void setSoSendBuffer(int soSendBuffer) {
+		this.soSendBuffer = soSendBuffer;
+	}
+
+	public String getBeaconPath() {
+		return beaconPath;
+	}
+
+	public void setBeaconPath(String beaconPath) {
+		this.beaconPath = beaconPath;
+	}
+
+}
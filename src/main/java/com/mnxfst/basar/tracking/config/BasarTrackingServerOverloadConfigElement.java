@@ -0,0 +1,61 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+
+/**
+ * Configures the {@link com.mnxfst.basar.tracking.overload.OverloadSignal overload protection} rejecting inbound requests
+ * while the actor pipeline drops messages due to full (bounded) mailboxes
+ * @author mnxfst
+ * @since 25.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerOverloadConfigElement implements Serializable {
+
+	private static final long serialVersionUID = -1650729423916280154L;
+
+	/** answer inbound requests with 503 while the pipeline is overloaded instead of handing them over. default: true */
+	private boolean enabled = true;
+	
+	/** time inbound requests are rejected after the pipeline has dropped a message or the ring buffer was found full. default: 1000 */
+	private long rejectMillis = 1000;
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerOverloadConfigElement() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public long getRejectMillis() {
+		return rejectMillis;
+	}
+
+	public void setRejectMillis(long rejectMillis) {
+		this.rejectMillis = rejectMillis;
+	}
+
+}
@@ -0,0 +1,152 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.config;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Configures the store-then-parse ingestion mode: the inbound handler appends the raw request line and selected headers to the
+ * {@link com.mnxfst.basar.tracking.ingest.raw.RawRequestLog raw request log}, requests are converted asynchronously from there
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class BasarTrackingServerRawIngestConfigElement implements Serializable {
+
+	private static final long serialVersionUID = -2904633815472350618L;
+
+	/** append raw requests to the log instead of converting them on arrival. default: false */
+	private boolean enabled = false;
+	
+	/** directory holding log segments and checkpoint. default: rawlog */
+	private String directory = "rawlog";
+	
+	/** size of a single memory-mapped segment file given in bytes. default: 64MB */
+	private int segmentSize = 64 * 1024 * 1024;
+	
+	/** max. number of segments kept on disk, requests are rejected with 503 if the unconverted requests exceed this budget. default: 32 */
+	private int maxSegments = 32;
+	
+	/** max. time between two group commits (segment flushed to disk) given in milliseconds. default: 10 */
+	private long flushIntervalMillis = 10;
+	
+	/** number of bytes appended since the last group commit which triggers the next one early. default: 1MB */
+	private int flushBytes = 1024 * 1024;
+	
+	/** headers recorded along with the request line, all others are dropped. default: host, user-agent, referer, cookie, accept-language, x-forwarded-for */
+	private List<String> headers = new ArrayList<>(Arrays.asList("host", "user-agent", "referer", "cookie", "accept-language", "x-forwarded-for"));
+	
+	/** max. size of request line and headers given in bytes, the connection of larger requests is closed. default: 8192 */
+	private int maxHeadSize = 8192;
+	
+	/** max. number of requests converted and forwarded to the gateway as a single batch. default: 256 */
+	private int maxBatchSize = 256;
+	
+	/** time the reader parks if no request is available or the pipeline is overloaded. default: 50000 */
+	private long idleParkNanos = 50000;
+	
+	/**
+	 * Default constructor
+	 */
+	public BasarTrackingServerRawIngestConfigElement() {
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getDirectory() {
+		return directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public int getSegmentSize() {
+		return segmentSize;
+	}
+
+	public void setSegmentSize(int segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public int getMaxSegments() {
+		return maxSegments;
+	}
+
+	public void setMaxSegments(int maxSegments) {
+		this.maxSegments = maxSegments;
+	}
+
+	public long getFlushIntervalMillis() {
+		return flushIntervalMillis;
+	}
+
+	public void setFlushIntervalMillis(long flushIntervalMillis) {
+		this.flushIntervalMillis = flushIntervalMillis;
+	}
+
+	public int getFlushBytes() {
+		return flushBytes;
+	}
+
+	public void setFlushBytes(int flushBytes) {
+		this.flushBytes = flushBytes;
+	}
+
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	public void setHeaders(List<String> headers) {
+		this.headers = headers;
+	}
+
+	public int getMaxHeadSize() {
+		return maxHeadSize;
+	}
+
+	public void setMaxHeadSize(int maxHeadSize) {
+		this.maxHeadSize = maxHeadSize;
+	}
+
+	public int getMaxBatchSize() {
+		return maxBatchSize;
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	public long getIdleParkNanos() {
+		return idleParkNanos;
+	}
+
+	public void setIdleParkNanos(long idleParkNanos) {
+		this.idleParkNanos = idleParkNanos;
+	}
+	
+}
@@ -1,100 +1,358 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.event;
-
-import java.io.IOException;
-import java.io.StringWriter;
-
-import org.apache.commons.lang.StringUtils;
-
-import akka.actor.UntypedActor;
-
-import com.allanbank.mongodb.MongoCollection;
-import com.allanbank.mongodb.bson.Document;
-import com.allanbank.mongodb.bson.json.Json;
-import com.fasterxml.jackson.core.JsonGenerationException;
-import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mnxfst.basar.tracking.model.TrackingEvent;
-
-/**
- * Writes {@link TrackingEvent tracking events} to the previously configured database collection.
- * It uses the {@link MongoCollection#insertAsync(com.allanbank.mongodb.bson.DocumentAssignable...) asynchronous insertion method}
- * provided by the underlying data as no process is interested in a result/response.
- * @author mnxfst
- * @since 25.10.2013
- *
- * Revision Control Info $Id$
- */
-public class TrackingEventDBWriter extends UntypedActor { //extends DatabaseValueWriter {
-
-	public static String DB_COLLECTION = "tevents";
-	
-	/** mapper used to converting tracking events into their string representation */
-	private final ObjectMapper trackingEventMapper = new ObjectMapper();
-	
-	private final MongoCollection collection;
-	
-	/**
-	 * Initializes the database writer using the provided input
-	 * @param trackingEventCollection
-	 */
-	public TrackingEventDBWriter(final MongoCollection collection) {
-		this.collection = collection;
-	}
-	
-	/**
-	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
-	 */
-	public void onReceive(Object message) throws Exception {
-
-		// ensure that the message is of expected type, otherwise "mark" it as "not handled" 
-		if(message instanceof TrackingEvent) {
-			insertTrackingEvent((TrackingEvent)message);			
-		} else {
-			unhandled(message);
-		}		
-	}
-	
-	/**
-	 * Writes the provided {@link TrackingEvent tracking event} to the configured {@link MongoCollection database collection}
-	 * @param trackingEvent
-	 * @throws IOException 
-	 * @throws JsonMappingException 
-	 * @throws JsonGenerationException 
-	 */
-	protected void insertTrackingEvent(final TrackingEvent trackingEvent) throws JsonGenerationException, JsonMappingException, IOException {
-		
-		System.out.println(trackingEvent.getContractor());
-		
-		if(trackingEvent != null) {
-			StringWriter stringWriter = new StringWriter();
-			trackingEventMapper.writeValue(stringWriter, trackingEvent);
-			String trackingEventString = stringWriter.toString();
-			if(StringUtils.isNotBlank(trackingEventString)) {
-				Document trackingEventDocument = Json.parse(trackingEventString);
-				if(trackingEventDocument != null && StringUtils.isNotBlank(trackingEvent.getContractor())) {
-					System.out.println("Writing to " + collection);
-					collection.insert(trackingEventDocument);
-				} else {
-					context().system().log().debug("Missing contractor");
-				}
-			}
-		}
-	}
-
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+import akka.actor.UntypedActor;
+
+import com.allanbank.mongodb.Callback;
+import com.allanbank.mongodb.Durability;
+import com.allanbank.mongodb.MongoCollection;
+import com.allanbank.mongodb.bson.Document;
+import com.allanbank.mongodb.error.DuplicateKeyException;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerEventWriterConfigElement;
+import com.mnxfst.basar.tracking.event.message.FlushTrackingEventsMessage;
+import com.mnxfst.basar.tracking.event.message.RetryTrackingEventsMessage;
+import com.mnxfst.basar.tracking.instrumentation.ContractorMetrics;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Writes {@link TrackingEvent tracking events} to the previously configured database collection.
+ * Events are encoded directly into BSON documents by a {@link TrackingEventDocumentEncoder}.<br/><br/>
+ * If batching is enabled, the writer collects the encoded documents and writes them as a single multi-document
+ * {@link MongoCollection#insertAsync(Callback, boolean, Durability, com.allanbank.mongodb.bson.DocumentAssignable...) asynchronous insert}
+ * as soon as the configured number of documents, the configured batch size or the linger time is reached. The number of 
+ * batches in flight is bounded: if the limit is reached, the writer blocks until a pending batch completes which 
+ * slows down the stream of events instead of piling up requests inside the driver. Without batching, each event is 
+ * written synchronously.<br/><br/>
+ * If a {@link EventJournal journal} is provided, the writer acknowledges the journal sequences of all events as soon as 
+ * their insert succeeded. Events of failed inserts remain unacknowledged and are redelivered by the {@link com.mnxfst.basar.tracking.journal.JournalReplayer journal replayer}.
+ * Journaled events carry an identifier derived from their journal sequence: an insert failing on the duplicate key refers to an event
+ * inserted before, which is acknowledged. As a failed batch does not tell which of its documents have been inserted, its documents are 
+ * inserted one by one.
+ * @author mnxfst
+ * @since 25.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventDBWriter extends UntypedActor { //extends DatabaseValueWriter {
+
+	/** logging facility - the actor logger must not be used from within driver callbacks */
+	private static final Logger logger = Logger.getLogger(TrackingEventDBWriter.class);
+
+	public static String DB_COLLECTION = "tevents";
+	
+	/** encodes tracking events into documents */
+	private final TrackingEventDocumentEncoder trackingEventEncoder;
+	
+	private final MongoCollection collection;
+	
+	/** writer configuration, null if the writer has been set up without any configuration */
+	private final BasarTrackingServerEventWriterConfigElement configuration;
+	/** durability requested for each insert, null to use the collection default. Never null or unacknowledged if the journal is enabled */
+	private final Durability durability;
+	/** true if events are written in batches */
+	private final boolean batchEnabled;
+	/** bounds the number of batches in flight */
+	private final Semaphore inFlightBatches;
+	/** journal receiving the acknowledgements of inserted events, null if journaling is disabled */
+	private final EventJournal journal;
+	
+	/** documents waiting to be written */
+	private List<Document> pendingDocuments = null;
+	/** journal sequences of pending documents, same order as the documents */
+	private long[] pendingSequences = null;
+	/** estimated size of pending documents */
+	private int pendingBytes = 0;
+	/** time the oldest pending document was added */
+	private long pendingSince = 0;
+	/** periodically triggers the flush of pending documents */
+	private Cancellable flushTask = null;
+	
+	/** measures the processing of tracking events by contractor */
+	private final ContractorMetrics<Timer> writerTimers = ContractorMetrics.timers(PipelineMetrics.STAGE_WRITER_TRACKING_EVENT);
+	/** measures inserts into the collection of this writer, batches are measured until the driver reports their completion */
+	private final Timer insertTimer;
+	/** counts failed inserts into the collection of this writer */
+	private final Meter insertErrors;
+	
+	/**
+	 * Initializes the database writer using the provided input. Events will be written one by one
+	 * @param trackingEventCollection
+	 */
+	public TrackingEventDBWriter(final MongoCollection collection) {
+		this(collection, null);
+	}
+	
+	/**
+	 * Initializes the database writer using the provided input
+	 * @param collection
+	 * @param configuration
+	 */
+	public TrackingEventDBWriter(final MongoCollection collection, final BasarTrackingServerEventWriterConfigElement configuration) {
+		this(collection, configuration, null);
+	}
+	
+	/**
+	 * Initializes the database writer using the provided input
+	 * @param collection
+	 * @param configuration
+	 * @param journal journal to acknowledge inserted events with, may be null
+	 */
+	public TrackingEventDBWriter(final MongoCollection collection, final BasarTrackingServerEventWriterConfigElement configuration, final EventJournal journal) {
+		this.collection = collection;
+		this.journal = journal;
+		this.trackingEventEncoder = new TrackingEventDocumentEncoder(journal != null ? journal.getInstanceId() : null);
+		// a batch may hold events of several contractors, thus inserts are tagged by the database the writer's collection belongs to
+		final String databaseName = (collection != null ? collection.getDatabaseName() : null);
+		this.insertTimer = PipelineMetrics.registry().timer(PipelineMetrics.name(PipelineMetrics.MONGO_INSERT, databaseName));
+		this.insertErrors = PipelineMetrics.registry().meter(PipelineMetrics.name(PipelineMetrics.MONGO_INSERT_ERRORS, databaseName));
+		this.configuration = configuration;
+		this.durability = toAcknowledgedDurability(configuration != null ? toDurability(configuration.getWriteConcern(), configuration.getWriteConcernTimeoutMillis()) : null, journal != null);
+		this.batchEnabled = (configuration != null && configuration.isBatchEnabled());
+		this.inFlightBatches = new Semaphore(configuration != null ? Math.max(1, configuration.getMaxInFlightBatches()) : 1);
+		if(this.batchEnabled) {
+			this.pendingDocuments = new ArrayList<>(Math.max(1, configuration.getMaxBatchDocuments()));
+			this.pendingSequences = new long[Math.max(1, configuration.getMaxBatchDocuments())];
+		}
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#preStart()
+	 */
+	public void preStart() throws Exception {
+		if(batchEnabled) {
+			// check twice per linger period, thus no document waits much longer than configured
+			FiniteDuration interval = Duration.create(Math.max(1, configuration.getLingerMillis() / 2), TimeUnit.MILLISECONDS);
+			this.flushTask = context().system().scheduler().schedule(interval, interval, getSelf(), FlushTrackingEventsMessage.INSTANCE, context().dispatcher(), ActorRef.noSender());
+		}
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#postStop()
+	 */
+	public void postStop() throws Exception {
+		if(flushTask != null)
+			flushTask.cancel();
+		if(batchEnabled)
+			flush();
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+
+		// ensure that the message is of expected type, otherwise "mark" it as "not handled" 
+		if(message instanceof TrackingEvent) {
+			final Timer.Context timerContext = writerTimers.get(((TrackingEvent)message).getContractor()).time();
+			try {
+				insertTrackingEvent((TrackingEvent)message);
+			} finally {
+				timerContext.stop();
+			}
+		} else if(message instanceof FlushTrackingEventsMessage) {
+			if(batchEnabled && !pendingDocuments.isEmpty() && System.currentTimeMillis() - pendingSince >= configuration.getLingerMillis())
+				flush();
+		} else if(message instanceof RetryTrackingEventsMessage) {
+			retryTrackingEvents((RetryTrackingEventsMessage)message);
+		} else {
+			unhandled(message);
+		}		
+	}
+	
+	/**
+	 * Writes the provided {@link TrackingEvent tracking event} to the configured {@link MongoCollection database collection}
+	 * or adds it to the current batch
+	 * @param trackingEvent
+	 */
+	protected void insertTrackingEvent(final TrackingEvent trackingEvent) {
+		
+		if(trackingEvent != null) {
+			if(StringUtils.isNotBlank(trackingEvent.getContractor())) {
+				
+				if(!batchEnabled) {
+					insertDocument(trackingEventEncoder.encode(trackingEvent), trackingEvent.getJournalSequence());
+					return;
+				}
+				
+				if(pendingDocuments.isEmpty())
+					pendingSince = System.currentTimeMillis();
+				if(pendingDocuments.size() == pendingSequences.length)
+					pendingSequences = Arrays.copyOf(pendingSequences, pendingSequences.length << 1);
+				pendingSequences[pendingDocuments.size()] = trackingEvent.getJournalSequence();
+				pendingDocuments.add(trackingEventEncoder.encode(trackingEvent));
+				pendingBytes = pendingBytes + TrackingEventDocumentEncoder.estimateSize(trackingEvent);
+				
+				if(pendingDocuments.size() >= configuration.getMaxBatchDocuments() || pendingBytes >= configuration.getMaxBatchBytes())
+					flush();
+				
+			} else {
+				context().system().log().debug("Missing contractor");
+				// the event will never be written, thus there is nothing to replay
+				if(journal != null)
+					journal.acknowledge(trackingEvent.getJournalSequence());
+			}
+		}
+	}
+	
+	/**
+	 * Writes all pending documents as a single batch. Blocks if the max. number of batches is in flight
+	 */
+	protected void flush() {
+		
+		if(pendingDocuments.isEmpty())
+			return;
+		
+		final Document[] batch = pendingDocuments.toArray(new Document[pendingDocuments.size()]);
+		final long[] batchSequences = (journal != null ? Arrays.copyOf(pendingSequences, batch.length) : null);
+		pendingDocuments.clear();
+		pendingBytes = 0;
+		
+		// metrics are thread-safe, thus they may be updated by the driver thread running the callback. The insert is measured
+		// after acquiring the permit, thus waiting for batches in flight is not reported as insert latency
+		inFlightBatches.acquireUninterruptibly();
+		final ActorRef self = getSelf();
+		final Timer.Context timerContext = insertTimer.time();
+		try {
+			collection.insertAsync(new Callback<Integer>() {
+				
+				public void callback(Integer result) {
+					timerContext.stop();
+					inFlightBatches.release();
+					if(batchSequences != null)
+						journal.acknowledge(batchSequences, batchSequences.length);
+				}
+				
+				public void exception(Throwable thrown) {
+					timerContext.stop();
+					inFlightBatches.release();
+					if(batchSequences != null && thrown instanceof DuplicateKeyException) {
+						logger.info("Batch of " + batch.length + " tracking events holds events inserted before. Inserting the events one by one");
+						self.tell(new RetryTrackingEventsMessage(batch, batchSequences), ActorRef.noSender());
+						return;
+					}
+					insertErrors.mark();
+					logger.error("Failed to insert batch of " + batch.length + " tracking events into " + collection.getName() + ": " + thrown.getMessage() + 
+							(batchSequences != null ? ". The events will be redelivered from the journal" : ""));
+				}
+			}, true, durability, batch);
+		} catch(RuntimeException e) {
+			timerContext.stop();
+			insertErrors.mark();
+			inFlightBatches.release();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Inserts the documents of a batch which failed on a duplicate key one by one
+	 * @param message
+	 */
+	protected void retryTrackingEvents(final RetryTrackingEventsMessage message) {
+		final Document[] documents = message.getDocuments();
+		final long[] journalSequences = message.getJournalSequences();
+		for(int i = 0; i < documents.length; i++) {
+			try {
+				insertDocument(documents[i], journalSequences[i]);
+			} catch(RuntimeException e) {
+				logger.error("Failed to insert tracking event into " + collection.getName() + ": " + e.getMessage() + ". The event will be redelivered from the journal");
+			}
+		}
+	}
+	
+	/**
+	 * Writes the provided document synchronously and acknowledges the given journal sequence. A journaled document failing on the 
+	 * duplicate key has been inserted before and is acknowledged as well
+	 * @param document
+	 * @param journalSequence
+	 */
+	protected void insertDocument(final Document document, final long journalSequence) {
+		final Timer.Context timerContext = insertTimer.time();
+		try {
+			if(durability != null)
+				collection.insert(durability, document);
+			else
+				collection.insert(document);
+		} catch(DuplicateKeyException e) {
+			if(journal == null || journalSequence < 0) {
+				insertErrors.mark();
+				throw e;
+			}
+		} catch(RuntimeException e) {
+			insertErrors.mark();
+			throw e;
+		} finally {
+			timerContext.stop();
+		}
+		if(journal != null)
+			journal.acknowledge(journalSequence);
+	}
+	
+	/**
+	 * Returns the durability to request for inserts. Journaled events are acknowledged to the journal once their insert
+	 * completed, thus the insert must be acknowledged by the server: the collection default may be unacknowledged and 
+	 * <i>none</i> would drop the events of failed inserts for good. In both cases {@link Durability#ACK} is used instead
+	 * @param configured durability derived from the configuration, may be null
+	 * @param journaled true if the events are journaled
+	 * @return
+	 */
+	protected static Durability toAcknowledgedDurability(final Durability configured, final boolean journaled) {
+		if(!journaled)
+			return configured;
+		if(Durability.NONE.equals(configured))
+			logger.warn("Write concern '" + BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_NONE + "' is not supported while the journal is enabled. Using " + BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_ACK);
+		if(configured == null || Durability.NONE.equals(configured))
+			return Durability.ACK;
+		return configured;
+	}
+	
+	/**
+	 * Converts the configured write concern into the corresponding {@link Durability durability}
+	 * @param writeConcern
+	 * @param timeoutMillis
+	 * @return
+	 */
+	protected static Durability toDurability(final String writeConcern, final int timeoutMillis) {
+		if(StringUtils.equalsIgnoreCase(writeConcern, BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_NONE))
+			return Durability.NONE;
+		if(StringUtils.equalsIgnoreCase(writeConcern, BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_JOURNAL))
+			return Durability.journalDurable(Math.max(0, timeoutMillis));
+		if(StringUtils.equalsIgnoreCase(writeConcern, BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_FSYNC))
+			return Durability.fsyncDurable(Math.max(0, timeoutMillis));
+		if(!StringUtils.equalsIgnoreCase(writeConcern, BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_ACK))
+			logger.warn("Unknown write concern '" + writeConcern + "'. Using " + BasarTrackingServerEventWriterConfigElement.WRITE_CONCERN_ACK);
+		return Durability.ACK;
+	}
+
+}
@@ -0,0 +1,162 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.event;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import com.allanbank.mongodb.bson.Document;
+import com.allanbank.mongodb.bson.builder.ArrayBuilder;
+import com.allanbank.mongodb.bson.builder.BuilderFactory;
+import com.allanbank.mongodb.bson.builder.DocumentBuilder;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Encodes {@link TrackingEvent tracking events} directly into {@link Document BSON documents}. The document layout
+ * matches the json representation of a tracking event (typ, in, ctr, dom, src, time, params) except for the event time
+ * which is stored as native date. If the encoder has been provided a journal instance id, journaled events are identified
+ * by the instance id and their journal sequence, thus an event replayed or redelivered from the journal fails on the duplicate 
+ * key instead of being inserted twice. The encoder reuses its internal builder, thus instances are not thread-safe and
+ * must not be shared among actors.
+ * @author mnxfst
+ * @since 18.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventDocumentEncoder {
+
+	public static final String DOC_FIELD_ID = "_id";
+	public static final String DOC_FIELD_TYPE = "typ";
+	public static final String DOC_FIELD_INBOUND_INTERFACE = "in";
+	public static final String DOC_FIELD_CONTRACTOR = "ctr";
+	public static final String DOC_FIELD_DOMAIN = "dom";
+	public static final String DOC_FIELD_SOURCE = "src";
+	public static final String DOC_FIELD_TIME = "time";
+	public static final String DOC_FIELD_PARAMETERS = "params";
+
+	/** builder reused for all encoded events */
+	private final DocumentBuilder builder = BuilderFactory.start();
+	/** instance id of the journal the events have been appended to, null if the database assigns document identifiers */
+	private final String journalInstanceId;
+
+	/**
+	 * Default constructor, document identifiers are assigned by the database
+	 */
+	public TrackingEventDocumentEncoder() {
+		this(null);
+	}
+	
+	/**
+	 * Initializes the encoder using the provided input
+	 * @param journalInstanceId instance id of the journal the events have been appended to, may be null
+	 */
+	public TrackingEventDocumentEncoder(final String journalInstanceId) {
+		this.journalInstanceId = journalInstanceId;
+	}
+	
+	/**
+	 * Encodes the provided tracking event into an immutable document
+	 * @param trackingEvent
+	 * @return
+	 */
+	public Document encode(final TrackingEvent trackingEvent) {
+		try {
+			if(journalInstanceId != null && trackingEvent.getJournalSequence() >= 0)
+				builder.add(DOC_FIELD_ID, documentId(journalInstanceId, trackingEvent.getJournalSequence()));
+			encode(trackingEvent, builder);
+			return builder.build();
+		} finally {
+			builder.reset();
+		}
+	}
+
+	/**
+	 * Writes the fields of the provided tracking event into the given builder
+	 * @param trackingEvent
+	 * @param documentBuilder
+	 */
+	public static void encode(final TrackingEvent trackingEvent, final DocumentBuilder documentBuilder) {
+
+		documentBuilder.add(DOC_FIELD_TYPE, trackingEvent.getType());
+		documentBuilder.add(DOC_FIELD_INBOUND_INTERFACE, trackingEvent.getInboundInterface());
+		documentBuilder.add(DOC_FIELD_CONTRACTOR, trackingEvent.getContractor());
+		documentBuilder.add(DOC_FIELD_DOMAIN, trackingEvent.getDomain());
+		documentBuilder.add(DOC_FIELD_SOURCE, trackingEvent.getSource());
+		documentBuilder.add(DOC_FIELD_TIME, new Date(trackingEvent.getTimestamp()));
+
+		DocumentBuilder parametersBuilder = documentBuilder.push(DOC_FIELD_PARAMETERS);
+		for(Map.Entry<String, List<String>> parameter : trackingEvent.getParameters().entrySet()) {
+			ArrayBuilder valuesBuilder = parametersBuilder.pushArray(parameter.getKey());
+			for(String value : parameter.getValue())
+				valuesBuilder.add(value);
+		}
+	}
+
+	/**
+	 * Returns the identifier of the document holding the event referenced by the given journal instance and sequence
+	 * @param journalInstanceId
+	 * @param journalSequence
+	 * @return
+	 */
+	public static String documentId(final String journalInstanceId, final long journalSequence) {
+		return journalInstanceId + "-" + journalSequence;
+	}
+	
+	/**
+	 * Estimates the size of the encoded tracking event given in bytes. The estimation assumes single byte characters and
+	 * is used for limiting the size of batches only
+	 * @param trackingEvent
+	 * @return
+	 */
+	public static int estimateSize(final TrackingEvent trackingEvent) {
+		
+		// document length and terminating zero
+		int size = 5;
+		size = size + estimateStringElementSize(DOC_FIELD_TYPE, trackingEvent.getType());
+		size = size + estimateStringElementSize(DOC_FIELD_INBOUND_INTERFACE, trackingEvent.getInboundInterface());
+		size = size + estimateStringElementSize(DOC_FIELD_CONTRACTOR, trackingEvent.getContractor());
+		size = size + estimateStringElementSize(DOC_FIELD_DOMAIN, trackingEvent.getDomain());
+		size = size + estimateStringElementSize(DOC_FIELD_SOURCE, trackingEvent.getSource());
+		// type, name, terminating zero and 8 byte value
+		size = size + DOC_FIELD_TIME.length() + 10;
+		
+		// type, name, terminating zero and embedded document
+		size = size + DOC_FIELD_PARAMETERS.length() + 2 + 5;
+		for(Map.Entry<String, List<String>> parameter : trackingEvent.getParameters().entrySet()) {
+			size = size + (parameter.getKey() != null ? parameter.getKey().length() : 0) + 2 + 5;
+			// array elements are named by their index, which takes one to three digits for any realistic number of values
+			int idx = 0;
+			for(String value : parameter.getValue()) {
+				size = size + (idx < 10 ? 1 : (idx < 100 ? 2 : 3)) + 7 + (value != null ? value.length() : 0);
+				idx++;
+			}
+		}
+		return size;
+	}
+	
+	/**
+	 * Estimates the size of a string element: type, name, terminating zero, length, value and terminating zero
+	 * @param name
+	 * @param value
+	 * @return
+	 */
+	protected static int estimateStringElementSize(final String name, final String value) {
+		return 1 + name.length() + 1 + 4 + (value != null ? value.length() : 0) + 1;
+	}
+
+}
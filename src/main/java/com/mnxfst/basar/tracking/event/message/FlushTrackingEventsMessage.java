@@ -0,0 +1,44 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.event.message;
+
+import java.io.Serializable;
+
+import com.mnxfst.basar.tracking.event.TrackingEventDBWriter;
+
+/**
+ * Periodically sent to each {@link TrackingEventDBWriter} telling it to write all pending events
+ * which have been waiting longer than the configured linger time
+ * @author mnxfst
+ * @since 19.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class FlushTrackingEventsMessage implements Serializable {
+
+	private static final long serialVersionUID = 2739514626806431935L;
+
+	/** shared instance as the message carries no state */
+	public static final FlushTrackingEventsMessage INSTANCE = new FlushTrackingEventsMessage();
+
+	/**
+	 * Default constructor
+	 */
+	public FlushTrackingEventsMessage() {		
+	}
+
+}
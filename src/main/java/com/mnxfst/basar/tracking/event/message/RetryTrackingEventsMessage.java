@@ -0,0 +1,60 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.event.message;
+
+import java.io.Serializable;
+
+import com.allanbank.mongodb.bson.Document;
+import com.mnxfst.basar.tracking.event.TrackingEventDBWriter;
+
+/**
+ * Sent by a {@link TrackingEventDBWriter} to itself if a batch failed on a duplicate key, ie. the batch holds events which have
+ * been inserted before. The documents are inserted one by one, thus the events inserted before are told apart from the ones
+ * which failed for other reasons
+ * @author mnxfst
+ * @since 19.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RetryTrackingEventsMessage implements Serializable {
+
+	private static final long serialVersionUID = -4305817362265106592L;
+
+	/** documents of the failed batch */
+	private final Document[] documents;
+	/** journal sequences of the documents, same order as the documents */
+	private final long[] journalSequences;
+
+	/**
+	 * Initializes the message using the provided input
+	 * @param documents
+	 * @param journalSequences
+	 */
+	public RetryTrackingEventsMessage(final Document[] documents, final long[] journalSequences) {
+		this.documents = documents;
+		this.journalSequences = journalSequences;
+	}
+
+	public Document[] getDocuments() {
+		return documents;
+	}
+
+	public long[] getJournalSequences() {
+		return journalSequences;
+	}
+
+}
@@ -0,0 +1,64 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.gateway.message;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Hands a batch of {@link TrackingEvent tracking events} over to the {@link ContractorMessageGateway}. The
+ * gateway processes each contained event as if it were received separately.
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventBatchMessage implements Serializable {
+
+	private static final long serialVersionUID = -3586312092817712064L;
+
+	/** contained events */
+	private List<TrackingEvent> trackingEvents = null;
+
+	/**
+	 * Default constructor
+	 */
+	public TrackingEventBatchMessage() {
+		this.trackingEvents = new ArrayList<>();
+	}
+
+	/**
+	 * Initializes the message using the provided input
+	 * @param trackingEvents
+	 */
+	public TrackingEventBatchMessage(final List<TrackingEvent> trackingEvents) {
+		this.trackingEvents = trackingEvents;
+	}
+
+	public List<TrackingEvent> getTrackingEvents() {
+		return trackingEvents;
+	}
+
+	public void setTrackingEvents(List<TrackingEvent> trackingEvents) {
+		this.trackingEvents = trackingEvents;
+	}
+
+}
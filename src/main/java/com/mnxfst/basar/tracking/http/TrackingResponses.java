@@ -0,0 +1,159 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.http;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpResponseStatus;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Provides the fully encoded responses (status line, header block and body) returned by the tracking server. All
+ * responses are encoded once into direct buffers which are never released. Callers receive a {@link ByteBuf#duplicate() duplicate}
+ * sharing the same memory but having its own reader index, thus writing a response neither copies nor encodes any data.<br/><br/>
+ * As the buffers already contain raw http, they must be written to a pipeline without {@link io.netty.handler.codec.http.HttpResponseEncoder}.
+ * @author mnxfst
+ * @since 13.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class TrackingResponses {
+
+	/** returned 1x1 pixel */
+	public static final byte[] TRACKING_PNG = {(byte)0x89,0x50,0x4E,0x47,0x0D,0x0A,0x1A,0x0A,0x00,0x00,0x00,0x0D,0x49,0x48,0x44,0x52,0x00,0x00,0x00,0x01,0x00,0x00,0x00,0x01,0x08,0x06,0x00,0x00,0x00,0x1F,0x15,(byte)0xC4,(byte)0x89,0x00,0x00,0x00,0x0B,0x49,0x44,0x41,0x54,0x78,(byte)0xDA,0x63,0x60,0x00,0x02,0x00,0x00,0x05,0x00,0x01,(byte)0xE9,(byte)0xFA,(byte)0xDC,(byte)0xD8,0x00,0x00,0x00,0x00,0x49,0x45,0x4E,0x44,(byte)0xAE,0x42,0x60,(byte)0x82};
+
+	/** content type of tracking pixel */
+	public static final String CONTENT_TYPE_PNG = "image/png";
+	/** content type of metrics report */
+	public static final String CONTENT_TYPE_JSON = "application/json; charset=UTF-8";
+
+	private static final byte[] NO_BODY = new byte[0];
+	
+	/** seconds a client is asked to wait before retrying a rejected request */
+	public static final int RETRY_AFTER_SECONDS = 1;
+
+	/** pixel response, connection kept alive */
+	private static final ByteBuf PIXEL_KEEP_ALIVE = encode(HttpResponseStatus.OK, CONTENT_TYPE_PNG, TRACKING_PNG, true);
+	/** pixel response, connection closed */
+	private static final ByteBuf PIXEL_CLOSE = encode(HttpResponseStatus.OK, CONTENT_TYPE_PNG, TRACKING_PNG, false);
+	/** beacon response (no content), connection kept alive */
+	private static final ByteBuf NO_CONTENT_KEEP_ALIVE = encode(HttpResponseStatus.NO_CONTENT, null, NO_BODY, true);
+	/** beacon response (no content), connection closed */
+	private static final ByteBuf NO_CONTENT_CLOSE = encode(HttpResponseStatus.NO_CONTENT, null, NO_BODY, false);
+	/** overload response, connection kept alive */
+	private static final ByteBuf SERVICE_UNAVAILABLE_KEEP_ALIVE = encode(HttpResponseStatus.SERVICE_UNAVAILABLE, null, NO_BODY, true, RETRY_AFTER_SECONDS);
+	/** overload response, connection closed */
+	private static final ByteBuf SERVICE_UNAVAILABLE_CLOSE = encode(HttpResponseStatus.SERVICE_UNAVAILABLE, null, NO_BODY, false, RETRY_AFTER_SECONDS);
+
+	private TrackingResponses() {
+	}
+
+	/**
+	 * Returns the encoded 1x1 pixel response
+	 * @param keepAlive
+	 * @return
+	 */
+	public static ByteBuf pixel(final boolean keepAlive) {
+		return (keepAlive ? PIXEL_KEEP_ALIVE : PIXEL_CLOSE).duplicate();
+	}
+
+	/**
+	 * Returns the encoded 204 response used for beacon requests
+	 * @param keepAlive
+	 * @return
+	 */
+	public static ByteBuf noContent(final boolean keepAlive) {
+		return (keepAlive ? NO_CONTENT_KEEP_ALIVE : NO_CONTENT_CLOSE).duplicate();
+	}
+
+	/**
+	 * Returns the encoded 503 response used for rejecting requests while the pipeline is overloaded
+	 * @param keepAlive
+	 * @return
+	 */
+	public static ByteBuf serviceUnavailable(final boolean keepAlive) {
+		return (keepAlive ? SERVICE_UNAVAILABLE_KEEP_ALIVE : SERVICE_UNAVAILABLE_CLOSE).duplicate();
+	}
+
+	/**
+	 * Encodes the provided response into a direct buffer which cannot be released
+	 * @param status
+	 * @param contentType content type, omitted if null
+	 * @param body
+	 * @param keepAlive
+	 * @return
+	 */
+	protected static ByteBuf encode(final HttpResponseStatus status, final String contentType, final byte[] body, final boolean keepAlive) {
+		return encode(status, contentType, body, keepAlive, 0);
+	}
+	
+	/**
+	 * Encodes the provided response into a direct buffer which cannot be released
+	 * @param status
+	 * @param contentType content type, omitted if null
+	 * @param body
+	 * @param keepAlive
+	 * @param retryAfterSeconds value of Retry-After header, omitted if 0
+	 * @return
+	 */
+	protected static ByteBuf encode(final HttpResponseStatus status, final String contentType, final byte[] body, final boolean keepAlive, final int retryAfterSeconds) {
+		byte[] headerBytes = encodeHeader(status, contentType, body.length, keepAlive, retryAfterSeconds);
+		ByteBuf buf = Unpooled.directBuffer(headerBytes.length + body.length);
+		buf.writeBytes(headerBytes);
+		buf.writeBytes(body);
+		return Unpooled.unreleasableBuffer(buf);
+	}
+	
+	/**
+	 * Returns the encoded 200 response carrying the provided json document. Other than the static responses, the
+	 * returned buffer wraps the provided body and is released by the pipeline once written
+	 * @param body
+	 * @param keepAlive
+	 * @return
+	 */
+	public static ByteBuf json(final byte[] body, final boolean keepAlive) {
+		return Unpooled.wrappedBuffer(encodeHeader(HttpResponseStatus.OK, CONTENT_TYPE_JSON, body.length, keepAlive, 0), body);
+	}
+	
+	/**
+	 * Encodes status line and header block of a response
+	 * @param status
+	 * @param contentType content type, omitted if null
+	 * @param contentLength
+	 * @param keepAlive
+	 * @param retryAfterSeconds value of Retry-After header, omitted if 0
+	 * @return
+	 */
+	protected static byte[] encodeHeader(final HttpResponseStatus status, final String contentType, final int contentLength, final boolean keepAlive, final int retryAfterSeconds) {
+
+		StringBuilder header = new StringBuilder(256);
+		header.append("HTTP/1.1 ").append(status.code()).append(' ').append(status.reasonPhrase()).append("\r\n");
+		if(contentType != null)
+			header.append("Content-Type: ").append(contentType).append("\r\n");
+		if(status.code() != HttpResponseStatus.NO_CONTENT.code())
+			header.append("Content-Length: ").append(contentLength).append("\r\n");
+		header.append("Cache-Control: no-cache, no-store, must-revalidate\r\n");
+		header.append("Pragma: no-cache\r\n");
+		header.append("Expires: 0\r\n");
+		if(retryAfterSeconds > 0)
+			header.append("Retry-After: ").append(retryAfterSeconds).append("\r\n");
+		header.append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n");
+		header.append("\r\n");
+		return header.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+}
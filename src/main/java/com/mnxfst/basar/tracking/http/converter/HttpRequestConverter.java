@@ -1,131 +1,115 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.http.converter;
-
-import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.QueryStringDecoder;
-
-import java.text.SimpleDateFormat;
-import java.util.Iterator;
-import java.util.List;
-
-import akka.actor.ActorRef;
-import akka.actor.UntypedActor;
-
-import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
-import com.mnxfst.basar.tracking.model.TrackingEvent;
-
-/**
- * Receives incoming {@link HttpRequestMessage http requests} and converts them into {@link TrackingEvent tracking events} 
- * @author mnxfst
- * @since 08.10.2013
- *
- * Revision Control Info $Id$
- */
-public final class HttpRequestConverter extends UntypedActor {
-
-	/** date formatted which converts a (current) time into the requested string format */
-	private static final SimpleDateFormat sd = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss z");
-
-	/** reference towards inbound message gateway */
-	private final ActorRef inboundMessageGatewayRef;
-
-	/** request parameter holding the event type */
-	public static final String REQ_PARAM_TYPE = "ev.tp";
-	/** request parameter holding the contractor */
-	public static final String REQ_PARAM_CONTRACTOR = "ev.cr";
-	/** request parameter holding the domain the event originates from */
-	public static final String REQ_PARAM_DOMAIN = "ev.do";
-	/** request parameter holding the source the event originates from */
-	public static final String REQ_PARAM_SOURCE = "ev.sr";
-
-	/**
-	 * Initializes the request converter using the provided information
-	 * @param inboundMessageGatewayRef
-	 */
-	public HttpRequestConverter(final ActorRef inboundMessageGatewayRef) {
-		this.inboundMessageGatewayRef = inboundMessageGatewayRef;
-	}
-	
-	/**
-	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
-	 */
-	public void onReceive(Object message) throws Exception {
-
-		// ensure that only expected message types are handled
-		if(message instanceof HttpRequestMessage) {
-			
-			// convert and ensure that the contained request is not null ... obviously
-			HttpRequestMessage reqMsg = (HttpRequestMessage)message;
-
-			if(reqMsg.getRequest() != null) {
-				
-				// get request and decode parameters
-				HttpRequest request = reqMsg.getRequest();
-				QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.getUri());
-				List<String> sources = queryStringDecoder.parameters().get(REQ_PARAM_SOURCE);
-				List<String> types = queryStringDecoder.parameters().get(REQ_PARAM_TYPE);
-				List<String> contractors = queryStringDecoder.parameters().get(REQ_PARAM_CONTRACTOR);
-				List<String> domains = queryStringDecoder.parameters().get(REQ_PARAM_DOMAIN);
-
-				// prepare tracking event providing 'obvious' data
-				TrackingEvent trackingEvent = new TrackingEvent();
-				trackingEvent.setInboundInterface(reqMsg.getInboundInterface());
-				trackingEvent.setSource((sources != null && !sources.isEmpty() ? sources.get(0) : "unknown"));
-				trackingEvent.setType((types != null && !types.isEmpty() ? types.get(0) : "unknown"));
-				trackingEvent.setTimestamp(sd.format(reqMsg.getTimestamp()));;
-				trackingEvent.setContractor((contractors != null && !contractors.isEmpty() ? contractors.get(0) : ""));
-				trackingEvent.setDomain((domains != null && !domains.isEmpty() ? domains.get(0) : ""));
-
-				// transfer general request information
-				trackingEvent.addParameter("method", (request.getMethod() != null ? request.getMethod().toString() : ""));
-				trackingEvent.addParameter("protocol-version", (request.getProtocolVersion() != null ? request.getProtocolVersion().text() : ""));
-				trackingEvent.addParameter("uri", request.getUri());
-
-				// transfer header fields
-				for(String headerName : request.headers().names()) {
-					List<String> headerValues = request.headers().getAll(headerName);
-					if(headerValues != null && !headerValues.isEmpty()) {
-						for(String hv : headerValues)
-							trackingEvent.addParameter(headerName.toLowerCase(), hv);
-					} else {
-						trackingEvent.addParameter(headerName.toLowerCase(), "");
-					}
-				}
-
-				// transfer request parameters
-				for(String reqParam : queryStringDecoder.parameters().keySet()) {
-					List<String> reqParamValues = queryStringDecoder.parameters().get(reqParam);
-					if(reqParamValues != null && !reqParamValues.isEmpty()) {
-						for(Iterator<String> rpvIter = reqParamValues.iterator(); rpvIter.hasNext();) {
-							trackingEvent.addParameter(reqParam.toLowerCase(), rpvIter.next());
-						}
-					} else {
-						trackingEvent.addParameter(reqParam.toLowerCase(), "");
-					}
-				}
-
-				// send converted object to tracking event database root
-				inboundMessageGatewayRef.tell(trackingEvent, getSelf());
-			}
-			
-		} else {
-			unhandled(message);
-		}
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.http.converter;
+
+import java.io.IOException;
+
+import akka.actor.ActorRef;
+import akka.actor.UntypedActor;
+
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Receives incoming {@link HttpRequestMessage http requests} and converts them into {@link TrackingEvent tracking events}.
+ * The actor serves requests published on the event stream, eg. when the {@link com.mnxfst.basar.tracking.ingest.IngestStage ingest stage}
+ * is disabled or one of its ring buffers is full. The actor keeps no state, thus it may be run behind a router. If a 
+ * {@link EventJournal journal} is provided, each converted event is appended before it is handed over to the gateway.
+ * @author mnxfst
+ * @since 08.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class HttpRequestConverter extends UntypedActor {
+
+	/** converts requests into tracking events */
+	private final TrackingEventConverter converter = new TrackingEventConverter();
+
+	/** reference towards inbound message gateway */
+	private final ActorRef inboundMessageGatewayRef;
+	
+	/** journal receiving converted events, null if journaling is disabled */
+	private final EventJournal journal;
+	
+	/** measures the conversion of requests */
+	private final Timer converterTimer = PipelineMetrics.registry().timer(PipelineMetrics.STAGE_CONVERTER);
+
+	/** request parameter holding the event type */
+	public static final String REQ_PARAM_TYPE = TrackingEventConverter.REQ_PARAM_TYPE;
+	/** request parameter holding the contractor */
+	public static final String REQ_PARAM_CONTRACTOR = TrackingEventConverter.REQ_PARAM_CONTRACTOR;
+	/** request parameter holding the domain the event originates from */
+	public static final String REQ_PARAM_DOMAIN = TrackingEventConverter.REQ_PARAM_DOMAIN;
+	/** request parameter holding the source the event originates from */
+	public static final String REQ_PARAM_SOURCE = TrackingEventConverter.REQ_PARAM_SOURCE;
+
+	/**
+	 * Initializes the request converter using the provided information
+	 * @param inboundMessageGatewayRef
+	 */
+	public HttpRequestConverter(final ActorRef inboundMessageGatewayRef) {
+		this(inboundMessageGatewayRef, null);
+	}
+	
+	/**
+	 * Initializes the request converter using the provided information
+	 * @param inboundMessageGatewayRef
+	 * @param journal journal receiving converted events, may be null
+	 */
+	public HttpRequestConverter(final ActorRef inboundMessageGatewayRef, final EventJournal journal) {
+		this.inboundMessageGatewayRef = inboundMessageGatewayRef;
+		this.journal = journal;
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+
+		// ensure that only expected message types are handled
+		if(message instanceof HttpRequestMessage) {
+			
+			final Timer.Context timerContext = converterTimer.time();
+			final TrackingEvent trackingEvent;
+			try {
+				trackingEvent = converter.convert((HttpRequestMessage)message);
+			} finally {
+				timerContext.stop();
+			}
+
+			// send converted object to tracking event database root - appending waits while the journal is exhausted, an event
+			// failing to be journaled due to an i/o error is still forwarded
+			if(trackingEvent != null) {
+				if(journal != null) {
+					try {
+						journal.append(trackingEvent);
+					} catch(IOException e) {
+						// logged by the journal
+					}
+				}
+				inboundMessageGatewayRef.tell(trackingEvent, getSelf());
+			}
+			
+		} else {
+			unhandled(message);
+		}
+	}
+	
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.http.converter;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Provides the lower-case representation of header and request parameter names. Names of well-known headers
+ * are mapped onto a shared, canonical instance without allocating a new string. Names already given in lower case
+ * are returned as they are, only the remaining ones are converted.
+ * @author mnxfst
+ * @since 17.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class ParameterNames {
+
+	/** headers commonly sent along with tracking requests */
+	private static final String[] KNOWN_HEADER_NAMES = {
+		"Accept", "Accept-Charset", "Accept-Encoding", "Accept-Language", "Authorization", "Cache-Control",
+		"Connection", "Content-Length", "Content-Type", "Cookie", "DNT", "Host", "If-Modified-Since", "If-None-Match",
+		"Origin", "Pragma", "Referer", "User-Agent", "Via", "X-Forwarded-For", "X-Forwarded-Host", "X-Forwarded-Proto",
+		"X-Real-IP", "X-Requested-With"
+	};
+
+	/** maps header names as commonly sent as well as their lower-case form onto the canonical lower-case instance */
+	private static final Map<String, String> canonicalNames = new HashMap<>();
+	static {
+		for(String name : KNOWN_HEADER_NAMES) {
+			String lowerCaseName = name.toLowerCase(Locale.ENGLISH).intern();
+			canonicalNames.put(name, lowerCaseName);
+			canonicalNames.put(lowerCaseName, lowerCaseName);
+		}
+	}
+
+	private ParameterNames() {
+	}
+
+	/**
+	 * Returns the lower-case representation of the provided name
+	 * @param name
+	 * @return
+	 */
+	public static String toLowerCase(final String name) {
+		if(name == null)
+			return null;
+
+		String canonicalName = canonicalNames.get(name);
+		if(canonicalName != null)
+			return canonicalName;
+
+		for(int i = 0; i < name.length(); i++) {
+			if(Character.isUpperCase(name.charAt(i)))
+				return name.toLowerCase(Locale.ENGLISH);
+		}
+		return name;
+	}
+
+}
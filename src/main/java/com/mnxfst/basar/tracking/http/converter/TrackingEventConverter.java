@@ -0,0 +1,102 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.http.converter;
+
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.QueryStringDecoder;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Converts {@link HttpRequestMessage http requests} into {@link TrackingEvent tracking events}. The conversion is shared
+ * by the {@link HttpRequestConverter} actor and the {@link com.mnxfst.basar.tracking.ingest.IngestStage ingest stage} consumers.
+ * Instances keep no per-request state, thus a single converter may be shared by any number of threads.
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventConverter {
+
+	/** request parameter holding the event type */
+	public static final String REQ_PARAM_TYPE = "ev.tp";
+	/** request parameter holding the contractor */
+	public static final String REQ_PARAM_CONTRACTOR = "ev.cr";
+	/** request parameter holding the domain the event originates from */
+	public static final String REQ_PARAM_DOMAIN = "ev.do";
+	/** request parameter holding the source the event originates from */
+	public static final String REQ_PARAM_SOURCE = "ev.sr";
+
+	/**
+	 * Converts the provided {@link HttpRequestMessage request message} into a {@link TrackingEvent tracking event}
+	 * @param reqMsg
+	 * @return tracking event or null if the message does not hold a request
+	 */
+	public TrackingEvent convert(final HttpRequestMessage reqMsg) {
+
+		// ensure that the contained request is not null ... obviously
+		if(reqMsg == null || reqMsg.getRequest() == null)
+			return null;
+
+		// get request and decode parameters
+		HttpRequest request = reqMsg.getRequest();
+		QueryStringDecoder queryStringDecoder = new QueryStringDecoder(request.getUri());
+		List<String> sources = queryStringDecoder.parameters().get(REQ_PARAM_SOURCE);
+		List<String> types = queryStringDecoder.parameters().get(REQ_PARAM_TYPE);
+		List<String> contractors = queryStringDecoder.parameters().get(REQ_PARAM_CONTRACTOR);
+		List<String> domains = queryStringDecoder.parameters().get(REQ_PARAM_DOMAIN);
+
+		// prepare tracking event providing 'obvious' data
+		TrackingEvent trackingEvent = new TrackingEvent();
+		trackingEvent.setInboundInterface(reqMsg.getInboundInterface());
+		trackingEvent.setSource((sources != null && !sources.isEmpty() ? sources.get(0) : "unknown"));
+		trackingEvent.setType((types != null && !types.isEmpty() ? types.get(0) : "unknown"));
+		trackingEvent.setTimestamp(reqMsg.getTimestamp());
+		trackingEvent.setContractor((contractors != null && !contractors.isEmpty() ? contractors.get(0) : ""));
+		trackingEvent.setDomain((domains != null && !domains.isEmpty() ? domains.get(0) : ""));
+
+		// transfer general request information
+		trackingEvent.addParameter("method", (request.getMethod() != null ? request.getMethod().toString() : ""));
+		trackingEvent.addParameter("protocol-version", (request.getProtocolVersion() != null ? request.getProtocolVersion().text() : ""));
+		trackingEvent.addParameter("uri", request.getUri());
+
+		// transfer header fields - the headers provide one entry per value, thus no intermediate lists are required
+		for(Map.Entry<String, String> header : request.headers()) {
+			trackingEvent.addParameter(ParameterNames.toLowerCase(header.getKey()), (header.getValue() != null ? header.getValue() : ""));
+		}
+
+		// transfer request parameters
+		for(String reqParam : queryStringDecoder.parameters().keySet()) {
+			List<String> reqParamValues = queryStringDecoder.parameters().get(reqParam);
+			String reqParamName = ParameterNames.toLowerCase(reqParam);
+			if(reqParamValues != null && !reqParamValues.isEmpty()) {
+				for(Iterator<String> rpvIter = reqParamValues.iterator(); rpvIter.hasNext();) {
+					trackingEvent.addParameter(reqParamName, rpvIter.next());
+				}
+			} else {
+				trackingEvent.addParameter(reqParamName, "");
+			}
+		}
+
+		return trackingEvent;
+	}
+}
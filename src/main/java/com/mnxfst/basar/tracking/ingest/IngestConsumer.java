@@ -0,0 +1,180 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.ActorRef;
+
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
+import com.mnxfst.basar.tracking.gateway.message.TrackingEventBatchMessage;
+import com.mnxfst.basar.tracking.http.converter.TrackingEventConverter;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Drains the assigned {@link IngestRingBuffer ring buffers}, converts the contained requests into
+ * {@link TrackingEvent tracking events} and hands each drained batch as a single {@link TrackingEventBatchMessage message}
+ * over to the {@link ContractorMessageGateway}. If no ring buffer holds any data, the consumer spins for a short while,
+ * yields and finally parks for the configured time. If a {@link EventJournal journal} is provided, each converted event is 
+ * appended before the batch is handed over.
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class IngestConsumer implements Runnable, IngestEventHandler {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(IngestConsumer.class);
+
+	/** number of empty rounds spent spinning before yielding */
+	private static final int SPIN_ROUNDS = 100;
+	/** number of empty rounds spent yielding before parking */
+	private static final int YIELD_ROUNDS = 200;
+
+	/** ring buffers drained by this consumer */
+	private final List<IngestRingBuffer> ringBuffers = new CopyOnWriteArrayList<>();
+	/** converts requests into tracking events */
+	private final TrackingEventConverter converter = new TrackingEventConverter();
+	/** reference towards inbound message gateway */
+	private final ActorRef inboundMessageGatewayRef;
+	/** journal receiving converted events, null if journaling is disabled */
+	private final EventJournal journal;
+	/** max. number of slots drained from a single ring buffer at once */
+	private final int maxBatchSize;
+	/** time to park if no data is available */
+	private final long idleParkNanos;
+	/** keeps the consumer running */
+	private volatile boolean running = true;
+	/** events converted within the current batch */
+	private List<TrackingEvent> batch = null;
+	/** measures the conversion of requests */
+	private final Timer converterTimer = PipelineMetrics.registry().timer(PipelineMetrics.STAGE_CONVERTER);
+
+	/**
+	 * Initializes the consumer using the provided input
+	 * @param inboundMessageGatewayRef
+	 * @param maxBatchSize
+	 * @param idleParkNanos
+	 */
+	public IngestConsumer(final ActorRef inboundMessageGatewayRef, final int maxBatchSize, final long idleParkNanos) {
+		this(inboundMessageGatewayRef, maxBatchSize, idleParkNanos, null);
+	}
+
+	/**
+	 * Initializes the consumer using the provided input
+	 * @param inboundMessageGatewayRef
+	 * @param maxBatchSize
+	 * @param idleParkNanos
+	 * @param journal journal receiving converted events, may be null
+	 */
+	public IngestConsumer(final ActorRef inboundMessageGatewayRef, final int maxBatchSize, final long idleParkNanos, final EventJournal journal) {
+		this.inboundMessageGatewayRef = inboundMessageGatewayRef;
+		this.journal = journal;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.idleParkNanos = Math.max(1, idleParkNanos);
+	}
+
+	/**
+	 * Assigns a ring buffer to this consumer
+	 * @param ringBuffer
+	 */
+	public void addRingBuffer(final IngestRingBuffer ringBuffer) {
+		this.ringBuffers.add(ringBuffer);
+	}
+
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+
+		int idleRounds = 0;
+		while(running) {
+			int consumed = 0;
+			for(IngestRingBuffer ringBuffer : ringBuffers)
+				consumed = consumed + ringBuffer.drain(this, maxBatchSize);
+
+			if(consumed > 0) {
+				idleRounds = 0;
+			} else {
+				idleRounds++;
+				if(idleRounds > YIELD_ROUNDS)
+					LockSupport.parkNanos(idleParkNanos);
+				else if(idleRounds > SPIN_ROUNDS)
+					Thread.yield();
+			}
+		}
+
+		// hand over everything published before the consumer has been stopped
+		for(IngestRingBuffer ringBuffer : ringBuffers) {
+			while(ringBuffer.drain(this, maxBatchSize) > 0)
+				;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.ingest.IngestEventHandler#onEvent(com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage, boolean)
+	 */
+	public void onEvent(HttpRequestMessage event, boolean endOfBatch) {
+
+		final Timer.Context timerContext = converterTimer.time();
+		try {
+			TrackingEvent trackingEvent = converter.convert(event);
+			if(trackingEvent != null) {
+				// appending waits while the journal is exhausted, thus the ring buffers fill up and requests are rejected. An event 
+				// failing to be journaled due to an i/o error is still forwarded
+				if(journal != null) {
+					try {
+						journal.append(trackingEvent);
+					} catch(IOException e) {
+						// logged by the journal
+					}
+				}
+				if(batch == null)
+					batch = new ArrayList<>(maxBatchSize);
+				batch.add(trackingEvent);
+			}
+		} catch(Exception e) {
+			logger.error("Failed to convert inbound request [uri="+(event.getRequest() != null ? event.getRequest().getUri() : null)+"]: " + e.getMessage());
+		} finally {
+			timerContext.stop();
+		}
+
+		if(endOfBatch && batch != null) {
+			inboundMessageGatewayRef.tell(new TrackingEventBatchMessage(batch), ActorRef.noSender());
+			batch = null;
+		}
+	}
+
+	/**
+	 * Stops the consumer after it has drained all assigned ring buffers
+	 */
+	public void shutdown() {
+		this.running = false;
+	}
+
+}
@@ -0,0 +1,38 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+
+/**
+ * Callback receiving the slots drained from an {@link IngestRingBuffer ingest ring buffer}
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public interface IngestEventHandler {
+
+	/**
+	 * Handles a single slot. The slot is reused as soon as the method returns, thus
+	 * implementations must not keep a reference towards it
+	 * @param event
+	 * @param endOfBatch true if this is the last slot of the current batch
+	 */
+	public void onEvent(HttpRequestMessage event, boolean endOfBatch);
+
+}
@@ -0,0 +1,141 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest;
+
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+
+/**
+ * Bounded, preallocated single-producer/single-consumer ring buffer handing inbound requests from a netty event loop
+ * over to an {@link IngestConsumer ingest consumer}. All slots are allocated once and reused, thus publishing a request
+ * allocates nothing. Producer and consumer each own a sequence and only ever read the other one, so neither side
+ * needs a lock.<br/><br/>
+ * The buffer must be written by exactly one thread (the owning event loop) and read by exactly one thread.
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class IngestRingBuffer {
+
+	/** preallocated slots */
+	private final HttpRequestMessage[] slots;
+	/** capacity - 1, used for mapping a sequence to a slot */
+	private final int mask;
+	/** sequence of last published slot */
+	private final AtomicLong producerSequence = new AtomicLong(-1);
+	/** sequence of last consumed slot */
+	private final AtomicLong consumerSequence = new AtomicLong(-1);
+	/** consumer sequence as last seen by the producer, avoids reading the shared counter on every publish */
+	private long cachedConsumerSequence = -1;
+
+	/**
+	 * Initializes the ring buffer. The capacity is rounded up to the next power of two
+	 * @param requestedCapacity
+	 */
+	public IngestRingBuffer(final int requestedCapacity) {
+		if(requestedCapacity < 1)
+			throw new IllegalArgumentException("Invalid ring buffer capacity: " + requestedCapacity);
+
+		int capacity = Integer.highestOneBit(requestedCapacity);
+		if(capacity < requestedCapacity)
+			capacity = capacity << 1;
+
+		this.slots = new HttpRequestMessage[capacity];
+		for(int i = 0; i < capacity; i++)
+			this.slots[i] = new HttpRequestMessage();
+		this.mask = capacity - 1;
+	}
+
+	/**
+	 * Publishes the provided request. Must only be called by the producing thread
+	 * @param request
+	 * @param inboundInterface
+	 * @param timestamp
+	 * @return false if the buffer is full and the request has not been published
+	 */
+	public boolean publish(final HttpRequest request, final String inboundInterface, final long timestamp) {
+
+		final long next = producerSequence.get() + 1;
+		final long wrapPoint = next - slots.length;
+
+		// refresh the view on the consumer only if the cached one indicates a full buffer
+		if(wrapPoint > cachedConsumerSequence) {
+			cachedConsumerSequence = consumerSequence.get();
+			if(wrapPoint > cachedConsumerSequence)
+				return false;
+		}
+
+		HttpRequestMessage slot = slots[(int)next & mask];
+		slot.setRequest(request);
+		slot.setInboundInterface(inboundInterface);
+		slot.setTimestamp(timestamp);
+
+		// ordered store: slot contents become visible before the sequence does
+		producerSequence.lazySet(next);
+		return true;
+	}
+
+	/**
+	 * Hands all published but not yet consumed slots (up to the given number) to the provided handler. Must only be
+	 * called by the consuming thread
+	 * @param handler
+	 * @param maxBatchSize
+	 * @return number of consumed slots
+	 */
+	public int drain(final IngestEventHandler handler, final int maxBatchSize) {
+
+		final long current = consumerSequence.get();
+		final long available = producerSequence.get();
+		if(available <= current)
+			return 0;
+
+		final long end = Math.min(available, current + maxBatchSize);
+		for(long sequence = current + 1; sequence <= end; sequence++) {
+			HttpRequestMessage slot = slots[(int)sequence & mask];
+			try {
+				handler.onEvent(slot, sequence == end);
+			} finally {
+				// release reference towards request, the slot stays in place
+				slot.setRequest(null);
+			}
+		}
+
+		consumerSequence.lazySet(end);
+		return (int)(end - current);
+	}
+
+	/**
+	 * Returns the number of published but not yet consumed slots
+	 * @return
+	 */
+	public int size() {
+		return (int)(producerSequence.get() - consumerSequence.get());
+	}
+
+	/**
+	 * Returns the number of slots
+	 * @return
+	 */
+	public int capacity() {
+		return slots.length;
+	}
+
+}
@@ -0,0 +1,148 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest;
+
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.ActorRef;
+
+import com.codahale.metrics.Gauge;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerIngestConfigElement;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+
+/**
+ * Entry point towards the asynchronous processing pipeline replacing the event stream hand-off. Each netty event loop
+ * writes into its own {@link IngestRingBuffer ring buffer}, thus every buffer has exactly one producer. The buffers are assigned
+ * round-robin to a configurable number of {@link IngestConsumer consumers}, each running on its own thread. A consumer drains its
+ * buffers in batches and forwards the converted events to the message gateway. As every buffer is owned by exactly one consumer,
+ * the buffers keep their single-consumer property while conversion scales across cores.
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class IngestStage {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(IngestStage.class);
+
+	/** ring buffers by owning event loop */
+	private final ConcurrentMap<EventExecutor, IngestRingBuffer> ringBuffers = new ConcurrentHashMap<>();
+	/** ingest configuration */
+	private final BasarTrackingServerIngestConfigElement configuration;
+	/** drain the ring buffers */
+	private final IngestConsumer[] consumers;
+	/** threads running the consumers */
+	private final Thread[] consumerThreads;
+	/** index of consumer the next ring buffer gets assigned to */
+	private final AtomicInteger nextConsumer = new AtomicInteger(0);
+
+	/**
+	 * Initializes the ingest stage using the provided input
+	 * @param inboundMessageGatewayRef
+	 * @param configuration
+	 */
+	public IngestStage(final ActorRef inboundMessageGatewayRef, final BasarTrackingServerIngestConfigElement configuration) {
+		this(inboundMessageGatewayRef, configuration, null);
+	}
+
+	/**
+	 * Initializes the ingest stage using the provided input
+	 * @param inboundMessageGatewayRef
+	 * @param configuration
+	 * @param journal journal receiving converted events, may be null
+	 */
+	public IngestStage(final ActorRef inboundMessageGatewayRef, final BasarTrackingServerIngestConfigElement configuration, final EventJournal journal) {
+		this.configuration = configuration;
+		
+		final int numConsumers = Math.max(1, configuration.getNumConsumers());
+		this.consumers = new IngestConsumer[numConsumers];
+		this.consumerThreads = new Thread[numConsumers];
+		for(int i = 0; i < numConsumers; i++) {
+			this.consumers[i] = new IngestConsumer(inboundMessageGatewayRef, configuration.getMaxBatchSize(), configuration.getIdleParkNanos(), journal);
+			this.consumerThreads[i] = new Thread(consumers[i], "ingest-consumer-" + i);
+			this.consumerThreads[i].setDaemon(true);
+		}
+		
+		// replaces the gauge of a previous stage instance
+		PipelineMetrics.registry().remove(PipelineMetrics.INGEST_RING_BUFFER_DEPTH);
+		PipelineMetrics.registry().register(PipelineMetrics.INGEST_RING_BUFFER_DEPTH, new Gauge<Long>() {
+			public Long getValue() {
+				return getDepth();
+			}
+		});
+	}
+
+	/**
+	 * Starts the consumers
+	 */
+	public void start() {
+		for(Thread consumerThread : consumerThreads)
+			consumerThread.start();
+		logger.info("Ingest stage started [ringBufferSize="+configuration.getRingBufferSize()+", maxBatchSize="+configuration.getMaxBatchSize()+", consumers="+consumers.length+"]");
+	}
+
+	/**
+	 * Returns the ring buffer owned by the provided event loop. The buffer is created on first access and assigned to
+	 * the next consumer. Must only be called by the event loop itself as it will be the only producer writing to that buffer
+	 * @param eventLoop
+	 * @return
+	 */
+	public IngestRingBuffer getRingBuffer(final EventExecutor eventLoop) {
+		IngestRingBuffer ringBuffer = ringBuffers.get(eventLoop);
+		if(ringBuffer == null) {
+			IngestRingBuffer created = new IngestRingBuffer(configuration.getRingBufferSize());
+			ringBuffer = ringBuffers.putIfAbsent(eventLoop, created);
+			if(ringBuffer == null) {
+				ringBuffer = created;
+				consumers[(nextConsumer.getAndIncrement() & Integer.MAX_VALUE) % consumers.length].addRingBuffer(created);
+			}
+		}
+		return ringBuffer;
+	}
+
+	/**
+	 * Returns the number of requests waiting in all ring buffers
+	 * @return
+	 */
+	public long getDepth() {
+		long depth = 0;
+		for(IngestRingBuffer ringBuffer : ringBuffers.values())
+			depth = depth + ringBuffer.size();
+		return depth;
+	}
+
+	/**
+	 * Stops the consumers and waits until they have drained all ring buffers
+	 * @param timeoutMillis max. time to wait for each consumer
+	 * @throws InterruptedException
+	 */
+	public void shutdown(final long timeoutMillis) throws InterruptedException {
+		for(IngestConsumer consumer : consumers)
+			consumer.shutdown();
+		for(Thread consumerThread : consumerThreads)
+			consumerThread.join(timeoutMillis);
+	}
+
+}
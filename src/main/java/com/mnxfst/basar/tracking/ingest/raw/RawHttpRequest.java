@@ -0,0 +1,143 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Request head framed by the {@link RawHttpRequestDecoder}. The content is a retained slice of the inbound buffer holding the
+ * request line and all headers, no strings are created. The decoder records the location of the uri, the request line and the
+ * selected headers, thus the request may be {@link #writeTo(ByteBuffer) copied} into the {@link RawRequestLog raw request log} 
+ * without further parsing.
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawHttpRequest extends DefaultByteBufHolder {
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	
+	/** length of request line without line break */
+	private final int requestLineLength;
+	/** index of first uri byte */
+	private final int uriStart;
+	/** index following the last uri byte */
+	private final int uriEnd;
+	/** keep the connection open after responding */
+	private final boolean keepAlive;
+	/** start index and length of each selected header line without line break */
+	private final int[] headerLines;
+	/** number of selected header lines */
+	private final int numOfHeaderLines;
+	
+	/**
+	 * Initializes the request using the provided input
+	 * @param head request line and headers
+	 * @param requestLineLength
+	 * @param uriStart
+	 * @param uriEnd
+	 * @param keepAlive
+	 * @param headerLines start index and length of each selected header line
+	 * @param numOfHeaderLines
+	 */
+	public RawHttpRequest(final ByteBuf head, final int requestLineLength, final int uriStart, final int uriEnd, final boolean keepAlive, final int[] headerLines, final int numOfHeaderLines) {
+		super(head);
+		this.requestLineLength = requestLineLength;
+		this.uriStart = uriStart;
+		this.uriEnd = uriEnd;
+		this.keepAlive = keepAlive;
+		this.headerLines = headerLines;
+		this.numOfHeaderLines = numOfHeaderLines;
+	}
+	
+	/**
+	 * Returns true if the uri starts with the given bytes
+	 * @param prefix
+	 * @return
+	 */
+	public boolean uriStartsWith(final byte[] prefix) {
+		if(uriEnd - uriStart < prefix.length)
+			return false;
+		final ByteBuf head = content();
+		for(int i = 0; i < prefix.length; i++) {
+			if(head.getByte(uriStart + i) != prefix[i])
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns true if the uri references the given path, query parameters are ignored
+	 * @param path
+	 * @return
+	 */
+	public boolean isPath(final byte[] path) {
+		if(!uriStartsWith(path))
+			return false;
+		return uriEnd - uriStart == path.length || content().getByte(uriStart + path.length) == '?';
+	}
+	
+	/**
+	 * Returns the number of bytes {@link #writeTo(ByteBuffer) written} to the log: request line and selected headers, each
+	 * one followed by a line break
+	 * @return
+	 */
+	public int getRecordLength() {
+		int length = requestLineLength + 2;
+		for(int i = 0; i < numOfHeaderLines; i++)
+			length = length + headerLines[(i << 1) + 1] + 2;
+		return length;
+	}
+	
+	/**
+	 * Copies the request line and the selected headers into the given buffer starting at its current position
+	 * @param target
+	 */
+	public void writeTo(final ByteBuffer target) {
+		copy(0, requestLineLength, target);
+		for(int i = 0; i < numOfHeaderLines; i++)
+			copy(headerLines[i << 1], headerLines[(i << 1) + 1], target);
+	}
+	
+	/**
+	 * Copies the referenced range followed by a line break into the given buffer
+	 * @param index
+	 * @param length
+	 * @param target
+	 */
+	protected void copy(final int index, final int length, final ByteBuffer target) {
+		final int limit = target.limit();
+		target.limit(target.position() + length);
+		content().getBytes(index, target);
+		target.limit(limit);
+		target.put(CR).put(LF);
+	}
+
+	public boolean isKeepAlive() {
+		return keepAlive;
+	}
+
+	public int getNumOfHeaderLines() {
+		return numOfHeaderLines;
+	}
+	
+}
@@ -0,0 +1,334 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufProcessor;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Frames inbound requests without decoding them: the decoder locates the end of the request head (empty line), validates the
+ * request line and scans the header names for connection handling and for the headers to be recorded. Each head is handed over as
+ * {@link RawHttpRequest} holding a retained slice of the inbound buffer, thus neither bytes are copied nor strings are created.<br/><br/>
+ * Request bodies announced by content-length are skipped, the connection of chunked requests is closed after responding. The 
+ * connection is closed as well if the head exceeds the configured size or the request line is malformed.
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawHttpRequestDecoder extends ByteToMessageDecoder {
+
+	private static final byte CR = '\r';
+	private static final byte LF = '\n';
+	private static final byte SP = ' ';
+	private static final byte HT = '\t';
+	private static final byte COLON = ':';
+	
+	private static final byte[] HTTP_1_1 = "HTTP/1.1".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HTTP_PREFIX = "HTTP/".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEADER_CONNECTION = "connection".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEADER_CONTENT_LENGTH = "content-length".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] HEADER_TRANSFER_ENCODING = "transfer-encoding".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] VALUE_CLOSE = "close".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] VALUE_KEEP_ALIVE = "keep-alive".getBytes(StandardCharsets.US_ASCII);
+	
+	/** lower-case names of the headers to be recorded */
+	private final byte[][] headerNames;
+	/** max. size of request line and headers */
+	private final int maxHeadSize;
+	
+	/** body bytes of the previous request still to be skipped */
+	private long bodyBytes = 0;
+	/** drop all further input as the connection is about to be closed */
+	private boolean discarding = false;
+	
+	/**
+	 * Initializes the decoder using the provided input
+	 * @param headerNames names of the headers to be recorded, compared case-insensitively
+	 * @param maxHeadSize
+	 */
+	public RawHttpRequestDecoder(final List<String> headerNames, final int maxHeadSize) {
+		this.headerNames = new byte[headerNames.size()][];
+		for(int i = 0; i < headerNames.size(); i++)
+			this.headerNames[i] = headerNames.get(i).trim().toLowerCase(Locale.ENGLISH).getBytes(StandardCharsets.US_ASCII);
+		this.maxHeadSize = maxHeadSize;
+	}
+	
+	/**
+	 * @see io.netty.handler.codec.ByteToMessageDecoder#decode(io.netty.channel.ChannelHandlerContext, io.netty.buffer.ByteBuf, java.util.List)
+	 */
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		
+		if(discarding) {
+			in.skipBytes(in.readableBytes());
+			return;
+		}
+		
+		if(bodyBytes > 0) {
+			int skip = (int)Math.min(bodyBytes, in.readableBytes());
+			in.skipBytes(skip);
+			bodyBytes = bodyBytes - skip;
+			if(bodyBytes > 0)
+				return;
+		}
+		
+		// empty lines preceding a request are ignored
+		while(in.isReadable()) {
+			byte b = in.getByte(in.readerIndex());
+			if(b != CR && b != LF)
+				break;
+			in.skipBytes(1);
+		}
+		if(!in.isReadable())
+			return;
+		
+		final int start = in.readerIndex();
+		final int end = findEndOfHead(in, start, Math.min(in.readableBytes(), maxHeadSize));
+		if(end < 0) {
+			if(in.readableBytes() >= maxHeadSize)
+				discard(ctx, in);
+			return;
+		}
+		
+		final ByteBuf head = in.slice(start, end - start);
+		final RawHttpRequest request = parse(head);
+		in.skipBytes(end - start);
+		if(request == null) {
+			discard(ctx, in);
+			return;
+		}
+		head.retain();
+		out.add(request);
+	}
+	
+	/**
+	 * Returns the index following the empty line which terminates the request head or -1 if the head is not complete yet
+	 * @param in
+	 * @param start
+	 * @param length max. number of bytes to search
+	 * @return
+	 */
+	protected static int findEndOfHead(final ByteBuf in, final int start, final int length) {
+		final int limit = start + length;
+		int lineStart = start;
+		while(lineStart < limit) {
+			int lf = in.forEachByte(lineStart, limit - lineStart, ByteBufProcessor.FIND_LF);
+			if(lf < 0)
+				return -1;
+			int lineLength = lf - lineStart;
+			if(lineLength == 0 || (lineLength == 1 && in.getByte(lineStart) == CR))
+				return lf + 1;
+			lineStart = lf + 1;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Validates the request line and scans the headers of the given head
+	 * @param head request line and headers including the terminating empty line
+	 * @return request or null if the request line is malformed
+	 */
+	protected RawHttpRequest parse(final ByteBuf head) {
+		
+		// request line: method, uri and version separated by a single space each
+		final int requestLineEnd = head.forEachByte(ByteBufProcessor.FIND_LF);
+		final int requestLineLength = lineLength(head, 0, requestLineEnd);
+		final int methodEnd = head.forEachByte(0, requestLineLength, ByteBufProcessor.FIND_LINEAR_WHITESPACE);
+		if(methodEnd <= 0)
+			return null;
+		final int uriStart = methodEnd + 1;
+		final int uriEnd = head.forEachByte(uriStart, requestLineLength - uriStart, ByteBufProcessor.FIND_LINEAR_WHITESPACE);
+		if(uriEnd <= uriStart)
+			return null;
+		final int versionStart = uriEnd + 1;
+		final int versionLength = requestLineLength - versionStart;
+		if(versionLength < HTTP_1_1.length || !equalsIgnoreCase(head, versionStart, HTTP_PREFIX.length, HTTP_PREFIX))
+			return null;
+		
+		// persistent connections are the default of http/1.1 only
+		boolean keepAlive = (versionLength == HTTP_1_1.length && equalsIgnoreCase(head, versionStart, versionLength, HTTP_1_1));
+		int[] headerLines = null;
+		int numOfHeaderLines = 0;
+		
+		int lineStart = requestLineEnd + 1;
+		while(lineStart < head.writerIndex()) {
+			int lf = head.forEachByte(lineStart, head.writerIndex() - lineStart, ByteBufProcessor.FIND_LF);
+			int length = lineLength(head, lineStart, lf);
+			if(length == 0)
+				break;
+			
+			// folded continuation lines are skipped
+			byte first = head.getByte(lineStart);
+			int colon = (first != SP && first != HT ? head.indexOf(lineStart, lineStart + length, COLON) : -1);
+			if(colon > lineStart) {
+				int nameLength = trimmedLength(head, lineStart, colon - lineStart);
+				int valueStart = head.forEachByte(colon + 1, lineStart + length - colon - 1, ByteBufProcessor.FIND_NON_LINEAR_WHITESPACE);
+				int valueLength = (valueStart < 0 ? 0 : trimmedLength(head, valueStart, lineStart + length - valueStart));
+				if(valueStart < 0)
+					valueStart = lineStart + length;
+				
+				if(equalsIgnoreCase(head, lineStart, nameLength, HEADER_CONNECTION)) {
+					if(containsIgnoreCase(head, valueStart, valueLength, VALUE_CLOSE))
+						keepAlive = false;
+					else if(containsIgnoreCase(head, valueStart, valueLength, VALUE_KEEP_ALIVE))
+						keepAlive = true;
+				} else if(equalsIgnoreCase(head, lineStart, nameLength, HEADER_CONTENT_LENGTH)) {
+					bodyBytes = parseLength(head, valueStart, valueLength);
+					if(bodyBytes < 0) {
+						bodyBytes = 0;
+						keepAlive = false;
+						discarding = true;
+					}
+				} else if(equalsIgnoreCase(head, lineStart, nameLength, HEADER_TRANSFER_ENCODING)) {
+					// chunked bodies are not supported, the connection is closed after responding
+					keepAlive = false;
+					discarding = true;
+				}
+				
+				for(byte[] headerName : headerNames) {
+					if(equalsIgnoreCase(head, lineStart, nameLength, headerName)) {
+						if(headerLines == null)
+							headerLines = new int[headerNames.length << 1];
+						else if(numOfHeaderLines << 1 == headerLines.length)
+							headerLines = Arrays.copyOf(headerLines, headerLines.length << 1);
+						headerLines[numOfHeaderLines << 1] = lineStart;
+						headerLines[(numOfHeaderLines << 1) + 1] = length;
+						numOfHeaderLines++;
+						break;
+					}
+				}
+			}
+			lineStart = lf + 1;
+		}
+		
+		return new RawHttpRequest(head, requestLineLength, uriStart, uriEnd, keepAlive, headerLines, numOfHeaderLines);
+	}
+	
+	/**
+	 * Closes the connection and drops all further input
+	 * @param ctx
+	 * @param in
+	 */
+	protected void discard(final ChannelHandlerContext ctx, final ByteBuf in) {
+		discarding = true;
+		in.skipBytes(in.readableBytes());
+		ctx.close();
+	}
+	
+	/**
+	 * Returns the length of the line ending at the given line feed, without carriage return
+	 * @param buf
+	 * @param lineStart
+	 * @param lf
+	 * @return
+	 */
+	protected static int lineLength(final ByteBuf buf, final int lineStart, final int lf) {
+		int length = lf - lineStart;
+		if(length > 0 && buf.getByte(lf - 1) == CR)
+			length--;
+		return length;
+	}
+	
+	/**
+	 * Returns the length of the referenced range without trailing whitespace
+	 * @param buf
+	 * @param index
+	 * @param length
+	 * @return
+	 */
+	protected static int trimmedLength(final ByteBuf buf, final int index, final int length) {
+		int trimmed = length;
+		while(trimmed > 0) {
+			byte b = buf.getByte(index + trimmed - 1);
+			if(b != SP && b != HT)
+				break;
+			trimmed--;
+		}
+		return trimmed;
+	}
+	
+	/**
+	 * Parses the decimal number found in the referenced range
+	 * @param buf
+	 * @param index
+	 * @param length
+	 * @return number or -1 if the range holds anything else
+	 */
+	protected static long parseLength(final ByteBuf buf, final int index, final int length) {
+		if(length == 0 || length > 18)
+			return -1;
+		long value = 0;
+		for(int i = 0; i < length; i++) {
+			byte b = buf.getByte(index + i);
+			if(b < '0' || b > '9')
+				return -1;
+			value = value * 10 + (b - '0');
+		}
+		return value;
+	}
+	
+	/**
+	 * Returns true if the referenced range equals the given lower-case ascii bytes, ignoring case
+	 * @param buf
+	 * @param index
+	 * @param length
+	 * @param lowerCase
+	 * @return
+	 */
+	protected static boolean equalsIgnoreCase(final ByteBuf buf, final int index, final int length, final byte[] lowerCase) {
+		if(length != lowerCase.length)
+			return false;
+		for(int i = 0; i < length; i++) {
+			if(toLowerCase(buf.getByte(index + i)) != toLowerCase(lowerCase[i]))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns true if the referenced range contains the given lower-case ascii bytes, ignoring case
+	 * @param buf
+	 * @param index
+	 * @param length
+	 * @param lowerCase
+	 * @return
+	 */
+	protected static boolean containsIgnoreCase(final ByteBuf buf, final int index, final int length, final byte[] lowerCase) {
+		for(int i = 0; i <= length - lowerCase.length; i++) {
+			if(equalsIgnoreCase(buf, index + i, lowerCase.length, lowerCase))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Converts an ascii letter to lower case
+	 * @param b
+	 * @return
+	 */
+	protected static byte toLowerCase(final byte b) {
+		return (b >= 'A' && b <= 'Z' ? (byte)(b + 32) : b);
+	}
+	
+}
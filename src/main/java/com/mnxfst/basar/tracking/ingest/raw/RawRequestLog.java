@@ -0,0 +1,319 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerRawIngestConfigElement;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.SegmentLog;
+
+/**
+ * Append-only {@link SegmentLog segment log} of raw requests used by the store-then-parse ingestion mode. The inbound handlers {@link #append(RawHttpRequest, long) append}
+ * the request line and the selected headers of each request, copied directly from the inbound buffer into the active memory-mapped
+ * {@link RawRequestLogSegment segment}. Appending reserves space by a CAS, thus the event loops do not serialize on a lock. A single 
+ * {@link RawRequestLogReader reader} follows the log, converts the requests and {@link #acknowledge(long) acknowledges} its position:
+ * <ul>
+ *   <li>group commit: a flusher thread writes the active segment to disk every few milliseconds or as soon as enough bytes have 
+ *       been appended, thus appending never waits for the disk</li>
+ *   <li>checkpoint: the position of the reader is persisted from time to time, segments read completely are deleted</li>
+ *   <li>recovery: on opening, the reader continues at the checkpoint, thus requests appended but not converted before a crash or 
+ *       shutdown are converted after the restart. Requests converted after the last checkpoint are converted again</li>
+ *   <li>disk budget: as long as the reader lags behind, the log grows. If the max. number of segments is reached, requests 
+ *       are not appended anymore</li>
+ * </ul>
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawRequestLog extends SegmentLog<RawRequestLogSegment, RawRequestLogSegment> {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(RawRequestLog.class);
+	
+	/** size of a segment file */
+	private final int segmentSize;
+	/** max. number of segments kept on disk */
+	private final int maxSegments;
+	/** names of the headers recorded along with the request line */
+	private final List<String> headers;
+	/** max. size of request line and headers */
+	private final int maxHeadSize;
+	
+	/** sequence of the next request to be read */
+	private volatile long readSequence = 0;
+	
+	/** counts requests which exceed the disk budget */
+	private final Meter fullLog = PipelineMetrics.registry().meter(PipelineMetrics.RAW_LOG_FULL);
+	
+	/**
+	 * Initializes the log using the provided configuration. The log must be {@link #open() opened} before use
+	 * @param configuration
+	 */
+	public RawRequestLog(final BasarTrackingServerRawIngestConfigElement configuration) {
+		super("raw request log", new File(configuration.getDirectory()), configuration.getFlushIntervalMillis(), configuration.getFlushBytes(), 
+				PipelineMetrics.registry().timer(PipelineMetrics.RAW_LOG_FLUSH));
+		this.segmentSize = configuration.getSegmentSize();
+		this.maxSegments = Math.max(2, configuration.getMaxSegments());
+		this.headers = new ArrayList<>(configuration.getHeaders());
+		this.maxHeadSize = configuration.getMaxHeadSize();
+		
+		// the longest record: request line and all headers, one extra byte per line as a bare line feed may be replaced by a line break
+		if(this.maxHeadSize <= 0 || this.segmentSize < RawRequestLogSegment.HEADER_SIZE + RawRequestLogSegment.RECORD_HEADER_SIZE + 2 * this.maxHeadSize)
+			throw new IllegalArgumentException("Invalid raw request log segment size " + this.segmentSize + " for max. head size " + this.maxHeadSize);
+	}
+	
+	/**
+	 * Opens the log: reads the checkpoint, determines the requests left unread by the previous run, creates a new active 
+	 * segment and starts the group commits
+	 * @throws IOException
+	 */
+	public void open() throws IOException {
+		
+		final long next = openSegments();
+		this.readSequence = getPersistedCheckpoint();
+		deleteSegments(getPersistedCheckpoint());
+		
+		// replaces the gauge of a previous log instance
+		PipelineMetrics.registry().remove(PipelineMetrics.RAW_LOG_BACKLOG);
+		PipelineMetrics.registry().register(PipelineMetrics.RAW_LOG_BACKLOG, new Gauge<Long>() {
+			public Long getValue() {
+				return getBacklog();
+			}
+		});
+		
+		startFlusher("rawlog-flusher");
+		
+		logger.info("Raw request log opened [directory="+directory.getAbsolutePath()+", segments="+segments.size()+", checkpoint="+getPersistedCheckpoint()+", nextSequence="+next+", unread="+(next - getPersistedCheckpoint())+"]");
+	}
+	
+	/**
+	 * Appends the provided request. Must not be called before the log has been opened. Inbound handlers of all event loops append
+	 * concurrently: each one reserves the space of its record in the active segment by a CAS and copies the record without locking. 
+	 * Records are published to the reader in order of their sequences. The append lock is only taken to roll a full segment
+	 * @param request
+	 * @param timestamp time the request was received
+	 * @return false if the log exceeds its disk budget
+	 * @throws IOException if a new segment could not be created
+	 */
+	public boolean append(final RawHttpRequest request, final long timestamp) throws IOException {
+		
+		final int recordLength = RawRequestLogSegment.RECORD_HEADER_SIZE + request.getRecordLength();
+		while(true) {
+			final RawRequestLogSegment segment = activeSegment;
+			if(segment == null)
+				throw new IOException("Raw request log is not open");
+			
+			final long reservation = segment.reserve(recordLength);
+			if(reservation >= 0) {
+				segment.write(reservation, timestamp, request);
+				publish(segment.sequenceOf(reservation));
+				if(unflushedBytes.addAndGet(recordLength) >= flushBytes)
+					LockSupport.unpark(flusherThread);
+				return true;
+			}
+			
+			synchronized(appendLock) {
+				// another thread may have rolled the segment in the meantime
+				if(activeSegment == segment) {
+					if(segments.size() >= maxSegments) {
+						fullLog.mark();
+						return false;
+					}
+					awaitPublished(segment.seal());
+					roll();
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Publishes the record of the given sequence to the reader as soon as all preceding records have been published
+	 * @param sequence
+	 */
+	protected void publish(final long sequence) {
+		awaitPublished(sequence);
+		nextSequence = sequence + 1;
+	}
+	
+	/**
+	 * Waits until all records preceding the given sequence have been published. Records are copied right after their space 
+	 * has been reserved, thus the wait is short
+	 * @param sequence
+	 */
+	protected void awaitPublished(final long sequence) {
+		while(nextSequence < sequence)
+			Thread.yield();
+	}
+	
+	/**
+	 * Returns the segment holding the given sequence, the first segment if the sequence precedes all segments 
+	 * @param sequence
+	 * @return
+	 */
+	public RawRequestLogSegment getSegment(final long sequence) {
+		synchronized(appendLock) {
+			Map.Entry<Long, RawRequestLogSegment> entry = segments.floorEntry(sequence);
+			if(entry == null)
+				entry = segments.firstEntry();
+			return (entry != null ? entry.getValue() : null);
+		}
+	}
+	
+	/**
+	 * Returns the segment following the given one
+	 * @param segment
+	 * @return segment or null if the given one is the active segment
+	 */
+	public RawRequestLogSegment getNextSegment(final RawRequestLogSegment segment) {
+		synchronized(appendLock) {
+			Map.Entry<Long, RawRequestLogSegment> entry = segments.higherEntry(segment.getFirstSequence());
+			return (entry != null ? entry.getValue() : null);
+		}
+	}
+	
+	/**
+	 * Returns a cursor reading the log from the checkpoint. The log supports a single reader only
+	 * @return
+	 */
+	public RawRequestLogCursor cursor() {
+		return new RawRequestLogCursor(this, readSequence);
+	}
+	
+	/**
+	 * Acknowledges all requests preceding the given sequence as read. The position is persisted with the next checkpoint
+	 * @param sequence sequence of the next request to be read
+	 */
+	public void acknowledge(final long sequence) {
+		this.readSequence = sequence;
+	}
+	
+	/**
+	 * Stops the group commits, writes the active segment and the checkpoint to disk and closes all files. Requests must
+	 * not be appended afterwards
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		closeSegments();
+		logger.info("Raw request log closed [checkpoint="+getPersistedCheckpoint()+", nextSequence="+nextSequence+"]");
+	}
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#parseFirstSequence(java.io.File)
+	 */
+	protected long parseFirstSequence(File file) {
+		return RawRequestLogSegment.parseFirstSequence(file);
+	}
+
+	/**
+	 * Segments are kept open for the reader
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#loadSegment(java.io.File)
+	 */
+	protected RawRequestLogSegment loadSegment(File file) throws IOException {
+		return RawRequestLogSegment.open(file);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#recoverNextSequence(long, java.lang.Object)
+	 */
+	protected long recoverNextSequence(long firstSequence, RawRequestLogSegment segment) {
+		return segment.scan();
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#createSegment(long)
+	 */
+	protected RawRequestLogSegment createSegment(long firstSequence) throws IOException {
+		return RawRequestLogSegment.create(directory, firstSequence, segmentSize);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#segmentEntry(com.mnxfst.basar.tracking.journal.LogSegment)
+	 */
+	protected RawRequestLogSegment segmentEntry(RawRequestLogSegment segment) {
+		return segment;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#fileOf(java.lang.Object)
+	 */
+	protected File fileOf(RawRequestLogSegment segment) {
+		return segment.getFile();
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#releaseSegment(java.lang.Object)
+	 */
+	protected void releaseSegment(RawRequestLogSegment segment) {
+		try {
+			segment.close();
+		} catch(IOException e) {
+			// the file is deleted or closed anyway
+		}
+	}
+
+	/**
+	 * The position of the reader: all requests below have been read
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#checkpointSequence()
+	 */
+	protected long checkpointSequence() {
+		return readSequence;
+	}
+	
+	/**
+	 * Returns the sequence of the next request to be read
+	 * @return
+	 */
+	public long getReadSequence() {
+		return readSequence;
+	}
+	
+	/**
+	 * Returns the number of requests waiting to be read
+	 * @return
+	 */
+	public long getBacklog() {
+		return nextSequence - readSequence;
+	}
+
+	/**
+	 * Returns the names of the headers recorded along with the request line
+	 * @return
+	 */
+	public List<String> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Returns the max. size of request line and headers
+	 * @return
+	 */
+	public int getMaxHeadSize() {
+		return maxHeadSize;
+	}
+	
+}
@@ -0,0 +1,153 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the {@link RawRequestLog raw request log} record by record. A cursor keeps its position within the current segment, 
+ * thus reading the next record does not require any lookup. Records lost due to a truncated segment are skipped and counted.
+ * Instances are not thread-safe and the log supports a single cursor only
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawRequestLogCursor {
+
+	/** log to read from */
+	private final RawRequestLog log;
+	/** segment holding the next record */
+	private RawRequestLogSegment segment = null;
+	/** view positioned at the next record */
+	private ByteBuffer view = null;
+	/** sequence of the next record */
+	private long sequence;
+	
+	/** timestamp of the current record */
+	private long timestamp = 0;
+	/** payload of the current record, reused for all records */
+	private byte[] payload = new byte[1024];
+	/** length of the current payload */
+	private int payloadLength = 0;
+	/** number of records skipped */
+	private long lost = 0;
+	
+	/**
+	 * Initializes the cursor using the provided input
+	 * @param log
+	 * @param sequence sequence of the first record to read
+	 */
+	public RawRequestLogCursor(final RawRequestLog log, final long sequence) {
+		this.log = log;
+		this.sequence = sequence;
+	}
+	
+	/**
+	 * Moves the cursor to the next record
+	 * @return false if there is no record available
+	 */
+	public boolean next() {
+		
+		if(sequence >= log.getNextSequence())
+			return false;
+		
+		if(segment == null) {
+			segment = log.getSegment(sequence);
+			if(segment == null)
+				return false;
+			
+			// the records preceding the first segment have been deleted
+			if(segment.getFirstSequence() > sequence) {
+				lost = lost + (segment.getFirstSequence() - sequence);
+				sequence = segment.getFirstSequence();
+			}
+			view = segment.view();
+			segment.seek(view, sequence);
+		}
+		
+		while(true) {
+			final int length = RawRequestLogSegment.recordLength(view, sequence);
+			if(length >= 0) {
+				final int position = view.position();
+				timestamp = view.getLong(position + 12);
+				payloadLength = length - (RawRequestLogSegment.RECORD_HEADER_SIZE - 4);
+				if(payload.length < payloadLength)
+					payload = new byte[Math.max(payloadLength, payload.length << 1)];
+				view.position(position + RawRequestLogSegment.RECORD_HEADER_SIZE);
+				view.get(payload, 0, payloadLength);
+				sequence++;
+				return true;
+			}
+			
+			// end of segment reached or the remaining records are truncated: continue with the successor
+			RawRequestLogSegment successor = log.getNextSegment(segment);
+			if(successor == null)
+				return false;
+			if(successor.getFirstSequence() > sequence) {
+				lost = lost + (successor.getFirstSequence() - sequence);
+				sequence = successor.getFirstSequence();
+			}
+			segment = successor;
+			view = successor.view();
+			if(sequence >= log.getNextSequence())
+				return false;
+		}
+	}
+
+	/**
+	 * Returns the sequence of the next record, all records preceding it have been read
+	 * @return
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Returns the time the current request was received
+	 * @return
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * Returns the payload of the current record: request line and selected headers, each terminated by a line break. 
+	 * The array is reused by the next call to {@link #next()}
+	 * @return
+	 */
+	public byte[] getPayload() {
+		return payload;
+	}
+
+	/**
+	 * Returns the length of the current payload
+	 * @return
+	 */
+	public int getPayloadLength() {
+		return payloadLength;
+	}
+
+	/**
+	 * Returns the number of records skipped as they have been lost
+	 * @return
+	 */
+	public long getLost() {
+		return lost;
+	}
+	
+}
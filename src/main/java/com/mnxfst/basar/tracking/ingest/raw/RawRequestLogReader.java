@@ -0,0 +1,278 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.ActorRef;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.gateway.ContractorMessageGateway;
+import com.mnxfst.basar.tracking.gateway.message.TrackingEventBatchMessage;
+import com.mnxfst.basar.tracking.http.converter.TrackingEventConverter;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+
+/**
+ * Follows the {@link RawRequestLog raw request log}, parses the recorded requests, converts them into {@link TrackingEvent tracking events}
+ * and hands each batch as a single {@link TrackingEventBatchMessage message} over to the {@link ContractorMessageGateway}. If a 
+ * {@link EventJournal journal} is provided, each converted event is appended before the batch is handed over.<br/><br/>
+ * While the {@link OverloadSignal overload signal} is raised, the reader pauses and the requests remain in the log, thus downstream
+ * spikes do not affect the inbound handlers. The reader position is {@link RawRequestLog#acknowledge(long) acknowledged} after each 
+ * batch, requests not read at shutdown are converted after the next start.
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawRequestLogReader implements Runnable {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(RawRequestLogReader.class);
+	
+	/** log to read from */
+	private final RawRequestLog log;
+	/** reads the log */
+	private final RawRequestLogCursor cursor;
+	/** converts requests into tracking events */
+	private final TrackingEventConverter converter = new TrackingEventConverter();
+	/** reference towards inbound message gateway */
+	private final ActorRef inboundMessageGatewayRef;
+	/** journal receiving converted events, null if journaling is disabled */
+	private final EventJournal journal;
+	/** tells whether the pipeline is overloaded, may be null */
+	private final OverloadSignal overloadSignal;
+	/** max. number of requests read at once */
+	private final int maxBatchSize;
+	/** time to park if no data is available or while the pipeline is overloaded */
+	private final long idleParkNanos;
+	/** keeps the reader running */
+	private volatile boolean running = true;
+	/** executes the reader */
+	private Thread readerThread = null;
+	
+	/** measures the conversion of requests */
+	private final Timer converterTimer = PipelineMetrics.registry().timer(PipelineMetrics.STAGE_CONVERTER);
+	/** counts requests lost due to truncated segments */
+	private final Meter lostRequests = PipelineMetrics.registry().meter(PipelineMetrics.RAW_LOG_LOST);
+	
+	/**
+	 * Initializes the reader using the provided input
+	 * @param log
+	 * @param inboundMessageGatewayRef
+	 * @param journal journal receiving converted events, may be null
+	 * @param overloadSignal may be null
+	 * @param maxBatchSize
+	 * @param idleParkNanos
+	 */
+	public RawRequestLogReader(final RawRequestLog log, final ActorRef inboundMessageGatewayRef, final EventJournal journal, 
+			final OverloadSignal overloadSignal, final int maxBatchSize, final long idleParkNanos) {
+		this.log = log;
+		this.cursor = log.cursor();
+		this.inboundMessageGatewayRef = inboundMessageGatewayRef;
+		this.journal = journal;
+		this.overloadSignal = overloadSignal;
+		this.maxBatchSize = Math.max(1, maxBatchSize);
+		this.idleParkNanos = Math.max(1, idleParkNanos);
+	}
+	
+	/**
+	 * Starts the reader thread
+	 */
+	public void start() {
+		this.readerThread = new Thread(this, "rawlog-reader");
+		this.readerThread.setDaemon(true);
+		this.readerThread.start();
+	}
+	
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		while(running) {
+			// leave the requests in the log until the pipeline recovers
+			if(overloadSignal != null && overloadSignal.isOverloaded()) {
+				LockSupport.parkNanos(idleParkNanos);
+				continue;
+			}
+			if(readBatch() == 0)
+				LockSupport.parkNanos(idleParkNanos);
+		}
+	}
+	
+	/**
+	 * Reads, converts and forwards up to max. batch size requests
+	 * @return number of requests read
+	 */
+	public int readBatch() {
+		
+		List<TrackingEvent> batch = null;
+		int numOfRequests = 0;
+		final long lost = cursor.getLost();
+		while(numOfRequests < maxBatchSize && cursor.next()) {
+			numOfRequests++;
+			
+			final Timer.Context timerContext = converterTimer.time();
+			try {
+				HttpRequest request = decode(cursor.getPayload(), cursor.getPayloadLength());
+				if(request == null) {
+					logger.error("Failed to parse raw request [sequence="+(cursor.getSequence() - 1)+"]");
+					continue;
+				}
+				
+				TrackingEvent trackingEvent = converter.convert(new HttpRequestMessage(request, "http", cursor.getTimestamp()));
+				if(trackingEvent != null) {
+					// appending waits while the journal is exhausted, thus the requests remain in the log. An event failing to be 
+					// journaled due to an i/o error is still forwarded
+					if(journal != null) {
+						try {
+							journal.append(trackingEvent);
+						} catch(IOException e) {
+							// logged by the journal
+						}
+					}
+					if(batch == null)
+						batch = new ArrayList<>(maxBatchSize);
+					batch.add(trackingEvent);
+				}
+			} catch(Exception e) {
+				logger.error("Failed to convert raw request [sequence="+(cursor.getSequence() - 1)+"]: " + e.getMessage());
+			} finally {
+				timerContext.stop();
+			}
+		}
+		
+		if(cursor.getLost() > lost) {
+			lostRequests.mark(cursor.getLost() - lost);
+			logger.warn("Raw request log lost " + (cursor.getLost() - lost) + " requests");
+		}
+		
+		if(batch != null)
+			inboundMessageGatewayRef.tell(new TrackingEventBatchMessage(batch), ActorRef.noSender());
+		if(numOfRequests > 0 || cursor.getLost() > lost)
+			log.acknowledge(cursor.getSequence());
+		return numOfRequests;
+	}
+	
+	/**
+	 * Parses a recorded request: the request line followed by the selected headers, each line terminated by a line break
+	 * @param payload
+	 * @param length
+	 * @return request or null if the request line is malformed
+	 */
+	public static HttpRequest decode(final byte[] payload, final int length) {
+		
+		int lineStart = 0;
+		HttpRequest request = null;
+		while(lineStart < length) {
+			int lineEnd = lineStart;
+			while(lineEnd < length && payload[lineEnd] != '\n')
+				lineEnd++;
+			int contentEnd = (lineEnd > lineStart && payload[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd);
+			
+			if(request == null) {
+				// request line: method SP uri SP version
+				int firstSpace = indexOf(payload, lineStart, contentEnd, (byte)' ');
+				int lastSpace = lastIndexOf(payload, lineStart, contentEnd, (byte)' ');
+				if(firstSpace < 0 || lastSpace <= firstSpace)
+					return null;
+				request = new DefaultHttpRequest(
+						HttpVersion.valueOf(new String(payload, lastSpace + 1, contentEnd - lastSpace - 1, StandardCharsets.ISO_8859_1)),
+						HttpMethod.valueOf(new String(payload, lineStart, firstSpace - lineStart, StandardCharsets.ISO_8859_1)),
+						new String(payload, firstSpace + 1, lastSpace - firstSpace - 1, StandardCharsets.ISO_8859_1));
+			} else {
+				int colon = indexOf(payload, lineStart, contentEnd, (byte)':');
+				if(colon > lineStart) {
+					int valueStart = colon + 1;
+					while(valueStart < contentEnd && (payload[valueStart] == ' ' || payload[valueStart] == '\t'))
+						valueStart++;
+					int valueEnd = contentEnd;
+					while(valueEnd > valueStart && (payload[valueEnd - 1] == ' ' || payload[valueEnd - 1] == '\t'))
+						valueEnd--;
+					request.headers().add(new String(payload, lineStart, colon - lineStart, StandardCharsets.ISO_8859_1), 
+							new String(payload, valueStart, valueEnd - valueStart, StandardCharsets.ISO_8859_1));
+				}
+			}
+			lineStart = lineEnd + 1;
+		}
+		return request;
+	}
+	
+	/**
+	 * Returns the index of the first occurrence of the given byte within the range or -1
+	 * @param payload
+	 * @param start
+	 * @param end
+	 * @param b
+	 * @return
+	 */
+	protected static int indexOf(final byte[] payload, final int start, final int end, final byte b) {
+		for(int i = start; i < end; i++) {
+			if(payload[i] == b)
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the index of the last occurrence of the given byte within the range or -1
+	 * @param payload
+	 * @param start
+	 * @param end
+	 * @param b
+	 * @return
+	 */
+	protected static int lastIndexOf(final byte[] payload, final int start, final int end, final byte b) {
+		for(int i = end - 1; i >= start; i--) {
+			if(payload[i] == b)
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Stops the reader and waits for the current batch to be handed over
+	 * @param timeoutMillis
+	 */
+	public void shutdown(final long timeoutMillis) {
+		this.running = false;
+		if(readerThread != null) {
+			LockSupport.unpark(readerThread);
+			try {
+				readerThread.join(timeoutMillis);
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+	
+}
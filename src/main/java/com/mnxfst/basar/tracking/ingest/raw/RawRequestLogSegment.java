@@ -0,0 +1,304 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mnxfst.basar.tracking.journal.LogSegment;
+
+/**
+ * Single memory-mapped file of the {@link RawRequestLog raw request log}. The file starts with a header (magic, version, 
+ * sequence of first record) followed by the records, each one made up of:
+ * <ul>
+ *   <li>length of the remaining record (4 bytes)</li>
+ *   <li>sequence (8 bytes)</li>
+ *   <li>time the request was received (8 bytes)</li>
+ *   <li>request line and selected headers, each one terminated by a line break</li>
+ * </ul>
+ * The length is written last and marks the record as complete. Records carry no checksum, as computing it would require
+ * a second pass over the request on the accept path. Instead, records are validated by their length, their sequence and their 
+ * trailing line feed. Files are allocated at their full size and thus zero-filled, a length of zero marks the end of the written records.<br/><br/>
+ * Appending is thread-safe: a writer {@link #reserve(int) reserves} the space and the sequence of its record by a single CAS on the
+ * packed (number of records, write offset) pair and copies the record without holding any lock. Once the segment is {@link #seal() sealed},
+ * no further space is reserved. Readers use their own {@link #view() view} of the mapped content.
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawRequestLogSegment implements LogSegment {
+
+	public static final int MAGIC = 0x42524157;
+	public static final int VERSION = 1;
+	/** magic, version and sequence of first record */
+	public static final int HEADER_SIZE = 16;
+	/** length, sequence and timestamp preceding each request */
+	public static final int RECORD_HEADER_SIZE = 20;
+	public static final String FILE_SUFFIX = ".rawlog";
+	/** write offset of a sealed segment, exceeds any segment size */
+	private static final long SEALED_OFFSET = Integer.MAX_VALUE;
+	/** mask of the write offset within a reservation */
+	private static final long OFFSET_MASK = 0xFFFFFFFFL;
+	
+	/** segment file */
+	private final File file;
+	/** sequence of first record */
+	private final long firstSequence;
+	/** channel the mapping was created from */
+	private final FileChannel channel;
+	/** mapped file content */
+	private final MappedByteBuffer buffer;
+	/** number of reserved records (upper 32 bits) and offset of the next record (lower 32 bits) */
+	private final AtomicLong reservation;
+	
+	/**
+	 * Initializes the segment using the provided input
+	 * @param file
+	 * @param firstSequence
+	 * @param channel
+	 * @param buffer mapped file content, positioned behind the header
+	 * @param writable true if records may be appended
+	 */
+	protected RawRequestLogSegment(final File file, final long firstSequence, final FileChannel channel, final MappedByteBuffer buffer, final boolean writable) {
+		this.file = file;
+		this.firstSequence = firstSequence;
+		this.channel = channel;
+		this.buffer = buffer;
+		this.reservation = new AtomicLong(writable ? buffer.position() : SEALED_OFFSET);
+	}
+	
+	/**
+	 * Creates a new segment file of the given size for appending records
+	 * @param directory
+	 * @param firstSequence
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	public static RawRequestLogSegment create(final File directory, final long firstSequence, final int size) throws IOException {
+		File file = new File(directory, fileName(firstSequence));
+		if(file.exists())
+			throw new IOException("Raw request log segment already exists: " + file.getAbsolutePath());
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(size);
+			FileChannel channel = randomAccessFile.getChannel();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(firstSequence);
+			return new RawRequestLogSegment(file, firstSequence, channel, buffer, true);
+		} catch(IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Opens an existing segment file for reading
+	 * @param file
+	 * @return
+	 * @throws IOException if the file is not a raw request log segment
+	 */
+	public static RawRequestLogSegment open(final File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+				throw new IOException("Not a raw request log segment: " + file.getAbsolutePath());
+			int version = buffer.getInt();
+			if(version != VERSION)
+				throw new IOException("Unsupported raw request log segment version " + version + ": " + file.getAbsolutePath());
+			return new RawRequestLogSegment(file, buffer.getLong(), channel, buffer, false);
+		} catch(IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Reserves the space and the sequence of a record of the given length
+	 * @param recordLength
+	 * @return reservation to {@link #write(long, long, RawHttpRequest) write} the record to or -1 if the record does not fit 
+	 *         into the remaining space or the segment is sealed
+	 */
+	public long reserve(final int recordLength) {
+		final int capacity = buffer.capacity();
+		while(true) {
+			final long current = reservation.get();
+			if((current & OFFSET_MASK) + recordLength > capacity)
+				return -1;
+			if(reservation.compareAndSet(current, current + (1L << 32) + recordLength))
+				return current;
+		}
+	}
+	
+	/**
+	 * Stops reserving space
+	 * @return sequence following the last reserved record
+	 */
+	public long seal() {
+		while(true) {
+			final long current = reservation.get();
+			if(reservation.compareAndSet(current, (current & ~OFFSET_MASK) | SEALED_OFFSET))
+				return firstSequence + (current >>> 32);
+		}
+	}
+	
+	/**
+	 * Returns the sequence of the record a {@link #reserve(int) reservation} has been made for
+	 * @param reservation
+	 * @return
+	 */
+	public long sequenceOf(final long reservation) {
+		return firstSequence + (reservation >>> 32);
+	}
+	
+	/**
+	 * Writes the provided request to the reserved space. The length is written last and marks the record as complete
+	 * @param reservation
+	 * @param timestamp
+	 * @param request
+	 */
+	public void write(final long reservation, final long timestamp, final RawHttpRequest request) {
+		final int start = (int)(reservation & OFFSET_MASK);
+		final ByteBuffer target = buffer.duplicate();
+		target.clear();
+		target.position(start + 4);
+		target.putLong(sequenceOf(reservation));
+		target.putLong(timestamp);
+		request.writeTo(target);
+		buffer.putInt(start, target.position() - start - 4);
+	}
+	
+	/**
+	 * Returns a view of the mapped content positioned at the first record
+	 * @return
+	 */
+	public ByteBuffer view() {
+		ByteBuffer view = buffer.duplicate();
+		view.clear();
+		view.position(HEADER_SIZE);
+		return view;
+	}
+	
+	/**
+	 * Returns the sequence following the last valid record
+	 * @return
+	 */
+	public long scan() {
+		ByteBuffer view = view();
+		long sequence = firstSequence;
+		while(true) {
+			int length = recordLength(view, sequence);
+			if(length < 0)
+				return sequence;
+			view.position(view.position() + 4 + length);
+			sequence++;
+		}
+	}
+	
+	/**
+	 * Moves the given view from the first record forward to the record holding the given sequence
+	 * @param view
+	 * @param sequence
+	 * @return false if a record in between is not valid
+	 */
+	public boolean seek(final ByteBuffer view, final long sequence) {
+		for(long s = firstSequence; s < sequence; s++) {
+			int length = recordLength(view, s);
+			if(length < 0)
+				return false;
+			view.position(view.position() + 4 + length);
+		}
+		return true;
+	}
+	
+	/**
+	 * Validates the record found at the current position of the given view
+	 * @param view
+	 * @param sequence expected sequence of the record
+	 * @return length of the record following the length field or -1 if there is no valid record
+	 */
+	public static int recordLength(final ByteBuffer view, final long sequence) {
+		final int position = view.position();
+		if(view.remaining() < RECORD_HEADER_SIZE)
+			return -1;
+		final int length = view.getInt(position);
+		if(length < RECORD_HEADER_SIZE - 4 + 2 || length > view.remaining() - 4)
+			return -1;
+		if(view.getLong(position + 4) != sequence || view.get(position + 4 + length - 1) != '\n')
+			return -1;
+		return length;
+	}
+	
+	/**
+	 * Writes the records appended so far to disk
+	 */
+	public void force() {
+		buffer.force();
+	}
+	
+	/**
+	 * Closes the underlying channel
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Returns the name of the segment file holding the given first sequence. Names sort in order of their sequences
+	 * @param firstSequence
+	 * @return
+	 */
+	public static String fileName(final long firstSequence) {
+		return String.format("%020d", firstSequence) + FILE_SUFFIX;
+	}
+	
+	/**
+	 * Returns the first sequence encoded in the name of the given segment file or -1 if the file is no segment
+	 * @param file
+	 * @return
+	 */
+	public static long parseFirstSequence(final File file) {
+		String name = file.getName();
+		if(!name.endsWith(FILE_SUFFIX))
+			return -1;
+		try {
+			return Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length()));
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getFirstSequence() {
+		return firstSequence;
+	}
+	
+}
@@ -0,0 +1,140 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.Timer;
+
+/**
+ * Keeps the metrics sharing the same base name but tagged by contractor. The metrics are looked up in the 
+ * {@link PipelineMetrics#registry() shared registry} once and kept afterwards, thus the per-event lookup neither 
+ * concatenates names nor touches the registry. Instances are not thread-safe and must be owned by a single actor.<br/><br/>
+ * The contractor is supplied by the client, thus only {@link #registerContractor(String) registered} contractors receive 
+ * metrics of their own. All other events are tagged as {@link #UNKNOWN_CONTRACTOR unknown}, which keeps the number of metrics
+ * bounded regardless of the inbound traffic
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public abstract class ContractorMetrics<M extends Metric> {
+
+	/** tag used for events without or with an unregistered contractor */
+	public static final String UNKNOWN_CONTRACTOR = "unknown";
+	
+	/** contractors tagged by name, shared by all instances */
+	private static final Set<String> registeredContractors = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+	
+	/** base name of metrics */
+	private final String baseName;
+	/** metrics by contractor */
+	private final Map<String, M> metrics = new HashMap<>();
+	
+	/**
+	 * Initializes the instance using the provided input
+	 * @param baseName
+	 */
+	protected ContractorMetrics(final String baseName) {
+		this.baseName = baseName;
+	}
+	
+	/**
+	 * Returns the metric of the given contractor
+	 * @param contractor
+	 * @return
+	 */
+	public M get(final String contractor) {
+		final String tag = tagOf(contractor);
+		M metric = metrics.get(tag);
+		if(metric == null) {
+			metric = create(PipelineMetrics.name(baseName, tag));
+			metrics.put(tag, metric);
+		}
+		return metric;
+	}
+	
+	/**
+	 * Returns the tag applied to metrics of the given contractor
+	 * @param contractor
+	 * @return contractor or {@link #UNKNOWN_CONTRACTOR} if the contractor is not registered
+	 */
+	public static String tagOf(final String contractor) {
+		return (contractor != null && registeredContractors.contains(contractor) ? contractor : UNKNOWN_CONTRACTOR);
+	}
+	
+	/**
+	 * Registers the given contractor, its events are tagged by name afterwards
+	 * @param contractor
+	 */
+	public static void registerContractor(final String contractor) {
+		if(contractor != null)
+			registeredContractors.add(contractor);
+	}
+	
+	/**
+	 * Registers the given contractors, their events are tagged by name afterwards
+	 * @param contractors
+	 */
+	public static void registerContractors(final Collection<String> contractors) {
+		if(contractors != null) {
+			for(String contractor : contractors)
+				registerContractor(contractor);
+		}
+	}
+	
+	/**
+	 * Looks up the referenced metric in the shared registry
+	 * @param name
+	 * @return
+	 */
+	protected abstract M create(final String name);
+	
+	/**
+	 * Returns timers tagged by contractor
+	 * @param baseName
+	 * @return
+	 */
+	public static ContractorMetrics<Timer> timers(final String baseName) {
+		return new ContractorMetrics<Timer>(baseName) {
+			protected Timer create(String name) {
+				return PipelineMetrics.registry().timer(name);
+			}
+		};
+	}
+	
+	/**
+	 * Returns meters tagged by contractor
+	 * @param baseName
+	 * @return
+	 */
+	public static ContractorMetrics<Meter> meters(final String baseName) {
+		return new ContractorMetrics<Meter>(baseName) {
+			protected Meter create(String name) {
+				return PipelineMetrics.registry().meter(name);
+			}
+		};
+	}
+	
+}
@@ -0,0 +1,150 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import scala.Option;
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.DeadLetter;
+import akka.dispatch.BoundedMailbox;
+import akka.dispatch.Envelope;
+import akka.dispatch.MailboxType;
+import akka.dispatch.MessageQueue;
+
+import com.typesafe.config.Config;
+
+/**
+ * Bounded mailbox which never blocks the sender: a message exceeding the capacity is dropped immediately and handed over to the 
+ * {@link DeadLetter dead letters}. The {@link BoundedMailbox bounded mailbox} shipped with akka waits for the configured push 
+ * timeout instead, which stalls the sending thread (eg. a netty event loop) for each dropped message right when the pipeline 
+ * is overloaded.<br/><br/>
+ * Each created queue is registered with {@link PipelineMetrics}, thus the depth of all mailboxes served by a dispatcher is exposed 
+ * as gauge. The stage name is derived from the last element of the dispatcher identifier, eg. <i>basar.dispatchers.conversion</i> 
+ * is reported as <i>mailbox.conversion.depth</i>. Configured by mailbox-capacity
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class InstrumentedBoundedMailbox implements MailboxType {
+
+	/** max. number of messages queued per actor */
+	private final int capacity;
+	/** stage the mailboxes belong to */
+	private final String stage;
+	
+	/**
+	 * Initializes the mailbox type using the provided input. Invoked by akka via reflection
+	 * @param settings
+	 * @param config
+	 */
+	public InstrumentedBoundedMailbox(final ActorSystem.Settings settings, final Config config) {
+		this.capacity = config.getInt("mailbox-capacity");
+		if(this.capacity <= 0)
+			throw new IllegalArgumentException("The capacity of InstrumentedBoundedMailbox must be positive");
+		String id = (config.hasPath("id") ? config.getString("id") : "unknown");
+		this.stage = id.substring(id.lastIndexOf('.') + 1);
+	}
+	
+	/**
+	 * @see akka.dispatch.MailboxType#create(scala.Option, scala.Option)
+	 */
+	public MessageQueue create(Option<ActorRef> owner, Option<ActorSystem> system) {
+		MessageQueue queue = new NonBlockingBoundedMessageQueue(capacity, (system.isDefined() ? system.get() : null));
+		PipelineMetrics.registerMailbox(stage, queue);
+		return queue;
+	}
+	
+	/**
+	 * Lock-free message queue holding up to the given number of messages. The size is reserved before a message is 
+	 * queued, thus the capacity is never exceeded and enqueuing a message into a full queue costs two atomic operations
+	 * @author mnxfst
+	 * @since 02.12.2013
+	 */
+	public static class NonBlockingBoundedMessageQueue implements MessageQueue {
+		
+		/** queued messages */
+		private final Queue<Envelope> queue = new ConcurrentLinkedQueue<>();
+		/** number of queued messages (including the ones currently being enqueued) */
+		private final AtomicInteger size = new AtomicInteger(0);
+		/** max. number of queued messages */
+		private final int capacity;
+		/** receives the dropped messages, may be null */
+		private final ActorSystem system;
+		
+		/**
+		 * Initializes the queue using the provided input
+		 * @param capacity
+		 * @param system system the dead letters of which receive dropped messages, may be null
+		 */
+		public NonBlockingBoundedMessageQueue(final int capacity, final ActorSystem system) {
+			this.capacity = capacity;
+			this.system = system;
+		}
+
+		/**
+		 * @see akka.dispatch.MessageQueue#enqueue(akka.actor.ActorRef, akka.dispatch.Envelope)
+		 */
+		public void enqueue(ActorRef receiver, Envelope handle) {
+			if(size.incrementAndGet() > capacity) {
+				size.decrementAndGet();
+				if(system != null)
+					system.deadLetters().tell(new DeadLetter(handle.message(), handle.sender(), receiver), handle.sender());
+				return;
+			}
+			queue.offer(handle);
+		}
+
+		/**
+		 * @see akka.dispatch.MessageQueue#dequeue()
+		 */
+		public Envelope dequeue() {
+			Envelope handle = queue.poll();
+			if(handle != null)
+				size.decrementAndGet();
+			return handle;
+		}
+
+		/**
+		 * @see akka.dispatch.MessageQueue#numberOfMessages()
+		 */
+		public int numberOfMessages() {
+			return size.get();
+		}
+
+		/**
+		 * @see akka.dispatch.MessageQueue#hasMessages()
+		 */
+		public boolean hasMessages() {
+			return !queue.isEmpty();
+		}
+
+		/**
+		 * @see akka.dispatch.MessageQueue#cleanUp(akka.actor.ActorRef, akka.dispatch.MessageQueue)
+		 */
+		public void cleanUp(ActorRef owner, MessageQueue deadLetters) {
+			Envelope handle = null;
+			while((handle = dequeue()) != null)
+				deadLetters.enqueue(owner, handle);
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Renders the content of a {@link MetricRegistry metric registry} as json document served by the metrics endpoint. 
+ * Rates are given in events per second, durations in milliseconds:
+ * <pre>
+ * {"gauges":{"mailbox.conversion.depth":0},
+ *  "counters":{...},
+ *  "meters":{"inbound.accepted":{"count":..,"m1":..,"m5":..,"m15":..,"mean":..}},
+ *  "timers":{"stage.converter":{"count":..,"m1":..,"mean":..,"min":..,"p50":..,"p75":..,"p95":..,"p99":..,"p999":..,"max":..}}}
+ * </pre>
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class MetricsReport {
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+	private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	private MetricsReport() {
+	}
+	
+	/**
+	 * Renders the provided registry
+	 * @param registry
+	 * @return utf-8 encoded json document
+	 * @throws IOException
+	 */
+	@SuppressWarnings("rawtypes")
+	public static byte[] toJson(final MetricRegistry registry) throws IOException {
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		JsonGenerator generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+		generator.writeStartObject();
+		
+		generator.writeObjectFieldStart("gauges");
+		for(Map.Entry<String, Gauge> gauge : registry.getGauges().entrySet()) {
+			Object value = gauge.getValue().getValue();
+			if(value instanceof Number)
+				generator.writeNumberField(gauge.getKey(), ((Number)value).doubleValue());
+			else
+				generator.writeStringField(gauge.getKey(), String.valueOf(value));
+		}
+		generator.writeEndObject();
+		
+		generator.writeObjectFieldStart("counters");
+		for(Map.Entry<String, Counter> counter : registry.getCounters().entrySet())
+			generator.writeNumberField(counter.getKey(), counter.getValue().getCount());
+		generator.writeEndObject();
+		
+		generator.writeObjectFieldStart("meters");
+		for(Map.Entry<String, Meter> meter : registry.getMeters().entrySet()) {
+			generator.writeObjectFieldStart(meter.getKey());
+			generator.writeNumberField("count", meter.getValue().getCount());
+			generator.writeNumberField("m1", meter.getValue().getOneMinuteRate());
+			generator.writeNumberField("m5", meter.getValue().getFiveMinuteRate());
+			generator.writeNumberField("m15", meter.getValue().getFifteenMinuteRate());
+			generator.writeNumberField("mean", meter.getValue().getMeanRate());
+			generator.writeEndObject();
+		}
+		generator.writeEndObject();
+		
+		generator.writeObjectFieldStart("timers");
+		for(Map.Entry<String, Timer> timer : registry.getTimers().entrySet()) {
+			Snapshot snapshot = timer.getValue().getSnapshot();
+			generator.writeObjectFieldStart(timer.getKey());
+			generator.writeNumberField("count", timer.getValue().getCount());
+			generator.writeNumberField("m1", timer.getValue().getOneMinuteRate());
+			generator.writeNumberField("mean", snapshot.getMean() / NANOS_PER_MILLI);
+			generator.writeNumberField("min", snapshot.getMin() / NANOS_PER_MILLI);
+			generator.writeNumberField("p50", snapshot.getMedian() / NANOS_PER_MILLI);
+			generator.writeNumberField("p75", snapshot.get75thPercentile() / NANOS_PER_MILLI);
+			generator.writeNumberField("p95", snapshot.get95thPercentile() / NANOS_PER_MILLI);
+			generator.writeNumberField("p99", snapshot.get99thPercentile() / NANOS_PER_MILLI);
+			generator.writeNumberField("p999", snapshot.get999thPercentile() / NANOS_PER_MILLI);
+			generator.writeNumberField("max", snapshot.getMax() / NANOS_PER_MILLI);
+			generator.writeEndObject();
+		}
+		generator.writeEndObject();
+		
+		generator.writeEndObject();
+		generator.close();
+		return out.toByteArray();
+	}
+	
+}
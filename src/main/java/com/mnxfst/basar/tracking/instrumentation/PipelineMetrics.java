@@ -0,0 +1,159 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import akka.dispatch.MessageQueue;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Provides access to the {@link MetricRegistry metric registry} shared by all stages of the processing pipeline. The
+ * registry is published via {@link SharedMetricRegistries}, thus actors created by class name need not receive it through
+ * their constructors. The registry is exposed over jmx and the http metrics endpoint.<br/><br/>
+ * Metric names follow the pattern <i>&lt;area&gt;.&lt;name&gt;[.&lt;contractor&gt;]</i>, see the constants below. Metrics
+ * tagged by contractor are provided through {@link ContractorMetrics}
+ * @author mnxfst
+ * @since 26.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class PipelineMetrics {
+
+	/** name of the shared registry */
+	public static final String REGISTRY_NAME = "basar";
+	
+	///////////////////////////////////////////////////////////////////////////////////
+	// metric names
+	/** meter: requests handed over to the pipeline by the inbound handler */
+	public static final String INBOUND_ACCEPTED = "inbound.accepted";
+	/** meter: requests rejected by the inbound handler due to an overload */
+	public static final String INBOUND_REJECTED = "inbound.rejected";
+	/** timer: conversion of a http request into a tracking event */
+	public static final String STAGE_CONVERTER = "stage.converter";
+	/** timer: dispatching a tracking event to database and metric handlers */
+	public static final String STAGE_GATEWAY = "stage.gateway";
+	/** meter: tracking events received by the gateway, tagged by contractor */
+	public static final String GATEWAY_EVENTS = "gateway.events";
+	/** timer: page impression handler, processing of a tracking event */
+	public static final String STAGE_HANDLER_PAGE_IMPRESSION = "stage.handler.pageImpression";
+	/** timer: tracking event writer, processing of a tracking event, tagged by contractor */
+	public static final String STAGE_WRITER_TRACKING_EVENT = "stage.writer.trackingEvent";
+	/** timer: page impression database writer, processing of a message */
+	public static final String STAGE_WRITER_PAGE_IMPRESSION_DB = "stage.writer.pageImpressionDB";
+	/** timer: page impression cache writer, processing of a message */
+	public static final String STAGE_WRITER_PAGE_IMPRESSION_CACHE = "stage.writer.pageImpressionCache";
+	/** timer: mongodb insert (single document or batch), tagged by the database of the writer's collection */
+	public static final String MONGO_INSERT = "mongo.insert";
+	/** meter: failed mongodb inserts, tagged by the database of the writer's collection */
+	public static final String MONGO_INSERT_ERRORS = "mongo.insert.errors";
+	/** timer: mongodb upsert, tagged by contractor */
+	public static final String MONGO_UPSERT = "mongo.upsert";
+	/** meter: failed mongodb upserts, tagged by contractor */
+	public static final String MONGO_UPSERT_ERRORS = "mongo.upsert.errors";
+	/** prefix of cache operation timers (synchronous operations) and meters (asynchronous operations and errors) */
+	public static final String CACHE = "cache";
+	/** prefix of mailbox depth gauges, followed by the stage name */
+	public static final String MAILBOX = "mailbox";
+	/** gauge: number of requests waiting in ingest ring buffers */
+	public static final String INGEST_RING_BUFFER_DEPTH = "ingest.ringBuffers.depth";
+	/** timer: appending a tracking event to the write-ahead journal */
+	public static final String JOURNAL_APPEND = "journal.append";
+	/** timer: group commit, ie. flushing the active journal segment to disk */
+	public static final String JOURNAL_FLUSH = "journal.flush";
+	/** meter: tracking events which could not be appended to the journal */
+	public static final String JOURNAL_ERRORS = "journal.errors";
+	/** meter: appends waiting for acknowledgements as the acknowledgement window is exhausted */
+	public static final String JOURNAL_STALLS = "journal.stalls";
+	/** meter: tracking events replayed from the journal on startup */
+	public static final String JOURNAL_REPLAYED = "journal.replayed";
+	/** meter: unacknowledged tracking events redelivered from the journal while running */
+	public static final String JOURNAL_REDELIVERED = "journal.redelivered";
+	/** gauge: number of journaled events not yet acknowledged by the tracking event writers */
+	public static final String JOURNAL_UNACKNOWLEDGED = "journal.unacknowledged";
+	/** timer: group commit, ie. flushing the active raw request log segment to disk */
+	public static final String RAW_LOG_FLUSH = "rawlog.flush";
+	/** meter: requests rejected as the raw request log exceeds its disk budget */
+	public static final String RAW_LOG_FULL = "rawlog.full";
+	/** meter: raw requests lost due to torn or unreadable records */
+	public static final String RAW_LOG_LOST = "rawlog.lost";
+	/** gauge: number of raw requests waiting for conversion */
+	public static final String RAW_LOG_BACKLOG = "rawlog.backlog";
+	//
+	///////////////////////////////////////////////////////////////////////////////////
+	
+	/** mailbox queues by stage, weakly referenced as the queues are dropped along with their actors */
+	private static final ConcurrentMap<String, Set<MessageQueue>> mailboxes = new ConcurrentHashMap<>();
+	
+	private PipelineMetrics() {
+	}
+	
+	/**
+	 * Returns the shared registry
+	 * @return
+	 */
+	public static MetricRegistry registry() {
+		return SharedMetricRegistries.getOrCreate(REGISTRY_NAME);
+	}
+	
+	/**
+	 * Concatenates the given name elements, null elements are skipped
+	 * @param name
+	 * @param names
+	 * @return
+	 */
+	public static String name(final String name, final String... names) {
+		return MetricRegistry.name(name, names);
+	}
+	
+	/**
+	 * Registers the mailbox queue of an actor running on the given stage. The depth of all queues registered for a 
+	 * stage is exposed by a gauge named <i>mailbox.&lt;stage&gt;.depth</i>
+	 * @param stage
+	 * @param queue
+	 */
+	public static void registerMailbox(final String stage, final MessageQueue queue) {
+		Set<MessageQueue> queues = mailboxes.get(stage);
+		if(queues == null) {
+			Set<MessageQueue> created = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<MessageQueue, Boolean>()));
+			queues = mailboxes.putIfAbsent(stage, created);
+			if(queues == null) {
+				queues = created;
+				final Set<MessageQueue> stageQueues = created;
+				registry().register(name(MAILBOX, stage, "depth"), new Gauge<Long>() {
+					public Long getValue() {
+						long depth = 0;
+						synchronized(stageQueues) {
+							for(MessageQueue stageQueue : stageQueues)
+								depth = depth + stageQueue.numberOfMessages();
+						}
+						return depth;
+					}
+				});
+			}
+		}
+		queues.add(queue);
+	}
+	
+}
@@ -0,0 +1,727 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerJournalConfigElement;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+
+/**
+ * Append-only write-ahead {@link SegmentLog segment log} keeping converted {@link TrackingEvent tracking events} on local disk until the tracking
+ * event writers have inserted them into mongodb:
+ * <ul>
+ *   <li>append: each event is encoded into a record carrying a sequence number and copied into the active memory-mapped 
+ *       {@link JournalSegment segment}. As soon as the copy has completed, the event survives a crash of the process. Full 
+ *       segments are rolled over</li>
+ *   <li>group commit: a flusher thread writes the active segment to disk every few milliseconds or as soon as enough bytes have 
+ *       been appended, thus a single flush covers many events and appending never waits for the disk</li>
+ *   <li>acknowledge: writers acknowledge the sequences of inserted events. Acknowledgements arrive out of order, thus they are
+ *       tracked in a bit window starting at the oldest unacknowledged sequence (low-water mark). The low-water mark is persisted
+ *       as checkpoint from time to time and segments holding acknowledged events only are deleted</li>
+ *   <li>replay: on opening, all events between the checkpoint and the last valid record are considered unacknowledged and may be
+ *       {@link #replay(JournalReplayHandler) replayed}. As the checkpoint lags behind, events inserted shortly before a crash are
+ *       replayed as well (at-least-once)</li>
+ *   <li>redelivery: events not acknowledged at all, eg. due to a failed insert or a full mailbox, hold back the low-water mark. While
+ *       running, they are {@link #redeliver(long, long, int, JournalReplayHandler) redelivered} from the segments once they exceed a 
+ *       certain age</li>
+ * </ul>
+ * Replayed and redelivered events may have been inserted before, eg. as their acknowledgement was late. Each journal carries a random
+ * {@link #getInstanceId() instance id} which writers combine with the sequence into an idempotent document identifier, thus
+ * inserting an event twice fails on the duplicate key.
+ * The low-water mark must not fall behind the latest sequence by more than the size of the window. As soon as the window is exhausted, eg. 
+ * during a long database outage, appending waits for acknowledgements and {@link OverloadSignal signals} an overload, thus inbound 
+ * requests are rejected instead of being accepted without journaling. No sequence beyond the window is assigned and no acknowledgement 
+ * gets lost.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class EventJournal extends SegmentLog<JournalSegment, File> {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(EventJournal.class);
+
+	/** name of the file holding the instance id */
+	public static final String INSTANCE_ID_FILE = "instance.id";
+	/** initial size of the buffer each appending thread encodes its events into */
+	private static final int INITIAL_RECORD_SIZE = 4096;
+	/** min. number of events tracked by the acknowledgement window */
+	private static final int MIN_ACKNOWLEDGEMENT_WINDOW = 64;
+	/** max. number of events tracked by the acknowledgement window */
+	private static final int MAX_ACKNOWLEDGEMENT_WINDOW = 1 << 30;
+	/** time to park while waiting for acknowledgements as the window is exhausted */
+	private static final long WINDOW_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	/** min. time between two log messages on failed or waiting appends */
+	private static final long APPEND_LOG_INTERVAL_MILLIS = 10000;
+	
+	/** identifies the journal directory, kept as long as the directory exists */
+	private String instanceId = null;
+	/** size of a segment file */
+	private final int segmentSize;
+
+	/** buffer each appending thread encodes its events into */
+	private final ThreadLocal<ByteBuffer> recordBuffers = new ThreadLocal<ByteBuffer>() {
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(INITIAL_RECORD_SIZE);
+		}
+	};
+	
+	/** guards the acknowledgement window */
+	private final Object acknowledgementLock = new Object();
+	/** acknowledged sequences at or above the low-water mark, one bit per sequence */
+	private final long[] acknowledgementBits;
+	/** size of the acknowledgement window - 1 */
+	private final long acknowledgementMask;
+	/** oldest unacknowledged sequence, all sequences below are acknowledged */
+	private volatile long lowWaterMark = 0;
+	/** number of acknowledgements received so far */
+	private final AtomicLong acknowledged = new AtomicLong();
+	/** signalled while appending waits for acknowledgements, may be null */
+	private volatile OverloadSignal overloadSignal = null;
+	
+	/** first sequence recovered on opening the journal */
+	private long recoveredFrom = 0;
+	/** sequence following the last one recovered on opening the journal */
+	private long recoveredUntil = 0;
+	
+	/** measures appending events */
+	private final Timer appendTimer = PipelineMetrics.registry().timer(PipelineMetrics.JOURNAL_APPEND);
+	/** counts events which could not be appended */
+	private final Meter appendErrors = PipelineMetrics.registry().meter(PipelineMetrics.JOURNAL_ERRORS);
+	/** counts appends which had to wait for acknowledgements */
+	private final Meter appendStalls = PipelineMetrics.registry().meter(PipelineMetrics.JOURNAL_STALLS);
+	/** time the latest append log message has been written */
+	private final AtomicLong appendLoggedAt = new AtomicLong(0);
+	/** number of append log messages suppressed since the latest one */
+	private final AtomicLong suppressedAppendLogs = new AtomicLong(0);
+	
+	/**
+	 * Initializes the journal using the provided configuration. The journal must be {@link #open() opened} before use
+	 * @param configuration
+	 */
+	public EventJournal(final BasarTrackingServerJournalConfigElement configuration) {
+		super("journal", new File(configuration.getDirectory()), configuration.getFlushIntervalMillis(), configuration.getFlushBytes(), 
+				PipelineMetrics.registry().timer(PipelineMetrics.JOURNAL_FLUSH));
+		this.segmentSize = configuration.getSegmentSize();
+		
+		if(this.segmentSize <= JournalSegment.HEADER_SIZE + JournalSegment.RECORD_HEADER_SIZE + JournalSegment.SEQUENCE_SIZE)
+			throw new IllegalArgumentException("Invalid journal segment size: " + this.segmentSize);
+		
+		int window = Math.min(Math.max(MIN_ACKNOWLEDGEMENT_WINDOW, configuration.getMaxUnacknowledged()), MAX_ACKNOWLEDGEMENT_WINDOW);
+		window = Integer.highestOneBit(window - 1) << 1;
+		this.acknowledgementBits = new long[window >>> 6];
+		this.acknowledgementMask = window - 1;
+	}
+	
+	/**
+	 * Opens the journal: reads the checkpoint, determines the range of unacknowledged events left by the previous run, creates 
+	 * a new active segment and starts the group commits
+	 * @throws IOException
+	 */
+	public void open() throws IOException {
+		
+		final long next = openSegments();
+		this.instanceId = readInstanceId();
+		this.lowWaterMark = getPersistedCheckpoint();
+		this.recoveredFrom = getPersistedCheckpoint();
+		this.recoveredUntil = next;
+		
+		// replaces the gauge of a previous journal instance
+		PipelineMetrics.registry().remove(PipelineMetrics.JOURNAL_UNACKNOWLEDGED);
+		PipelineMetrics.registry().register(PipelineMetrics.JOURNAL_UNACKNOWLEDGED, new Gauge<Long>() {
+			public Long getValue() {
+				return getUnacknowledged();
+			}
+		});
+		
+		startFlusher("journal-flusher");
+		
+		logger.info("Journal opened [directory="+directory.getAbsolutePath()+", instance="+instanceId+", segments="+segments.size()+", checkpoint="+getPersistedCheckpoint()+", nextSequence="+next+", unacknowledged="+(next - getPersistedCheckpoint())+"]");
+	}
+	
+	/**
+	 * Appends the provided event and assigns its {@link TrackingEvent#setJournalSequence(long) journal sequence}. The event is
+	 * written to disk by the next group commit. If the acknowledgement window is exhausted, the call waits until the low-water 
+	 * mark advances. Failures are logged by the journal at a limited rate
+	 * @param trackingEvent
+	 * @return assigned sequence
+	 * @throws IOException if the event could not be appended
+	 */
+	public long append(final TrackingEvent trackingEvent) throws IOException {
+		
+		final Timer.Context timerContext = appendTimer.time();
+		try {
+			final ByteBuffer record = encode(trackingEvent);
+			final int length = record.position();
+			long sequence = -1;
+			boolean flushNow = false;
+			while(sequence < 0) {
+				synchronized(appendLock) {
+					if(activeSegment == null)
+						throw new IOException("Journal is not open");
+					
+					if(nextSequence - lowWaterMark <= acknowledgementMask) {
+						sequence = nextSequence;
+						record.putLong(0, sequence);
+						if(!activeSegment.append(sequence, record.array(), length)) {
+							roll();
+							if(!activeSegment.append(sequence, record.array(), length))
+								throw new IOException("Event of " + length + " bytes exceeds the journal segment size");
+						}
+						nextSequence = sequence + 1;
+						flushNow = unflushedBytes.addAndGet(JournalSegment.RECORD_HEADER_SIZE + length) >= flushBytes;
+					}
+				}
+				if(sequence < 0)
+					awaitAcknowledgementWindow();
+			}
+			
+			if(flushNow)
+				LockSupport.unpark(flusherThread);
+			trackingEvent.setJournalSequence(sequence);
+			return sequence;
+		} catch(IOException | RuntimeException e) {
+			appendErrors.mark();
+			logAppend("Failed to journal tracking event: " + e.getMessage());
+			throw e;
+		} finally {
+			timerContext.stop();
+		}
+	}
+	
+	/**
+	 * Waits until the low-water mark has advanced far enough to assign the next sequence. Signals an overload while waiting, 
+	 * thus inbound requests are rejected rather than piling up
+	 * @throws IOException if the journal is closed while waiting
+	 */
+	protected void awaitAcknowledgementWindow() throws IOException {
+		appendStalls.mark();
+		logAppend("Journal acknowledgement window of " + (acknowledgementMask + 1) + " events is exhausted, appending waits for acknowledgements [lowWaterMark="+lowWaterMark+", nextSequence="+nextSequence+"]");
+		while(nextSequence - lowWaterMark > acknowledgementMask) {
+			if(!running)
+				throw new IOException("Journal closed while waiting for acknowledgements");
+			OverloadSignal signal = overloadSignal;
+			if(signal != null)
+				signal.signal();
+			LockSupport.parkNanos(WINDOW_PARK_NANOS);
+		}
+	}
+	
+	/**
+	 * Logs the given message unless another one has been logged within the log interval. Appending runs on the hot path, thus
+	 * messages repeated for each event would flood the log
+	 * @param message
+	 */
+	protected void logAppend(final String message) {
+		final long now = System.currentTimeMillis();
+		final long loggedAt = appendLoggedAt.get();
+		if(now - loggedAt < APPEND_LOG_INTERVAL_MILLIS || !appendLoggedAt.compareAndSet(loggedAt, now)) {
+			suppressedAppendLogs.incrementAndGet();
+			return;
+		}
+		final long suppressed = suppressedAppendLogs.getAndSet(0);
+		logger.error(message + (suppressed > 0 ? " [suppressed "+suppressed+" messages since the previous one]" : ""));
+	}
+	
+	/**
+	 * Encodes the provided event into the record buffer of the current thread, leaving space for the sequence. The buffer grows if required
+	 * @param trackingEvent
+	 * @return buffer positioned behind the record body
+	 * @throws IOException if the event exceeds the segment size
+	 */
+	protected ByteBuffer encode(final TrackingEvent trackingEvent) throws IOException {
+		ByteBuffer record = recordBuffers.get();
+		while(true) {
+			record.clear();
+			record.position(JournalSegment.SEQUENCE_SIZE);
+			try {
+				TrackingEventCodec.encode(trackingEvent, record);
+				return record;
+			} catch(BufferOverflowException e) {
+				if(record.capacity() >= segmentSize)
+					throw new IOException("Event exceeds the journal segment size of " + segmentSize + " bytes");
+				record = ByteBuffer.allocate(Math.min(record.capacity() * 2, segmentSize));
+				recordBuffers.set(record);
+			}
+		}
+	}
+	
+	/**
+	 * Acknowledges the event referenced by the given sequence, ie. the event has been inserted and needs no replay. 
+	 * Negative sequences (events not journaled) are ignored
+	 * @param sequence
+	 */
+	public void acknowledge(final long sequence) {
+		synchronized(acknowledgementLock) {
+			markAcknowledged(sequence);
+		}
+	}
+	
+	/**
+	 * Acknowledges the events referenced by the first elements of the given array
+	 * @param sequences
+	 * @param count number of sequences to acknowledge
+	 */
+	public void acknowledge(final long[] sequences, final int count) {
+		synchronized(acknowledgementLock) {
+			for(int i = 0; i < count; i++)
+				markAcknowledged(sequences[i]);
+		}
+	}
+	
+	/**
+	 * Acknowledges all events between the given sequences
+	 * @param fromSequence first sequence to acknowledge
+	 * @param untilSequence sequence following the last one to acknowledge
+	 */
+	protected void acknowledgeRange(final long fromSequence, final long untilSequence) {
+		synchronized(acknowledgementLock) {
+			if(fromSequence <= lowWaterMark) {
+				advanceLowWaterMark(untilSequence);
+			} else {
+				for(long sequence = fromSequence; sequence < untilSequence; sequence++)
+					markAcknowledged(sequence);
+			}
+		}
+	}
+	
+	/**
+	 * Marks the given sequence as acknowledged and advances the low-water mark if possible. Must be called while holding
+	 * the acknowledgement lock
+	 * @param sequence
+	 */
+	protected void markAcknowledged(final long sequence) {
+		long mark = lowWaterMark;
+		// already acknowledged or not journaled
+		if(sequence < mark)
+			return;
+		// appending keeps sequences within the window, except for a window shrunk since the previous run
+		if(sequence - mark > acknowledgementMask) {
+			logger.error("Acknowledgement beyond the journal window [sequence="+sequence+", lowWaterMark="+mark+", window="+(acknowledgementMask + 1)+"]. The event will be redelivered");
+			return;
+		}
+		
+		int slot = (int)((sequence & acknowledgementMask) >>> 6);
+		long bit = 1L << sequence;
+		if((acknowledgementBits[slot] & bit) != 0)
+			return;
+		acknowledgementBits[slot] |= bit;
+		acknowledged.incrementAndGet();
+		
+		if(sequence == mark)
+			advanceLowWaterMark(mark);
+	}
+	
+	/**
+	 * Returns true if the event referenced by the given sequence has been acknowledged
+	 * @param sequence
+	 * @return
+	 */
+	public boolean isAcknowledged(final long sequence) {
+		synchronized(acknowledgementLock) {
+			long mark = lowWaterMark;
+			if(sequence < mark)
+				return true;
+			if(sequence - mark > acknowledgementMask)
+				return false;
+			return (acknowledgementBits[(int)((sequence & acknowledgementMask) >>> 6)] & (1L << sequence)) != 0;
+		}
+	}
+	
+	/**
+	 * Moves the low-water mark to the given sequence, discarding the window content below, and beyond all subsequently 
+	 * acknowledged sequences. Must be called while holding the acknowledgement lock
+	 * @param sequence
+	 */
+	protected void advanceLowWaterMark(final long sequence) {
+		long mark = lowWaterMark;
+		if(sequence > mark) {
+			// sequences acknowledged before are not counted twice
+			long newlyAcknowledged = sequence - mark;
+			if(sequence - mark > acknowledgementMask) {
+				for(int i = 0; i < acknowledgementBits.length; i++)
+					newlyAcknowledged = newlyAcknowledged - Long.bitCount(acknowledgementBits[i]);
+				Arrays.fill(acknowledgementBits, 0L);
+			} else {
+				for(long s = mark; s < sequence; s++) {
+					int slot = (int)((s & acknowledgementMask) >>> 6);
+					long bit = 1L << s;
+					if((acknowledgementBits[slot] & bit) != 0) {
+						acknowledgementBits[slot] &= ~bit;
+						newlyAcknowledged--;
+					}
+				}
+			}
+			acknowledged.addAndGet(newlyAcknowledged);
+			mark = sequence;
+		}
+		
+		while(true) {
+			int slot = (int)((mark & acknowledgementMask) >>> 6);
+			long bit = 1L << mark;
+			if((acknowledgementBits[slot] & bit) == 0)
+				break;
+			acknowledgementBits[slot] &= ~bit;
+			mark++;
+		}
+		lowWaterMark = mark;
+	}
+	
+	/**
+	 * Reads the events left unacknowledged by the previous run and hands them over to the given handler in order of their sequences. 
+	 * Records lost due to a torn write or a corrupted segment are acknowledged as they will never be replayed.
+	 * @param handler
+	 * @return number of replayed events
+	 */
+	public long replay(final JournalReplayHandler handler) {
+		
+		final List<File> files = new ArrayList<>();
+		synchronized(appendLock) {
+			files.addAll(segments.headMap(recoveredUntil).values());
+		}
+		
+		final RecoveredEventReader reader = new RecoveredEventReader(handler);
+		for(File file : files) {
+			// segments holding acknowledged events only may have been deleted in the meantime
+			if(!file.exists())
+				continue;
+			try {
+				JournalSegment segment = JournalSegment.open(file);
+				try {
+					segment.replay(reader.expectedSequence, reader);
+				} finally {
+					segment.close();
+				}
+			} catch(IOException e) {
+				logger.error("Failed to replay journal segment " + file.getAbsolutePath() + ": " + e.getMessage());
+			}
+		}
+		acknowledgeRange(reader.expectedSequence, recoveredUntil);
+		return reader.replayed;
+	}
+	
+	/**
+	 * Reads the unacknowledged events between the given sequences and hands them over to the given handler in order of their sequences.
+	 * Used for redelivering events lost while running, eg. due to a failed insert or a full mailbox. Events failing to decode are 
+	 * acknowledged and skipped
+	 * @param fromSequence first sequence to redeliver, sequences below the low-water mark are skipped
+	 * @param untilSequence sequence following the last one to redeliver
+	 * @param maxEvents max. number of events to hand over
+	 * @param handler
+	 * @return number of redelivered events
+	 */
+	public int redeliver(final long fromSequence, final long untilSequence, final int maxEvents, final JournalReplayHandler handler) {
+		
+		final long from = Math.max(fromSequence, lowWaterMark);
+		if(from >= untilSequence || maxEvents <= 0)
+			return 0;
+		
+		final List<File> files = new ArrayList<>();
+		synchronized(appendLock) {
+			// the segment holding the first sequence starts at or below it
+			Long first = segments.floorKey(from);
+			if(first == null)
+				first = from;
+			files.addAll(segments.subMap(first, untilSequence).values());
+		}
+		
+		final UnacknowledgedEventReader reader = new UnacknowledgedEventReader(handler, untilSequence, maxEvents);
+		for(File file : files) {
+			if(reader.redelivered >= maxEvents)
+				break;
+			// segments holding acknowledged events only may have been deleted in the meantime
+			if(!file.exists())
+				continue;
+			try {
+				JournalSegment segment = JournalSegment.open(file);
+				try {
+					segment.replay(from, reader);
+				} finally {
+					segment.close();
+				}
+			} catch(IOException e) {
+				logger.error("Failed to redeliver from journal segment " + file.getAbsolutePath() + ": " + e.getMessage());
+			}
+		}
+		return reader.redelivered;
+	}
+	
+	/**
+	 * Acknowledges all events left unacknowledged by the previous run without replaying them
+	 */
+	public void discardRecovered() {
+		acknowledgeRange(recoveredFrom, recoveredUntil);
+	}
+	
+	/**
+	 * Reads the instance id file. A random id is created and written to disk if there is none, eg. as the journal directory is new
+	 * @return instance id
+	 * @throws IOException
+	 */
+	protected String readInstanceId() throws IOException {
+		File file = new File(directory, INSTANCE_ID_FILE);
+		if(file.isFile()) {
+			String id = new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+			if(!id.isEmpty())
+				return id;
+			logger.warn("Empty journal instance id file, creating a new instance id");
+		}
+		
+		String id = Long.toHexString(new SecureRandom().nextLong());
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(id.getBytes(StandardCharsets.US_ASCII));
+			out.getFD().sync();
+		} finally {
+			out.close();
+		}
+		return id;
+	}
+	
+	/**
+	 * Stops the group commits, writes the active segment and the checkpoint to disk and closes all files. Events must
+	 * not be appended afterwards
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		closeSegments();
+		logger.info("Journal closed [checkpoint="+getPersistedCheckpoint()+", nextSequence="+nextSequence+"]");
+	}
+	
+	/**
+	 * Sets the signal raised while appending waits for acknowledgements
+	 * @param overloadSignal may be null
+	 */
+	public void setOverloadSignal(final OverloadSignal overloadSignal) {
+		this.overloadSignal = overloadSignal;
+	}
+	
+	/**
+	 * Returns the id of the journal instance, available after {@link #open() opening} the journal
+	 * @return
+	 */
+	public String getInstanceId() {
+		return instanceId;
+	}
+	
+	/**
+	 * Returns the oldest unacknowledged sequence
+	 * @return
+	 */
+	public long getLowWaterMark() {
+		return lowWaterMark;
+	}
+	
+	/**
+	 * Returns the number of acknowledgements received so far, including events acknowledged as lost
+	 * @return
+	 */
+	public long getAcknowledged() {
+		return acknowledged.get();
+	}
+	
+	/**
+	 * Returns the number of events between the oldest unacknowledged and the latest one
+	 * @return
+	 */
+	public long getUnacknowledged() {
+		return nextSequence - lowWaterMark;
+	}
+	
+	/**
+	 * Returns the number of events left unacknowledged by the previous run
+	 * @return
+	 */
+	public long getRecoveredCount() {
+		return recoveredUntil - recoveredFrom;
+	}
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#parseFirstSequence(java.io.File)
+	 */
+	protected long parseFirstSequence(File file) {
+		return JournalSegment.parseFirstSequence(file);
+	}
+
+	/**
+	 * Segment files are opened on demand only
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#loadSegment(java.io.File)
+	 */
+	protected File loadSegment(File file) {
+		return file;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#recoverNextSequence(long, java.lang.Object)
+	 */
+	protected long recoverNextSequence(long firstSequence, File segmentFile) {
+		try {
+			JournalSegment segment = JournalSegment.open(segmentFile);
+			try {
+				segment.replay(Long.MAX_VALUE, null);
+				return segment.getLastSequence() + 1;
+			} finally {
+				segment.close();
+			}
+		} catch(IOException e) {
+			logger.warn("Failed to read latest journal segment " + segmentFile.getAbsolutePath() + ": " + e.getMessage());
+			return firstSequence;
+		}
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#createSegment(long)
+	 */
+	protected JournalSegment createSegment(long firstSequence) throws IOException {
+		return JournalSegment.create(directory, firstSequence, segmentSize);
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#segmentEntry(com.mnxfst.basar.tracking.journal.LogSegment)
+	 */
+	protected File segmentEntry(JournalSegment segment) {
+		return segment.getFile();
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#fileOf(java.lang.Object)
+	 */
+	protected File fileOf(File segmentFile) {
+		return segmentFile;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#releaseSegment(java.lang.Object)
+	 */
+	protected void releaseSegment(File segmentFile) {
+		// no resources held
+	}
+
+	/**
+	 * The low-water mark: all events below are acknowledged
+	 * @see com.mnxfst.basar.tracking.journal.SegmentLog#checkpointSequence()
+	 */
+	protected long checkpointSequence() {
+		return lowWaterMark;
+	}
+	
+	/**
+	 * Decodes the records of recovered segments and hands them over to the replay handler. Records missing in between are
+	 * acknowledged, records failing to decode are acknowledged and skipped 
+	 */
+	private class RecoveredEventReader implements JournalRecordHandler {
+		
+		/** receives the replayed events */
+		private final JournalReplayHandler handler;
+		/** sequence of the next record to replay */
+		private long expectedSequence = recoveredFrom;
+		/** number of replayed events */
+		private long replayed = 0;
+		
+		private RecoveredEventReader(final JournalReplayHandler handler) {
+			this.handler = handler;
+		}
+		
+		/**
+		 * @see com.mnxfst.basar.tracking.journal.JournalRecordHandler#onRecord(long, java.nio.ByteBuffer)
+		 */
+		public void onRecord(long sequence, ByteBuffer payload) {
+			if(sequence < expectedSequence || sequence >= recoveredUntil)
+				return;
+			
+			acknowledgeRange(expectedSequence, sequence);
+			expectedSequence = sequence + 1;
+			
+			final TrackingEvent trackingEvent;
+			try {
+				trackingEvent = TrackingEventCodec.decode(payload);
+			} catch(RuntimeException e) {
+				logger.error("Failed to decode journaled event [sequence="+sequence+"]: " + e.getMessage());
+				acknowledge(sequence);
+				return;
+			}
+			trackingEvent.setJournalSequence(sequence);
+			handler.onEvent(trackingEvent);
+			replayed++;
+		}
+	}
+	
+	/**
+	 * Decodes the unacknowledged records below a given sequence and hands them over to the redelivery handler. Records failing to decode 
+	 * are acknowledged and skipped 
+	 */
+	private class UnacknowledgedEventReader implements JournalRecordHandler {
+		
+		/** receives the redelivered events */
+		private final JournalReplayHandler handler;
+		/** sequence following the last one to redeliver */
+		private final long untilSequence;
+		/** max. number of events to redeliver */
+		private final int maxEvents;
+		/** number of redelivered events */
+		private int redelivered = 0;
+		
+		private UnacknowledgedEventReader(final JournalReplayHandler handler, final long untilSequence, final int maxEvents) {
+			this.handler = handler;
+			this.untilSequence = untilSequence;
+			this.maxEvents = maxEvents;
+		}
+		
+		/**
+		 * @see com.mnxfst.basar.tracking.journal.JournalRecordHandler#onRecord(long, java.nio.ByteBuffer)
+		 */
+		public void onRecord(long sequence, ByteBuffer payload) {
+			if(sequence >= untilSequence || redelivered >= maxEvents || isAcknowledged(sequence))
+				return;
+			
+			final TrackingEvent trackingEvent;
+			try {
+				trackingEvent = TrackingEventCodec.decode(payload);
+			} catch(RuntimeException e) {
+				logger.error("Failed to decode journaled event [sequence="+sequence+"]: " + e.getMessage());
+				acknowledge(sequence);
+				return;
+			}
+			trackingEvent.setJournalSequence(sequence);
+			handler.onEvent(trackingEvent);
+			redelivered++;
+		}
+	}
+	
+}
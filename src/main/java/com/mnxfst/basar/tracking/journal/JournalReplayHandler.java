@@ -0,0 +1,36 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Receives the {@link TrackingEvent tracking events} replayed from the {@link EventJournal journal}
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public interface JournalReplayHandler {
+
+	/**
+	 * Handles a replayed event, its {@link TrackingEvent#getJournalSequence() journal sequence} is set
+	 * @param trackingEvent
+	 */
+	public void onEvent(TrackingEvent trackingEvent);
+	
+}
@@ -0,0 +1,212 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.ActorRef;
+
+import com.codahale.metrics.Meter;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Feeds the events left unacknowledged by the previous run back into the {@link com.mnxfst.basar.tracking.db.DatabaseRoot database root}. Replayed events 
+ * bypass the message gateway, thus metrics are not updated twice. The number of replayed events awaiting their acknowledgement 
+ * is bounded, which keeps the replay from flooding the bounded mailboxes of the writers. If acknowledgements stall, eg. as the 
+ * database is not available, the replayer waits for a while and continues: the outstanding events stay in the journal.<br/>
+ * Afterwards the replayer keeps redelivering events lost while running, eg. due to a failed insert or a full mailbox: each round 
+ * redelivers the events appended before the previous round which are still unacknowledged. A round stops as soon as acknowledgements
+ * stall and continues with the next one. Events which are slow rather than lost, eg. waiting in a writer mailbox, are redelivered
+ * as well: their copies fail on the document identifier derived from the journal sequence and are not inserted twice.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class JournalReplayer implements Runnable, JournalReplayHandler {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(JournalReplayer.class);
+	
+	/** time to park while waiting for acknowledgements */
+	private static final long WAIT_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+	/** max. time to wait for acknowledgements before the replay continues */
+	private static final long MAX_STALL_NANOS = TimeUnit.SECONDS.toNanos(5);
+	/** max. number of events read from the journal at once while redelivering */
+	private static final int MAX_REDELIVERY_BATCH = 1024;
+	
+	/** journal to replay */
+	private final EventJournal journal;
+	/** reference towards the database root receiving the replayed events */
+	private final ActorRef databaseRootRef;
+	/** max. number of replayed events awaiting their acknowledgement */
+	private final int maxInFlight;
+	/** replay the events left unacknowledged by the previous run */
+	private final boolean replayRecovered;
+	/** min. age of unacknowledged events before they are redelivered, 0 disables redelivery */
+	private final long redeliverIntervalNanos;
+	/** counts replayed events */
+	private final Meter replayedEvents = PipelineMetrics.registry().meter(PipelineMetrics.JOURNAL_REPLAYED);
+	/** counts redelivered events */
+	private final Meter redeliveredEvents = PipelineMetrics.registry().meter(PipelineMetrics.JOURNAL_REDELIVERED);
+	
+	/** thread running the replayer */
+	private volatile Thread runner = null;
+	/** keeps the redelivery running */
+	private volatile boolean running = true;
+	/** events are redelivered rather than replayed */
+	private boolean redelivering = false;
+	/** acknowledgements stalled while redelivering */
+	private boolean stalled = false;
+	/** sequence of the latest event sent */
+	private long lastSentSequence = -1;
+	
+	/** acknowledgements received before the replay started */
+	private long acknowledgedBefore = 0;
+	/** number of events sent so far */
+	private long sent = 0;
+	/** number of events given up waiting for */
+	private long credited = 0;
+	
+	/**
+	 * Initializes the replayer using the provided input
+	 * @param journal
+	 * @param databaseRootRef
+	 * @param maxInFlight
+	 */
+	public JournalReplayer(final EventJournal journal, final ActorRef databaseRootRef, final int maxInFlight) {
+		this(journal, databaseRootRef, maxInFlight, true, 0);
+	}
+	
+	/**
+	 * Initializes the replayer using the provided input
+	 * @param journal
+	 * @param databaseRootRef
+	 * @param maxInFlight
+	 * @param replayRecovered replay the events left unacknowledged by the previous run
+	 * @param redeliverIntervalMillis min. age of unacknowledged events before they are redelivered, 0 disables redelivery
+	 */
+	public JournalReplayer(final EventJournal journal, final ActorRef databaseRootRef, final int maxInFlight, final boolean replayRecovered, final long redeliverIntervalMillis) {
+		this.journal = journal;
+		this.databaseRootRef = databaseRootRef;
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.replayRecovered = replayRecovered;
+		this.redeliverIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, redeliverIntervalMillis));
+	}
+	
+	/**
+	 * @see java.lang.Runnable#run()
+	 */
+	public void run() {
+		this.runner = Thread.currentThread();
+		this.acknowledgedBefore = journal.getAcknowledged();
+		
+		if(replayRecovered && journal.getRecoveredCount() > 0) {
+			logger.info("Replaying up to " + journal.getRecoveredCount() + " unacknowledged events from journal");
+			final long start = System.currentTimeMillis();
+			final long replayed = journal.replay(this);
+			logger.info("Replayed " + replayed + " events from journal in " + (System.currentTimeMillis() - start) + "ms");
+		}
+		
+		if(redeliverIntervalNanos == 0)
+			return;
+		
+		this.redelivering = true;
+		long horizon = journal.getNextSequence();
+		while(running) {
+			LockSupport.parkNanos(redeliverIntervalNanos);
+			if(!running)
+				break;
+			
+			// events appended before the previous round are at least one interval old
+			final long nextHorizon = journal.getNextSequence();
+			if(journal.getLowWaterMark() < horizon) {
+				final long redelivered = redeliver(horizon);
+				if(redelivered > 0)
+					logger.warn("Redelivered " + redelivered + " unacknowledged events from journal [lowWaterMark="+journal.getLowWaterMark()+"]");
+			}
+			horizon = nextHorizon;
+		}
+	}
+	
+	/**
+	 * Redelivers the unacknowledged events below the given sequence until all have been sent or acknowledgements stall
+	 * @param untilSequence
+	 * @return number of redelivered events
+	 */
+	protected long redeliver(final long untilSequence) {
+		long redelivered = 0;
+		long fromSequence = journal.getLowWaterMark();
+		this.stalled = false;
+		// acknowledgements of live events are counted as well, thus the in-flight accounting restarts with each round
+		this.acknowledgedBefore = journal.getAcknowledged();
+		this.sent = 0;
+		this.credited = 0;
+		while(running && !stalled) {
+			int batch = journal.redeliver(fromSequence, untilSequence, MAX_REDELIVERY_BATCH, this);
+			redelivered = redelivered + batch;
+			if(batch < MAX_REDELIVERY_BATCH)
+				break;
+			fromSequence = lastSentSequence + 1;
+		}
+		return redelivered;
+	}
+	
+	/**
+	 * Stops redelivering events
+	 */
+	public void shutdown() {
+		this.running = false;
+		Thread thread = runner;
+		if(thread != null)
+			LockSupport.unpark(thread);
+	}
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.journal.JournalReplayHandler#onEvent(com.mnxfst.basar.tracking.model.TrackingEvent)
+	 */
+	public void onEvent(TrackingEvent trackingEvent) {
+		
+		// acknowledgements of live events are counted as well, thus the bound is a rough one while the server receives traffic
+		long waitingSince = 0;
+		while(sent - credited - (journal.getAcknowledged() - acknowledgedBefore) >= maxInFlight) {
+			if(waitingSince == 0) {
+				waitingSince = System.nanoTime();
+			} else if(System.nanoTime() - waitingSince > MAX_STALL_NANOS) {
+				long outstanding = sent - credited - (journal.getAcknowledged() - acknowledgedBefore);
+				logger.warn("No acknowledgements received for replayed events within " + TimeUnit.NANOSECONDS.toMillis(MAX_STALL_NANOS) + "ms. Continuing with " + outstanding + " events outstanding");
+				credited = credited + outstanding;
+				stalled = true;
+				break;
+			}
+			LockSupport.parkNanos(WAIT_PARK_NANOS);
+		}
+		
+		databaseRootRef.tell(trackingEvent, ActorRef.noSender());
+		sent++;
+		lastSentSequence = trackingEvent.getJournalSequence();
+		if(redelivering)
+			redeliveredEvents.mark();
+		else
+			replayedEvents.mark();
+	}
+	
+}
@@ -0,0 +1,248 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.zip.CRC32;
+
+/**
+ * Single memory-mapped file of the {@link EventJournal event journal}. The file starts with a header (magic, version, 
+ * sequence of first record) followed by the records, each one made up of:
+ * <ul>
+ *   <li>length of record body (4 bytes)</li>
+ *   <li>crc32 checksum of record body (4 bytes)</li>
+ *   <li>record body: sequence (8 bytes) and payload</li>
+ * </ul>
+ * Files are allocated at their full size and thus zero-filled, a length of zero marks the end of the written records. Reading
+ * stops at the first record which is incomplete or does not match its checksum, eg. a record torn by a crash.<br/><br/>
+ * Instances are not thread-safe. The mapping of a closed segment is released by the garbage collector.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class JournalSegment implements LogSegment {
+
+	public static final int MAGIC = 0x424A524E;
+	public static final int VERSION = 1;
+	/** magic, version and sequence of first record */
+	public static final int HEADER_SIZE = 16;
+	/** length and checksum preceding each record body */
+	public static final int RECORD_HEADER_SIZE = 8;
+	/** sequence at the start of each record body */
+	public static final int SEQUENCE_SIZE = 8;
+	public static final String FILE_SUFFIX = ".journal";
+	
+	/** segment file */
+	private final File file;
+	/** sequence of first record */
+	private final long firstSequence;
+	/** channel the mapping was created from */
+	private final FileChannel channel;
+	/** mapped file content */
+	private final MappedByteBuffer buffer;
+	/** computes record checksums */
+	private final CRC32 checksum = new CRC32();
+	/** sequence of last record appended or read */
+	private long lastSequence;
+	
+	/**
+	 * Initializes the segment using the provided input
+	 * @param file
+	 * @param firstSequence
+	 * @param channel
+	 * @param buffer mapped file content, positioned behind the header
+	 */
+	protected JournalSegment(final File file, final long firstSequence, final FileChannel channel, final MappedByteBuffer buffer) {
+		this.file = file;
+		this.firstSequence = firstSequence;
+		this.channel = channel;
+		this.buffer = buffer;
+		this.lastSequence = firstSequence - 1;
+	}
+	
+	/**
+	 * Creates a new segment file of the given size for appending records
+	 * @param directory
+	 * @param firstSequence
+	 * @param size
+	 * @return
+	 * @throws IOException
+	 */
+	public static JournalSegment create(final File directory, final long firstSequence, final int size) throws IOException {
+		File file = new File(directory, fileName(firstSequence));
+		if(file.exists())
+			throw new IOException("Journal segment already exists: " + file.getAbsolutePath());
+		
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(size);
+			FileChannel channel = randomAccessFile.getChannel();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_WRITE, 0, size);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(firstSequence);
+			return new JournalSegment(file, firstSequence, channel, buffer);
+		} catch(IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Opens an existing segment file for reading
+	 * @param file
+	 * @return
+	 * @throws IOException if the file is not a journal segment
+	 */
+	public static JournalSegment open(final File file) throws IOException {
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if(buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC)
+				throw new IOException("Not a journal segment: " + file.getAbsolutePath());
+			int version = buffer.getInt();
+			if(version != VERSION)
+				throw new IOException("Unsupported journal segment version " + version + ": " + file.getAbsolutePath());
+			return new JournalSegment(file, buffer.getLong(), channel, buffer);
+		} catch(IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Appends a record
+	 * @param sequence sequence of the record, also contained in the first 8 bytes of the body
+	 * @param body array holding the record body
+	 * @param length length of the record body
+	 * @return false if the remaining space does not suffice
+	 */
+	public boolean append(final long sequence, final byte[] body, final int length) {
+		if(buffer.remaining() < RECORD_HEADER_SIZE + length)
+			return false;
+		
+		checksum.reset();
+		checksum.update(body, 0, length);
+		buffer.putInt(length);
+		buffer.putInt((int)checksum.getValue());
+		buffer.put(body, 0, length);
+		lastSequence = sequence;
+		return true;
+	}
+	
+	/**
+	 * Reads all valid records from the start of the segment and hands those over to the given handler which are not older than the
+	 * referenced sequence
+	 * @param fromSequence
+	 * @param handler may be null if the segment is read for determining its last sequence only
+	 * @return number of records handed over
+	 */
+	public int replay(final long fromSequence, final JournalRecordHandler handler) {
+		
+		ByteBuffer in = buffer.duplicate();
+		in.position(HEADER_SIZE);
+		byte[] body = new byte[1024];
+		int records = 0;
+		while(in.remaining() >= RECORD_HEADER_SIZE) {
+			
+			int length = in.getInt();
+			int expectedChecksum = in.getInt();
+			if(length < SEQUENCE_SIZE || length > in.remaining())
+				break;
+			
+			if(body.length < length)
+				body = new byte[Math.max(length, body.length * 2)];
+			in.get(body, 0, length);
+			checksum.reset();
+			checksum.update(body, 0, length);
+			if((int)checksum.getValue() != expectedChecksum)
+				break;
+			
+			ByteBuffer record = ByteBuffer.wrap(body, 0, length);
+			long sequence = record.getLong();
+			lastSequence = sequence;
+			if(handler != null && sequence >= fromSequence) {
+				handler.onRecord(sequence, record.slice());
+				records++;
+			}
+		}
+		return records;
+	}
+	
+	/**
+	 * Writes the records appended so far to disk
+	 */
+	public void force() {
+		buffer.force();
+	}
+	
+	/**
+	 * Closes the underlying channel
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * Returns the name of the segment file holding the given first sequence. Names sort in order of their sequences
+	 * @param firstSequence
+	 * @return
+	 */
+	public static String fileName(final long firstSequence) {
+		return String.format("%020d", firstSequence) + FILE_SUFFIX;
+	}
+	
+	/**
+	 * Returns the first sequence encoded in the name of the given segment file or -1 if the file is no segment
+	 * @param file
+	 * @return
+	 */
+	public static long parseFirstSequence(final File file) {
+		String name = file.getName();
+		if(!name.endsWith(FILE_SUFFIX))
+			return -1;
+		try {
+			return Long.parseLong(name.substring(0, name.length() - FILE_SUFFIX.length()));
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public long getFirstSequence() {
+		return firstSequence;
+	}
+
+	/**
+	 * Returns the sequence of the last record appended or read, first sequence - 1 if there is none
+	 * @return
+	 */
+	public long getLastSequence() {
+		return lastSequence;
+	}
+	
+}
@@ -0,0 +1,48 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Memory-mapped segment file of a {@link SegmentLog segment log} receiving appended records
+ * @author mnxfst
+ * @since 20.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public interface LogSegment {
+
+	/**
+	 * Writes the records appended so far to disk
+	 */
+	public void force();
+	
+	/**
+	 * Closes the underlying channel
+	 * @throws IOException
+	 */
+	public void close() throws IOException;
+	
+	/**
+	 * Returns the segment file
+	 * @return
+	 */
+	public File getFile();
+	
+}
@@ -0,0 +1,414 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import com.codahale.metrics.Timer;
+
+/**
+ * Common base of the append-only logs kept on local disk as a sequence of memory-mapped {@link LogSegment segments}, 
+ * each one named by the sequence of its first record:
+ * <ul>
+ *   <li>recovery: on opening, the last valid record of the latest segment determines the next sequence. Appending always
+ *       continues in a new active segment</li>
+ *   <li>group commit: a flusher thread writes the active segment to disk every few milliseconds or as soon as enough bytes have 
+ *       been appended, thus appending never waits for the disk</li>
+ *   <li>checkpoint: the position up to which records are no longer needed is persisted (checksummed) from time to time and 
+ *       segments holding such records only are deleted</li>
+ * </ul>
+ * Subclasses define the segment format, the appending and the position persisted as checkpoint.
+ * @param <A> type of the active segment
+ * @param <S> type of the segments kept along with their first sequence
+ * @author mnxfst
+ * @since 20.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public abstract class SegmentLog<A extends LogSegment, S> {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(SegmentLog.class);
+	
+	/** name of the file holding the checkpoint */
+	public static final String CHECKPOINT_FILE = "checkpoint";
+	/** min. time between writing two checkpoints */
+	private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+	
+	/** name of the log used in messages */
+	private final String name;
+	/** directory holding segments and checkpoint */
+	protected final File directory;
+	/** max. time between two group commits */
+	private final long flushIntervalNanos;
+	/** appended bytes triggering a group commit */
+	protected final int flushBytes;
+	/** measures group commits */
+	private final Timer flushTimer;
+	
+	/** guards rolling and the segments */
+	protected final Object appendLock = new Object();
+	/** segment receiving appended records, replaced while holding the append lock */
+	protected volatile A activeSegment = null;
+	/** sequence assigned to the next appended record */
+	protected volatile long nextSequence = 0;
+	/** bytes appended since the last group commit */
+	protected final AtomicLong unflushedBytes = new AtomicLong();
+	/** segments kept on disk (including the active one) by their first sequence, guarded by the append lock */
+	protected final TreeMap<Long, S> segments = new TreeMap<>();
+	
+	/** checkpoint file */
+	private FileChannel checkpointChannel = null;
+	/** position found in or last written to the checkpoint file */
+	private long persistedCheckpoint = 0;
+	/** time the checkpoint has been written the last time */
+	private long checkpointWrittenAt = 0;
+	/** encodes the checkpoint */
+	private final ByteBuffer checkpointBuffer = ByteBuffer.allocate(12);
+	/** checksum of the checkpoint */
+	private final CRC32 checkpointChecksum = new CRC32();
+	
+	/** runs the group commits */
+	protected Thread flusherThread = null;
+	/** keeps the flusher running */
+	protected volatile boolean running = false;
+	
+	/**
+	 * Initializes the log using the provided input
+	 * @param name name of the log used in messages
+	 * @param directory
+	 * @param flushIntervalMillis max. time between two group commits
+	 * @param flushBytes appended bytes triggering a group commit
+	 * @param flushTimer measures group commits
+	 */
+	protected SegmentLog(final String name, final File directory, final long flushIntervalMillis, final int flushBytes, final Timer flushTimer) {
+		this.name = name;
+		this.directory = directory;
+		this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+		this.flushBytes = Math.max(1, flushBytes);
+		this.flushTimer = flushTimer;
+	}
+	
+	/**
+	 * Returns the first sequence encoded in the name of the given file or -1 if the file is no segment
+	 * @param file
+	 * @return
+	 */
+	protected abstract long parseFirstSequence(final File file);
+	
+	/**
+	 * Loads the given segment file found on opening the log
+	 * @param file
+	 * @return
+	 * @throws IOException if the file is not a readable segment
+	 */
+	protected abstract S loadSegment(final File file) throws IOException;
+	
+	/**
+	 * Returns the sequence following the last valid record of the given segment
+	 * @param firstSequence
+	 * @param segment
+	 * @return
+	 */
+	protected abstract long recoverNextSequence(final long firstSequence, final S segment);
+	
+	/**
+	 * Creates a new segment file for appending records
+	 * @param firstSequence
+	 * @return
+	 * @throws IOException
+	 */
+	protected abstract A createSegment(final long firstSequence) throws IOException;
+	
+	/**
+	 * Returns the value kept for the given active segment
+	 * @param segment
+	 * @return
+	 */
+	protected abstract S segmentEntry(final A segment);
+	
+	/**
+	 * Returns the file of the given segment
+	 * @param segment
+	 * @return
+	 */
+	protected abstract File fileOf(final S segment);
+	
+	/**
+	 * Releases the resources held by the given segment before it is deleted or the log is closed
+	 * @param segment
+	 */
+	protected abstract void releaseSegment(final S segment);
+	
+	/**
+	 * Returns the position to persist as checkpoint: all records below are no longer needed
+	 * @return
+	 */
+	protected abstract long checkpointSequence();
+	
+	/**
+	 * Reads the checkpoint, loads the existing segments, determines the next sequence and creates a new active segment 
+	 * @return next sequence
+	 * @throws IOException
+	 */
+	protected long openSegments() throws IOException {
+		
+		if(!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Failed to create " + name + " directory " + directory.getAbsolutePath());
+		
+		this.checkpointChannel = new RandomAccessFile(new File(directory, CHECKPOINT_FILE), "rw").getChannel();
+		this.persistedCheckpoint = readCheckpoint();
+		
+		File[] files = directory.listFiles();
+		if(files != null) {
+			for(File file : files) {
+				long firstSequence = parseFirstSequence(file);
+				if(firstSequence < 0)
+					continue;
+				try {
+					segments.put(firstSequence, loadSegment(file));
+				} catch(IOException e) {
+					logger.warn("Skipping unreadable " + name + " segment " + file.getAbsolutePath() + ": " + e.getMessage());
+				}
+			}
+		}
+		
+		// the last valid record of the latest segment determines the next sequence. a torn record at its end is overwritten by no one 
+		// as appending continues in a new segment
+		long next = persistedCheckpoint;
+		if(!segments.isEmpty()) {
+			Map.Entry<Long, S> latest = segments.lastEntry();
+			next = Math.max(next, recoverNextSequence(latest.getKey(), latest.getValue()));
+		}
+		
+		// an empty or unreadable segment may carry the name of the new active segment
+		S stale = segments.remove(next);
+		if(stale != null) {
+			releaseSegment(stale);
+			if(!fileOf(stale).delete())
+				throw new IOException("Failed to delete stale " + name + " segment " + fileOf(stale).getAbsolutePath());
+		}
+		
+		synchronized(appendLock) {
+			this.nextSequence = next;
+			this.activeSegment = createSegment(next);
+			this.segments.put(next, segmentEntry(activeSegment));
+		}
+		return next;
+	}
+	
+	/**
+	 * Starts the thread running the group commits
+	 * @param threadName
+	 */
+	protected void startFlusher(final String threadName) {
+		this.running = true;
+		this.flusherThread = new Thread(new Runnable() {
+			public void run() {
+				while(running) {
+					LockSupport.parkNanos(flushIntervalNanos);
+					flush();
+				}
+			}
+		}, threadName);
+		this.flusherThread.setDaemon(true);
+		this.flusherThread.start();
+	}
+	
+	/**
+	 * Writes the active segment to disk and continues with a new one starting at the next sequence. Must be called while 
+	 * holding the append lock
+	 * @throws IOException
+	 */
+	protected void roll() throws IOException {
+		activeSegment.force();
+		activeSegment.close();
+		activeSegment = createSegment(nextSequence);
+		segments.put(nextSequence, segmentEntry(activeSegment));
+		unflushedBytes.set(0);
+	}
+	
+	/**
+	 * Group commit: writes the active segment to disk if records have been appended since the previous call. Persists the 
+	 * checkpoint and deletes the segments no longer needed
+	 */
+	protected void flush() {
+		
+		final A segment;
+		final boolean dirty;
+		synchronized(appendLock) {
+			segment = activeSegment;
+			dirty = unflushedBytes.getAndSet(0) > 0;
+		}
+		
+		if(segment != null && dirty) {
+			final Timer.Context timerContext = flushTimer.time();
+			try {
+				segment.force();
+			} finally {
+				timerContext.stop();
+			}
+		}
+		
+		final long checkpoint = checkpointSequence();
+		if(checkpoint != persistedCheckpoint && System.currentTimeMillis() - checkpointWrittenAt >= CHECKPOINT_INTERVAL_MILLIS) {
+			try {
+				writeCheckpoint(checkpoint);
+				deleteSegments(checkpoint);
+			} catch(IOException e) {
+				logger.error("Failed to write " + name + " checkpoint: " + e.getMessage());
+			}
+		}
+	}
+	
+	/**
+	 * Deletes all segments holding sequences below the given checkpoint only. The active segment is never deleted
+	 * @param checkpoint
+	 */
+	protected void deleteSegments(final long checkpoint) {
+		
+		final List<S> deletable = new ArrayList<>();
+		synchronized(appendLock) {
+			// a segment holds all sequences up to the first sequence of its successor
+			while(segments.size() > 1) {
+				Long successor = segments.higherKey(segments.firstKey());
+				if(successor == null || successor.longValue() > checkpoint)
+					break;
+				deletable.add(segments.pollFirstEntry().getValue());
+			}
+		}
+		
+		for(S segment : deletable) {
+			releaseSegment(segment);
+			if(!fileOf(segment).delete())
+				logger.warn("Failed to delete " + name + " segment " + fileOf(segment).getAbsolutePath());
+		}
+	}
+	
+	/**
+	 * Reads the checkpoint file
+	 * @return persisted position, 0 if there is none or it is invalid
+	 * @throws IOException
+	 */
+	protected long readCheckpoint() throws IOException {
+		if(checkpointChannel.size() < checkpointBuffer.capacity())
+			return 0;
+		
+		checkpointBuffer.clear();
+		while(checkpointBuffer.hasRemaining()) {
+			if(checkpointChannel.read(checkpointBuffer, checkpointBuffer.position()) < 0)
+				return 0;
+		}
+		
+		checkpointChecksum.reset();
+		checkpointChecksum.update(checkpointBuffer.array(), 0, 8);
+		if((int)checkpointChecksum.getValue() != checkpointBuffer.getInt(8)) {
+			logger.warn("Invalid " + name + " checkpoint, starting at the first segment");
+			return 0;
+		}
+		return Math.max(0, checkpointBuffer.getLong(0));
+	}
+	
+	/**
+	 * Writes the given position to the checkpoint file and forces it to disk
+	 * @param checkpoint
+	 * @throws IOException
+	 */
+	protected void writeCheckpoint(final long checkpoint) throws IOException {
+		checkpointBuffer.clear();
+		checkpointBuffer.putLong(checkpoint);
+		checkpointChecksum.reset();
+		checkpointChecksum.update(checkpointBuffer.array(), 0, 8);
+		checkpointBuffer.putInt((int)checkpointChecksum.getValue());
+		checkpointBuffer.flip();
+		while(checkpointBuffer.hasRemaining())
+			checkpointChannel.write(checkpointBuffer, checkpointBuffer.position());
+		checkpointChannel.force(false);
+		
+		this.persistedCheckpoint = checkpoint;
+		this.checkpointWrittenAt = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Stops the group commits, writes the active segment and the checkpoint to disk and closes all files
+	 * @throws IOException
+	 */
+	protected void closeSegments() throws IOException {
+		
+		running = false;
+		if(flusherThread != null) {
+			LockSupport.unpark(flusherThread);
+			try {
+				flusherThread.join();
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		synchronized(appendLock) {
+			if(activeSegment != null) {
+				activeSegment.force();
+				activeSegment.close();
+				activeSegment = null;
+			}
+		}
+		
+		if(checkpointChannel != null) {
+			final long checkpoint = checkpointSequence();
+			writeCheckpoint(checkpoint);
+			deleteSegments(checkpoint);
+			checkpointChannel.close();
+		}
+		
+		synchronized(appendLock) {
+			for(S segment : segments.values())
+				releaseSegment(segment);
+			segments.clear();
+		}
+	}
+	
+	/**
+	 * Returns the position found in or last written to the checkpoint file
+	 * @return
+	 */
+	public long getPersistedCheckpoint() {
+		return persistedCheckpoint;
+	}
+	
+	/**
+	 * Returns the sequence assigned to the next appended record
+	 * @return
+	 */
+	public long getNextSequence() {
+		return nextSequence;
+	}
+	
+}
@@ -0,0 +1,156 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Writes {@link TrackingEvent tracking events} into journal records using a fixed binary layout:
+ * <ul>
+ *   <li>timestamp (8 bytes), type, inbound interface, contractor, domain, source (string each)</li>
+ *   <li>number of parameters (4 bytes), followed by key (string), number of values (4 bytes) and values (string each) of every parameter</li>
+ * </ul>
+ * Strings are written as number of bytes (4 bytes, -1 for null) followed by their utf-8 representation. Strings are encoded
+ * directly into the target buffer, thus no intermediate byte arrays are created while writing.
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class TrackingEventCodec {
+
+	private TrackingEventCodec() {
+	}
+	
+	/**
+	 * Writes the provided event into the given buffer starting at its current position
+	 * @param trackingEvent
+	 * @param out
+	 * @throws BufferOverflowException if the buffer is too small
+	 */
+	public static void encode(final TrackingEvent trackingEvent, final ByteBuffer out) {
+		out.putLong(trackingEvent.getTimestamp());
+		writeString(trackingEvent.getType(), out);
+		writeString(trackingEvent.getInboundInterface(), out);
+		writeString(trackingEvent.getContractor(), out);
+		writeString(trackingEvent.getDomain(), out);
+		writeString(trackingEvent.getSource(), out);
+		
+		Map<String, List<String>> parameters = trackingEvent.getParameters();
+		out.putInt(parameters.size());
+		for(Map.Entry<String, List<String>> parameter : parameters.entrySet()) {
+			writeString(parameter.getKey(), out);
+			List<String> values = parameter.getValue();
+			out.putInt(values.size());
+			for(String value : values)
+				writeString(value, out);
+		}
+	}
+	
+	/**
+	 * Reads an event from the given buffer starting at its current position
+	 * @param in
+	 * @return
+	 * @throws BufferUnderflowException if the buffer does not hold a complete event
+	 */
+	public static TrackingEvent decode(final ByteBuffer in) {
+		long timestamp = in.getLong();
+		TrackingEvent trackingEvent = new TrackingEvent(readString(in), readString(in), readString(in), readString(in), readString(in), timestamp);
+		
+		int numOfParameters = in.getInt();
+		for(int i = 0; i < numOfParameters; i++) {
+			String key = readString(in);
+			int numOfValues = in.getInt();
+			if(numOfValues == 0)
+				trackingEvent.getParameters().put(key, Collections.<String>emptyList());
+			for(int j = 0; j < numOfValues; j++)
+				trackingEvent.addParameter(key, readString(in));
+		}
+		return trackingEvent;
+	}
+	
+	/**
+	 * Writes the utf-8 representation of the given string prefixed by its length. Unpaired surrogates are written as '?'
+	 * @param value
+	 * @param out
+	 */
+	protected static void writeString(final String value, final ByteBuffer out) {
+		if(value == null) {
+			out.putInt(-1);
+			return;
+		}
+		
+		final int lengthPosition = out.position();
+		out.putInt(0);
+		final int length = value.length();
+		for(int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if(c < 0x80) {
+				out.put((byte)c);
+			} else if(c < 0x800) {
+				out.put((byte)(0xC0 | (c >> 6)));
+				out.put((byte)(0x80 | (c & 0x3F)));
+			} else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				out.put((byte)(0xF0 | (codePoint >> 18)));
+				out.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+				out.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+				out.put((byte)(0x80 | (codePoint & 0x3F)));
+			} else if(Character.isSurrogate(c)) {
+				out.put((byte)'?');
+			} else {
+				out.put((byte)(0xE0 | (c >> 12)));
+				out.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+				out.put((byte)(0x80 | (c & 0x3F)));
+			}
+		}
+		out.putInt(lengthPosition, out.position() - lengthPosition - 4);
+	}
+	
+	/**
+	 * Reads a string written by {@link #writeString(String, ByteBuffer)}
+	 * @param in
+	 * @return
+	 */
+	protected static String readString(final ByteBuffer in) {
+		int length = in.getInt();
+		if(length < 0)
+			return null;
+		if(length > in.remaining())
+			throw new BufferUnderflowException();
+		
+		final String value;
+		if(in.hasArray()) {
+			value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+		} else {
+			byte[] bytes = new byte[length];
+			in.duplicate().get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		in.position(in.position() + length);
+		return value;
+	}
+	
+}
@@ -0,0 +1,61 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.io.Serializable;
+
+import akka.actor.ActorRef;
+
+/**
+ * Issued by {@link PageImpressionHandler} towards all {@link PageImpressionCacheWriter cache writers} as soon as
+ * the database writer has been registered. It tells the cache writers where to forward dirty counts to when
+ * running in write-behind mode 
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class AssignPageImpressionDBWriterMessage implements Serializable {
+
+	private static final long serialVersionUID = -4262713406018652937L;
+
+	/** reference to page impression database writer */
+	private ActorRef databaseWriterRef = null;
+	
+	/**
+	 * Default constructor
+	 */
+	public AssignPageImpressionDBWriterMessage() {		
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param databaseWriterRef
+	 */
+	public AssignPageImpressionDBWriterMessage(final ActorRef databaseWriterRef) {
+		this.databaseWriterRef = databaseWriterRef;
+	}
+
+	public ActorRef getDatabaseWriterRef() {
+		return databaseWriterRef;
+	}
+
+	public void setDatabaseWriterRef(ActorRef databaseWriterRef) {
+		this.databaseWriterRef = databaseWriterRef;
+	}
+	
+}
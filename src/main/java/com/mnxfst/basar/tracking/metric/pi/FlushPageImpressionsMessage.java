@@ -0,0 +1,42 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.io.Serializable;
+
+/**
+ * Periodically sent by each {@link PageImpressionDBWriter} (and {@link PageImpressionCacheWriter} in write-behind mode)
+ * to itself telling it to write all page impression counts aggregated since the previous flush
+ * @author mnxfst
+ * @since 20.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class FlushPageImpressionsMessage implements Serializable {
+
+	private static final long serialVersionUID = -1592406537612380347L;
+
+	/** shared instance as the message carries no state */
+	public static final FlushPageImpressionsMessage INSTANCE = new FlushPageImpressionsMessage();
+
+	/**
+	 * Default constructor
+	 */
+	public FlushPageImpressionsMessage() {		
+	}
+
+}
@@ -0,0 +1,93 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+/**
+ * Computes the time buckets page impressions are rolled up into. All buckets are aligned to UTC. An hourly document 
+ * keeps one counter per minute, a daily document keeps one counter per hour, thus a single document fetch answers
+ * "views per minute of an hour" or "views per hour of a day" 
+ * @author mnxfst
+ * @since 21.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public final class PageImpressionBuckets {
+
+	public static final long MILLIS_PER_MINUTE = 60 * 1000L;
+	public static final long MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+	public static final long MILLIS_PER_DAY = 24 * MILLIS_PER_HOUR;
+
+	private PageImpressionBuckets() {
+	}
+
+	/**
+	 * Returns the start of the minute the given time belongs to
+	 * @param timeMillis
+	 * @return
+	 */
+	public static long minuteStart(final long timeMillis) {
+		return timeMillis - floorMod(timeMillis, MILLIS_PER_MINUTE);
+	}
+
+	/**
+	 * Returns the start of the hour the given time belongs to
+	 * @param timeMillis
+	 * @return
+	 */
+	public static long hourStart(final long timeMillis) {
+		return timeMillis - floorMod(timeMillis, MILLIS_PER_HOUR);
+	}
+
+	/**
+	 * Returns the start of the day the given time belongs to
+	 * @param timeMillis
+	 * @return
+	 */
+	public static long dayStart(final long timeMillis) {
+		return timeMillis - floorMod(timeMillis, MILLIS_PER_DAY);
+	}
+
+	/**
+	 * Returns the minute of the hour (0-59) the given time belongs to
+	 * @param timeMillis
+	 * @return
+	 */
+	public static int minuteOfHour(final long timeMillis) {
+		return (int)(floorMod(timeMillis, MILLIS_PER_HOUR) / MILLIS_PER_MINUTE);
+	}
+
+	/**
+	 * Returns the hour of the day (0-23) the given time belongs to
+	 * @param timeMillis
+	 * @return
+	 */
+	public static int hourOfDay(final long timeMillis) {
+		return (int)(floorMod(timeMillis, MILLIS_PER_DAY) / MILLIS_PER_HOUR);
+	}
+
+	/**
+	 * Returns the non-negative remainder of the division
+	 * @param value
+	 * @param divisor
+	 * @return
+	 */
+	private static long floorMod(final long value, final long divisor) {
+		long mod = value % divisor;
+		return (mod < 0 ? mod + divisor : mod);
+	}
+
+}
@@ -1,103 +1,336 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.metric.pi;
-
-import org.apache.commons.lang.StringUtils;
-
-import net.spy.memcached.CASValue;
-import net.spy.memcached.MemcachedClient;
-
-import com.mnxfst.basar.tracking.cache.CacheValueWriter;
-
-/**
- * Writes/updates cached page impression values. The writer expects the same message types as {@link PageImpressionHandler}. 
- * @author mnxfst
- * @since 29.10.2013
- *
- * Revision Control Info $Id$
- */
-public class PageImpressionCacheWriter extends CacheValueWriter {
-
-	/**
-	 * Initializes the cache writer using the provided input
-	 * @param memcachedClient
-	 */
-	public PageImpressionCacheWriter(final MemcachedClient memcachedClient) {
-		super(memcachedClient);
-	}
-	
-	/**
-	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
-	 */
-	public void onReceive(Object message) throws Exception {
-
-		if(message instanceof PageImpressionWriteMessage) {
-			updateCachedPageImpression((PageImpressionWriteMessage)message, false); // TODO set to true to enable locks
-		} else {
-			unhandled(message);
-		}
-	}
-	
-	/**
-	 * Updates the referenced cache value by reading its current content, adding the
-	 * provided {@link PageImpressionWriteMessage#getCount() count} and writing the 
-	 * element back to cache. The update can be performed using CAS.
-	 * @param message
-	 * @param useCAS use CASE (concurrency control)
-	 */
-	protected void updateCachedPageImpression(final PageImpressionWriteMessage message, final boolean useCAS) {
-		
-		// allow updates only if the required information are available
-		if(message != null && StringUtils.isNotBlank(message.getContractorIdentifier()) && StringUtils.isNotBlank(message.getPageImpressionSource()) && message.getCount() > 0) {
-			
-			// calculate the cache key for the inbound message
-			String cacheKey = calculateCacheKey(message);
-			
-			if(useCAS) {
-				CASValue<Object> value = readCacheValueAndLock(cacheKey);
-				PageImpression pi = (PageImpression)value.getValue();
-				if(pi != null)
-					pi.addCount(message.getCount());
-				else 
-					pi = new PageImpression(message.getContractorIdentifier(), message.getPageImpressionSource(), message.getCount());			
-				CASValue<Object> updatedPi = new CASValue<Object>(value.getCas(), pi);
-				writeCacheValue(cacheKey, updatedPi);
-			} else {
-				PageImpression pi = (PageImpression)readCacheValue(cacheKey);
-				if(pi != null)
-					pi.addCount(message.getCount());
-				else 
-					pi = new PageImpression(message.getContractorIdentifier(), message.getPageImpressionSource(), message.getCount());			
-				writeCacheValue(cacheKey, pi);
-			}
-		}
-	}
-	
-	/**
-	 * Calculates the unique cache key for the provided message
-	 * @param message
-	 * @return
-	 */
-	protected String calculateCacheKey(final PageImpressionWriteMessage message) {
-		StringBuffer buf = new StringBuffer();
-		buf.append(message.getContractorIdentifier());
-		buf.append("-pi-");
-		buf.append(message.getPageImpressionSource());
-		return buf.toString();
-	}
-
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import net.spy.memcached.MemcachedClient;
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.cache.CacheValueWriter;
+import com.mnxfst.basar.tracking.cache.client.CacheClient;
+import com.mnxfst.basar.tracking.cache.client.MemcachedCacheClient;
+import com.mnxfst.basar.tracking.cache.message.CheckPendingIncrementsMessage;
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+
+/**
+ * Writes/updates cached page impression values. The writer expects the same message types as {@link PageImpressionHandler}.
+ * Page impression counts are kept as native numeric memcached values which are incremented by the cache server.<br/><br/>
+ * In write-behind mode the writer additionally keeps track of all keys modified since the previous flush along with
+ * the counts added to them (per minute, thus time buckets remain exact). A scheduled flush - or the number of dirty keys
+ * exceeding its limit - hands these counts over to the {@link PageImpressionDBWriter database writer} as a single
+ * {@link PageImpressionWriteBatchMessage batch}. Remaining counts are handed over when the writer stops. Until a database writer
+ * has been assigned, the number of dirty keys is capped and counts towards further keys are dropped.
+ * @author mnxfst
+ * @since 29.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionCacheWriter extends CacheValueWriter {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(PageImpressionCacheWriter.class);
+	
+	/** max. number of dirty keys kept until a database writer is assigned if no other limit is configured */
+	public static final int DEFAULT_MAX_UNASSIGNED_DIRTY_KEYS = 10000;
+	
+	/** forward counts to database writer on flush */
+	private final boolean writeBehindEnabled;
+	/** interval for forwarding dirty counts to the database writer */
+	private final long flushIntervalMillis;
+	/** number of dirty keys which triggers a flush ahead of the interval */
+	private final int maxDirtyKeys;
+	/** counts added since the previous flush: cache key -> dirty counts */
+	private final Map<String, DirtyPageImpression> dirtyKeys = new LinkedHashMap<>();
+	/** max. number of dirty keys kept until a database writer is assigned */
+	private final int maxUnassignedDirtyKeys;
+	/** reference to page impression database writer, assigned by the handler */
+	private ActorRef databaseWriterRef = null;
+	/** counts dropped as no database writer has been assigned and the dirty keys reached their limit */
+	private long droppedUnassignedCounts = 0;
+	/** periodically triggers the flush of dirty counts */
+	private Cancellable flushTask = null;
+	/** measures the processing of messages */
+	private final Timer writerTimer = PipelineMetrics.registry().timer(PipelineMetrics.STAGE_WRITER_PAGE_IMPRESSION_CACHE);
+	
+	/**
+	 * Initializes the cache writer using the provided input
+	 * @param memcachedClient
+	 */
+	public PageImpressionCacheWriter(final MemcachedClient memcachedClient) {
+		this(new MemcachedCacheClient(memcachedClient), null);
+	}
+	
+	/**
+	 * Initializes the cache writer using the provided input
+	 * @param memcachedClient
+	 * @param configuration
+	 */
+	public PageImpressionCacheWriter(final MemcachedClient memcachedClient, final BasarTrackingServerMetricConfigElement configuration) {
+		this(new MemcachedCacheClient(memcachedClient), configuration);
+	}
+	
+	/**
+	 * Initializes the cache writer using the provided input
+	 * @param cacheClient
+	 */
+	public PageImpressionCacheWriter(final CacheClient cacheClient) {
+		this(cacheClient, null);
+	}
+	
+	/**
+	 * Initializes the cache writer using the provided input
+	 * @param cacheClient
+	 * @param configuration
+	 */
+	public PageImpressionCacheWriter(final CacheClient cacheClient, final BasarTrackingServerMetricConfigElement configuration) {
+		super(cacheClient, new CompactValueTranscoder(new PageImpressionCodec()), nearCacheMaxEntriesOf(configuration), nearCacheWriteBehindOf(configuration));
+		if(configuration instanceof PageImpressionConfigElement) {
+			PageImpressionConfigElement piConfigElement = (PageImpressionConfigElement)configuration;
+			this.writeBehindEnabled = piConfigElement.isWriteBehindEnabled();
+			this.flushIntervalMillis = Math.max(0, piConfigElement.getCacheFlushIntervalMillis());
+			this.maxDirtyKeys = (writeBehindEnabled ? Math.max(0, piConfigElement.getCacheMaxDirtyKeys()) : 0);
+		} else {
+			this.writeBehindEnabled = false;
+			this.flushIntervalMillis = 0;
+			this.maxDirtyKeys = 0;
+		}
+		this.maxUnassignedDirtyKeys = (maxDirtyKeys > 0 ? maxDirtyKeys : DEFAULT_MAX_UNASSIGNED_DIRTY_KEYS);
+	}
+	
+	/**
+	 * Returns the configured size of the near cache
+	 * @param configuration
+	 * @return
+	 */
+	protected static int nearCacheMaxEntriesOf(final BasarTrackingServerMetricConfigElement configuration) {
+		return (configuration instanceof PageImpressionConfigElement ? Math.max(0, ((PageImpressionConfigElement)configuration).getNearCacheMaxEntries()) : 0);
+	}
+	
+	/**
+	 * Returns true if the near cache is configured to collect writes
+	 * @param configuration
+	 * @return
+	 */
+	protected static boolean nearCacheWriteBehindOf(final BasarTrackingServerMetricConfigElement configuration) {
+		return nearCacheMaxEntriesOf(configuration) > 0 && ((PageImpressionConfigElement)configuration).isNearCacheWriteBehind();
+	}
+	
+	/**
+	 * The flush covers the counts forwarded to the database writer as well as the near cache 
+	 * @see akka.actor.UntypedActor#preStart()
+	 */
+	public void preStart() throws Exception {
+		if((writeBehindEnabled || isNearCacheWriteBehind()) && flushIntervalMillis > 0) {
+			FiniteDuration interval = Duration.create(flushIntervalMillis, TimeUnit.MILLISECONDS);
+			this.flushTask = context().system().scheduler().schedule(interval, interval, getSelf(), FlushPageImpressionsMessage.INSTANCE, context().dispatcher(), ActorRef.noSender());
+		}
+	}
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.CacheValueWriter#postStop()
+	 */
+	public void postStop() throws Exception {
+		if(flushTask != null)
+			flushTask.cancel();
+		flush();
+		super.postStop();
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		
+		final Timer.Context timerContext = writerTimer.time();
+		try {
+			handleMessage(message);
+		} finally {
+			timerContext.stop();
+		}
+	}
+	
+	/**
+	 * Handles the provided message
+	 * @param message
+	 */
+	protected void handleMessage(final Object message) {
+
+		checkPendingIncrements();
+		
+		if(message instanceof PageImpressionWriteMessage) {
+			PageImpressionWriteMessage piWriteMessage = (PageImpressionWriteMessage)message;
+			if(writeBehindEnabled) {
+				markDirty(piWriteMessage);
+				
+				// the database is the system of record in write-behind mode, thus a failing cache must not lose the count
+				try {
+					incrementCachedPageImpression(piWriteMessage);
+				} catch(RuntimeException e) {
+					logger.error("Failed to update cached page impression [contractor="+piWriteMessage.getContractorIdentifier()+", source="+piWriteMessage.getPageImpressionSource()+"]: " + e.getMessage());
+				}
+				
+				if(maxDirtyKeys > 0 && databaseWriterRef != null && dirtyKeys.size() >= maxDirtyKeys)
+					flush();
+			} else {
+				incrementCachedPageImpression(piWriteMessage);
+			}
+		} else if(message instanceof FlushPageImpressionsMessage) {
+			flush();
+			flushNearCache();
+		} else if(message instanceof CheckPendingIncrementsMessage) {
+			onCheckPendingIncrements();
+		} else if(message instanceof AssignPageImpressionDBWriterMessage) {
+			this.databaseWriterRef = ((AssignPageImpressionDBWriterMessage)message).getDatabaseWriterRef();
+			if(droppedUnassignedCounts > 0) {
+				logger.warn("Dropped " + droppedUnassignedCounts + " page impression counts while no database writer was assigned [maxDirtyKeys="+maxUnassignedDirtyKeys+"]");
+				droppedUnassignedCounts = 0;
+			}
+			flush();
+		} else {
+			unhandled(message);
+		}
+	}
+	
+	/**
+	 * Records the count of the provided message for the next flush. As long as no database writer has been assigned,
+	 * counts towards new keys are dropped once the number of dirty keys reaches its limit
+	 * @param message
+	 */
+	protected void markDirty(final PageImpressionWriteMessage message) {
+		
+		if(isValid(message)) {
+			String cacheKey = calculateCacheKey(message);
+			DirtyPageImpression dirtyPageImpression = dirtyKeys.get(cacheKey);
+			if(dirtyPageImpression == null) {
+				if(databaseWriterRef == null && dirtyKeys.size() >= maxUnassignedDirtyKeys) {
+					if(droppedUnassignedCounts == 0)
+						logger.warn("No page impression database writer assigned and " + dirtyKeys.size() + " dirty keys pending, dropping counts towards further keys [contractor="+message.getContractorIdentifier()+", source="+message.getPageImpressionSource()+"]");
+					droppedUnassignedCounts = droppedUnassignedCounts + message.getCount();
+					return;
+				}
+				dirtyPageImpression = new DirtyPageImpression(message.getContractorIdentifier(), message.getPageImpressionSource());
+				dirtyKeys.put(cacheKey, dirtyPageImpression);
+			}
+			dirtyPageImpression.add(message.getCount(), message.getTimestamp());
+		}
+	}
+	
+	/**
+	 * Hands all counts collected since the previous flush over to the database writer. Counts are kept
+	 * until a database writer has been assigned
+	 */
+	protected void flush() {
+		
+		if(dirtyKeys.isEmpty() || databaseWriterRef == null)
+			return;
+		
+		List<PageImpressionWriteMessage> writeMessages = new ArrayList<>(dirtyKeys.size());
+		for(DirtyPageImpression dirtyPageImpression : dirtyKeys.values()) {
+			for(Map.Entry<Long, long[]> minuteCount : dirtyPageImpression.minuteCounts.entrySet()) {
+				writeMessages.add(new PageImpressionWriteMessage(dirtyPageImpression.contractorIdentifier, dirtyPageImpression.pageImpressionSource, 
+						(int)minuteCount.getValue()[0], minuteCount.getValue()[1]));
+			}
+		}
+		dirtyKeys.clear();
+		databaseWriterRef.tell(new PageImpressionWriteBatchMessage(writeMessages), getSelf());
+	}
+	
+	/**
+	 * Increments the referenced cache value by the provided {@link PageImpressionWriteMessage#getCount() count}. Counts
+	 * are stored as native numeric memcached values, thus the increment is applied by the cache server and a single
+	 * asynchronous operation is correct regardless of the number of cache writer instances. Keys found missing are
+	 * initialized once the operation has completed, see {@link #checkPendingIncrements()}. Hot keys may be aggregated
+	 * by the near cache first
+	 * @param message
+	 */
+	protected void incrementCachedPageImpression(final PageImpressionWriteMessage message) {
+		
+		// allow updates only if the required information are available
+		if(isValid(message)) {
+			// calculate the cache key for the inbound message
+			String cacheKey = calculateCacheKey(message);
+			addToCounter(cacheKey, message.getCount());
+		}
+	}
+	
+	/**
+	 * Returns true if the message provides all information required for updating a pi element 
+	 * @param message
+	 * @return
+	 */
+	protected boolean isValid(final PageImpressionWriteMessage message) {
+		return message != null && StringUtils.isNotBlank(message.getContractorIdentifier()) && StringUtils.isNotBlank(message.getPageImpressionSource()) && message.getCount() > 0;
+	}
+	
+	/**
+	 * Calculates the unique cache key for the provided message
+	 * @param message
+	 * @return
+	 */
+	protected String calculateCacheKey(final PageImpressionWriteMessage message) {
+		return PageImpressionWriteMessage.calculateCacheKey(message.getContractorIdentifier(), message.getPageImpressionSource());
+	}
+	
+	/**
+	 * Counts added to a single cache key since the previous flush
+	 * @author mnxfst
+	 * @since 22.11.2013
+	 */
+	protected static final class DirtyPageImpression {
+		private final String contractorIdentifier;
+		private final String pageImpressionSource;
+		/** start of minute -> (count, time of latest counted event) */
+		private final TreeMap<Long, long[]> minuteCounts = new TreeMap<>();
+		
+		private DirtyPageImpression(final String contractorIdentifier, final String pageImpressionSource) {
+			this.contractorIdentifier = contractorIdentifier;
+			this.pageImpressionSource = pageImpressionSource;
+		}
+		
+		/**
+		 * Adds the given count to the minute the timestamp belongs to
+		 * @param count
+		 * @param timestamp
+		 */
+		private void add(final int count, final long timestamp) {
+			Long minuteStart = Long.valueOf(PageImpressionBuckets.minuteStart(timestamp));
+			long[] minuteCount = minuteCounts.get(minuteStart);
+			if(minuteCount == null) {
+				minuteCount = new long[2];
+				minuteCounts.put(minuteStart, minuteCount);
+			}
+			minuteCount[0] = minuteCount[0] + count;
+			minuteCount[1] = Math.max(minuteCount[1], timestamp);
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec;
+
+/**
+ * Writes {@link PageImpression page impressions} to cache using a fixed binary layout:
+ * <ul>
+ *   <li>version 1: contractor (utf), source (utf), count (8 bytes)</li>
+ * </ul>
+ * A missing contractor or source is written as empty string and read as null.
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionCodec implements CompactValueCodec<PageImpression> {
+
+	public static final byte TYPE_ID = 1;
+	public static final byte VERSION = 1;
+	
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec#getValueType()
+	 */
+	public Class<PageImpression> getValueType() {
+		return PageImpression.class;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec#getTypeId()
+	 */
+	public byte getTypeId() {
+		return TYPE_ID;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec#getVersion()
+	 */
+	public byte getVersion() {
+		return VERSION;
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec#write(java.lang.Object, java.io.DataOutput)
+	 */
+	public void write(PageImpression value, DataOutput out) throws IOException {
+		out.writeUTF(value.getContractorIdentifier() != null ? value.getContractorIdentifier() : "");
+		out.writeUTF(value.getSource() != null ? value.getSource() : "");
+		out.writeLong(value.getCount());
+	}
+
+	/**
+	 * @see com.mnxfst.basar.tracking.cache.transcoder.CompactValueCodec#read(byte, java.io.DataInput)
+	 */
+	public PageImpression read(byte version, DataInput in) throws IOException {
+		if(version != VERSION)
+			throw new IOException("Unsupported page impression layout version: " + version);
+		String contractorIdentifier = in.readUTF();
+		String source = in.readUTF();
+		long count = in.readLong();
+		return new PageImpression(contractorIdentifier.isEmpty() ? null : contractorIdentifier, source.isEmpty() ? null : source, count);
+	}
+
+}
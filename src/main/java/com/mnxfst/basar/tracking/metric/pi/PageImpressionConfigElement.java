@@ -1,123 +1,212 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.metric.pi;
-
-import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
-
-/**
- * Provides all options required for setting up the page impression metric
- * @author mnxfst
- * @since 30.10.2013
- *
- * Revision Control Info $Id$
- */
-public class PageImpressionConfigElement implements	BasarTrackingServerMetricConfigElement {
-	
-	private static final long serialVersionUID = -8144997631273667909L;
-	
-	private String identifier = null;
-	private String metricClass = null;
-	private String databaseWriterId = null;
-	private String databaseWriterClass = PageImpressionDBWriter.class.getName();
-	private String cacheWriterId = null;
-	private String cacheWriterClass = PageImpressionCacheWriter.class.getName();
-	private int numDatabaseWriters = 1;
-	private int numCacheWriters = 1;
-	
-	public PageImpressionConfigElement() {		
-	}
-
-	public String getIdentifier() {
-		return identifier;
-	}
-
-	public void setIdentifier(String identifier) {
-		this.identifier = identifier;
-	}
-
-	public String getMetricClass() {
-		return metricClass;
-	}
-
-	public void setMetricClass(String metricClass) {
-		this.metricClass = metricClass;
-	}
-
-	public String getDatabaseWriterClass() {
-		return databaseWriterClass;
-	}
-
-	public void setDatabaseWriterClass(String databaseWriterClass) {
-		this.databaseWriterClass = databaseWriterClass;
-	}
-
-	public String getCacheWriterClass() {
-		return cacheWriterClass;
-	}
-
-	public void setCacheWriterClass(String cacheWriterClass) {
-		this.cacheWriterClass = cacheWriterClass;
-	}
-
-	public int getNumDatabaseWriters() {
-		return numDatabaseWriters;
-	}
-
-	public void setNumDatabaseWriters(int numDatabaseWriters) {
-		this.numDatabaseWriters = numDatabaseWriters;
-	}
-
-	public int getNumCacheWriters() {
-		return numCacheWriters;
-	}
-
-	public void setNumCacheWriters(int numCacheWriters) {
-		this.numCacheWriters = numCacheWriters;
-	}
-
-	public String getDatabaseWriterId() {
-		return databaseWriterId;
-	}
-
-	public void setDatabaseWriterId(String databaseWriterId) {
-		this.databaseWriterId = databaseWriterId;
-	}
-
-	public String getCacheWriterId() {
-		return cacheWriterId;
-	}
-
-	public void setCacheWriterId(String cacheWriterId) {
-		this.cacheWriterId = cacheWriterId;
-	}
-
-	/**
-	 * @see java.lang.Object#toString()
-	 */
-	public String toString() {
-		return "PageImpressionConfigElement [identifier=" + identifier
-				+ ", metricClass=" + metricClass + ", databaseWriterId="
-				+ databaseWriterId + ", databaseWriterClass="
-				+ databaseWriterClass + ", cacheWriterId=" + cacheWriterId
-				+ ", cacheWriterClass=" + cacheWriterClass
-				+ ", numDatabaseWriters=" + numDatabaseWriters
-				+ ", numCacheWriters=" + numCacheWriters + "]";
-	}
-	
-	
-
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import com.mnxfst.basar.tracking.cache.message.RegisterCacheWriterMessage;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
+
+/**
+ * Provides all options required for setting up the page impression metric
+ * @author mnxfst
+ * @since 30.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionConfigElement implements	BasarTrackingServerMetricConfigElement {
+	
+	private static final long serialVersionUID = -8144997631273667909L;
+	
+	private String identifier = null;
+	private String metricClass = null;
+	private String databaseWriterId = null;
+	private String databaseWriterClass = PageImpressionDBWriter.class.getName();
+	private String cacheWriterId = null;
+	private String cacheWriterClass = PageImpressionCacheWriter.class.getName();
+	private int numDatabaseWriters = 1;
+	private int numCacheWriters = 1;
+	/** router used for multiple cache writers: CONSISTENT_HASHING (each cache key owned by one writer) or ROUND_ROBIN */
+	private String cacheWriterRouting = RegisterCacheWriterMessage.ROUTING_CONSISTENT_HASHING;
+	/** interval used by database writers for aggregating counts before writing them, 0 = write each count immediately */
+	private long databaseFlushIntervalMillis = 1000;
+	/** roll page impressions up into hourly and daily bucket documents */
+	private boolean timeBucketsEnabled = true;
+	/** send page impressions to the cache writers which forward dirty counts to the database writers on flush */
+	private boolean writeBehindEnabled = true;
+	/** interval used by cache writers for forwarding dirty counts to the database writers (write-behind only) */
+	private long cacheFlushIntervalMillis = 5000;
+	/** number of dirty keys which makes a cache writer flush ahead of its interval (write-behind only) */
+	private int cacheMaxDirtyKeys = 10000;
+	/** max. number of hot keys kept by the near cache of each cache writer, 0 = no near cache */
+	private int nearCacheMaxEntries = 0;
+	/** collect increments inside the near cache and pass them to the cache backend on flush or eviction */
+	private boolean nearCacheWriteBehind = false;
+	
+	public PageImpressionConfigElement() {		
+	}
+
+	public String getIdentifier() {
+		return identifier;
+	}
+
+	public void setIdentifier(String identifier) {
+		this.identifier = identifier;
+	}
+
+	public String getMetricClass() {
+		return metricClass;
+	}
+
+	public void setMetricClass(String metricClass) {
+		this.metricClass = metricClass;
+	}
+
+	public String getDatabaseWriterClass() {
+		return databaseWriterClass;
+	}
+
+	public void setDatabaseWriterClass(String databaseWriterClass) {
+		this.databaseWriterClass = databaseWriterClass;
+	}
+
+	public String getCacheWriterClass() {
+		return cacheWriterClass;
+	}
+
+	public void setCacheWriterClass(String cacheWriterClass) {
+		this.cacheWriterClass = cacheWriterClass;
+	}
+
+	public int getNumDatabaseWriters() {
+		return numDatabaseWriters;
+	}
+
+	public void setNumDatabaseWriters(int numDatabaseWriters) {
+		this.numDatabaseWriters = numDatabaseWriters;
+	}
+
+	public int getNumCacheWriters() {
+		return numCacheWriters;
+	}
+
+	public void setNumCacheWriters(int numCacheWriters) {
+		this.numCacheWriters = numCacheWriters;
+	}
+
+	public String getCacheWriterRouting() {
+		return cacheWriterRouting;
+	}
+
+	public void setCacheWriterRouting(String cacheWriterRouting) {
+		this.cacheWriterRouting = cacheWriterRouting;
+	}
+
+	public String getDatabaseWriterId() {
+		return databaseWriterId;
+	}
+
+	public void setDatabaseWriterId(String databaseWriterId) {
+		this.databaseWriterId = databaseWriterId;
+	}
+
+	public long getDatabaseFlushIntervalMillis() {
+		return databaseFlushIntervalMillis;
+	}
+
+	public void setDatabaseFlushIntervalMillis(long databaseFlushIntervalMillis) {
+		this.databaseFlushIntervalMillis = databaseFlushIntervalMillis;
+	}
+
+	public boolean isTimeBucketsEnabled() {
+		return timeBucketsEnabled;
+	}
+
+	public void setTimeBucketsEnabled(boolean timeBucketsEnabled) {
+		this.timeBucketsEnabled = timeBucketsEnabled;
+	}
+
+	public boolean isWriteBehindEnabled() {
+		return writeBehindEnabled;
+	}
+
+	public void setWriteBehindEnabled(boolean writeBehindEnabled) {
+		this.writeBehindEnabled = writeBehindEnabled;
+	}
+
+	public long getCacheFlushIntervalMillis() {
+		return cacheFlushIntervalMillis;
+	}
+
+	public void setCacheFlushIntervalMillis(long cacheFlushIntervalMillis) {
+		this.cacheFlushIntervalMillis = cacheFlushIntervalMillis;
+	}
+
+	public int getCacheMaxDirtyKeys() {
+		return cacheMaxDirtyKeys;
+	}
+
+	public void setCacheMaxDirtyKeys(int cacheMaxDirtyKeys) {
+		this.cacheMaxDirtyKeys = cacheMaxDirtyKeys;
+	}
+
+	public int getNearCacheMaxEntries() {
+		return nearCacheMaxEntries;
+	}
+
+	public void setNearCacheMaxEntries(int nearCacheMaxEntries) {
+		this.nearCacheMaxEntries = nearCacheMaxEntries;
+	}
+
+	public boolean isNearCacheWriteBehind() {
+		return nearCacheWriteBehind;
+	}
+
+	public void setNearCacheWriteBehind(boolean nearCacheWriteBehind) {
+		this.nearCacheWriteBehind = nearCacheWriteBehind;
+	}
+
+	public String getCacheWriterId() {
+		return cacheWriterId;
+	}
+
+	public void setCacheWriterId(String cacheWriterId) {
+		this.cacheWriterId = cacheWriterId;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		return "PageImpressionConfigElement [identifier=" + identifier
+				+ ", metricClass=" + metricClass + ", databaseWriterId="
+				+ databaseWriterId + ", databaseWriterClass="
+				+ databaseWriterClass + ", cacheWriterId=" + cacheWriterId
+				+ ", cacheWriterClass=" + cacheWriterClass
+				+ ", numDatabaseWriters=" + numDatabaseWriters
+				+ ", numCacheWriters=" + numCacheWriters
+				+ ", cacheWriterRouting=" + cacheWriterRouting
+				+ ", databaseFlushIntervalMillis=" + databaseFlushIntervalMillis
+				+ ", timeBucketsEnabled=" + timeBucketsEnabled
+				+ ", writeBehindEnabled=" + writeBehindEnabled
+				+ ", cacheFlushIntervalMillis=" + cacheFlushIntervalMillis
+				+ ", cacheMaxDirtyKeys=" + cacheMaxDirtyKeys
+				+ ", nearCacheMaxEntries=" + nearCacheMaxEntries
+				+ ", nearCacheWriteBehind=" + nearCacheWriteBehind + "]";
+	}
+	
+	
+
+}
@@ -1,95 +1,512 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.metric.pi;
-
-import org.apache.commons.lang.StringUtils;
-
-import com.allanbank.mongodb.MongoClient;
-import com.allanbank.mongodb.MongoCollection;
-import com.allanbank.mongodb.bson.builder.BuilderFactory;
-import com.allanbank.mongodb.bson.builder.DocumentBuilder;
-import com.allanbank.mongodb.builder.FindAndModify;
-import com.mnxfst.basar.tracking.db.DatabaseValueWriter;
-
-/**
- * Writes page impression values to database
- * @author mnxfst
- * @since 29.10.2013
- *
- * Revision Control Info $Id$
- */
-public class PageImpressionDBWriter extends DatabaseValueWriter {
-
-	public static final String DB_COLLECTION = "pi";
-	
-	public static final String DOC_FIELD_CONTRACTOR_ID = "ctr";
-	public static final String DOC_FIELD_PI_SOURCE = "src";
-	public static final String DOC_FIELD_COUNT = "cnt";
-	public static final String DOC_FIELD_TIMESTAMP = "tsp";
-	
-	/**
-	 * Initializes the instance using the provided information
-	 * @param databaseClient
-	 */
-	public PageImpressionDBWriter(final MongoClient databaseClient) {
-		super(databaseClient);
-	}
-
-	/**
-	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
-	 */
-	public void onReceive(Object message) throws Exception {
-		System.out.println("....message:"+message);
-		
-		// writes the contained message
-		if(message instanceof PageImpressionWriteMessage) {
-			updatePageImpression((PageImpressionWriteMessage)message);
-		} else {
-			unhandled(message);
-		}
-		
-	}
-
-	/**
-	 * Updates the referenced pi element in database
-	 * @param message
-	 */
-	protected void updatePageImpression(final PageImpressionWriteMessage message) {
-		
-		// allow updates only if the required information are available
-		if(message != null && StringUtils.isNotBlank(message.getContractorIdentifier()) && StringUtils.isNotBlank(message.getPageImpressionSource()) && message.getCount() > 0) {
-
-			
-			MongoCollection collection = getCollection(message.getContractorIdentifier(), DB_COLLECTION);			
-			DocumentBuilder updateBuilder = BuilderFactory.start();
-			updateBuilder.add(DOC_FIELD_CONTRACTOR_ID, message.getContractorIdentifier());
-			updateBuilder.add(DOC_FIELD_PI_SOURCE, message.getPageImpressionSource());
-			updateBuilder.add(DOC_FIELD_COUNT, message.getCount());
-			updateBuilder.add(DOC_FIELD_TIMESTAMP, message.getTimestamp()); // TODO use this value to check if the message contains the most current value
-			
-			DocumentBuilder queryBuilder = BuilderFactory.start();
-			queryBuilder.add(DOC_FIELD_CONTRACTOR_ID, message.getContractorIdentifier());
-			queryBuilder.add(DOC_FIELD_PI_SOURCE, message.getPageImpressionSource());
-				
-			FindAndModify findAndModifyTask = FindAndModify.builder().setQuery(queryBuilder).setUpdate(updateBuilder).build();
-			collection.findAndModifyAsync(findAndModifyTask);
-//			collection.insert(updateBuilder);
-			
-		}		
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import scala.concurrent.duration.Duration;
+import scala.concurrent.duration.FiniteDuration;
+import akka.actor.ActorRef;
+import akka.actor.Cancellable;
+
+import com.allanbank.mongodb.Callback;
+import com.allanbank.mongodb.MongoClient;
+import com.allanbank.mongodb.MongoCollection;
+import com.allanbank.mongodb.bson.builder.ArrayBuilder;
+import com.allanbank.mongodb.bson.builder.BuilderFactory;
+import com.allanbank.mongodb.bson.builder.DocumentBuilder;
+import com.allanbank.mongodb.builder.Index;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerMetricConfigElement;
+import com.mnxfst.basar.tracking.db.DatabaseValueWriter;
+import com.mnxfst.basar.tracking.instrumentation.ContractorMetrics;
+import com.mnxfst.basar.tracking.instrumentation.PipelineMetrics;
+
+/**
+ * Writes page impression values to database. Counts are added to the stored value by an atomic <i>$inc</i> upsert,
+ * thus concurrent writers never overwrite each other. If a flush interval is configured, the writer aggregates all 
+ * counts received for a (contractor, source) pair in memory and writes a single update per pair and interval. 
+ * {@link PageImpressionWriteBatchMessage Batches} forwarded by the cache writers in write-behind mode are written on receipt.<br/><br/>
+ * If time buckets are enabled, each count is additionally rolled up into
+ * <ul>
+ *   <li><i>pi_hourly</i>: one document per (contractor, source, hour) holding the total and an array of 60 counters, one per minute</li>
+ *   <li><i>pi_daily</i>: one document per (contractor, source, day) holding the total and an array of 24 counters, one per hour</li>
+ * </ul>
+ * Bucket documents are allocated with zero-filled counter arrays before the first increment, thus the counters are
+ * updated in place by array index.
+ * The coarser buckets are updated along with the finer ones from the same aggregated delta, thus no bucket ever 
+ * needs to be recomputed from raw events. 
+ * @author mnxfst
+ * @since 29.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionDBWriter extends DatabaseValueWriter {
+
+	/** logging facility - the actor logger must not be used from within driver callbacks */
+	private static final Logger logger = Logger.getLogger(PageImpressionDBWriter.class);
+
+	public static final String DB_COLLECTION = "pi";
+	public static final String DB_COLLECTION_HOURLY = "pi_hourly";
+	public static final String DB_COLLECTION_DAILY = "pi_daily";
+	
+	public static final String DOC_FIELD_CONTRACTOR_ID = "ctr";
+	public static final String DOC_FIELD_PI_SOURCE = "src";
+	public static final String DOC_FIELD_COUNT = "cnt";
+	public static final String DOC_FIELD_TIMESTAMP = "tsp";
+	/** start of hour covered by an hourly document */
+	public static final String DOC_FIELD_HOUR = "hr";
+	/** start of day covered by a daily document */
+	public static final String DOC_FIELD_DAY = "day";
+	/** counters per minute of an hourly document, array indexed by minute of hour (0-59) */
+	public static final String DOC_FIELD_MINUTES = "min";
+	/** counters per hour of a daily document, array indexed by hour of day (0-23) */
+	public static final String DOC_FIELD_HOURS = "hrs";
+	
+	private static final int MINUTES_PER_HOUR = 60;
+	private static final int HOURS_PER_DAY = 24;
+	
+	/** interval for aggregating counts before writing them, 0 = write immediately */
+	private final long flushIntervalMillis;
+	/** roll counts up into hourly and daily documents */
+	private final boolean timeBucketsEnabled;
+	/** counts aggregated since last flush: contractor -> source -> count */
+	private final Map<String, Map<String, PendingCount>> pendingCounts = new HashMap<>();
+	/** latest bucket start known to hold an allocated slot array: contractor, source and bucket field -> start. Updated by driver threads */
+	private final Map<String, Long> allocatedBuckets = new ConcurrentHashMap<>();
+	/** contractors whose bucket collections have already been indexed */
+	private final Set<String> indexedContractors = new HashSet<>();
+	/** periodically triggers the flush of aggregated counts */
+	private Cancellable flushTask = null;
+	
+	/** measures the processing of messages */
+	private final Timer writerTimer = PipelineMetrics.registry().timer(PipelineMetrics.STAGE_WRITER_PAGE_IMPRESSION_DB);
+	/** measures upserts by contractor until the driver reports their completion */
+	private final ContractorMetrics<Timer> upsertTimers = ContractorMetrics.timers(PipelineMetrics.MONGO_UPSERT);
+	/** counts failed upserts by contractor */
+	private final ContractorMetrics<Meter> upsertErrors = ContractorMetrics.meters(PipelineMetrics.MONGO_UPSERT_ERRORS);
+	
+	/**
+	 * Initializes the instance using the provided information. Counts are written immediately
+	 * @param databaseClient
+	 */
+	public PageImpressionDBWriter(final MongoClient databaseClient) {
+		super(databaseClient);
+		this.flushIntervalMillis = 0;
+		this.timeBucketsEnabled = false;
+	}
+	
+	/**
+	 * Initializes the instance using the provided information
+	 * @param databaseClient
+	 * @param configuration
+	 */
+	public PageImpressionDBWriter(final MongoClient databaseClient, final BasarTrackingServerMetricConfigElement configuration) {
+		super(databaseClient);
+		if(configuration instanceof PageImpressionConfigElement) {
+			this.flushIntervalMillis = Math.max(0, ((PageImpressionConfigElement)configuration).getDatabaseFlushIntervalMillis());
+			this.timeBucketsEnabled = ((PageImpressionConfigElement)configuration).isTimeBucketsEnabled();
+		} else {
+			this.flushIntervalMillis = 0;
+			this.timeBucketsEnabled = false;
+		}
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#preStart()
+	 */
+	public void preStart() throws Exception {
+		if(flushIntervalMillis > 0) {
+			FiniteDuration interval = Duration.create(flushIntervalMillis, TimeUnit.MILLISECONDS);
+			this.flushTask = context().system().scheduler().schedule(interval, interval, getSelf(), FlushPageImpressionsMessage.INSTANCE, context().dispatcher(), ActorRef.noSender());
+		}
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#postStop()
+	 */
+	public void postStop() throws Exception {
+		if(flushTask != null)
+			flushTask.cancel();
+		flush();
+	}
+
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		
+		final Timer.Context timerContext = writerTimer.time();
+		try {
+			handleMessage(message);
+		} finally {
+			timerContext.stop();
+		}
+	}
+	
+	/**
+	 * Handles the provided message
+	 * @param message
+	 */
+	protected void handleMessage(final Object message) {
+		
+		// writes the contained message
+		if(message instanceof PageImpressionWriteMessage) {
+			PageImpressionWriteMessage piWriteMessage = (PageImpressionWriteMessage)message;
+			if(flushIntervalMillis > 0)
+				aggregatePageImpression(piWriteMessage);
+			else
+				updatePageImpression(piWriteMessage);
+		} else if(message instanceof PageImpressionWriteBatchMessage) {
+			// batches have already been aggregated by the sending cache writer, thus they are written right away
+			PageImpressionWriteBatchMessage piWriteBatchMessage = (PageImpressionWriteBatchMessage)message;
+			if(piWriteBatchMessage.getWriteMessages() != null) {
+				for(PageImpressionWriteMessage piWriteMessage : piWriteBatchMessage.getWriteMessages())
+					aggregatePageImpression(piWriteMessage);
+			}
+			flush();
+		} else if(message instanceof FlushPageImpressionsMessage) {
+			flush();
+		} else {
+			unhandled(message);
+		}
+		
+	}
+	
+	/**
+	 * Adds the count of the provided message to the counts aggregated since last flush
+	 * @param message
+	 */
+	protected void aggregatePageImpression(final PageImpressionWriteMessage message) {
+		
+		if(isValid(message)) {
+			Map<String, PendingCount> contractorCounts = pendingCounts.get(message.getContractorIdentifier());
+			if(contractorCounts == null) {
+				contractorCounts = new HashMap<>();
+				pendingCounts.put(message.getContractorIdentifier(), contractorCounts);
+			}
+			
+			PendingCount pendingCount = contractorCounts.get(message.getPageImpressionSource());
+			if(pendingCount == null) {
+				pendingCount = new PendingCount();
+				contractorCounts.put(message.getPageImpressionSource(), pendingCount);
+			}
+			pendingCount.add(message.getCount(), message.getTimestamp(), timeBucketsEnabled);
+		}
+	}
+	
+	/**
+	 * Writes all counts aggregated since last flush. The updates are issued asynchronously one after another
+	 */
+	protected void flush() {
+		
+		for(Map.Entry<String, Map<String, PendingCount>> contractorCounts : pendingCounts.entrySet()) {
+			for(Map.Entry<String, PendingCount> sourceCount : contractorCounts.getValue().entrySet()) {
+				writePageImpression(contractorCounts.getKey(), sourceCount.getKey(), sourceCount.getValue());
+			}
+		}
+		pendingCounts.clear();
+	}
+
+	/**
+	 * Updates the referenced pi element in database
+	 * @param message
+	 */
+	protected void updatePageImpression(final PageImpressionWriteMessage message) {
+		
+		// allow updates only if the required information are available
+		if(isValid(message)) {
+			PendingCount pendingCount = new PendingCount();
+			pendingCount.add(message.getCount(), message.getTimestamp(), timeBucketsEnabled);
+			writePageImpression(message.getContractorIdentifier(), message.getPageImpressionSource(), pendingCount);
+		}		
+	}
+	
+	/**
+	 * Adds the given count to the referenced pi element and - if enabled - to the hourly and daily buckets. 
+	 * Elements are created if they do not exist
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param pendingCount
+	 */
+	protected void writePageImpression(final String contractorIdentifier, final String pageImpressionSource, final PendingCount pendingCount) {
+		
+		DocumentBuilder updateBuilder = BuilderFactory.start();
+		updateBuilder.push("$inc").add(DOC_FIELD_COUNT, pendingCount.count);
+		updateBuilder.push("$set").add(DOC_FIELD_TIMESTAMP, new Date(pendingCount.timestamp)); // TODO use this value to check if the message contains the most current value
+		upsert(getCollection(contractorIdentifier, DB_COLLECTION), contractorIdentifier, pageImpressionSource, null, 0, updateBuilder);
+		
+		if(pendingCount.minuteCounts == null || pendingCount.minuteCounts.isEmpty())
+			return;
+		
+		MongoCollection hourlyCollection = getCollection(contractorIdentifier, DB_COLLECTION_HOURLY);
+		MongoCollection dailyCollection = getCollection(contractorIdentifier, DB_COLLECTION_DAILY);
+		ensureIndexes(contractorIdentifier, hourlyCollection, dailyCollection);
+		
+		// minutes are sorted, thus all minutes of an hour (and all hours of a day) are consecutive and 
+		// each bucket document receives a single update
+		Map<Long, long[]> hourCounts = new TreeMap<>();
+		long currentHour = -1;
+		long currentHourCount = 0;
+		DocumentBuilder minutesBuilder = null;
+		for(Map.Entry<Long, long[]> minuteCount : pendingCount.minuteCounts.entrySet()) {
+			long minuteStart = minuteCount.getKey().longValue();
+			long hourStart = PageImpressionBuckets.hourStart(minuteStart);
+			if(hourStart != currentHour) {
+				if(minutesBuilder != null)
+					writeHourlyBucket(hourlyCollection, contractorIdentifier, pageImpressionSource, currentHour, currentHourCount, minutesBuilder);
+				currentHour = hourStart;
+				currentHourCount = 0;
+				minutesBuilder = BuilderFactory.start();
+			}
+			minutesBuilder.add(DOC_FIELD_MINUTES + "." + PageImpressionBuckets.minuteOfHour(minuteStart), minuteCount.getValue()[0]);
+			currentHourCount = currentHourCount + minuteCount.getValue()[0];
+			
+			long[] hourCount = hourCounts.get(hourStart);
+			if(hourCount == null) {
+				hourCount = new long[1];
+				hourCounts.put(hourStart, hourCount);
+			}
+			hourCount[0] = hourCount[0] + minuteCount.getValue()[0];
+		}
+		if(minutesBuilder != null)
+			writeHourlyBucket(hourlyCollection, contractorIdentifier, pageImpressionSource, currentHour, currentHourCount, minutesBuilder);
+
+		long currentDay = -1;
+		long currentDayCount = 0;
+		DocumentBuilder hoursBuilder = null;
+		for(Map.Entry<Long, long[]> hourCount : hourCounts.entrySet()) {
+			long hourStart = hourCount.getKey().longValue();
+			long dayStart = PageImpressionBuckets.dayStart(hourStart);
+			if(dayStart != currentDay) {
+				if(hoursBuilder != null)
+					writeDailyBucket(dailyCollection, contractorIdentifier, pageImpressionSource, currentDay, currentDayCount, hoursBuilder);
+				currentDay = dayStart;
+				currentDayCount = 0;
+				hoursBuilder = BuilderFactory.start();
+			}
+			hoursBuilder.add(DOC_FIELD_HOURS + "." + PageImpressionBuckets.hourOfDay(hourStart), hourCount.getValue()[0]);
+			currentDayCount = currentDayCount + hourCount.getValue()[0];
+		}
+		if(hoursBuilder != null)
+			writeDailyBucket(dailyCollection, contractorIdentifier, pageImpressionSource, currentDay, currentDayCount, hoursBuilder);
+	}
+	
+	/**
+	 * Increments the total and the given per-minute counters of an hourly bucket
+	 * @param collection
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param hourStart
+	 * @param count
+	 * @param minuteIncrements
+	 */
+	protected void writeHourlyBucket(final MongoCollection collection, final String contractorIdentifier, final String pageImpressionSource, final long hourStart, final long count, final DocumentBuilder minuteIncrements) {
+		minuteIncrements.add(DOC_FIELD_COUNT, count);
+		incrementBucket(collection, contractorIdentifier, pageImpressionSource, DOC_FIELD_HOUR, hourStart, DOC_FIELD_MINUTES, MINUTES_PER_HOUR, minuteIncrements);
+	}
+	
+	/**
+	 * Increments the total and the given per-hour counters of a daily bucket
+	 * @param collection
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param dayStart
+	 * @param count
+	 * @param hourIncrements
+	 */
+	protected void writeDailyBucket(final MongoCollection collection, final String contractorIdentifier, final String pageImpressionSource, final long dayStart, final long count, final DocumentBuilder hourIncrements) {
+		hourIncrements.add(DOC_FIELD_COUNT, count);
+		incrementBucket(collection, contractorIdentifier, pageImpressionSource, DOC_FIELD_DAY, dayStart, DOC_FIELD_HOURS, HOURS_PER_DAY, hourIncrements);
+	}
+	
+	/**
+	 * Applies the given increments to a bucket document. The increments address the slot counters by array index
+	 * (eg. <i>min.5</i>), thus the slot array must exist before: unless the bucket is known to be allocated, the 
+	 * document is first upserted with a zero-filled slot array (<i>$setOnInsert</i>) and the increments are applied 
+	 * once that upsert completed. An upsert carrying the increments directly would create an embedded object keyed
+	 * by slot number instead of an array, and MongoDB rejects <i>$setOnInsert</i> and <i>$inc</i> on the same path
+	 * within a single update
+	 * @param collection
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param bucketField
+	 * @param bucketStart
+	 * @param slotsField
+	 * @param slots
+	 * @param increments
+	 */
+	protected void incrementBucket(final MongoCollection collection, final String contractorIdentifier, final String pageImpressionSource, final String bucketField, final long bucketStart, final String slotsField, final int slots, final DocumentBuilder increments) {
+		
+		final DocumentBuilder incrementBuilder = BuilderFactory.start();
+		incrementBuilder.add("$inc", increments);
+		
+		final String bucketKey = contractorIdentifier + '\n' + pageImpressionSource + '\n' + bucketField;
+		Long allocatedStart = allocatedBuckets.get(bucketKey);
+		if(allocatedStart != null && allocatedStart.longValue() == bucketStart) {
+			update(collection, contractorIdentifier, pageImpressionSource, bucketField, bucketStart, incrementBuilder, false, null);
+			return;
+		}
+		
+		DocumentBuilder allocationBuilder = BuilderFactory.start();
+		ArrayBuilder slotsBuilder = allocationBuilder.push("$setOnInsert").pushArray(slotsField);
+		for(int i = 0; i < slots; i++)
+			slotsBuilder.add(0L);
+		
+		// runs on the driver thread, thus only thread-safe structures may be touched
+		update(collection, contractorIdentifier, pageImpressionSource, bucketField, bucketStart, allocationBuilder, true, new Runnable() {
+			public void run() {
+				Long previousStart = allocatedBuckets.get(bucketKey);
+				if(previousStart == null || previousStart.longValue() < bucketStart)
+					allocatedBuckets.put(bucketKey, Long.valueOf(bucketStart));
+				update(collection, contractorIdentifier, pageImpressionSource, bucketField, bucketStart, incrementBuilder, false, null);
+			}
+		});
+	}
+	
+	/**
+	 * Applies the given update to the document referenced by contractor, source and - if a field name is given - 
+	 * bucket start. The document is created if it does not exist
+	 * @param collection
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param bucketField
+	 * @param bucketStart
+	 * @param update
+	 */
+	protected void upsert(final MongoCollection collection, final String contractorIdentifier, final String pageImpressionSource, final String bucketField, final long bucketStart, final DocumentBuilder update) {
+		update(collection, contractorIdentifier, pageImpressionSource, bucketField, bucketStart, update, true, null);
+	}
+	
+	/**
+	 * Applies the given update to the document referenced by contractor, source and - if a field name is given - 
+	 * bucket start
+	 * @param collection
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param bucketField
+	 * @param bucketStart
+	 * @param update
+	 * @param upsert create the document if it does not exist
+	 * @param onSuccess executed by the driver thread once the update completed, may be null
+	 */
+	protected void update(final MongoCollection collection, final String contractorIdentifier, final String pageImpressionSource, final String bucketField, final long bucketStart, final DocumentBuilder update, final boolean upsert, final Runnable onSuccess) {
+		
+		DocumentBuilder queryBuilder = BuilderFactory.start();
+		queryBuilder.add(DOC_FIELD_CONTRACTOR_ID, contractorIdentifier);
+		queryBuilder.add(DOC_FIELD_PI_SOURCE, pageImpressionSource);
+		if(bucketField != null)
+			queryBuilder.add(bucketField, new Date(bucketStart));
+		
+		// metrics are thread-safe, thus they may be updated by the driver thread running the callback
+		final Meter errors = upsertErrors.get(contractorIdentifier);
+		final Timer.Context timerContext = upsertTimers.get(contractorIdentifier).time();
+		
+		// no multi update
+		try {
+			collection.updateAsync(new Callback<Long>() {
+				
+				public void callback(Long result) {
+					timerContext.stop();
+					if(onSuccess != null)
+						onSuccess.run();
+				}
+				
+				public void exception(Throwable thrown) {
+					timerContext.stop();
+					errors.mark();
+					logger.error("Failed to update page impressions [contractor="+contractorIdentifier+", source="+pageImpressionSource+", collection="+collection.getName()+"]: " + thrown.getMessage());
+				}
+			}, queryBuilder, update, false, upsert);
+		} catch(RuntimeException e) {
+			errors.mark();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Creates the unique indexes on the bucket collections of the given contractor, thus each bucket upsert
+	 * as well as each read is served by a single index lookup 
+	 * @param contractorIdentifier
+	 * @param hourlyCollection
+	 * @param dailyCollection
+	 */
+	protected void ensureIndexes(final String contractorIdentifier, final MongoCollection hourlyCollection, final MongoCollection dailyCollection) {
+		if(indexedContractors.add(contractorIdentifier)) {
+			hourlyCollection.createIndex(true, Index.asc(DOC_FIELD_CONTRACTOR_ID), Index.asc(DOC_FIELD_PI_SOURCE), Index.asc(DOC_FIELD_HOUR));
+			dailyCollection.createIndex(true, Index.asc(DOC_FIELD_CONTRACTOR_ID), Index.asc(DOC_FIELD_PI_SOURCE), Index.asc(DOC_FIELD_DAY));
+		}
+	}
+	
+	/**
+	 * Returns true if the message provides all information required for updating a pi element 
+	 * @param message
+	 * @return
+	 */
+	protected boolean isValid(final PageImpressionWriteMessage message) {
+		return message != null && StringUtils.isNotBlank(message.getContractorIdentifier()) && StringUtils.isNotBlank(message.getPageImpressionSource()) && message.getCount() > 0;
+	}
+	
+	/**
+	 * Count aggregated for a single (contractor, source) pair
+	 * @author mnxfst
+	 * @since 20.11.2013
+	 */
+	protected static final class PendingCount {
+		/** total count */
+		private long count = 0;
+		/** time of latest counted event */
+		private long timestamp = 0;
+		/** counts by start of minute, sorted by time. null if time buckets are disabled */
+		private TreeMap<Long, long[]> minuteCounts = null;
+		
+		/**
+		 * Adds the given count
+		 * @param increment
+		 * @param eventTimestamp
+		 * @param trackMinutes
+		 */
+		private void add(final long increment, final long eventTimestamp, final boolean trackMinutes) {
+			this.count = this.count + increment;
+			this.timestamp = Math.max(this.timestamp, eventTimestamp);
+			
+			if(trackMinutes) {
+				if(minuteCounts == null)
+					minuteCounts = new TreeMap<>();
+				Long minuteStart = Long.valueOf(PageImpressionBuckets.minuteStart(eventTimestamp));
+				long[] minuteCount = minuteCounts.get(minuteStart);
+				if(minuteCount == null) {
+					minuteCount = new long[1];
+					minuteCounts.put(minuteStart, minuteCount);
+				}
+				minuteCount[0] = minuteCount[0] + increment;
+			}
+		}
+	}
+	
+}
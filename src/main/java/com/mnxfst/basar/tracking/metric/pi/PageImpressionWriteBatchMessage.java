@@ -0,0 +1,61 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Issued by {@link PageImpressionCacheWriter} towards {@link PageImpressionDBWriter} in write-behind mode. The
+ * message carries all counts collected by the cache writer since its previous flush, thus the database writer
+ * receives a single message per flush instead of one per page view
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionWriteBatchMessage implements Serializable {
+
+	private static final long serialVersionUID = 6015738329164250817L;
+
+	private List<PageImpressionWriteMessage> writeMessages = null;
+	
+	/**
+	 * Default constructor
+	 */
+	public PageImpressionWriteBatchMessage() {
+		this.writeMessages = new ArrayList<>();
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param writeMessages
+	 */
+	public PageImpressionWriteBatchMessage(final List<PageImpressionWriteMessage> writeMessages) {
+		this.writeMessages = writeMessages;
+	}
+
+	public List<PageImpressionWriteMessage> getWriteMessages() {
+		return writeMessages;
+	}
+
+	public void setWriteMessages(List<PageImpressionWriteMessage> writeMessages) {
+		this.writeMessages = writeMessages;
+	}
+	
+}
@@ -1,93 +1,119 @@
-/**
- * basar - enhanced electronic marketplace
- * Copyright (C) 2013 Christian Kreutzfeldt
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- * http://www.apache.org/licenses/LICENSE-2.0
- * 
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-
-package com.mnxfst.basar.tracking.metric.pi;
-
-import java.io.Serializable;
-
-
-/**
- * Issued by {@link PageImpressionHandler} towards {@link PageImpressionCacheWriter} telling the writer to update the referenced
- * key by adding the provided value to the existing value. If none exists, the provided value is initial. <br/><br/>
- * The message is also sent to {@link PageImpressionDBWriter} telling the writer to overwrite any database contents referenced
- * by the (computed) key using the contained value 
- * @author mnxfst
- * @since 29.10.2013
- *
- * Revision Control Info $Id$
- */
-public class PageImpressionWriteMessage implements Serializable {
-
-	private static final long serialVersionUID = -2331441186482151458L;
-
-	private String contractorIdentifier = null;
-	private String pageImpressionSource = null;
-	private int count = 0;
-	private String timestamp = null;
-	
-	/**
-	 * Default constructor
-	 */
-	public PageImpressionWriteMessage() {		
-	}
-	
-	/**
-	 * Initializes the message using the provided input
-	 * @param contractorIdentifier
-	 * @param pageImpressionSource
-	 * @param count
-	 * @param timestamp
-	 */
-	public PageImpressionWriteMessage(final String contractorIdentifier, final String pageImpressionSource, final int count, final String timestamp) {
-		this.contractorIdentifier = contractorIdentifier;
-		this.pageImpressionSource = pageImpressionSource;
-		this.count = count;
-		this.timestamp = timestamp;
-	}
-
-	public String getContractorIdentifier() {
-		return contractorIdentifier;
-	}
-
-	public void setContractorIdentifier(String contractorIdentifier) {
-		this.contractorIdentifier = contractorIdentifier;
-	}
-
-	public String getPageImpressionSource() {
-		return pageImpressionSource;
-	}
-
-	public void setPageImpressionSource(String pageImpressionSource) {
-		this.pageImpressionSource = pageImpressionSource;
-	}
-
-	public int getCount() {
-		return count;
-	}
-
-	public void setCount(int count) {
-		this.count = count;
-	}
-
-	public String getTimestamp() {
-		return timestamp;
-	}
-
-	public void setTimestamp(String timestamp) {
-		this.timestamp = timestamp;
-	}
-	
-}
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import java.io.Serializable;
+
+import akka.routing.ConsistentHashingRouter.ConsistentHashable;
+
+/**
+ * Issued by {@link PageImpressionHandler} towards {@link PageImpressionCacheWriter} telling the writer to update the referenced
+ * key by adding the provided value to the existing value. If none exists, the provided value is initial. <br/><br/>
+ * The message is also sent to {@link PageImpressionDBWriter} telling the writer to overwrite any database contents referenced
+ * by the (computed) key using the contained value.<br/><br/>
+ * Messages are routed by their cache key (contractor and source), thus all counts of a key reach the same writer instance 
+ * if the writers are provided through a {@link akka.routing.ConsistentHashingRouter consistent hashing router} 
+ * @author mnxfst
+ * @since 29.10.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionWriteMessage implements Serializable, ConsistentHashable {
+
+	private static final long serialVersionUID = -2331441186482151458L;
+
+	private String contractorIdentifier = null;
+	private String pageImpressionSource = null;
+	private int count = 0;
+	/** time of the latest counted event given in milliseconds since epoch */
+	private long timestamp = 0;
+	
+	/**
+	 * Default constructor
+	 */
+	public PageImpressionWriteMessage() {		
+	}
+	
+	/**
+	 * Initializes the message using the provided input
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @param count
+	 * @param timestamp
+	 */
+	public PageImpressionWriteMessage(final String contractorIdentifier, final String pageImpressionSource, final int count, final long timestamp) {
+		this.contractorIdentifier = contractorIdentifier;
+		this.pageImpressionSource = pageImpressionSource;
+		this.count = count;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * Returns the cache key of the page impression: <i>contractor</i>-pi-<i>source</i>
+	 * @see akka.routing.ConsistentHashingRouter.ConsistentHashable#consistentHashKey()
+	 */
+	public Object consistentHashKey() {
+		return calculateCacheKey(contractorIdentifier, pageImpressionSource);
+	}
+	
+	/**
+	 * Calculates the unique cache key for the provided contractor and source
+	 * @param contractorIdentifier
+	 * @param pageImpressionSource
+	 * @return
+	 */
+	public static String calculateCacheKey(final String contractorIdentifier, final String pageImpressionSource) {
+		StringBuilder buf = new StringBuilder();
+		buf.append(contractorIdentifier);
+		buf.append("-pi-");
+		buf.append(pageImpressionSource);
+		return buf.toString();
+	}
+
+	public String getContractorIdentifier() {
+		return contractorIdentifier;
+	}
+
+	public void setContractorIdentifier(String contractorIdentifier) {
+		this.contractorIdentifier = contractorIdentifier;
+	}
+
+	public String getPageImpressionSource() {
+		return pageImpressionSource;
+	}
+
+	public void setPageImpressionSource(String pageImpressionSource) {
+		this.pageImpressionSource = pageImpressionSource;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public void setCount(int count) {
+		this.count = count;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public void setTimestamp(long timestamp) {
+		this.timestamp = timestamp;
+	}
+	
+}
@@ -0,0 +1,99 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.model;
+
+import java.text.SimpleDateFormat;
+
+/**
+ * Thread-safe formatter converting a time given in milliseconds into its string representation. As the
+ * configured pattern has a resolution of one second, the most recently formatted second is cached and
+ * shared by all threads. Only when the second changes, the value is formatted again using a per-thread
+ * {@link SimpleDateFormat} instance.
+ * @author mnxfst
+ * @since 16.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TimestampFormatter {
+
+	/** default pattern applied to tracking event timestamps */
+	public static final String DEFAULT_PATTERN = "yyyy.MM.dd HH:mm:ss z";
+
+	/** pattern applied to all formatted values */
+	private final String pattern;
+	/** per-thread formatter, SimpleDateFormat is not thread-safe */
+	private final ThreadLocal<SimpleDateFormat> formatter = new ThreadLocal<SimpleDateFormat>() {
+		protected SimpleDateFormat initialValue() {
+			return new SimpleDateFormat(pattern);
+		}
+	};
+	/** most recently formatted second, replaced as a whole thus readers never see a partial update */
+	private volatile CachedSecond cachedSecond = new CachedSecond(Long.MIN_VALUE, null);
+
+	/**
+	 * Initializes the formatter using the {@link #DEFAULT_PATTERN default pattern}
+	 */
+	public TimestampFormatter() {
+		this(DEFAULT_PATTERN);
+	}
+
+	/**
+	 * Initializes the formatter using the provided pattern. The pattern must not contain
+	 * any element having a resolution below one second
+	 * @param pattern
+	 */
+	public TimestampFormatter(final String pattern) {
+		if(pattern == null || pattern.isEmpty())
+			throw new IllegalArgumentException("Missing required formatter pattern");
+		this.pattern = pattern;
+	}
+
+	/**
+	 * Formats the provided time given in milliseconds
+	 * @param timeMillis
+	 * @return
+	 */
+	public String format(final long timeMillis) {
+
+		final long second = (timeMillis >= 0 ? timeMillis / 1000 : (timeMillis - 999) / 1000);
+
+		CachedSecond current = this.cachedSecond;
+		if(current.second == second)
+			return current.formatted;
+
+		String formatted = formatter.get().format(second * 1000);
+		this.cachedSecond = new CachedSecond(second, formatted);
+		return formatted;
+	}
+
+	/**
+	 * Immutable pair of a second and its formatted representation
+	 * @author mnxfst
+	 * @since 16.11.2013
+	 */
+	private static final class CachedSecond {
+
+		private final long second;
+		private final String formatted;
+
+		private CachedSecond(final long second, final String formatted) {
+			this.second = second;
+			this.formatted = formatted;
+		}
+	}
+
+}
@@ -0,0 +1,281 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.model;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact parameter storage used by {@link TrackingEvent tracking events}. Almost all headers and request parameters
+ * carry a single value, thus keys and values are kept in two flat arrays and a value is stored as plain string. Only
+ * if a second value is added for the same key, the value is replaced by a list holding all values.<br/><br/>
+ * The container still implements {@link Map} to keep the accessor surface of {@link TrackingEvent#getParameters()}.
+ * Lists returned by {@link #get(Object)} or the entry set are read-only views which are created on access. Lookups
+ * scan the key array, which is faster than hashing for the small number of parameters attached to an event.
+ * @author mnxfst
+ * @since 17.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventParameters extends AbstractMap<String, List<String>> implements Serializable {
+
+	private static final long serialVersionUID = 3184206151862310917L;
+
+	/** number of slots allocated initially */
+	private static final int DEFAULT_CAPACITY = 16;
+
+	/** parameter keys, valid up to index size - 1 */
+	private String[] keys;
+	/** parameter values, either a string (single value) or a list of strings (multiple values) */
+	private Object[] values;
+	/** number of parameters */
+	private int size = 0;
+
+	/**
+	 * Default constructor
+	 */
+	public TrackingEventParameters() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Initializes the container using the provided capacity
+	 * @param initialCapacity
+	 */
+	public TrackingEventParameters(final int initialCapacity) {
+		final int capacity = Math.max(1, initialCapacity);
+		this.keys = new String[capacity];
+		this.values = new Object[capacity];
+	}
+
+	/**
+	 * Adds the provided value to the parameter referenced by the key
+	 * @param key
+	 * @param value
+	 */
+	@SuppressWarnings("unchecked")
+	public void add(final String key, final String value) {
+		int idx = indexOf(key);
+		if(idx < 0) {
+			append(key, value);
+			return;
+		}
+
+		Object current = values[idx];
+		if(current instanceof List) {
+			((List<String>)current).add(value);
+		} else {
+			List<String> list = new ArrayList<>(2);
+			list.add((String)current);
+			list.add(value);
+			values[idx] = list;
+		}
+	}
+
+	/**
+	 * Returns the first value of the referenced parameter without creating a list view
+	 * @param key
+	 * @return value or null if the parameter does not exist
+	 */
+	@SuppressWarnings("unchecked")
+	public String getFirst(final String key) {
+		int idx = indexOf(key);
+		if(idx < 0)
+			return null;
+		Object value = values[idx];
+		if(value instanceof List) {
+			List<String> list = (List<String>)value;
+			return (list.isEmpty() ? null : list.get(0));
+		}
+		return (String)value;
+	}
+
+	/**
+	 * @see java.util.AbstractMap#get(java.lang.Object)
+	 */
+	public List<String> get(Object key) {
+		int idx = indexOf(key);
+		return (idx < 0 ? null : asList(values[idx]));
+	}
+
+	/**
+	 * @see java.util.AbstractMap#containsKey(java.lang.Object)
+	 */
+	public boolean containsKey(Object key) {
+		return indexOf(key) >= 0;
+	}
+
+	/**
+	 * Replaces all values of the referenced parameter by the provided ones
+	 * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+	 */
+	public List<String> put(String key, List<String> value) {
+		Object compact = compact(value);
+		int idx = indexOf(key);
+		if(idx < 0) {
+			append(key, compact);
+			return null;
+		}
+		List<String> previous = asList(values[idx]);
+		values[idx] = compact;
+		return previous;
+	}
+
+	/**
+	 * @see java.util.AbstractMap#remove(java.lang.Object)
+	 */
+	public List<String> remove(Object key) {
+		int idx = indexOf(key);
+		if(idx < 0)
+			return null;
+		List<String> previous = asList(values[idx]);
+		removeAt(idx);
+		return previous;
+	}
+
+	/**
+	 * @see java.util.AbstractMap#size()
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @see java.util.AbstractMap#clear()
+	 */
+	public void clear() {
+		Arrays.fill(keys, 0, size, null);
+		Arrays.fill(values, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * @see java.util.AbstractMap#entrySet()
+	 */
+	public Set<Map.Entry<String, List<String>>> entrySet() {
+		return new AbstractSet<Map.Entry<String, List<String>>>() {
+
+			public Iterator<Map.Entry<String, List<String>>> iterator() {
+				return new Iterator<Map.Entry<String, List<String>>>() {
+
+					private int next = 0;
+					private int last = -1;
+
+					public boolean hasNext() {
+						return next < size;
+					}
+
+					public Map.Entry<String, List<String>> next() {
+						if(next >= size)
+							throw new NoSuchElementException();
+						last = next++;
+						return new AbstractMap.SimpleImmutableEntry<String, List<String>>(keys[last], asList(values[last]));
+					}
+
+					public void remove() {
+						if(last < 0)
+							throw new IllegalStateException();
+						removeAt(last);
+						next = last;
+						last = -1;
+					}
+				};
+			}
+
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	/**
+	 * Returns the index of the referenced key or -1 if it does not exist
+	 * @param key
+	 * @return
+	 */
+	protected int indexOf(final Object key) {
+		for(int i = 0; i < size; i++) {
+			String k = keys[i];
+			if(k == key || (key != null && key.equals(k)))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Appends a new key/value pair and grows the arrays if required
+	 * @param key
+	 * @param value
+	 */
+	protected void append(final String key, final Object value) {
+		if(size == keys.length) {
+			keys = Arrays.copyOf(keys, size << 1);
+			values = Arrays.copyOf(values, size << 1);
+		}
+		keys[size] = key;
+		values[size] = value;
+		size++;
+	}
+
+	/**
+	 * Removes the key/value pair found at the given index
+	 * @param idx
+	 */
+	protected void removeAt(final int idx) {
+		int numMoved = size - idx - 1;
+		if(numMoved > 0) {
+			System.arraycopy(keys, idx + 1, keys, idx, numMoved);
+			System.arraycopy(values, idx + 1, values, idx, numMoved);
+		}
+		size--;
+		keys[size] = null;
+		values[size] = null;
+	}
+
+	/**
+	 * Converts a stored value into a read-only list
+	 * @param value
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	protected static List<String> asList(final Object value) {
+		if(value instanceof List)
+			return Collections.unmodifiableList((List<String>)value);
+		return Collections.singletonList((String)value);
+	}
+
+	/**
+	 * Converts the provided list into its compact representation
+	 * @param value
+	 * @return
+	 */
+	protected static Object compact(final List<String> value) {
+		if(value != null && value.size() == 1)
+			return value.get(0);
+		return (value != null ? new ArrayList<>(value) : new ArrayList<String>(2));
+	}
+
+}
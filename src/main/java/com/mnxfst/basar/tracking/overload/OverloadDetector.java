@@ -0,0 +1,79 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.overload;
+
+import org.apache.log4j.Logger;
+
+import akka.actor.DeadLetter;
+import akka.actor.UntypedActor;
+
+import com.mnxfst.basar.tracking.gateway.message.TrackingEventBatchMessage;
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionWriteBatchMessage;
+import com.mnxfst.basar.tracking.metric.pi.PageImpressionWriteMessage;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Subscribed to {@link DeadLetter dead letters} on the event stream. Messages dropped by a full (bounded) mailbox end up 
+ * as dead letters, thus each dead letter carrying a pipeline payload {@link OverloadSignal#signal() signals} an overload. 
+ * Other dead letters, eg. those sent to stopped actors during shutdown, are ignored
+ * @author mnxfst
+ * @since 25.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class OverloadDetector extends UntypedActor {
+
+	/** logging facility */
+	private static final Logger logger = Logger.getLogger(OverloadDetector.class);
+	
+	/** signal consulted by the http layer */
+	private final OverloadSignal overloadSignal;
+	
+	/**
+	 * Initializes the detector using the provided input
+	 * @param overloadSignal
+	 */
+	public OverloadDetector(final OverloadSignal overloadSignal) {
+		this.overloadSignal = overloadSignal;
+	}
+	
+	/**
+	 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+	 */
+	public void onReceive(Object message) throws Exception {
+		
+		if(message instanceof DeadLetter) {
+			DeadLetter deadLetter = (DeadLetter)message;
+			if(isPipelinePayload(deadLetter.message()) && overloadSignal.signal())
+				logger.warn("Pipeline overloaded, rejecting requests for " + overloadSignal.getRejectMillis() + "ms [dropped="+deadLetter.message().getClass().getSimpleName()+", recipient="+deadLetter.recipient().path()+", signals="+overloadSignal.getNumOfSignals()+", rejected="+overloadSignal.getNumOfRejectedRequests()+"]");
+		} else {
+			unhandled(message);
+		}
+	}
+	
+	/**
+	 * Returns true if the provided message is handed along the processing pipeline
+	 * @param message
+	 * @return
+	 */
+	protected boolean isPipelinePayload(final Object message) {
+		return message instanceof HttpRequestMessage || message instanceof TrackingEvent || message instanceof TrackingEventBatchMessage 
+				|| message instanceof PageImpressionWriteMessage || message instanceof PageImpressionWriteBatchMessage;
+	}
+
+}
@@ -0,0 +1,110 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.overload;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the http layer whether the actor pipeline is overloaded. The pipeline stages run on bounded mailboxes which
+ * drop messages as soon as they are full. Each drop {@link #signal() signals} an overload which makes the 
+ * {@link com.mnxfst.basar.tracking.BasarTrackingServerInboundHandler inbound handler} reject requests for the configured 
+ * time instead of handing them over. Thus the pipeline gets the chance to drain its mailboxes while memory and latency 
+ * stay bounded.<br/><br/>
+ * The signal is read by all netty event loops for every request, thus it keeps a single volatile timestamp only
+ * @author mnxfst
+ * @since 25.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class OverloadSignal {
+
+	/** time requests are rejected after the latest overload signal */
+	private final long rejectMillis;
+	/** time (millis since epoch) until which requests are rejected */
+	private volatile long overloadedUntil = 0;
+	/** number of overload signals received */
+	private final AtomicLong numOfSignals = new AtomicLong(0);
+	/** number of requests rejected */
+	private final AtomicLong numOfRejectedRequests = new AtomicLong(0);
+	
+	/**
+	 * Initializes the signal using the provided input
+	 * @param rejectMillis
+	 */
+	public OverloadSignal(final long rejectMillis) {
+		this.rejectMillis = Math.max(0, rejectMillis);
+	}
+	
+	/**
+	 * Signals an overload at the current time
+	 * @return true if the pipeline was not overloaded before
+	 */
+	public boolean signal() {
+		return signal(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Signals an overload at the given time
+	 * @param now
+	 * @return true if the pipeline was not overloaded before
+	 */
+	public boolean signal(final long now) {
+		numOfSignals.incrementAndGet();
+		boolean wasOverloaded = isOverloaded(now);
+		long until = now + rejectMillis;
+		if(until > overloadedUntil)
+			overloadedUntil = until;
+		return !wasOverloaded;
+	}
+	
+	/**
+	 * Returns true if requests must be rejected at the current time
+	 * @return
+	 */
+	public boolean isOverloaded() {
+		return isOverloaded(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Returns true if requests must be rejected at the given time
+	 * @param now
+	 * @return
+	 */
+	public boolean isOverloaded(final long now) {
+		return now < overloadedUntil;
+	}
+	
+	/**
+	 * Counts a rejected request
+	 */
+	public void requestRejected() {
+		numOfRejectedRequests.incrementAndGet();
+	}
+
+	public long getRejectMillis() {
+		return rejectMillis;
+	}
+
+	public long getNumOfSignals() {
+		return numOfSignals.get();
+	}
+
+	public long getNumOfRejectedRequests() {
+		return numOfRejectedRequests.get();
+	}
+	
+}
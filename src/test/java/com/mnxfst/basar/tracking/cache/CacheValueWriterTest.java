@@ -0,0 +1,176 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import akka.actor.Props;
+import akka.testkit.JavaTestKit;
+import akka.testkit.TestActorRef;
+
+import com.mnxfst.basar.tracking.AbstractBasarTrackingTest;
+import com.mnxfst.basar.tracking.cache.client.CacheClient;
+import com.mnxfst.basar.tracking.cache.client.EmbeddedCacheClient;
+import com.mnxfst.basar.tracking.cache.message.CheckPendingIncrementsMessage;
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+
+/**
+ * Test cases for the counter increments of {@link CacheValueWriter}
+ * @author mnxfst
+ * @since 19.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class CacheValueWriterTest extends AbstractBasarTrackingTest {
+
+	private final CompactValueTranscoder transcoder = new CompactValueTranscoder();
+	
+	/**
+	 * Test case for {@link CacheValueWriter#addToCounter(String, long)} being provided a new key: the increment misses
+	 * and the key is initialized with the count
+	 */
+	@Test
+	public void testAddToCounterWithNewKey() {
+		EmbeddedCacheClient cacheClient = new EmbeddedCacheClient(100, 1024 * 1024, false);
+		TestActorRef<CounterWriter> writerRef = TestActorRef.create(system, Props.create(CounterWriter.class, cacheClient));
+		
+		writerRef.underlyingActor().addToCounter("new-key", 3);
+		Assert.assertEquals("The counter must be initialized", 3, writerRef.underlyingActor().readCounter("new-key"));
+		writerRef.underlyingActor().addToCounter("new-key", 2);
+		Assert.assertEquals("The counter must be incremented", 5, writerRef.underlyingActor().readCounter("new-key"));
+		system.stop(writerRef);
+	}
+	
+	/**
+	 * Test case for an increment which misses a new key after the writer has handled its message: the key is initialized 
+	 * without the writer receiving any further messages
+	 */
+	@Test
+	public void testDelayedMissAppliedWhileIdle() {
+		final DelayedIncrementCacheClient cacheClient = new DelayedIncrementCacheClient();
+		final TestActorRef<CounterWriter> writerRef = TestActorRef.create(system, Props.create(CounterWriter.class, cacheClient));
+		
+		writerRef.underlyingActor().addToCounter("idle-key", 4);
+		Assert.assertEquals("The counter must not exist yet", -1, writerRef.underlyingActor().readCounter("idle-key"));
+		cacheClient.completeIncrements();
+		
+		new JavaTestKit(system) {{
+			new AwaitCond(duration("3 seconds")) {
+				protected boolean cond() {
+					return writerRef.underlyingActor().readCounter("idle-key") == 4;
+				}
+			};
+		}};
+		system.stop(writerRef);
+	}
+	
+	/**
+	 * Test case for a writer being stopped while an increment is pending: the writer waits for its result and initializes the key
+	 */
+	@Test
+	public void testPendingMissAppliedOnStop() throws Exception {
+		final DelayedIncrementCacheClient cacheClient = new DelayedIncrementCacheClient();
+		final TestActorRef<CounterWriter> writerRef = TestActorRef.create(system, Props.create(CounterWriter.class, cacheClient));
+		
+		writerRef.underlyingActor().addToCounter("stop-key", 6);
+		Thread completer = new Thread(new Runnable() {
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch(InterruptedException e) {
+					//
+				}
+				cacheClient.completeIncrements();
+			}
+		});
+		completer.start();
+		system.stop(writerRef);
+		
+		new JavaTestKit(system) {{
+			new AwaitCond(duration("3 seconds")) {
+				protected boolean cond() {
+					return cacheClient.get("stop-key", transcoder) != null;
+				}
+			};
+		}};
+		Assert.assertEquals("The counter must be initialized", "6", cacheClient.get("stop-key", transcoder));
+		completer.join();
+	}
+	
+	/**
+	 * Writer adding to counters on request of the test
+	 */
+	public static class CounterWriter extends CacheValueWriter {
+		
+		public CounterWriter(final CacheClient cacheClient) {
+			super(cacheClient);
+		}
+		
+		/**
+		 * @see akka.actor.UntypedActor#onReceive(java.lang.Object)
+		 */
+		public void onReceive(Object message) throws Exception {
+			checkPendingIncrements();
+			if(message instanceof CheckPendingIncrementsMessage)
+				onCheckPendingIncrements();
+			else
+				unhandled(message);
+		}
+	}
+	
+	/**
+	 * Embedded cache whose plain increments complete as soon as the test says so, like increments sent to a remote memcached server
+	 */
+	private static class DelayedIncrementCacheClient extends EmbeddedCacheClient {
+		
+		/** increments not completed yet */
+		private final ConcurrentLinkedQueue<FutureTask<Long>> pendingIncrements = new ConcurrentLinkedQueue<>();
+		
+		private DelayedIncrementCacheClient() {
+			super(100, 1024 * 1024, false);
+		}
+		
+		/**
+		 * @see com.mnxfst.basar.tracking.cache.client.EmbeddedCacheClient#asyncIncr(java.lang.String, long)
+		 */
+		public Future<Long> asyncIncr(final String key, final long by) {
+			FutureTask<Long> increment = new FutureTask<>(new Callable<Long>() {
+				public Long call() throws Exception {
+					return Long.valueOf(mutate(key, by, -1, 0, false));
+				}
+			});
+			pendingIncrements.add(increment);
+			return increment;
+		}
+		
+		/**
+		 * Completes all increments issued so far
+		 */
+		private void completeIncrements() {
+			FutureTask<Long> increment = null;
+			while((increment = pendingIncrements.poll()) != null)
+				increment.run();
+		}
+	}
+	
+}
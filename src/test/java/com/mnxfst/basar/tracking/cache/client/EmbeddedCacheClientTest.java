@@ -0,0 +1,139 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.client;
+
+import java.util.concurrent.ExecutionException;
+
+import net.spy.memcached.CASResponse;
+import net.spy.memcached.CASValue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+
+/**
+ * Test case for {@link EmbeddedCacheClient}
+ * @author mnxfst
+ * @since 23.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class EmbeddedCacheClientTest {
+
+	private final CompactValueTranscoder transcoder = new CompactValueTranscoder();
+	
+	/**
+	 * Test case for {@link EmbeddedCacheClient#set(String, int, Object, net.spy.memcached.transcoders.Transcoder)} and 
+	 * {@link EmbeddedCacheClient#get(String, net.spy.memcached.transcoders.Transcoder)} using on-heap and off-heap storage
+	 */
+	@Test
+	public void testSetAndGet() {
+		for(boolean offHeap : new boolean[]{false, true}) {
+			EmbeddedCacheClient client = new EmbeddedCacheClient(100, 1024 * 1024, offHeap);
+			Assert.assertNull("The value must not exist", client.get("key", transcoder));
+			client.set("key", 0, "value", transcoder);
+			Assert.assertEquals("The value must be equal", "value", client.get("key", transcoder));
+			client.set("key", 0, "other", transcoder);
+			Assert.assertEquals("The value must be equal", "other", client.get("key", transcoder));
+			Assert.assertEquals("The size must be 1", 1, client.size());
+		}
+	}
+	
+	/**
+	 * Test case for {@link EmbeddedCacheClient#asyncIncr(String, long)} and {@link EmbeddedCacheClient#incr(String, long, long, int)}
+	 */
+	@Test
+	public void testIncrement() throws Exception {
+		EmbeddedCacheClient client = new EmbeddedCacheClient(100, 1024 * 1024, false);
+		Assert.assertEquals("The key must not exist", -1L, client.asyncIncr("ctr", 5).get().longValue());
+		Assert.assertEquals("The key must be initialized", 5L, client.incr("ctr", 5, 5, 0));
+		Assert.assertEquals("The value must be incremented", 8L, client.asyncIncr("ctr", 3).get().longValue());
+		Assert.assertEquals("The value must be readable as string", "8", client.get("ctr", transcoder));
+		
+		client.set("text", 0, "abc", transcoder);
+		try {
+			client.asyncIncr("text", 1).get();
+			Assert.fail("Non-numeric values must not be incremented");
+		} catch(ExecutionException e) {
+			// expected
+		}
+	}
+	
+	/**
+	 * Test case for increments applied in place to off-heap counters, including counters written by set and changes of the number of digits
+	 */
+	@Test
+	public void testIncrementInPlace() throws Exception {
+		EmbeddedCacheClient client = new EmbeddedCacheClient(100, 1024 * 1024, true);
+		client.set("ctr", 0, "98", transcoder);
+		Assert.assertEquals("The value must be incremented", 99L, client.asyncIncr("ctr", 1).get().longValue());
+		long casId = client.gets("ctr", transcoder).getCas();
+		Assert.assertEquals("The value must be incremented", 100L, client.incr("ctr", 1, 0, 0));
+		Assert.assertEquals("The value must be readable as string", "100", client.get("ctr", transcoder));
+		Assert.assertFalse("The increment must change the cas identifier", casId == client.gets("ctr", transcoder).getCas());
+		Assert.assertEquals("The value must be incremented", 110L, client.asyncIncr("ctr", 10, 0, 0).get().longValue());
+		
+		Assert.assertEquals("The digits must be equal", 1, EmbeddedCacheClient.digits(0));
+		Assert.assertEquals("The digits must be equal", 3, EmbeddedCacheClient.digits(100));
+		Assert.assertEquals("The digits must be equal", 3, EmbeddedCacheClient.digits(-99));
+		Assert.assertEquals("The digits must be equal", String.valueOf(Long.MAX_VALUE).length(), EmbeddedCacheClient.digits(Long.MAX_VALUE));
+		Assert.assertEquals("The digits must be equal", String.valueOf(Long.MIN_VALUE).length(), EmbeddedCacheClient.digits(Long.MIN_VALUE));
+	}
+	
+	/**
+	 * Test case for {@link EmbeddedCacheClient#gets(String, net.spy.memcached.transcoders.Transcoder)} and 
+	 * {@link EmbeddedCacheClient#asyncCAS(String, long, Object, net.spy.memcached.transcoders.Transcoder)}
+	 */
+	@Test
+	public void testCAS() throws Exception {
+		EmbeddedCacheClient client = new EmbeddedCacheClient(100, 1024 * 1024, false);
+		Assert.assertEquals("The key must not exist", CASResponse.NOT_FOUND, client.asyncCAS("key", 1, "value", transcoder).get());
+		client.set("key", 0, "value", transcoder);
+		CASValue<Object> value = client.gets("key", transcoder);
+		Assert.assertEquals("The update must succeed", CASResponse.OK, client.asyncCAS("key", value.getCas(), "second", transcoder).get());
+		Assert.assertEquals("The update must fail", CASResponse.EXISTS, client.asyncCAS("key", value.getCas(), "third", transcoder).get());
+		Assert.assertEquals("The value must be equal", "second", client.get("key", transcoder));
+	}
+	
+	/**
+	 * Test case for evicting least recently used items
+	 */
+	@Test
+	public void testEviction() {
+		// 16 segments with a single item each
+		EmbeddedCacheClient client = new EmbeddedCacheClient(16, 1024 * 1024, false);
+		for(int i = 0; i < 1000; i++)
+			client.set("key-" + i, 0, "value-" + i, transcoder);
+		Assert.assertTrue("The size must not exceed 16", client.size() <= 16);
+		Assert.assertEquals("The number of evictions must match", 1000 - client.size(), client.getEvictions());
+		Assert.assertEquals("The latest item must exist", "value-999", client.get("key-999", transcoder));
+	}
+	
+	/**
+	 * Test case for expired items
+	 */
+	@Test
+	public void testExpiration() throws Exception {
+		EmbeddedCacheClient client = new EmbeddedCacheClient(100, 1024 * 1024, false);
+		// absolute unix time in the past
+		client.set("key", 60*60*24*30 + 1, "value", transcoder);
+		Assert.assertNull("The value must be expired", client.get("key", transcoder));
+		Assert.assertEquals("The size must be 0", 0, client.size());
+	}
+	
+}
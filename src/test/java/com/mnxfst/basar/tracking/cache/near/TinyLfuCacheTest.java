@@ -0,0 +1,100 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.cache.near;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link TinyLfuCache}
+ * @author mnxfst
+ * @since 24.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TinyLfuCacheTest {
+
+	/**
+	 * Test case for {@link TinyLfuCache#put(Object, Object)} and {@link TinyLfuCache#get(Object)}
+	 */
+	@Test
+	public void testPutAndGet() {
+		TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, null);
+		for(int i = 0; i < 50; i++)
+			cache.put("key-" + i, i);
+		
+		Assert.assertEquals("The size must be 50", 50, cache.size());
+		for(int i = 0; i < 50; i++)
+			Assert.assertEquals("The value must be equal", Integer.valueOf(i), cache.get("key-" + i));
+		Assert.assertNull("The key must not exist", cache.get("unknown"));
+		Assert.assertEquals("The hit count must be 50", 50, cache.getHitCount());
+		Assert.assertEquals("The miss count must be 1", 1, cache.getMissCount());
+		
+		cache.put("key-1", 4711);
+		Assert.assertEquals("The value must be replaced", Integer.valueOf(4711), cache.get("key-1"));
+		Assert.assertEquals("The value must be removed", Integer.valueOf(4711), cache.remove("key-1"));
+		Assert.assertEquals("The size must be 49", 49, cache.size());
+	}
+	
+	/**
+	 * Test case for keeping frequently accessed keys while a scan of one-off keys passes through the cache
+	 */
+	@Test
+	public void testFrequentKeysSurviveScan() {
+		final List<String> evicted = new ArrayList<>();
+		TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, new TinyLfuCache.EvictionListener<String, Integer>() {
+			public void onEviction(String key, Integer value) {
+				evicted.add(key);
+			}
+		});
+		
+		// hot keys keep being accessed while one-off keys pass through
+		for(int i = 0; i < 10000; i++) {
+			if(i % 100 == 0) {
+				for(int j = 0; j < 10; j++) {
+					if(cache.get("hot-" + j) == null)
+						cache.put("hot-" + j, j);
+				}
+			}
+			cache.put("scan-" + i, i);
+		}
+		
+		Assert.assertTrue("The size must not exceed 100", cache.size() <= 100);
+		Assert.assertEquals("All dropped entries must be reported", cache.getEvictionCount(), evicted.size());
+		long missCount = cache.getMissCount();
+		for(int i = 0; i < 10; i++)
+			Assert.assertNotNull("The hot key must be cached", cache.get("hot-" + i));
+		// hot keys are missed only until they have been admitted
+		Assert.assertTrue("The hot keys must be missed rarely", missCount < 50);
+	}
+	
+	/**
+	 * Test case for a cache holding a single entry
+	 */
+	@Test
+	public void testSingleEntry() {
+		TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(1, null);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		Assert.assertEquals("The size must be 1", 1, cache.size());
+		Assert.assertEquals("One entry must be evicted", 1, cache.getEvictionCount());
+	}
+	
+}
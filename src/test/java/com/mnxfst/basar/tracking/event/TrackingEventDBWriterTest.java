@@ -0,0 +1,177 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.event;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.testkit.TestActorRef;
+
+import com.allanbank.mongodb.Callback;
+import com.allanbank.mongodb.Durability;
+import com.allanbank.mongodb.MongoCollection;
+import com.allanbank.mongodb.bson.DocumentAssignable;
+import com.allanbank.mongodb.bson.Element;
+import com.allanbank.mongodb.error.DuplicateKeyException;
+import com.mnxfst.basar.tracking.AbstractBasarTrackingTest;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerEventWriterConfigElement;
+import com.mnxfst.basar.tracking.config.BasarTrackingServerJournalConfigElement;
+import com.mnxfst.basar.tracking.journal.EventJournal;
+import com.mnxfst.basar.tracking.journal.JournalReplayHandler;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+
+/**
+ * Test cases for {@link TrackingEventDBWriter}
+ * @author mnxfst
+ * @since 19.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventDBWriterTest extends AbstractBasarTrackingTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test case for an event which is redelivered from the journal while its first insert has not been acknowledged yet: 
+	 * the redelivered copy fails on the duplicate key, thus the event is inserted once and acknowledged
+	 */
+	@Test
+	public void testRedeliveredEventInsertedOnce() throws Exception {
+		
+		BasarTrackingServerJournalConfigElement journalConfiguration = new BasarTrackingServerJournalConfigElement();
+		journalConfiguration.setEnabled(true);
+		journalConfiguration.setDirectory(folder.getRoot().getAbsolutePath());
+		final EventJournal journal = new EventJournal(journalConfiguration);
+		journal.open();
+		try {
+			BasarTrackingServerEventWriterConfigElement writerConfiguration = new BasarTrackingServerEventWriterConfigElement();
+			writerConfiguration.setBatchEnabled(true);
+			writerConfiguration.setMaxBatchDocuments(1);
+			
+			final InsertRecorder recorder = new InsertRecorder();
+			final MongoCollection collection = (MongoCollection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{MongoCollection.class}, recorder);
+			final TestActorRef<TrackingEventDBWriter> writerRef = TestActorRef.create(system, Props.create(TrackingEventDBWriter.class, collection, writerConfiguration, journal));
+			
+			TrackingEvent trackingEvent = new TrackingEvent("pi", "http", "ctr-1", "shop", null, 1385683200000L);
+			journal.append(trackingEvent);
+			writerRef.tell(trackingEvent, ActorRef.noSender());
+			Assert.assertEquals("The inserted documents must be 1", 1, recorder.documents.size());
+			Assert.assertEquals("The pending callbacks must be 1", 1, recorder.pendingCallbacks.size());
+			Assert.assertFalse("The event must not be acknowledged", journal.isAcknowledged(trackingEvent.getJournalSequence()));
+			
+			// the insert is slow, thus the event is redelivered before its acknowledgement arrives
+			Assert.assertEquals("The redelivered events must be 1", 1, journal.redeliver(0, journal.getNextSequence(), 10, new JournalReplayHandler() {
+				public void onEvent(TrackingEvent redelivered) {
+					writerRef.tell(redelivered, ActorRef.noSender());
+				}
+			}));
+			Assert.assertEquals("The inserted documents must be 1", 1, recorder.documents.size());
+			Assert.assertTrue("The event must be acknowledged", journal.isAcknowledged(trackingEvent.getJournalSequence()));
+			
+			// late acknowledgement of the first insert
+			recorder.pendingCallbacks.get(0).callback(Integer.valueOf(1));
+			Assert.assertEquals("The inserted documents must be 1", 1, recorder.documents.size());
+			Assert.assertEquals("The low-water mark must be 1", 1, journal.getLowWaterMark());
+		} finally {
+			journal.close();
+		}
+	}
+	
+	/**
+	 * Test case for {@link TrackingEventDBWriter#toAcknowledgedDurability(Durability, boolean)}: journaled events are never
+	 * written unacknowledged
+	 */
+	@Test
+	public void testToAcknowledgedDurability() {
+		Assert.assertNull("Without journal the collection default must be kept", TrackingEventDBWriter.toAcknowledgedDurability(null, false));
+		Assert.assertEquals("Without journal the configured durability must be kept", Durability.NONE, TrackingEventDBWriter.toAcknowledgedDurability(Durability.NONE, false));
+		Assert.assertEquals("With journal the collection default must be replaced", Durability.ACK, TrackingEventDBWriter.toAcknowledgedDurability(null, true));
+		Assert.assertEquals("With journal durability none must be replaced", Durability.ACK, TrackingEventDBWriter.toAcknowledgedDurability(Durability.NONE, true));
+		Assert.assertEquals("With journal acknowledged durability must be kept", Durability.journalDurable(100), TrackingEventDBWriter.toAcknowledgedDurability(Durability.journalDurable(100), true));
+	}
+	
+	/**
+	 * Records the documents inserted into a {@link MongoCollection} by their identifiers and fails on duplicate keys. Callbacks
+	 * of asynchronous inserts are kept, thus the test decides when the insert completes
+	 */
+	private static class InsertRecorder implements InvocationHandler {
+		
+		/** inserted documents by their identifiers */
+		private final Map<Element, DocumentAssignable> documents = new HashMap<>();
+		/** callbacks of asynchronous inserts not completed yet */
+		private final List<Callback<Integer>> pendingCallbacks = new ArrayList<>();
+		
+		/**
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@SuppressWarnings("unchecked")
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if(method.getName().equals("getName"))
+				return TrackingEventDBWriter.DB_COLLECTION;
+			if(method.getName().equals("getDatabaseName"))
+				return "test";
+			if(method.getName().equals("insert")) {
+				insert((DocumentAssignable[])args[args.length - 1]);
+				return Integer.valueOf(1);
+			}
+			if(method.getName().equals("insertAsync")) {
+				Callback<Integer> callback = (Callback<Integer>)args[0];
+				try {
+					insert((DocumentAssignable[])args[args.length - 1]);
+				} catch(DuplicateKeyException e) {
+					callback.exception(e);
+					return null;
+				}
+				pendingCallbacks.add(callback);
+				return null;
+			}
+			throw new UnsupportedOperationException(method.getName());
+		}
+		
+		/**
+		 * Inserts the given documents, continuing on errors
+		 * @param batch
+		 */
+		private void insert(final DocumentAssignable[] batch) {
+			DuplicateKeyException duplicate = null;
+			for(DocumentAssignable document : batch) {
+				Element id = document.asDocument().get(TrackingEventDocumentEncoder.DOC_FIELD_ID);
+				Assert.assertNotNull("The document identifier must not be null", id);
+				if(documents.containsKey(id))
+					duplicate = new DuplicateKeyException(0, 11000, "E11000 duplicate key error index: _id_ dup key: " + id, null, null);
+				else
+					documents.put(id, document);
+			}
+			if(duplicate != null)
+				throw duplicate;
+		}
+	}
+	
+}
@@ -0,0 +1,115 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpVersion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mnxfst.basar.tracking.http.converter.message.HttpRequestMessage;
+
+/**
+ * Test case for {@link IngestRingBuffer}
+ * @author mnxfst
+ * @since 14.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class IngestRingBufferTest {
+
+	/**
+	 * Test case for {@link IngestRingBuffer#IngestRingBuffer(int)} being provided an invalid capacity
+	 */
+	@Test
+	public void testConstructorWithInvalidCapacity() {
+		try {
+			new IngestRingBuffer(0);
+			Assert.fail("Invalid capacity provided to constructor");
+		} catch(IllegalArgumentException e) {
+			//
+		}
+	}
+
+	/**
+	 * Test case for {@link IngestRingBuffer#IngestRingBuffer(int)} being provided a capacity which is not a power of two
+	 */
+	@Test
+	public void testConstructorRoundsUpCapacity() {
+		Assert.assertEquals("The capacity must be 8", 8, new IngestRingBuffer(5).capacity());
+		Assert.assertEquals("The capacity must be 8", 8, new IngestRingBuffer(8).capacity());
+	}
+
+	/**
+	 * Test case for {@link IngestRingBuffer#publish(io.netty.handler.codec.http.HttpRequest, String, long)} being
+	 * called on a full buffer
+	 */
+	@Test
+	public void testPublishOnFullBuffer() {
+		IngestRingBuffer ringBuffer = new IngestRingBuffer(4);
+		for(int i = 0; i < 4; i++)
+			Assert.assertTrue("The request must be published", ringBuffer.publish(request("/" + i), "http", i));
+		Assert.assertFalse("The buffer is full", ringBuffer.publish(request("/4"), "http", 4));
+		Assert.assertEquals("The buffer must hold 4 elements", 4, ringBuffer.size());
+	}
+
+	/**
+	 * Test case for {@link IngestRingBuffer#drain(IngestEventHandler, int)} ensuring that slots are handed over
+	 * in order, batches are bounded and drained slots become available again
+	 */
+	@Test
+	public void testDrainInOrderAndWrapAround() {
+		IngestRingBuffer ringBuffer = new IngestRingBuffer(4);
+		final List<String> uris = new ArrayList<>();
+		final List<Boolean> endOfBatchFlags = new ArrayList<>();
+		IngestEventHandler handler = new IngestEventHandler() {
+			public void onEvent(HttpRequestMessage event, boolean endOfBatch) {
+				uris.add(event.getRequest().getUri());
+				endOfBatchFlags.add(endOfBatch);
+			}
+		};
+
+		for(int i = 0; i < 4; i++)
+			ringBuffer.publish(request("/" + i), "http", i);
+
+		Assert.assertEquals("The batch must hold 3 elements", 3, ringBuffer.drain(handler, 3));
+		Assert.assertEquals("The order must be kept", "/0", uris.get(0));
+		Assert.assertEquals("The order must be kept", "/2", uris.get(2));
+		Assert.assertFalse("The first element does not end the batch", endOfBatchFlags.get(0));
+		Assert.assertTrue("The third element ends the batch", endOfBatchFlags.get(2));
+
+		// three slots have been released and may be reused
+		for(int i = 4; i < 7; i++)
+			Assert.assertTrue("The request must be published", ringBuffer.publish(request("/" + i), "http", i));
+		Assert.assertFalse("The buffer is full", ringBuffer.publish(request("/7"), "http", 7));
+
+		Assert.assertEquals("The batch must hold 4 elements", 4, ringBuffer.drain(handler, 10));
+		Assert.assertEquals("The order must be kept", "/6", uris.get(6));
+		Assert.assertEquals("The buffer must be empty", 0, ringBuffer.size());
+		Assert.assertEquals("Nothing left to drain", 0, ringBuffer.drain(handler, 10));
+	}
+
+	private static DefaultHttpRequest request(final String uri) {
+		return new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+	}
+
+}
@@ -0,0 +1,252 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.ingest.raw;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.HttpRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mnxfst.basar.tracking.config.BasarTrackingServerRawIngestConfigElement;
+
+/**
+ * Test case for {@link RawHttpRequestDecoder}, {@link RawRequestLog} and {@link RawRequestLogReader}
+ * @author mnxfst
+ * @since 01.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class RawRequestLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test case for {@link RawHttpRequestDecoder} being provided pipelined requests, one of them carrying a body
+	 */
+	@Test
+	public void testDecodePipelinedRequests() {
+		List<RawHttpRequest> requests = decode(
+				"GET /track?ev.cr=c1 HTTP/1.1\r\nHost: localhost\r\nAccept: */*\r\nuser-agent: test\r\n\r\n" +
+				"POST /beacon HTTP/1.1\r\nContent-Length: 5\r\nConnection: close\r\n\r\nabcde" +
+				"\r\nGET /metrics?x=1 HTTP/1.0\r\n\r\n");
+		try {
+			Assert.assertEquals("The number of requests must be 3", 3, requests.size());
+			
+			Assert.assertTrue("The request must be kept alive", requests.get(0).isKeepAlive());
+			Assert.assertEquals("The number of header lines must be 2", 2, requests.get(0).getNumOfHeaderLines());
+			Assert.assertTrue("The uri must start with /track", requests.get(0).uriStartsWith(bytes("/track")));
+			Assert.assertFalse("The path must not match", requests.get(0).isPath(bytes("/track")));
+			
+			Assert.assertFalse("The request must not be kept alive", requests.get(1).isKeepAlive());
+			Assert.assertTrue("The path must match", requests.get(1).isPath(bytes("/beacon")));
+			Assert.assertFalse("The path must not match", requests.get(1).isPath(bytes("/beac")));
+			
+			Assert.assertFalse("The request must not be kept alive", requests.get(2).isKeepAlive());
+			Assert.assertTrue("The path must match", requests.get(2).isPath(bytes("/metrics")));
+		} finally {
+			release(requests);
+		}
+	}
+	
+	/**
+	 * Test case for {@link RawRequestLog#append(RawHttpRequest, long)} and reading the requests using a {@link RawRequestLogCursor cursor} 
+	 */
+	@Test
+	public void testAppendAndRead() throws Exception {
+		RawRequestLog log = new RawRequestLog(configuration(64 * 1024));
+		log.open();
+		try {
+			List<RawHttpRequest> requests = decode(
+					"GET /track?ev.cr=c1&ev.tp=pi HTTP/1.1\r\nHost: localhost\r\nAccept: */*\r\nUser-Agent:  test \r\n\r\n" +
+					"GET /track?ev.cr=c2 HTTP/1.1\r\nHost: localhost\r\n\r\n");
+			try {
+				for(int i = 0; i < requests.size(); i++)
+					Assert.assertTrue("The request must be appended", log.append(requests.get(i), 1000 + i));
+			} finally {
+				release(requests);
+			}
+			Assert.assertEquals("The backlog must be 2", 2, log.getBacklog());
+			
+			RawRequestLogCursor cursor = log.cursor();
+			Assert.assertTrue("A record must be available", cursor.next());
+			Assert.assertEquals("The timestamp must be 1000", 1000, cursor.getTimestamp());
+			HttpRequest request = RawRequestLogReader.decode(cursor.getPayload(), cursor.getPayloadLength());
+			Assert.assertEquals("The uri must be equal", "/track?ev.cr=c1&ev.tp=pi", request.getUri());
+			Assert.assertEquals("The host must be localhost", "localhost", request.headers().get("Host"));
+			Assert.assertEquals("The user agent must be test", "test", request.headers().get("User-Agent"));
+			Assert.assertNull("The accept header must not be recorded", request.headers().get("Accept"));
+			
+			Assert.assertTrue("A record must be available", cursor.next());
+			Assert.assertEquals("The uri must be equal", "/track?ev.cr=c2", RawRequestLogReader.decode(cursor.getPayload(), cursor.getPayloadLength()).getUri());
+			Assert.assertFalse("No record must be available", cursor.next());
+			Assert.assertEquals("The sequence must be 2", 2, cursor.getSequence());
+			Assert.assertEquals("No record must be lost", 0, cursor.getLost());
+		} finally {
+			log.close();
+		}
+	}
+	
+	/**
+	 * Test case for {@link RawRequestLog#open()} continuing at the acknowledged position of the previous run, spanning multiple segments
+	 */
+	@Test
+	public void testReopenContinuesAtCheckpoint() throws Exception {
+		BasarTrackingServerRawIngestConfigElement configuration = configuration(RawRequestLogSegment.HEADER_SIZE + 3 * 64);
+		configuration.setMaxHeadSize(64);
+		
+		RawRequestLog log = new RawRequestLog(configuration);
+		log.open();
+		try {
+			for(int i = 0; i < 10; i++) {
+				List<RawHttpRequest> requests = decode("GET /track?id=" + i + " HTTP/1.1\r\n\r\n");
+				try {
+					Assert.assertTrue("The request must be appended", log.append(requests.get(0), i));
+				} finally {
+					release(requests);
+				}
+			}
+			RawRequestLogCursor cursor = log.cursor();
+			for(int i = 0; i < 4; i++)
+				Assert.assertTrue("A record must be available", cursor.next());
+			log.acknowledge(cursor.getSequence());
+		} finally {
+			log.close();
+		}
+		
+		log = new RawRequestLog(configuration);
+		log.open();
+		try {
+			Assert.assertEquals("The read sequence must be 4", 4, log.getReadSequence());
+			Assert.assertEquals("The next sequence must be 10", 10, log.getNextSequence());
+			RawRequestLogCursor cursor = log.cursor();
+			for(int i = 4; i < 10; i++) {
+				Assert.assertTrue("A record must be available", cursor.next());
+				Assert.assertEquals("The timestamp must be " + i, i, cursor.getTimestamp());
+				Assert.assertEquals("The uri must be equal", "/track?id=" + i, RawRequestLogReader.decode(cursor.getPayload(), cursor.getPayloadLength()).getUri());
+			}
+			Assert.assertFalse("No record must be available", cursor.next());
+			Assert.assertEquals("No record must be lost", 0, cursor.getLost());
+		} finally {
+			log.close();
+		}
+	}
+	
+	/**
+	 * Test case for {@link RawRequestLog#append(RawHttpRequest, long)} being called by several threads at once while the log rolls
+	 * its segments: each request is read exactly once and no sequence is lost
+	 */
+	@Test
+	public void testConcurrentAppend() throws Exception {
+		BasarTrackingServerRawIngestConfigElement configuration = configuration(RawRequestLogSegment.HEADER_SIZE + 16 * 64);
+		configuration.setMaxHeadSize(64);
+		configuration.setMaxSegments(Integer.MAX_VALUE);
+		
+		final int numOfThreads = 4;
+		final int numOfRequests = 1000;
+		final RawRequestLog log = new RawRequestLog(configuration);
+		log.open();
+		try {
+			final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+			Thread[] appenders = new Thread[numOfThreads];
+			for(int t = 0; t < numOfThreads; t++) {
+				final int thread = t;
+				appenders[t] = new Thread(new Runnable() {
+					public void run() {
+						try {
+							for(int i = 0; i < numOfRequests; i++) {
+								List<RawHttpRequest> requests = decode("GET /track?id=" + thread + "-" + i + " HTTP/1.1\r\n\r\n");
+								try {
+									Assert.assertTrue("The request must be appended", log.append(requests.get(0), i));
+								} finally {
+									release(requests);
+								}
+							}
+						} catch(Throwable e) {
+							errors.add(e);
+						}
+					}
+				});
+				appenders[t].start();
+			}
+			for(Thread appender : appenders)
+				appender.join();
+			Assert.assertTrue("No append must fail: " + errors, errors.isEmpty());
+			Assert.assertEquals("The next sequence must be " + (numOfThreads * numOfRequests), numOfThreads * numOfRequests, log.getNextSequence());
+			
+			Set<String> uris = new HashSet<>();
+			RawRequestLogCursor cursor = log.cursor();
+			while(cursor.next())
+				Assert.assertTrue("The request must be read once", uris.add(RawRequestLogReader.decode(cursor.getPayload(), cursor.getPayloadLength()).getUri()));
+			Assert.assertEquals("All requests must be read", numOfThreads * numOfRequests, uris.size());
+			Assert.assertEquals("No record must be lost", 0, cursor.getLost());
+		} finally {
+			log.close();
+		}
+	}
+	
+	/**
+	 * Passes the provided input through the decoder and returns the decoded requests
+	 * @param input
+	 * @return
+	 */
+	protected List<RawHttpRequest> decode(final String input) {
+		EmbeddedChannel channel = new EmbeddedChannel(new RawHttpRequestDecoder(Arrays.asList("host", "user-agent"), 8192));
+		channel.writeInbound(Unpooled.copiedBuffer(input, StandardCharsets.US_ASCII));
+		List<RawHttpRequest> requests = new ArrayList<>();
+		Object msg = null;
+		while((msg = channel.readInbound()) != null)
+			requests.add((RawHttpRequest)msg);
+		channel.finish();
+		return requests;
+	}
+	
+	/**
+	 * Releases the provided requests
+	 * @param requests
+	 */
+	protected void release(final List<RawHttpRequest> requests) {
+		for(RawHttpRequest request : requests)
+			request.release();
+	}
+	
+	protected byte[] bytes(final String s) {
+		return s.getBytes(StandardCharsets.US_ASCII);
+	}
+	
+	protected BasarTrackingServerRawIngestConfigElement configuration(final int segmentSize) throws Exception {
+		BasarTrackingServerRawIngestConfigElement configuration = new BasarTrackingServerRawIngestConfigElement();
+		configuration.setEnabled(true);
+		configuration.setDirectory(folder.newFolder().getAbsolutePath());
+		configuration.setSegmentSize(segmentSize);
+		configuration.setMaxHeadSize(4096);
+		configuration.setHeaders(Arrays.asList("host", "user-agent"));
+		return configuration;
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.Meter;
+
+/**
+ * Test case for {@link ContractorMetrics}
+ * @author mnxfst
+ * @since 02.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class ContractorMetricsTest {
+
+	/**
+	 * Test case for {@link ContractorMetrics#get(String)} being provided registered and unregistered contractors
+	 */
+	@Test
+	public void testUnregisteredContractorsShareUnknownMetric() {
+		ContractorMetrics.registerContractors(Arrays.asList("registered-1", "registered-2"));
+		ContractorMetrics<Meter> meters = ContractorMetrics.meters("test.contractor.events");
+		
+		Assert.assertSame("The meters must be equal", meters.get("registered-1"), PipelineMetrics.registry().meter(PipelineMetrics.name("test.contractor.events", "registered-1")));
+		Assert.assertNotSame("The meters must differ", meters.get("registered-1"), meters.get("registered-2"));
+		
+		Meter unknown = meters.get(ContractorMetrics.UNKNOWN_CONTRACTOR);
+		Assert.assertSame("The unknown meter must be used", unknown, meters.get(null));
+		for(int i = 0; i < 100; i++)
+			Assert.assertSame("The unknown meter must be used", unknown, meters.get("client-supplied-" + i));
+		Assert.assertFalse("The metric must not exist", PipelineMetrics.registry().getMetrics().containsKey(PipelineMetrics.name("test.contractor.events", "client-supplied-0")));
+		
+		ContractorMetrics.registerContractor("client-supplied-0");
+		Assert.assertNotSame("The meters must differ", unknown, meters.get("client-supplied-0"));
+	}
+	
+}
@@ -0,0 +1,71 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.instrumentation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import akka.actor.DeadLetter;
+import akka.dispatch.Envelope;
+import akka.testkit.JavaTestKit;
+
+import com.mnxfst.basar.tracking.AbstractBasarTrackingTest;
+import com.mnxfst.basar.tracking.instrumentation.InstrumentedBoundedMailbox.NonBlockingBoundedMessageQueue;
+
+/**
+ * Test case for {@link InstrumentedBoundedMailbox}
+ * @author mnxfst
+ * @since 02.12.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class InstrumentedBoundedMailboxTest extends AbstractBasarTrackingTest {
+
+	/**
+	 * Test case for {@link NonBlockingBoundedMessageQueue#enqueue(akka.actor.ActorRef, Envelope)} being provided more 
+	 * messages than the capacity allows
+	 */
+	@Test
+	public void testDropWithoutBlocking() {
+		new JavaTestKit(system) {{
+			system.eventStream().subscribe(getRef(), DeadLetter.class);
+			NonBlockingBoundedMessageQueue queue = new NonBlockingBoundedMessageQueue(2, system);
+			
+			queue.enqueue(getRef(), Envelope.apply("a", getRef(), system));
+			queue.enqueue(getRef(), Envelope.apply("b", getRef(), system));
+			Assert.assertEquals("The number of messages must be 2", 2, queue.numberOfMessages());
+			
+			// each dropped message must return immediately instead of waiting for a push timeout
+			final long start = System.nanoTime();
+			for(int i = 0; i < 1000; i++)
+				queue.enqueue(getRef(), Envelope.apply("c", getRef(), system));
+			Assert.assertTrue("Dropping messages must not block", System.nanoTime() - start < 500000000L);
+			Assert.assertEquals("The number of messages must be 2", 2, queue.numberOfMessages());
+			Assert.assertEquals("The dropped message must be c", "c", expectMsgClass(DeadLetter.class).message());
+			
+			Assert.assertEquals("The message must be a", "a", queue.dequeue().message());
+			Assert.assertEquals("The message must be b", "b", queue.dequeue().message());
+			Assert.assertNull("The queue must be empty", queue.dequeue());
+			Assert.assertFalse("The queue must be empty", queue.hasMessages());
+			
+			queue.enqueue(getRef(), Envelope.apply("d", getRef(), system));
+			Assert.assertEquals("The number of messages must be 1", 1, queue.numberOfMessages());
+			system.eventStream().unsubscribe(getRef());
+		}};
+	}
+	
+}
@@ -0,0 +1,253 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.mnxfst.basar.tracking.config.BasarTrackingServerJournalConfigElement;
+import com.mnxfst.basar.tracking.model.TrackingEvent;
+import com.mnxfst.basar.tracking.overload.OverloadSignal;
+
+/**
+ * Test case for {@link EventJournal}
+ * @author mnxfst
+ * @since 29.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class EventJournalTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	
+	/**
+	 * Test case for {@link EventJournal#acknowledge(long)} being provided sequences out of order
+	 */
+	@Test
+	public void testAcknowledgeOutOfOrder() throws Exception {
+		EventJournal journal = new EventJournal(configuration(1024 * 1024));
+		journal.open();
+		try {
+			for(int i = 0; i < 4; i++)
+				Assert.assertEquals("The sequence must be " + i, i, journal.append(event(i)));
+			Assert.assertEquals("The unacknowledged events must be 4", 4, journal.getUnacknowledged());
+			
+			journal.acknowledge(2);
+			Assert.assertEquals("The low-water mark must be 0", 0, journal.getLowWaterMark());
+			journal.acknowledge(0);
+			Assert.assertEquals("The low-water mark must be 1", 1, journal.getLowWaterMark());
+			journal.acknowledge(new long[]{1, 3, 0}, 2);
+			Assert.assertEquals("The low-water mark must be 4", 4, journal.getLowWaterMark());
+			journal.acknowledge(0);
+			journal.acknowledge(-1);
+			Assert.assertEquals("The acknowledged events must be 4", 4, journal.getAcknowledged());
+			Assert.assertEquals("The unacknowledged events must be 0", 0, journal.getUnacknowledged());
+		} finally {
+			journal.close();
+		}
+	}
+	
+	/**
+	 * Test case for {@link EventJournal#replay(JournalReplayHandler)} handing over the events left unacknowledged by a previous run
+	 */
+	@Test
+	public void testReplayUnacknowledged() throws Exception {
+		EventJournal journal = new EventJournal(configuration(1024 * 1024));
+		journal.open();
+		for(int i = 0; i < 3; i++)
+			journal.append(event(i));
+		journal.acknowledge(0);
+		journal.close();
+		final String instanceId = journal.getInstanceId();
+		Assert.assertNotNull("The instance id must not be null", instanceId);
+		
+		journal = new EventJournal(configuration(1024 * 1024));
+		journal.open();
+		try {
+			Assert.assertEquals("The instance id must be kept", instanceId, journal.getInstanceId());
+			Assert.assertEquals("The recovered events must be 2", 2, journal.getRecoveredCount());
+			Assert.assertEquals("The next sequence must be 3", 3, journal.getNextSequence());
+			
+			final List<TrackingEvent> replayed = new ArrayList<>();
+			Assert.assertEquals("The replayed events must be 2", 2, journal.replay(new JournalReplayHandler() {
+				public void onEvent(TrackingEvent trackingEvent) {
+					replayed.add(trackingEvent);
+				}
+			}));
+			
+			Assert.assertEquals("The replayed events must be 2", 2, replayed.size());
+			for(int i = 0; i < 2; i++) {
+				TrackingEvent expected = event(i + 1);
+				TrackingEvent trackingEvent = replayed.get(i);
+				Assert.assertEquals("The sequence must be " + (i + 1), i + 1, trackingEvent.getJournalSequence());
+				Assert.assertEquals("The type must be equal", expected.getType(), trackingEvent.getType());
+				Assert.assertEquals("The contractor must be equal", expected.getContractor(), trackingEvent.getContractor());
+				Assert.assertNull("The source must be null", trackingEvent.getSource());
+				Assert.assertEquals("The timestamp must be equal", expected.getTimestamp(), trackingEvent.getTimestamp());
+				Assert.assertEquals("The parameters must be equal", expected.getParameters(), trackingEvent.getParameters());
+			}
+			
+			journal.acknowledge(new long[]{2, 1}, 2);
+			Assert.assertEquals("The low-water mark must be 3", 3, journal.getLowWaterMark());
+		} finally {
+			journal.close();
+		}
+	}
+	
+	/**
+	 * Test case for {@link EventJournal#append(TrackingEvent)} rolling over full segments and {@link EventJournal#close()} 
+	 * deleting those holding acknowledged events only
+	 */
+	@Test
+	public void testSegmentRolling() throws Exception {
+		EventJournal journal = new EventJournal(configuration(512));
+		journal.open();
+		for(int i = 0; i < 20; i++)
+			journal.append(event(i));
+		Assert.assertTrue("The journal must consist of multiple segments", segments().length > 2);
+		for(int i = 0; i < 19; i++)
+			journal.acknowledge(i);
+		journal.close();
+		
+		Assert.assertEquals("The unacknowledged event must be kept in a single segment", 1, segments().length);
+		
+		journal = new EventJournal(configuration(512));
+		journal.open();
+		try {
+			Assert.assertEquals("The recovered events must be 1", 1, journal.getRecoveredCount());
+			Assert.assertEquals("The next sequence must be 20", 20, journal.getNextSequence());
+			journal.discardRecovered();
+			Assert.assertEquals("The low-water mark must be 20", 20, journal.getLowWaterMark());
+		} finally {
+			journal.close();
+		}
+		Assert.assertEquals("The active segment must be kept only", 1, segments().length);
+	}
+	
+	/**
+	 * Test case for a sequence which is never acknowledged: it holds back the low-water mark, appending waits and signals an 
+	 * overload as soon as the acknowledgement window is exhausted and {@link EventJournal#redeliver(long, long, int, JournalReplayHandler)} hands it over 
+	 * until it is acknowledged
+	 */
+	@Test
+	public void testNeverAcknowledgedSequence() throws Exception {
+		BasarTrackingServerJournalConfigElement configuration = configuration(512);
+		configuration.setMaxUnacknowledged(64);
+		EventJournal journal = new EventJournal(configuration);
+		journal.open();
+		try {
+			for(int i = 0; i < 64; i++)
+				journal.append(event(i));
+			for(int i = 1; i < 64; i++)
+				journal.acknowledge(i);
+			Assert.assertEquals("The low-water mark must be 0", 0, journal.getLowWaterMark());
+			Assert.assertFalse("The sequence must not be acknowledged", journal.isAcknowledged(0));
+			Assert.assertTrue("The sequence must be acknowledged", journal.isAcknowledged(63));
+			
+			final OverloadSignal overloadSignal = new OverloadSignal(1000);
+			journal.setOverloadSignal(overloadSignal);
+			final EventJournal appendingJournal = journal;
+			final AtomicLong appendedSequence = new AtomicLong(-1);
+			Thread appender = new Thread(new Runnable() {
+				public void run() {
+					try {
+						appendedSequence.set(appendingJournal.append(event(64)));
+					} catch(IOException e) {
+						// 
+					}
+				}
+			});
+			appender.start();
+			appender.join(200);
+			Assert.assertTrue("Appending must wait as the acknowledgement window is exhausted", appender.isAlive());
+			Assert.assertTrue("The overload must be signalled", overloadSignal.isOverloaded());
+			Assert.assertEquals("The next sequence must be 64", 64, journal.getNextSequence());
+			
+			final List<TrackingEvent> redelivered = new ArrayList<>();
+			JournalReplayHandler handler = new JournalReplayHandler() {
+				public void onEvent(TrackingEvent trackingEvent) {
+					redelivered.add(trackingEvent);
+				}
+			};
+			Assert.assertEquals("The redelivered events must be 1", 1, journal.redeliver(0, journal.getNextSequence(), 100, handler));
+			Assert.assertEquals("The sequence must be 0", 0, redelivered.get(0).getJournalSequence());
+			Assert.assertEquals("The contractor must be equal", event(0).getContractor(), redelivered.get(0).getContractor());
+			
+			journal.acknowledge(redelivered.get(0).getJournalSequence());
+			appender.join(5000);
+			Assert.assertFalse("Appending must continue", appender.isAlive());
+			Assert.assertEquals("The sequence must be 64", 64, appendedSequence.get());
+			Assert.assertEquals("The low-water mark must be 64", 64, journal.getLowWaterMark());
+			Assert.assertEquals("The redelivered events must be 0", 0, journal.redeliver(0, 64, 100, handler));
+		} finally {
+			journal.close();
+		}
+		Assert.assertEquals("The segment holding the unacknowledged event must be kept only", 1, segments().length);
+	}
+	
+	/**
+	 * Returns the segment files found in the journal directory
+	 * @return
+	 */
+	protected File[] segments() {
+		List<File> segments = new ArrayList<>();
+		for(File file : folder.getRoot().listFiles()) {
+			if(JournalSegment.parseFirstSequence(file) >= 0)
+				segments.add(file);
+		}
+		return segments.toArray(new File[segments.size()]);
+	}
+	
+	/**
+	 * Returns a journal configuration pointing to the temporary folder
+	 * @param segmentSize
+	 * @return
+	 */
+	protected BasarTrackingServerJournalConfigElement configuration(final int segmentSize) {
+		BasarTrackingServerJournalConfigElement configuration = new BasarTrackingServerJournalConfigElement();
+		configuration.setEnabled(true);
+		configuration.setDirectory(folder.getRoot().getAbsolutePath());
+		configuration.setSegmentSize(segmentSize);
+		configuration.setFlushIntervalMillis(1000);
+		return configuration;
+	}
+	
+	/**
+	 * Creates a tracking event
+	 * @param idx
+	 * @return
+	 */
+	protected TrackingEvent event(final int idx) {
+		TrackingEvent trackingEvent = new TrackingEvent("pi", "http", "ctr-" + idx, "shop", null, 1385683200000L + idx);
+		trackingEvent.addParameter("url", "/products/" + idx + "?q=\u00fcber");
+		trackingEvent.addParameter("cookie", "a=1");
+		trackingEvent.addParameter("cookie", "b=2");
+		trackingEvent.getParameters().put("empty", Arrays.<String>asList());
+		return trackingEvent;
+	}
+	
+}
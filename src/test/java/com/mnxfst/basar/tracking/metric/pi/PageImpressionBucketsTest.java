@@ -0,0 +1,58 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link PageImpressionBuckets}
+ * @author mnxfst
+ * @since 21.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionBucketsTest {
+
+	/** 2013-11-21 13:47:12.345 UTC */
+	private static final long TIME = 1385041632345L;
+
+	/**
+	 * Test case for {@link PageImpressionBuckets#minuteStart(long)}, {@link PageImpressionBuckets#hourStart(long)} 
+	 * and {@link PageImpressionBuckets#dayStart(long)}
+	 */
+	@Test
+	public void testBucketStart() {
+		Assert.assertEquals("The minute must start at 13:47:00", 1385041620000L, PageImpressionBuckets.minuteStart(TIME));
+		Assert.assertEquals("The hour must start at 13:00:00", 1385038800000L, PageImpressionBuckets.hourStart(TIME));
+		Assert.assertEquals("The day must start at 00:00:00", 1384992000000L, PageImpressionBuckets.dayStart(TIME));
+		Assert.assertEquals("The bucket start must not change", 1385038800000L, PageImpressionBuckets.hourStart(1385038800000L));
+		Assert.assertEquals("The minute must start before epoch", -60000L, PageImpressionBuckets.minuteStart(-1L));
+	}
+
+	/**
+	 * Test case for {@link PageImpressionBuckets#minuteOfHour(long)} and {@link PageImpressionBuckets#hourOfDay(long)}
+	 */
+	@Test
+	public void testBucketIndex() {
+		Assert.assertEquals("The minute must be 47", 47, PageImpressionBuckets.minuteOfHour(TIME));
+		Assert.assertEquals("The hour must be 13", 13, PageImpressionBuckets.hourOfDay(TIME));
+		Assert.assertEquals("The minute must be 59", 59, PageImpressionBuckets.minuteOfHour(-1L));
+		Assert.assertEquals("The hour must be 23", 23, PageImpressionBuckets.hourOfDay(-1L));
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.metric.pi;
+
+import net.spy.memcached.CachedData;
+import net.spy.memcached.transcoders.SerializingTranscoder;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.mnxfst.basar.tracking.cache.transcoder.CompactValueTranscoder;
+
+/**
+ * Test case for {@link PageImpressionCodec} and {@link CompactValueTranscoder}
+ * @author mnxfst
+ * @since 22.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class PageImpressionCodecTest {
+
+	/**
+	 * Test case for encoding and decoding a {@link PageImpression} 
+	 */
+	@Test
+	public void testRoundTrip() {
+		CompactValueTranscoder transcoder = new CompactValueTranscoder(new PageImpressionCodec());
+		CachedData data = transcoder.encode(new PageImpression("contractor2", "start", 4711L));
+		
+		Assert.assertTrue("The value must be marked as compact", (data.getFlags() & CompactValueTranscoder.FLAG_COMPACT) != 0);
+		// type id, version, 2 length prefixed strings, count
+		Assert.assertEquals("The encoded size must be 33", 2 + 2 + 11 + 2 + 5 + 8, data.getData().length);
+		
+		PageImpression pi = (PageImpression)transcoder.decode(data);
+		Assert.assertEquals("The contractor must be contractor2", "contractor2", pi.getContractorIdentifier());
+		Assert.assertEquals("The source must be start", "start", pi.getSource());
+		Assert.assertEquals("The count must be 4711", 4711L, pi.getCount());
+	}
+	
+	/**
+	 * Test case for values without codec and values written by other clients
+	 */
+	@Test
+	public void testFallback() {
+		CompactValueTranscoder transcoder = new CompactValueTranscoder(new PageImpressionCodec());
+		CachedData data = transcoder.encode("42");
+		Assert.assertEquals("The flags must not be compact", 0, data.getFlags() & CompactValueTranscoder.FLAG_COMPACT);
+		Assert.assertEquals("The value must be 42", "42", transcoder.decode(new SerializingTranscoder().encode("42")));
+	}
+	
+	/**
+	 * Test case for registering the same codec twice
+	 */
+	@Test(expected=IllegalArgumentException.class)
+	public void testRegisterDuplicate() {
+		new CompactValueTranscoder(new PageImpressionCodec(), new PageImpressionCodec());
+	}
+	
+}
@@ -0,0 +1,62 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.model;
+
+import java.text.SimpleDateFormat;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link TimestampFormatter}
+ * @author mnxfst
+ * @since 16.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TimestampFormatterTest {
+
+	/**
+	 * Test case for {@link TimestampFormatter#TimestampFormatter(String)} being provided an empty pattern
+	 */
+	@Test
+	public void testConstructorWithEmptyPattern() {
+		try {
+			new TimestampFormatter("");
+			Assert.fail("Empty pattern provided to constructor");
+		} catch(IllegalArgumentException e) {
+			//
+		}
+	}
+
+	/**
+	 * Test case for {@link TimestampFormatter#format(long)} being provided times within the same and within different seconds
+	 */
+	@Test
+	public void testFormat() {
+		SimpleDateFormat reference = new SimpleDateFormat(TimestampFormatter.DEFAULT_PATTERN);
+		TimestampFormatter formatter = new TimestampFormatter();
+
+		long time = 1384560000000L;
+		Assert.assertEquals("The formatted values must be equal", reference.format(time), formatter.format(time));
+		Assert.assertEquals("The formatted values must be equal", reference.format(time + 999), formatter.format(time + 999));
+		Assert.assertEquals("The formatted values must be equal", reference.format(time + 1000), formatter.format(time + 1000));
+		Assert.assertEquals("The formatted values must be equal", reference.format(time - 1), formatter.format(time - 1));
+		Assert.assertEquals("The formatted values must be equal", reference.format(-1L), formatter.format(-1L));
+	}
+
+}
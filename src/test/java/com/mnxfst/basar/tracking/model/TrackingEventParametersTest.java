@@ -0,0 +1,96 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.model;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link TrackingEventParameters}
+ * @author mnxfst
+ * @since 17.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class TrackingEventParametersTest {
+
+	/**
+	 * Test case for {@link TrackingEventParameters#add(String, String)} being provided single and multiple values
+	 */
+	@Test
+	public void testAdd() {
+		TrackingEventParameters parameters = new TrackingEventParameters(1);
+		parameters.add("host", "localhost");
+		parameters.add("cookie", "a=1");
+		parameters.add("cookie", "b=2");
+		parameters.add("cookie", "c=3");
+
+		Assert.assertEquals("The size must be 2", 2, parameters.size());
+		Assert.assertEquals("The values must be equal", Arrays.asList("localhost"), parameters.get("host"));
+		Assert.assertEquals("The values must be equal", Arrays.asList("a=1", "b=2", "c=3"), parameters.get("cookie"));
+		Assert.assertEquals("The first value must be localhost", "localhost", parameters.getFirst("host"));
+		Assert.assertEquals("The first value must be a=1", "a=1", parameters.getFirst("cookie"));
+		Assert.assertNull("The parameter must not exist", parameters.get("unknown"));
+		Assert.assertNull("The parameter must not exist", parameters.getFirst("unknown"));
+	}
+
+	/**
+	 * Test case for {@link TrackingEventParameters#put(String, List)} and {@link TrackingEventParameters#remove(Object)}
+	 */
+	@Test
+	public void testPutAndRemove() {
+		TrackingEventParameters parameters = new TrackingEventParameters();
+		Assert.assertNull("No previous value expected", parameters.put("a", Arrays.asList("1")));
+		parameters.put("b", Arrays.asList("2", "3"));
+		parameters.put("c", Arrays.asList("4"));
+
+		Assert.assertEquals("The previous values must be equal", Arrays.asList("1"), parameters.put("a", Arrays.asList("5", "6")));
+		Assert.assertEquals("The values must be equal", Arrays.asList("5", "6"), parameters.get("a"));
+
+		Assert.assertEquals("The removed values must be equal", Arrays.asList("2", "3"), parameters.remove("b"));
+		Assert.assertEquals("The size must be 2", 2, parameters.size());
+		Assert.assertFalse("The parameter must not exist", parameters.containsKey("b"));
+		Assert.assertEquals("The values must be equal", Arrays.asList("4"), parameters.get("c"));
+	}
+
+	/**
+	 * Test case for {@link TrackingEventParameters#entrySet()}
+	 */
+	@Test
+	public void testEntrySet() {
+		TrackingEventParameters parameters = new TrackingEventParameters();
+		parameters.add("a", "1");
+		parameters.add("b", "2");
+		parameters.add("c", "3");
+
+		for(Iterator<Map.Entry<String, List<String>>> iter = parameters.entrySet().iterator(); iter.hasNext();) {
+			if(iter.next().getKey().equals("b"))
+				iter.remove();
+		}
+
+		Assert.assertEquals("The size must be 2", 2, parameters.size());
+		Assert.assertEquals("The value must be 1", "1", parameters.getFirst("a"));
+		Assert.assertEquals("The value must be 3", "3", parameters.getFirst("c"));
+		Assert.assertEquals("The maps must be equal", parameters, new java.util.HashMap<String, List<String>>(parameters));
+	}
+
+}
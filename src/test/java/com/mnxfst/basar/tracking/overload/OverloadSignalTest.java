@@ -0,0 +1,58 @@
+/**
+ * basar - enhanced electronic marketplace
+ * Copyright (C) 2013 Christian Kreutzfeldt
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.mnxfst.basar.tracking.overload;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test case for {@link OverloadSignal}
+ * @author mnxfst
+ * @since 25.11.2013
+ *
+ * Revision Control Info $Id$
+ */
+public class OverloadSignalTest {
+
+	/**
+	 * Test case for {@link OverloadSignal#signal(long)} and {@link OverloadSignal#isOverloaded(long)}
+	 */
+	@Test
+	public void testSignal() {
+		OverloadSignal signal = new OverloadSignal(1000);
+		Assert.assertFalse("The pipeline must not be overloaded", signal.isOverloaded(5000));
+		
+		Assert.assertTrue("The first signal must report a new overload", signal.signal(5000));
+		Assert.assertTrue("The pipeline must be overloaded", signal.isOverloaded(5000));
+		Assert.assertTrue("The pipeline must be overloaded", signal.isOverloaded(5999));
+		Assert.assertFalse("The pipeline must not be overloaded", signal.isOverloaded(6000));
+		
+		// further signals extend the overload
+		Assert.assertFalse("A further signal must not report a new overload", signal.signal(5500));
+		Assert.assertTrue("The pipeline must be overloaded", signal.isOverloaded(6499));
+		Assert.assertFalse("The pipeline must not be overloaded", signal.isOverloaded(6500));
+		
+		// signals received late must not shorten the overload
+		signal.signal(5100);
+		Assert.assertTrue("The pipeline must be overloaded", signal.isOverloaded(6499));
+		
+		Assert.assertEquals("The number of signals must be 3", 3, signal.getNumOfSignals());
+		signal.requestRejected();
+		Assert.assertEquals("The number of rejected requests must be 1", 1, signal.getNumOfRejectedRequests());
+	}
+
+}